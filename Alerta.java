@@ -0,0 +1,64 @@
+// ═══════════════════════════════════════════════════════════════
+// CLASSE ALERTA - Para testes locais
+// IMPORTANTE: Na entrega final do JAR, use a classe do analise-forense-api.jar
+// e remova esta classe local!
+// ═══════════════════════════════════════════════════════════════
+class Alerta {
+    private final long timestamp;
+    private final String userId;
+    private final String sessionId;
+    private final String actionType;
+    private final String targetResource;
+    private final int severityLevel;
+    private final long bytesTransferred;
+
+    /**
+     * Construtor da classe Alerta
+     */
+    public Alerta(long timestamp, String userId, String sessionId,
+                  String actionType, String targetResource,
+                  int severityLevel, long bytesTransferred) {
+        this.timestamp = timestamp;
+        this.userId = userId;
+        this.sessionId = sessionId;
+        this.actionType = actionType;
+        this.targetResource = targetResource;
+        this.severityLevel = severityLevel;
+        this.bytesTransferred = bytesTransferred;
+    }
+
+    // Getters
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public String getActionType() {
+        return actionType;
+    }
+
+    public String getTargetResource() {
+        return targetResource;
+    }
+
+    public int getSeverityLevel() {
+        return severityLevel;
+    }
+
+    public long getBytesTransferred() {
+        return bytesTransferred;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Alerta[timestamp=%d, user=%s, session=%s, action=%s, resource=%s, severity=%d, bytes=%d]",
+            timestamp, userId, sessionId, actionType, targetResource, severityLevel, bytesTransferred);
+    }
+}
@@ -0,0 +1,429 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Formato Colunar Binário do log forense
+ *
+ * Converte o CSV (TIMESTAMP,USER_ID,...,BYTES_TRANSFERRED) em um arquivo
+ * binário que pode ser mapeado direto na memória por
+ * {@link RepositorioEventosMapeado}, sem nenhum parsing na abertura.
+ *
+ * Layout (little-endian, seções alinhadas em 8 bytes):
+ * <pre>
+ * CABEÇALHO (160 bytes)
+ *   0  "AFCOLUN1"        identificador do formato
+ *   8  int   versão
+ *   12 int   reservado
+ *   16 long  número de linhas
+ *   24 long  menor TIMESTAMP (linhas completas)
+ *   32 long  maior TIMESTAMP (linhas completas)
+ *   40 long[15] posição de cada seção no arquivo
+ * COLUNAS DE TAMANHO FIXO
+ *   TIMESTAMP (long), BYTES_TRANSFERRED (long), SEVERITY_LEVEL (int),
+ *   USER_ID, SESSION_ID, ACTION_TYPE, TARGET_RESOURCE (int = id no dicionário),
+ *   linhas completas (bitmap de longs),
+ *   linhas com TIMESTAMP e BYTES_TRANSFERRED válidos (bitmap de longs),
+ *   linhas do grafo do Desafio 5 (bitmap de longs)
+ * CAMPOS ORIGINAIS (ver {@link CamposOriginais#gravar()})
+ * DICIONÁRIOS (um por coluna de texto)
+ *   int quantidade, int reservado, int[quantidade + 1] deslocamentos, bytes UTF-8
+ * </pre>
+ *
+ * As linhas seguem exatamente as regras do {@link RepositorioEventos}, então
+ * os desafios produzem o mesmo resultado com o CSV ou com o arquivo colunar.
+ * Arquivos da versão 1 (sem o bitmap de transferências) continuam sendo
+ * abertos; neles o Desafio 4 usa só as linhas completas. As versões 1 e 2
+ * não têm as linhas do grafo nem os campos originais: nelas o Desafio 5
+ * usa as linhas completas, com os valores aparados.
+ */
+public class ArquivoColunar {
+
+    static final byte[] IDENTIFICADOR = "AFCOLUN1".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSAO = 3;
+    static final int TAMANHO_CABECALHO = 160;
+
+    // Ordem das seções no cabeçalho
+    static final int SECAO_TIMESTAMPS = 0;
+    static final int SECAO_BYTES = 1;
+    static final int SECAO_SEVERIDADES = 2;
+    static final int SECAO_USUARIOS = 3;
+    static final int SECAO_SESSOES = 4;
+    static final int SECAO_ACOES = 5;
+    static final int SECAO_RECURSOS = 6;
+    static final int SECAO_COMPLETAS = 7;
+    static final int SECAO_TRANSFERENCIAS = 8;
+    static final int SECAO_GRAFO = 9;
+    static final int SECAO_ORIGINAIS = 10;
+    static final int SECAO_DIC_USUARIOS = 11;
+    static final int SECAO_DIC_SESSOES = 12;
+    static final int SECAO_DIC_ACOES = 13;
+    static final int SECAO_DIC_RECURSOS = 14;
+    static final int TOTAL_SECOES = 15;
+
+    private static final int TAMANHO_BUFFER = 1 << 20;
+
+    /**
+     * Verifica, pelos primeiros bytes, se o arquivo está no formato colunar.
+     *
+     * @param caminhoArquivo Caminho do arquivo
+     * @return true se for um arquivo colunar; false para CSV ou arquivo inexistente
+     */
+    public static boolean ehArquivoColunar(String caminhoArquivo) {
+        Path arquivo = Paths.get(caminhoArquivo);
+        if (!Files.isRegularFile(arquivo)) {
+            return false;
+        }
+
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            ByteBuffer inicio = ByteBuffer.allocate(IDENTIFICADOR.length);
+            while (inicio.hasRemaining() && canal.read(inicio) > 0) {
+                // Lê até completar o identificador ou acabar o arquivo
+            }
+            return !inicio.hasRemaining() && inicio.flip().equals(ByteBuffer.wrap(IDENTIFICADOR));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Converte o CSV de logs para o formato colunar binário.
+     *
+     * O CSV é lido uma única vez; cada coluna vai para um arquivo temporário
+     * e no final tudo é juntado no arquivo de destino. Só os dicionários
+     * ficam em memória, então o conversor aceita logs maiores que o heap.
+     *
+     * @param caminhoCsv     CSV de origem
+     * @param caminhoDestino Arquivo colunar a ser criado (sobrescrito se existir)
+     * @return Número de linhas gravadas
+     * @throws IOException Se houver erro de leitura ou gravação
+     */
+    public static long converter(String caminhoCsv, String caminhoDestino) throws IOException {
+        Path destino = Paths.get(caminhoDestino).toAbsolutePath();
+        Path pastaTemporaria = Files.createTempDirectory(destino.getParent(), ".colunar-");
+
+        EscritorColuna[] colunas = new EscritorColuna[SECAO_GRAFO + 1];
+        try {
+            for (int i = 0; i < colunas.length; i++) {
+                colunas[i] = new EscritorColuna(pastaTemporaria.resolve("coluna-" + i));
+            }
+
+            Dicionario[] dicionarios = { new Dicionario(256), new Dicionario(1024), new Dicionario(16), new Dicionario(1024) };
+
+            long linhas = 0;
+            long menorTimestamp = Long.MAX_VALUE;
+            long maiorTimestamp = Long.MIN_VALUE;
+            long palavraCompletas = 0;
+            long palavraTransferencias = 0;
+            long palavraGrafo = 0;
+            CamposOriginais originais = new CamposOriginais();
+
+            try (LeitorCsvMapeado leitor = new LeitorCsvMapeado(caminhoCsv)) {
+                leitor.proximaLinha(); // Ignora o cabeçalho
+
+                while (leitor.proximaLinha()) {
+                    if (leitor.numeroCampos() < 4) continue;
+
+                    long timestamp = 0;
+                    int severidade = 0;
+                    long quantidadeBytes = 0;
+                    boolean completa = false;
+                    boolean transferencia = false;
+                    boolean doGrafo = false;
+
+                    // Mesmas regras de RepositorioEventosMemoria
+                    if (leitor.numeroCamposPreenchidos() >= 7) {
+                        try {
+                            long t = leitor.campoLong(0);
+                            long b = leitor.campoVazio(6) ? 0 : leitor.campoLong(6);
+                            timestamp = t;
+                            quantidadeBytes = b;
+                            transferencia = true;
+                            if (!leitor.campoVazio(6)) {
+                                severidade = leitor.campoInt(5);
+                                completa = true;
+                                doGrafo = GrafoContaminacao.numerosSemEspacos(leitor);
+                            }
+                        } catch (NumberFormatException e) {
+                            // Linha incompleta
+                        }
+                    }
+
+                    colunas[SECAO_TIMESTAMPS].long64(timestamp);
+                    colunas[SECAO_BYTES].long64(quantidadeBytes);
+                    colunas[SECAO_SEVERIDADES].int32(severidade);
+                    colunas[SECAO_USUARIOS].int32(dicionarios[0].adicionar(leitor, 1));
+                    colunas[SECAO_SESSOES].int32(dicionarios[1].adicionar(leitor, 2));
+                    colunas[SECAO_ACOES].int32(dicionarios[2].adicionar(leitor, 3));
+                    colunas[SECAO_RECURSOS].int32(leitor.numeroCampos() > 4
+                            ? dicionarios[3].adicionar(leitor, 4) : dicionarios[3].adicionar(""));
+
+                    if (completa) {
+                        palavraCompletas |= 1L << (linhas & 63);
+                        menorTimestamp = Math.min(menorTimestamp, timestamp);
+                        maiorTimestamp = Math.max(maiorTimestamp, timestamp);
+                    }
+                    if (transferencia) {
+                        palavraTransferencias |= 1L << (linhas & 63);
+                    }
+                    if (doGrafo) {
+                        palavraGrafo |= 1L << (linhas & 63);
+                        originais.adicionar((int) linhas, leitor);
+                    }
+                    linhas++;
+                    if ((linhas & 63) == 0) {
+                        colunas[SECAO_COMPLETAS].long64(palavraCompletas);
+                        colunas[SECAO_TRANSFERENCIAS].long64(palavraTransferencias);
+                        colunas[SECAO_GRAFO].long64(palavraGrafo);
+                        palavraCompletas = 0;
+                        palavraTransferencias = 0;
+                        palavraGrafo = 0;
+                    }
+                }
+            }
+            if ((linhas & 63) != 0) {
+                colunas[SECAO_COMPLETAS].long64(palavraCompletas);
+                colunas[SECAO_TRANSFERENCIAS].long64(palavraTransferencias);
+                colunas[SECAO_GRAFO].long64(palavraGrafo);
+            }
+
+            if (linhas > Integer.MAX_VALUE) {
+                throw new IOException("Log com mais de " + Integer.MAX_VALUE + " linhas nao e suportado");
+            }
+            if (menorTimestamp > maiorTimestamp) {
+                menorTimestamp = 0;
+                maiorTimestamp = 0;
+            }
+
+            for (EscritorColuna coluna : colunas) {
+                coluna.esvaziar();
+            }
+
+            juntar(destino, linhas, menorTimestamp, maiorTimestamp, colunas, originais, dicionarios);
+            return linhas;
+
+        } finally {
+            for (EscritorColuna coluna : colunas) {
+                if (coluna != null) {
+                    coluna.close();
+                    Files.deleteIfExists(coluna.arquivo);
+                }
+            }
+            Files.deleteIfExists(pastaTemporaria);
+        }
+    }
+
+    /**
+     * Grava cabeçalho + colunas temporárias + campos originais + dicionários no arquivo final.
+     */
+    private static void juntar(Path destino, long linhas, long menorTimestamp, long maiorTimestamp,
+                               EscritorColuna[] colunas, CamposOriginais originais,
+                               Dicionario[] dicionarios) throws IOException {
+        try (FileChannel saida = FileChannel.open(destino, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            long[] posicoes = new long[TOTAL_SECOES];
+            long posicao = TAMANHO_CABECALHO;
+
+            for (int i = 0; i < colunas.length; i++) {
+                posicoes[i] = posicao;
+                FileChannel origem = colunas[i].canal;
+                long tamanho = origem.size();
+                long copiado = 0;
+                while (copiado < tamanho) {
+                    copiado += origem.transferTo(copiado, tamanho - copiado, saida.position(posicao + copiado));
+                }
+                posicao = alinhar(posicao + tamanho);
+            }
+
+            posicoes[SECAO_ORIGINAIS] = posicao;
+            posicao = alinhar(gravarTudo(saida, originais.gravar(), posicao));
+
+            for (int i = 0; i < dicionarios.length; i++) {
+                posicoes[SECAO_DIC_USUARIOS + i] = posicao;
+                posicao = alinhar(gravarDicionario(saida, posicao, dicionarios[i]));
+            }
+
+            ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO).order(ByteOrder.LITTLE_ENDIAN);
+            cabecalho.put(IDENTIFICADOR);
+            cabecalho.putInt(VERSAO);
+            cabecalho.putInt(0);
+            cabecalho.putLong(linhas);
+            cabecalho.putLong(menorTimestamp);
+            cabecalho.putLong(maiorTimestamp);
+            for (long p : posicoes) {
+                cabecalho.putLong(p);
+            }
+            cabecalho.flip();
+            while (cabecalho.hasRemaining()) {
+                saida.write(cabecalho, cabecalho.position());
+            }
+
+            saida.truncate(posicao);
+        }
+    }
+
+    /**
+     * Grava um dicionário a partir de {@code posicao}:
+     * int quantidade, int reservado, int[quantidade + 1] deslocamentos, bytes UTF-8.
+     *
+     * @return Posição logo depois do último byte gravado
+     */
+    static long gravarDicionario(FileChannel saida, long posicao, Dicionario dicionario) throws IOException {
+        int quantidade = dicionario.tamanho();
+        byte[][] valores = new byte[quantidade][];
+        long totalBytes = 0;
+        for (int id = 0; id < quantidade; id++) {
+            valores[id] = dicionario.valor(id).getBytes(StandardCharsets.UTF_8);
+            totalBytes += valores[id].length;
+        }
+        if (totalBytes > Integer.MAX_VALUE) {
+            throw new IOException("Dicionario maior que 2 GB nao e suportado");
+        }
+
+        ByteBuffer indice = ByteBuffer.allocate(8 + 4 * (quantidade + 1)).order(ByteOrder.LITTLE_ENDIAN);
+        indice.putInt(quantidade);
+        indice.putInt(0);
+        int deslocamento = 0;
+        indice.putInt(deslocamento);
+        for (byte[] valor : valores) {
+            deslocamento += valor.length;
+            indice.putInt(deslocamento);
+        }
+        indice.flip();
+        posicao = gravarTudo(saida, indice, posicao);
+
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_BUFFER);
+        for (byte[] valor : valores) {
+            if (buffer.remaining() < valor.length) {
+                buffer.flip();
+                posicao = gravarTudo(saida, buffer, posicao);
+                buffer.clear();
+            }
+            if (valor.length > buffer.capacity()) {
+                posicao = gravarTudo(saida, ByteBuffer.wrap(valor), posicao);
+            } else {
+                buffer.put(valor);
+            }
+        }
+        buffer.flip();
+        return gravarTudo(saida, buffer, posicao);
+    }
+
+    static long gravarTudo(FileChannel saida, ByteBuffer buffer, long posicao) throws IOException {
+        while (buffer.hasRemaining()) {
+            posicao += saida.write(buffer, posicao);
+        }
+        return posicao;
+    }
+
+    /**
+     * Mapeia uma seção de dicionário gravada por {@link #gravarDicionario}.
+     */
+    static ByteBuffer mapearDicionario(FileChannel canal, long posicao) throws IOException {
+        ByteBuffer inicio = canal.map(FileChannel.MapMode.READ_ONLY, posicao, 8).order(ByteOrder.LITTLE_ENDIAN);
+        int quantidade = inicio.getInt(0);
+        long tamanhoIndice = 8 + 4L * (quantidade + 1);
+        int tamanhoTexto = canal.map(FileChannel.MapMode.READ_ONLY, posicao + tamanhoIndice - 4, 4)
+                .order(ByteOrder.LITTLE_ENDIAN).getInt(0);
+        return canal.map(FileChannel.MapMode.READ_ONLY, posicao, tamanhoIndice + tamanhoTexto)
+                .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Decodifica uma seção de dicionário (mapeada por {@link #mapearDicionario}).
+     * Os ids são preservados: o valor i do arquivo recebe o id i.
+     */
+    static Dicionario lerDicionario(ByteBuffer dados) {
+        int quantidade = dados.getInt(0);
+        int inicioTexto = 8 + 4 * (quantidade + 1);
+
+        Dicionario dicionario = new Dicionario(Math.max(quantidade, 16));
+        byte[] rascunho = new byte[256];
+        for (int id = 0; id < quantidade; id++) {
+            int inicio = dados.getInt(8 + 4 * id);
+            int tamanho = dados.getInt(8 + 4 * (id + 1)) - inicio;
+            if (tamanho > rascunho.length) {
+                rascunho = new byte[tamanho * 2];
+            }
+            dados.get(inicioTexto + inicio, rascunho, 0, tamanho);
+            dicionario.adicionar(new String(rascunho, 0, tamanho, StandardCharsets.UTF_8));
+        }
+        return dicionario;
+    }
+
+    static long alinhar(long posicao) {
+        return (posicao + 7) & ~7L;
+    }
+
+    /**
+     * Coluna temporária gravada com buffer de 1 MB.
+     */
+    private static class EscritorColuna implements AutoCloseable {
+        final Path arquivo;
+        final FileChannel canal;
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANHO_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+
+        EscritorColuna(Path arquivo) throws IOException {
+            this.arquivo = arquivo;
+            this.canal = FileChannel.open(arquivo, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        void long64(long valor) throws IOException {
+            if (buffer.remaining() < 8) esvaziar();
+            buffer.putLong(valor);
+        }
+
+        void int32(int valor) throws IOException {
+            if (buffer.remaining() < 4) esvaziar();
+            buffer.putInt(valor);
+        }
+
+        void esvaziar() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            canal.close();
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // CONVERSOR - LINHA DE COMANDO
+    // ═══════════════════════════════════════════════════════════════
+    public static void main(String[] args) {
+        String origem = args.length > 0 ? args[0] : "analise-forense-aed.jar";
+        String destino = args.length > 1 ? args[1] : origem + ".col";
+
+        System.out.println("===========================================================");
+        System.out.println("=        CONVERSOR: CSV -> FORMATO COLUNAR BINARIO        =");
+        System.out.println("===========================================================\n");
+
+        try {
+            long inicio = System.nanoTime();
+            long linhas = converter(origem, destino);
+            long fim = System.nanoTime();
+
+            System.out.println("Origem: " + origem);
+            System.out.println("Destino: " + destino);
+            System.out.println("Linhas gravadas: " + linhas);
+            System.out.printf("Tempo de conversao: %.3f ms%n", (fim - inicio) / 1_000_000.0);
+            System.out.println("===========================================================");
+
+        } catch (IOException e) {
+            System.err.println("Erro: " + e.getMessage());
+        }
+    }
+}
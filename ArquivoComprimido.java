@@ -0,0 +1,785 @@
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Logs comprimidos (gzip e gzip em blocos)
+ *
+ * Qualquer log ".gz" pode ser lido direto pelas análises: o
+ * {@link LeitorCsvMapeado} descomprime em memória enquanto lê, sem gravar o
+ * CSV descomprimido no disco. As posições (de linha, de bloco, dos índices)
+ * são sempre posições no texto DESCOMPRIMIDO.
+ *
+ * Dois formatos:
+ * - gzip comum: só pode ser lido em sequência, por uma thread
+ *   (o deflate não tem pontos de reinício)
+ * - gzip em blocos (no estilo do BGZF): o log é cortado em pedaços de até
+ *   {@link #TAMANHO_BLOCO} bytes, cada um comprimido como um membro gzip
+ *   independente, com o tamanho do membro no campo extra "BC". O arquivo
+ *   continua sendo um .gz válido (gunzip/zcat leem normalmente), mas cada
+ *   bloco pode ser descomprimido sozinho: isso permite acesso aleatório e
+ *   descompressão paralela
+ *
+ * O índice dos blocos fica em "&lt;log&gt;.gzi" (mesmo formato do bgzip -i:
+ * long quantidade e pares (posição comprimida, posição descomprimida) de
+ * cada bloco depois do primeiro, little-endian). Se ele não existir ou for
+ * mais antigo que o log, é refeito pulando de cabeçalho em cabeçalho.
+ *
+ * Só usa o Deflater/Inflater do JDK.
+ */
+public class ArquivoComprimido {
+
+    /** Máximo de bytes descomprimidos por bloco (mesmo valor do BGZF) */
+    static final int TAMANHO_BLOCO = 0xff00;
+    static final String EXTENSAO_INDICE = ".gzi";
+
+    // Um membro gzip em blocos nunca passa de 64 KB (o BSIZE tem 16 bits)
+    private static final int MAXIMO_BLOCO_COMPRIMIDO = 1 << 16;
+    private static final int TAMANHO_CABECALHO = 18;
+    private static final int TAMANHO_RODAPE = 8;
+
+    // Bloco vazio que marca o fim do arquivo (o mesmo do BGZF)
+    private static final byte[] BLOCO_FIM = {
+        0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0, 'B', 'C', 2, 0,
+        0x1b, 0, 3, 0, 0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    // Pool das threads de descompressão antecipada (daemon: não segura a JVM)
+    private static final int NUCLEOS = Runtime.getRuntime().availableProcessors();
+    private static volatile ExecutorService poolDescompressao;
+
+    private ArquivoComprimido() {
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // IDENTIFICAÇÃO
+    // ═══════════════════════════════════════════════════════════════
+
+    /** @return true se o arquivo começa com a assinatura do gzip (1f 8b) */
+    public static boolean ehComprimido(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            ByteBuffer assinatura = ByteBuffer.allocate(2);
+            while (assinatura.hasRemaining()) {
+                if (canal.read(assinatura, assinatura.position()) < 0) return false;
+            }
+            return assinatura.get(0) == 0x1f && assinatura.get(1) == (byte) 0x8b;
+        }
+    }
+
+    /** @see #ehComprimido(Path) */
+    public static boolean ehComprimido(String caminhoArquivo) throws IOException {
+        return ehComprimido(Paths.get(caminhoArquivo));
+    }
+
+    /**
+     * @return true se dá para começar a ler o arquivo de qualquer posição sem
+     *         descomprimir o que vem antes (CSV comum ou gzip em blocos)
+     */
+    public static boolean permiteAcessoAleatorio(Path arquivo) throws IOException {
+        return !ehComprimido(arquivo) || Blocos.abrir(arquivo) != null;
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // LEITURA
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * Abre o texto descomprimido a partir de uma posição.
+     *
+     * No gzip em blocos a leitura começa direto no bloco da posição e os
+     * blocos seguintes são descomprimidos em paralelo, à frente de quem lê.
+     * No gzip comum tudo o que vem antes da posição é descomprimido e
+     * descartado.
+     *
+     * @param arquivo Log comprimido
+     * @param inicio  Posição no texto descomprimido
+     * @param fim     Até onde se pretende ler (exclusivo; -1 para o fim):
+     *                nenhum bloco depois dele é descomprimido antecipadamente
+     * @return Fluxo do texto descomprimido
+     * @throws IOException Se o arquivo não puder ser lido
+     */
+    public static InputStream abrir(Path arquivo, long inicio, long fim) throws IOException {
+        Blocos blocos = Blocos.abrir(arquivo);
+        if (blocos != null) {
+            return new LeituraBlocos(arquivo, blocos, inicio, fim);
+        }
+
+        InputStream entrada = new GZIPInputStream(Files.newInputStream(arquivo), 1 << 16);
+        try {
+            entrada.skipNBytes(inicio);
+        } catch (EOFException e) {
+            // Posição depois do fim: o fluxo simplesmente termina
+        } catch (IOException e) {
+            entrada.close();
+            throw e;
+        }
+        return entrada;
+    }
+
+    /**
+     * Leitor de texto para quem lê o log com BufferedReader: descomprime se
+     * o arquivo for gzip, senão lê o arquivo direto (como um FileReader).
+     *
+     * @param caminhoArquivo Caminho para o log (CSV ou .gz)
+     * @return Reader do texto do log, que conta os bytes lidos
+     * @throws IOException Se o arquivo não puder ser aberto
+     */
+    public static TextoDoLog abrirTexto(String caminhoArquivo) throws IOException {
+        InputStream entrada = ehComprimido(caminhoArquivo)
+                ? abrir(Paths.get(caminhoArquivo), 0, -1)
+                : new FileInputStream(caminhoArquivo);
+        return new TextoDoLog(new ContagemBytes(entrada));
+    }
+
+    /**
+     * @return Tamanho do texto do log: o do arquivo num CSV, o descomprimido
+     *         num gzip em blocos, ou -1 num gzip comum (só descomprimindo tudo)
+     */
+    public static long tamanhoTexto(Path arquivo) throws IOException {
+        return ehComprimido(arquivo) ? tamanhoDescomprimido(arquivo) : Files.size(arquivo);
+    }
+
+    /**
+     * Texto do log aberto por {@link #abrirTexto}. Guarda quantos bytes do
+     * texto (já descomprimido) foram lidos: é o que as métricas de bytes/s
+     * devem contar, já que num .gz o tamanho do arquivo é bem menor.
+     */
+    public static final class TextoDoLog extends InputStreamReader {
+        private final ContagemBytes contagem;
+
+        private TextoDoLog(ContagemBytes contagem) {
+            super(contagem);
+            this.contagem = contagem;
+        }
+
+        /** @return Bytes do texto lidos até agora (no fim da leitura, o texto inteiro) */
+        public long bytesLidos() {
+            return contagem.bytesLidos;
+        }
+    }
+
+    private static final class ContagemBytes extends FilterInputStream {
+        long bytesLidos;
+
+        ContagemBytes(InputStream entrada) {
+            super(entrada);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) bytesLidos++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] destino, int inicio, int tamanho) throws IOException {
+            int lidos = in.read(destino, inicio, tamanho);
+            if (lidos > 0) bytesLidos += lidos;
+            return lidos;
+        }
+
+        @Override
+        public long skip(long quantidade) throws IOException {
+            long pulados = in.skip(quantidade);
+            bytesLidos += pulados;
+            return pulados;
+        }
+    }
+
+    /**
+     * @return Tamanho do texto descomprimido, ou -1 se não dá para saber sem
+     *         descomprimir tudo (gzip comum)
+     */
+    public static long tamanhoDescomprimido(Path arquivo) throws IOException {
+        Blocos blocos = Blocos.abrir(arquivo);
+        return blocos == null ? -1 : blocos.total();
+    }
+
+    /**
+     * Mesma divisão do {@link LeitorCsvMapeado#dividirEmBlocos(Path, long, int)},
+     * em posições do texto descomprimido. O gzip comum não pode ser dividido:
+     * volta um bloco só, até o fim (Long.MAX_VALUE).
+     */
+    static long[] dividirEmBlocos(Path arquivo, long inicio, int partes) throws IOException {
+        Blocos blocos = Blocos.abrir(arquivo);
+        if (blocos == null) {
+            return new long[] {inicio, Long.MAX_VALUE};
+        }
+
+        long tamanho = blocos.total();
+        long passo = Math.max(1, (tamanho - inicio) / Math.max(1, partes));
+
+        long[] limites = new long[partes + 1];
+        int quantidade = 0;
+        limites[quantidade++] = Math.min(inicio, tamanho);
+
+        for (int i = 1; i < partes; i++) {
+            long alvo = Math.max(inicio + i * passo, limites[quantidade - 1]);
+            if (alvo >= tamanho) break;
+
+            // Avança até logo depois da próxima quebra de linha
+            long limite = proximaQuebra(arquivo, blocos, alvo);
+            if (limite >= tamanho) break;
+            if (limite > limites[quantidade - 1]) {
+                limites[quantidade++] = limite;
+            }
+        }
+        limites[quantidade++] = tamanho;
+        return Arrays.copyOf(limites, quantidade);
+    }
+
+    private static long proximaQuebra(Path arquivo, Blocos blocos, long posicao) throws IOException {
+        // Começa um byte antes: se ele já é uma quebra, a posição é início de linha
+        long atual = Math.max(0, posicao - 1);
+        try (InputStream entrada = new LeituraBlocos(arquivo, blocos, atual, -1)) {
+            byte[] buffer = new byte[4096];
+            int lidos;
+            while ((lidos = entrada.read(buffer)) > 0) {
+                for (int i = 0; i < lidos; i++) {
+                    if (buffer[i] == '\n' && atual + i + 1 >= posicao) return atual + i + 1;
+                }
+                atual += lidos;
+            }
+        }
+        return blocos.total();
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // ÍNDICE DOS BLOCOS
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * Posições de cada bloco com dados: o bloco i começa em
+     * {@code inicioComprimido[i]} no arquivo e em {@code inicioDescomprimido[i]}
+     * no texto. {@code inicioDescomprimido[blocos]} é o tamanho do texto.
+     */
+    static final class Blocos {
+        private final long[] inicioComprimido;
+        private final long[] inicioDescomprimido;
+
+        private Blocos(long[] inicioComprimido, long[] inicioDescomprimido) {
+            this.inicioComprimido = inicioComprimido;
+            this.inicioDescomprimido = inicioDescomprimido;
+        }
+
+        int quantidade() {
+            return inicioComprimido.length;
+        }
+
+        long total() {
+            return inicioDescomprimido[inicioComprimido.length];
+        }
+
+        /** @return Bloco que contém a posição do texto (o último, se passar do fim) */
+        int blocoDe(long posicao) {
+            int bloco = Arrays.binarySearch(inicioDescomprimido, 0, inicioComprimido.length, posicao);
+            if (bloco < 0) bloco = -bloco - 2;
+            return Math.max(0, Math.min(bloco, inicioComprimido.length - 1));
+        }
+
+        /**
+         * Lê o índice "&lt;log&gt;.gzi" ou, se ele não servir, percorre os
+         * cabeçalhos dos blocos (e tenta gravar o índice para a próxima vez).
+         *
+         * @return Os blocos, ou null se o arquivo não é um gzip em blocos
+         */
+        static Blocos abrir(Path arquivo) throws IOException {
+            try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+                if (!ehBloco(canal, 0)) {
+                    return null;
+                }
+
+                Path arquivoIndice = Paths.get(arquivo + EXTENSAO_INDICE);
+                if (Files.exists(arquivoIndice) && !Files.getLastModifiedTime(arquivoIndice)
+                        .toInstant().isBefore(Files.getLastModifiedTime(arquivo).toInstant())) {
+                    try {
+                        return lerIndice(canal, arquivoIndice);
+                    } catch (IOException e) {
+                        // Índice inválido: percorre os cabeçalhos abaixo
+                    }
+                }
+
+                Blocos blocos = percorrer(canal);
+                try {
+                    gravarIndice(blocos, arquivoIndice);
+                } catch (IOException e) {
+                    // Sem permissão de escrita: o índice fica só em memória
+                }
+                return blocos;
+            }
+        }
+
+        private static Blocos percorrer(FileChannel canal) throws IOException {
+            VetorLong comprimido = new VetorLong(1024);
+            VetorLong descomprimido = new VetorLong(1024);
+            ByteBuffer rodape = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+
+            long posicao = 0;
+            long texto = 0;
+            long tamanho = canal.size();
+            while (posicao < tamanho) {
+                int tamanhoBloco = tamanhoDoBloco(canal, posicao);
+                lerTudo(canal, rodape.clear(), posicao + tamanhoBloco - 4);
+                long bytesDoBloco = rodape.getInt(0) & 0xffffffffL;
+
+                // Blocos vazios (como o do fim do arquivo) não entram no índice
+                if (bytesDoBloco > 0) {
+                    comprimido.add(posicao);
+                    descomprimido.add(texto);
+                    texto += bytesDoBloco;
+                }
+                posicao += tamanhoBloco;
+            }
+            descomprimido.add(texto);
+            return new Blocos(comprimido.toArray(), descomprimido.toArray());
+        }
+
+        private static Blocos lerIndice(FileChannel canal, Path arquivoIndice) throws IOException {
+            ByteBuffer indice = ByteBuffer.wrap(Files.readAllBytes(arquivoIndice)).order(ByteOrder.LITTLE_ENDIAN);
+            long entradas = indice.getLong();
+            if (entradas < 0 || entradas != (indice.remaining() / 16) || indice.remaining() % 16 != 0) {
+                throw new IOException("Indice de blocos invalido");
+            }
+
+            int blocos = (int) entradas + 1;
+            long[] comprimido = new long[blocos];
+            long[] descomprimido = new long[blocos + 1];
+            for (int i = 1; i < blocos; i++) {
+                comprimido[i] = indice.getLong();
+                descomprimido[i] = indice.getLong();
+                if (comprimido[i] <= comprimido[i - 1] || descomprimido[i] <= descomprimido[i - 1]) {
+                    throw new IOException("Indice de blocos invalido");
+                }
+            }
+
+            // O tamanho do texto sai do rodapé do último bloco
+            long ultimo = comprimido[blocos - 1];
+            int tamanhoBloco = tamanhoDoBloco(canal, ultimo);
+            ByteBuffer rodape = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            lerTudo(canal, rodape, ultimo + tamanhoBloco - 4);
+            descomprimido[blocos] = descomprimido[blocos - 1] + (rodape.getInt(0) & 0xffffffffL);
+            return new Blocos(comprimido, descomprimido);
+        }
+
+        private static void gravarIndice(Blocos blocos, Path arquivoIndice) throws IOException {
+            int entradas = Math.max(0, blocos.quantidade() - 1);
+            ByteBuffer indice = ByteBuffer.allocate(8 + entradas * 16).order(ByteOrder.LITTLE_ENDIAN);
+            indice.putLong(entradas);
+            for (int i = 1; i <= entradas; i++) {
+                indice.putLong(blocos.inicioComprimido[i]);
+                indice.putLong(blocos.inicioDescomprimido[i]);
+            }
+            Files.write(arquivoIndice, indice.array());
+        }
+    }
+
+    /** @return true se há um cabeçalho de gzip em blocos (subcampo "BC") na posição */
+    private static boolean ehBloco(FileChannel canal, long posicao) throws IOException {
+        try {
+            tamanhoDoBloco(canal, posicao);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** @return Tamanho total (cabeçalho + dados + rodapé) do bloco na posição */
+    private static int tamanhoDoBloco(FileChannel canal, long posicao) throws IOException {
+        ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO).order(ByteOrder.LITTLE_ENDIAN);
+        lerTudo(canal, cabecalho, posicao);
+        return tamanhoDoBloco(cabecalho.array(), 0, TAMANHO_CABECALHO);
+    }
+
+    /**
+     * Lê o BSIZE do cabeçalho gzip em {@code dados[inicio, inicio + disponiveis)}.
+     *
+     * @throws IOException Se não for um cabeçalho de gzip em blocos
+     */
+    private static int tamanhoDoBloco(byte[] dados, int inicio, int disponiveis) throws IOException {
+        if (disponiveis < TAMANHO_CABECALHO
+                || dados[inicio] != 0x1f || dados[inicio + 1] != (byte) 0x8b
+                || dados[inicio + 2] != 8 || (dados[inicio + 3] & 4) == 0) {
+            throw new IOException("Nao e um bloco gzip com campo extra");
+        }
+        int tamanhoExtra = (dados[inicio + 10] & 0xff) | (dados[inicio + 11] & 0xff) << 8;
+        int campo = inicio + 12;
+        int fimExtra = Math.min(campo + tamanhoExtra, inicio + disponiveis);
+        while (campo + 4 <= fimExtra) {
+            int tamanhoCampo = (dados[campo + 2] & 0xff) | (dados[campo + 3] & 0xff) << 8;
+            if (dados[campo] == 'B' && dados[campo + 1] == 'C' && tamanhoCampo == 2 && campo + 6 <= fimExtra) {
+                return ((dados[campo + 4] & 0xff) | (dados[campo + 5] & 0xff) << 8) + 1;
+            }
+            campo += 4 + tamanhoCampo;
+        }
+        throw new IOException("Bloco gzip sem o subcampo BC");
+    }
+
+    private static void lerTudo(FileChannel canal, ByteBuffer buffer, long posicao) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, posicao + buffer.position()) < 0) {
+                throw new EOFException("Bloco gzip truncado na posicao " + posicao);
+            }
+        }
+    }
+
+    /**
+     * Descomprime um bloco (e confere o CRC32 e o tamanho do rodapé).
+     *
+     * @return Texto do bloco
+     */
+    static byte[] descomprimirBloco(FileChannel canal, long posicao) throws IOException {
+        ByteBuffer comprimido = ByteBuffer.allocate(MAXIMO_BLOCO_COMPRIMIDO);
+        while (comprimido.hasRemaining()) {
+            if (canal.read(comprimido, posicao + comprimido.position()) < 0) break;
+        }
+        byte[] dados = comprimido.array();
+        int tamanhoBloco = tamanhoDoBloco(dados, 0, comprimido.position());
+        if (tamanhoBloco > comprimido.position()) {
+            throw new EOFException("Bloco gzip truncado na posicao " + posicao);
+        }
+
+        ByteBuffer rodape = ByteBuffer.wrap(dados, tamanhoBloco - TAMANHO_RODAPE, TAMANHO_RODAPE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        int crcEsperado = rodape.getInt();
+        int tamanhoTexto = rodape.getInt();
+        if (tamanhoTexto < 0 || tamanhoTexto > TAMANHO_BLOCO * 2) {
+            throw new IOException("Bloco gzip com tamanho invalido na posicao " + posicao);
+        }
+
+        int inicioDados = 12 + ((dados[10] & 0xff) | (dados[11] & 0xff) << 8);
+        byte[] texto = new byte[tamanhoTexto];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(dados, inicioDados, tamanhoBloco - TAMANHO_RODAPE - inicioDados);
+            int escritos = 0;
+            while (escritos < tamanhoTexto && !inflater.finished()) {
+                int n = inflater.inflate(texto, escritos, tamanhoTexto - escritos);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                escritos += n;
+            }
+            if (escritos != tamanhoTexto) {
+                throw new IOException("Bloco gzip corrompido na posicao " + posicao);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Bloco gzip corrompido na posicao " + posicao, e);
+        } finally {
+            inflater.end();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(texto);
+        if ((int) crc.getValue() != crcEsperado) {
+            throw new IOException("CRC do bloco gzip nao confere na posicao " + posicao);
+        }
+        return texto;
+    }
+
+    private static ExecutorService poolDescompressao() {
+        ExecutorService pool = poolDescompressao;
+        if (pool == null) {
+            synchronized (ArquivoComprimido.class) {
+                pool = poolDescompressao;
+                if (pool == null) {
+                    pool = Executors.newFixedThreadPool(NUCLEOS, tarefa -> {
+                        Thread thread = new Thread(tarefa, "descompressao-blocos");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    poolDescompressao = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Texto descomprimido de um gzip em blocos, a partir de uma posição.
+     *
+     * O primeiro bloco é descomprimido na hora (uma leitura curta, como a
+     * de uma linha pelo índice de sessões, não paga mais que isso). A partir
+     * do segundo, com mais de um núcleo, os próximos blocos já vão sendo
+     * descomprimidos em paralelo no pool, na ordem, enquanto o atual é lido.
+     */
+    private static final class LeituraBlocos extends InputStream {
+        private final FileChannel canal;
+        private final Blocos blocos;
+        private final int ultimoBloco;
+        private final ArrayDeque<Future<byte[]>> adiantados = new ArrayDeque<>();
+        private int proximoBloco;
+
+        private byte[] atual;
+        private int posicao;
+
+        LeituraBlocos(Path arquivo, Blocos blocos, long inicio, long fim) throws IOException {
+            this.canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+            this.blocos = blocos;
+            long fimDaLeitura = fim < 0 ? blocos.total() : Math.min(fim, blocos.total());
+            this.ultimoBloco = fimDaLeitura > 0 ? blocos.blocoDe(fimDaLeitura - 1) : -1;
+
+            if (inicio < blocos.total() && blocos.quantidade() > 0) {
+                int primeiro = blocos.blocoDe(inicio);
+                try {
+                    atual = descomprimirBloco(canal, blocos.inicioComprimido[primeiro]);
+                } catch (IOException e) {
+                    canal.close();
+                    throw e;
+                }
+                posicao = (int) (inicio - blocos.inicioDescomprimido[primeiro]);
+                proximoBloco = primeiro + 1;
+            } else {
+                atual = new byte[0];
+                proximoBloco = blocos.quantidade();
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (posicao == atual.length && !avancar()) return -1;
+            return atual[posicao++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] destino, int inicio, int tamanho) throws IOException {
+            if (tamanho == 0) return 0;
+            if (posicao == atual.length && !avancar()) return -1;
+            int copiados = Math.min(tamanho, atual.length - posicao);
+            System.arraycopy(atual, posicao, destino, inicio, copiados);
+            posicao += copiados;
+            return copiados;
+        }
+
+        private boolean avancar() throws IOException {
+            while (posicao == atual.length) {
+                if (!adiantados.isEmpty()) {
+                    atual = aguardar(adiantados.poll());
+                } else if (proximoBloco <= ultimoBloco) {
+                    atual = descomprimirBloco(canal, blocos.inicioComprimido[proximoBloco++]);
+                } else {
+                    return false;
+                }
+                posicao = 0;
+                adiantar();
+            }
+            return true;
+        }
+
+        /** Mantém até 2 blocos por núcleo sendo descomprimidos à frente. */
+        private void adiantar() {
+            if (NUCLEOS < 2) return;
+            while (adiantados.size() < NUCLEOS * 2 && proximoBloco <= ultimoBloco) {
+                long inicioBloco = blocos.inicioComprimido[proximoBloco++];
+                adiantados.add(poolDescompressao().submit(() -> descomprimirBloco(canal, inicioBloco)));
+            }
+        }
+
+        private static byte[] aguardar(Future<byte[]> tarefa) throws IOException {
+            try {
+                return tarefa.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Descompressao interrompida");
+            } catch (ExecutionException e) {
+                Throwable causa = e.getCause();
+                if (causa instanceof IOException) throw (IOException) causa;
+                if (causa instanceof RuntimeException) throw (RuntimeException) causa;
+                throw new IOException(causa);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Future<byte[]> tarefa : adiantados) {
+                tarefa.cancel(false);
+            }
+            // Espera as tarefas em andamento antes de fechar o canal que elas usam
+            for (Future<byte[]> tarefa : adiantados) {
+                try {
+                    if (!tarefa.isCancelled()) tarefa.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (ExecutionException e) {
+                    // Já não interessa: a leitura acabou
+                }
+            }
+            adiantados.clear();
+            canal.close();
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // COMPRESSÃO EM BLOCOS
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * Comprime um log no formato gzip em blocos e grava o índice
+     * "&lt;destino&gt;.gzi". Os blocos são comprimidos em paralelo (um por
+     * tarefa) e gravados na ordem.
+     *
+     * @param origem  Log CSV
+     * @param destino Arquivo .gz a criar (substituído se existir)
+     * @param nivel   Nível do Deflater (0 a 9)
+     * @return Número de blocos gravados
+     * @throws IOException Caso ocorra erro de leitura ou gravação
+     */
+    public static int comprimir(Path origem, Path destino, int nivel) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(NUCLEOS);
+        VetorLong comprimido = new VetorLong(1024);
+        VetorLong descomprimido = new VetorLong(1024);
+        ThreadLocal<Deflater> deflaters = ThreadLocal.withInitial(() -> new Deflater(nivel, true));
+
+        try (FileChannel entrada = FileChannel.open(origem, StandardOpenOption.READ);
+             FileChannel saida = FileChannel.open(destino, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            ArrayDeque<Future<byte[]>> pendentes = new ArrayDeque<>();
+            long posicaoEntrada = 0;
+            long posicaoSaida = 0;
+            long texto = 0;
+
+            while (true) {
+                // Lê os próximos pedaços enquanto há espaço na fila de tarefas
+                while (pendentes.size() < NUCLEOS * 4) {
+                    ByteBuffer pedaco = ByteBuffer.allocate(TAMANHO_BLOCO);
+                    while (pedaco.hasRemaining()) {
+                        if (entrada.read(pedaco, posicaoEntrada + pedaco.position()) < 0) break;
+                    }
+                    if (pedaco.position() == 0) break;
+                    posicaoEntrada += pedaco.position();
+                    int tamanho = pedaco.position();
+                    pendentes.add(executor.submit(() -> comprimirBloco(deflaters.get(), nivel, pedaco.array(), tamanho)));
+                }
+                if (pendentes.isEmpty()) break;
+
+                byte[] bloco = LeituraBlocos.aguardar(pendentes.poll());
+                comprimido.add(posicaoSaida);
+                descomprimido.add(texto);
+                texto += ByteBuffer.wrap(bloco, bloco.length - 4, 4).order(ByteOrder.LITTLE_ENDIAN).getInt() & 0xffffffffL;
+                posicaoSaida = ArquivoColunar.gravarTudo(saida, ByteBuffer.wrap(bloco), posicaoSaida);
+            }
+            ArquivoColunar.gravarTudo(saida, ByteBuffer.wrap(BLOCO_FIM), posicaoSaida);
+            descomprimido.add(texto);
+
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Blocos blocos = new Blocos(comprimido.toArray(), descomprimido.toArray());
+        Blocos.gravarIndice(blocos, Paths.get(destino + EXTENSAO_INDICE));
+        return blocos.quantidade();
+    }
+
+    /** Monta um membro gzip com o subcampo "BC" para {@code texto[0, tamanho)}. */
+    private static byte[] comprimirBloco(Deflater deflater, int nivel, byte[] texto, int tamanho) {
+        byte[] saida = new byte[MAXIMO_BLOCO_COMPRIMIDO];
+        int maximoDados = MAXIMO_BLOCO_COMPRIMIDO - TAMANHO_CABECALHO - TAMANHO_RODAPE;
+
+        deflater.reset();
+        deflater.setLevel(nivel);
+        int dados = deflar(deflater, texto, tamanho, saida, maximoDados);
+        if (dados < 0) {
+            // Texto que não comprime: guarda sem compressão (sempre cabe no bloco)
+            deflater.reset();
+            deflater.setLevel(Deflater.NO_COMPRESSION);
+            dados = deflar(deflater, texto, tamanho, saida, maximoDados);
+        }
+
+        int tamanhoBloco = TAMANHO_CABECALHO + dados + TAMANHO_RODAPE;
+        ByteBuffer bloco = ByteBuffer.wrap(saida).order(ByteOrder.LITTLE_ENDIAN);
+        bloco.put(new byte[] {0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff});
+        bloco.putShort((short) 6);                 // XLEN
+        bloco.put((byte) 'B').put((byte) 'C');
+        bloco.putShort((short) 2);                 // SLEN
+        bloco.putShort((short) (tamanhoBloco - 1)); // BSIZE
+
+        CRC32 crc = new CRC32();
+        crc.update(texto, 0, tamanho);
+        bloco.position(TAMANHO_CABECALHO + dados);
+        bloco.putInt((int) crc.getValue());
+        bloco.putInt(tamanho);
+        return Arrays.copyOf(saida, tamanhoBloco);
+    }
+
+    /** @return Bytes comprimidos gravados depois do cabeçalho, ou -1 se não couberem */
+    private static int deflar(Deflater deflater, byte[] texto, int tamanho, byte[] saida, int maximo) {
+        deflater.setInput(texto, 0, tamanho);
+        deflater.finish();
+        int escritos = 0;
+        while (!deflater.finished()) {
+            if (escritos == maximo) return -1;
+            escritos += deflater.deflate(saida, TAMANHO_CABECALHO + escritos, maximo - escritos);
+        }
+        return escritos;
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // COMPRESSÃO - LINHA DE COMANDO
+    // ═══════════════════════════════════════════════════════════════
+    public static void main(String[] args) {
+        String arquivo = args.length > 0 ? args[0] : "analise-forense-aed.jar";
+        String destino = args.length > 1 ? args[1] : arquivo + ".gz";
+        int nivel = args.length > 2 ? Integer.parseInt(args[2]) : Deflater.DEFAULT_COMPRESSION;
+
+        System.out.println("===========================================================");
+        System.out.println("=              LOG COMPRIMIDO EM BLOCOS (.gz)              =");
+        System.out.println("===========================================================\n");
+
+        try {
+            long inicio = System.nanoTime();
+            int blocos = comprimir(Paths.get(arquivo), Paths.get(destino), nivel);
+            long fim = System.nanoTime();
+
+            long original = Files.size(Paths.get(arquivo));
+            long comprimido = Files.size(Paths.get(destino));
+            System.out.println("Log: " + arquivo + " (" + original + " bytes)");
+            System.out.println("Comprimido: " + destino + " (" + comprimido + " bytes, "
+                + blocos + " blocos)");
+            System.out.printf("Taxa: %.1f%%%n", original == 0 ? 0 : 100.0 * comprimido / original);
+            System.out.printf("Tempo de compressao: %.3f ms%n", (fim - inicio) / 1_000_000.0);
+
+            // Conferência: as duas leituras devem dar o mesmo número de linhas
+            long linhasOriginal = 0;
+            long linhasComprimido = 0;
+            long inicioLeitura = System.nanoTime();
+            try (LeitorCsvMapeado leitor = new LeitorCsvMapeado(destino)) {
+                while (leitor.proximaLinha()) linhasComprimido++;
+            }
+            long fimLeitura = System.nanoTime();
+            try (BufferedReader br = new BufferedReader(new FileReader(arquivo))) {
+                String linha;
+                while ((linha = br.readLine()) != null) {
+                    if (!linha.isEmpty()) linhasOriginal++;
+                }
+            }
+            System.out.println("Linhas (original / comprimido): " + linhasOriginal + " / " + linhasComprimido);
+            System.out.printf("Leitura do comprimido: %.3f ms%n", (fimLeitura - inicioLeitura) / 1_000_000.0);
+            System.out.println("===========================================================");
+
+        } catch (IOException e) {
+            System.err.println("Erro: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,311 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Árvore de Máximos de BYTES_TRANSFERRED (consultas "primeiro evento acima de X")
+ *
+ * O Desafio 4 responde uma pergunta fixa para o log inteiro (o próximo
+ * maior de cada evento). Esta estrutura responde perguntas avulsas sobre a
+ * coluna de bytes, como "a partir do TIMESTAMP T, quando alguém transferiu
+ * mais de X bytes pela primeira vez?", sem reler o log a cada pergunta.
+ *
+ * Os eventos (linhas completas) ficam em ordem de TIMESTAMP (empates na
+ * ordem do arquivo) e uma árvore de segmentos guarda o máximo de bytes de
+ * cada faixa de eventos:
+ * - construção O(n) (mais O(n log n) para ordenar, só se o log estiver fora de ordem)
+ * - primeiro evento acima de X a partir de T: busca binária no tempo e uma
+ *   descida na árvore, O(log n)
+ * - maior transferência numa janela [de, ate]: O(log n)
+ * - consultas em lote: a árvore não muda depois de pronta, então um lote é
+ *   dividido entre os núcleos sem nenhuma sincronização
+ *
+ * Layout: árvore implícita num long[2m] (m = potência de 2 &gt;= n); o nó i
+ * tem filhos 2i e 2i + 1 e as folhas ficam em [m, m + n). Folhas sem
+ * evento valem Long.MIN_VALUE.
+ */
+public class ArvoreMaximos {
+
+    /** Resultado das buscas quando nenhum evento atende à condição */
+    public static final int SEM_EVENTO = -1;
+
+    /** Abaixo deste tamanho um lote de consultas roda numa thread só */
+    static final int LOTE_MINIMO_PARALELO = 4096;
+
+    private static final MetricasAnalise METRICAS = MetricasAnalise.de("arvoreMaximos");
+
+    private final long[] timestamps;
+    private final long[] bytes;
+    private final int[] linhas;
+    private final int tamanho;
+    private final int folhas;
+    private final long[] arvore;
+
+    private ArvoreMaximos(long[] timestamps, long[] bytes, int[] linhas, int tamanho) {
+        this.timestamps = timestamps;
+        this.bytes = bytes;
+        this.linhas = linhas;
+        this.tamanho = tamanho;
+        this.folhas = tamanho <= 1 ? 1 : Integer.highestOneBit(tamanho - 1) << 1;
+
+        // Folhas e depois os nós internos, de baixo para cima: O(n)
+        arvore = new long[2 * folhas];
+        Arrays.fill(arvore, folhas, 2 * folhas, Long.MIN_VALUE);
+        System.arraycopy(bytes, 0, arvore, folhas, tamanho);
+        for (int no = folhas - 1; no >= 1; no--) {
+            arvore[no] = Math.max(arvore[2 * no], arvore[2 * no + 1]);
+        }
+    }
+
+    /**
+     * Carrega o log e constrói a árvore.
+     *
+     * @param caminhoArquivo Caminho para o CSV de logs ou para o arquivo colunar
+     * @return Árvore com as linhas completas do log
+     * @throws IOException Caso ocorra erro de leitura no arquivo
+     */
+    public static ArvoreMaximos construir(String caminhoArquivo) throws IOException {
+        return construir(RepositorioEventos.carregar(caminhoArquivo));
+    }
+
+    /**
+     * Constrói a árvore com as linhas completas de um {@link RepositorioEventos}
+     * já carregado.
+     *
+     * @param repositorio Eventos do log carregados uma única vez
+     * @return Árvore pronta para consulta
+     */
+    public static ArvoreMaximos construir(RepositorioEventos repositorio) {
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONSTRUCAO)) {
+            long[] timestamps = new long[repositorio.tamanho()];
+            long[] linhasOrdenadas = new long[repositorio.tamanho()];
+            int total = 0;
+            for (int linha = 0; linha < repositorio.tamanho(); linha++) {
+                if (!repositorio.isCompleta(linha)) continue;
+                timestamps[total] = repositorio.getTimestamp(linha);
+                linhasOrdenadas[total++] = linha;
+            }
+
+            // Log já em ordem de tempo (o normal): nada a ordenar
+            if (!IndiceSeveridade.estaOrdenado(timestamps, 0, total)) {
+                IndiceSeveridade.ordenarPorTimestamp(timestamps, linhasOrdenadas, 0, total,
+                    new long[total], new long[total]);
+            }
+
+            long[] bytes = new long[total];
+            int[] linhas = new int[total];
+            for (int i = 0; i < total; i++) {
+                linhas[i] = (int) linhasOrdenadas[i];
+                bytes[i] = repositorio.getBytes(linhas[i]);
+            }
+
+            medicao.linhas(repositorio.tamanho()).rejeitadas(repositorio.tamanho() - total);
+            return new ArvoreMaximos(Arrays.copyOf(timestamps, total), bytes, linhas, total);
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // EVENTOS
+    // ═══════════════════════════════════════════════════════════════
+
+    /** @return Número de eventos (linhas completas) na árvore */
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public long getTimestamp(int evento) {
+        verificar(evento);
+        return timestamps[evento];
+    }
+
+    public long getBytes(int evento) {
+        verificar(evento);
+        return bytes[evento];
+    }
+
+    /** @return Linha do evento no {@link RepositorioEventos} de origem */
+    public int getLinha(int evento) {
+        verificar(evento);
+        return linhas[evento];
+    }
+
+    /** @return Primeiro evento com TIMESTAMP &gt;= timestamp (ou {@link #tamanho()} se não houver) */
+    public int primeiroEventoAPartirDe(long timestamp) {
+        int esquerda = 0;
+        int direita = tamanho;
+        while (esquerda < direita) {
+            int meio = (esquerda + direita) >>> 1;
+            if (timestamps[meio] < timestamp) esquerda = meio + 1;
+            else direita = meio;
+        }
+        return esquerda;
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // CONSULTAS
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * Primeiro evento (em ordem de tempo) com TIMESTAMP &gt;= {@code aPartirDe}
+     * e mais de {@code bytesMinimos} bytes. "Depois de T" é {@code aPartirDe = T + 1}.
+     *
+     * @param aPartirDe    Primeiro TIMESTAMP considerado (inclusivo)
+     * @param bytesMinimos O evento precisa de bytes &gt; bytesMinimos
+     * @return Índice do evento, ou {@link #SEM_EVENTO}
+     */
+    public int primeiroAcima(long aPartirDe, long bytesMinimos) {
+        return primeiroAcimaDoEvento(primeiroEventoAPartirDe(aPartirDe), bytesMinimos);
+    }
+
+    /**
+     * Primeiro evento de índice &gt;= {@code evento} com mais de
+     * {@code bytesMinimos} bytes.
+     *
+     * Sobe pela árvore até achar uma faixa à direita com máximo acima do
+     * limiar e desce por ela sempre pelo filho mais à esquerda que ainda
+     * está acima: O(log n).
+     *
+     * @param evento       Primeiro evento considerado
+     * @param bytesMinimos O evento precisa de bytes &gt; bytesMinimos
+     * @return Índice do evento, ou {@link #SEM_EVENTO}
+     */
+    public int primeiroAcimaDoEvento(int evento, long bytesMinimos) {
+        if (evento < 0) evento = 0;
+        if (evento >= tamanho) return SEM_EVENTO;
+
+        int no = folhas + evento;
+        while (arvore[no] <= bytesMinimos) {
+            // Filho da direita: a faixa seguinte começa num ancestral
+            while ((no & 1) == 1) {
+                no >>= 1;
+            }
+            if (no == 0) return SEM_EVENTO; // Passou da raiz: nada à direita
+            no++;
+        }
+        while (no < folhas) {
+            no <<= 1;
+            if (arvore[no] <= bytesMinimos) no++;
+        }
+        return no - folhas;
+    }
+
+    /**
+     * Maior BYTES_TRANSFERRED entre os eventos com TIMESTAMP em [de, ate].
+     *
+     * @param de  Primeiro TIMESTAMP da janela (inclusivo)
+     * @param ate Último TIMESTAMP da janela (inclusivo)
+     * @return Maior valor, ou Long.MIN_VALUE se a janela não tem eventos
+     */
+    public long maximoEntre(long de, long ate) {
+        if (de > ate) return Long.MIN_VALUE;
+        int inicio = primeiroEventoAPartirDe(de);
+        int fim = ate == Long.MAX_VALUE ? tamanho : primeiroEventoAPartirDe(ate + 1);
+        return maximoDosEventos(inicio, fim);
+    }
+
+    /** Maior valor das folhas [inicio, fim), subindo pelas duas bordas. */
+    private long maximoDosEventos(int inicio, int fim) {
+        long maximo = Long.MIN_VALUE;
+        int esquerda = inicio + folhas;
+        int direita = fim + folhas;
+        while (esquerda < direita) {
+            if ((esquerda & 1) == 1) maximo = Math.max(maximo, arvore[esquerda++]);
+            if ((direita & 1) == 1) maximo = Math.max(maximo, arvore[--direita]);
+            esquerda >>= 1;
+            direita >>= 1;
+        }
+        return maximo;
+    }
+
+    /**
+     * Várias consultas {@link #primeiroAcima(long, long)} de uma vez. Lotes
+     * grandes são divididos entre os núcleos (a árvore é só leitura).
+     *
+     * @param aPartirDe    TIMESTAMP inicial de cada consulta
+     * @param bytesMinimos Limiar de bytes de cada consulta (mesmo tamanho)
+     * @return Resposta de cada consulta, na mesma posição
+     */
+    public int[] primeirosAcima(long[] aPartirDe, long[] bytesMinimos) {
+        if (aPartirDe.length != bytesMinimos.length) {
+            throw new IllegalArgumentException("Lote com tamanhos diferentes: "
+                + aPartirDe.length + " e " + bytesMinimos.length);
+        }
+        int[] respostas = new int[aPartirDe.length];
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONSULTA)) {
+            IntStream consultas = IntStream.range(0, respostas.length);
+            if (respostas.length >= LOTE_MINIMO_PARALELO) {
+                consultas = consultas.parallel();
+            }
+            consultas.forEach(i -> respostas[i] = primeiroAcima(aPartirDe[i], bytesMinimos[i]));
+            medicao.linhas(respostas.length);
+        }
+        return respostas;
+    }
+
+    private void verificar(int evento) {
+        if (evento < 0 || evento >= tamanho) {
+            throw new IndexOutOfBoundsException("Evento " + evento + " fora do intervalo [0, " + tamanho + ")");
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // MÉTODO DE TESTE
+    // ═══════════════════════════════════════════════════════════════
+    public static void main(String[] args) {
+        String arquivo = args.length > 0 ? args[0] : "analise-forense-aed.jar";
+
+        System.out.println("===========================================================");
+        System.out.println("=        ARVORE DE MAXIMOS (PRIMEIRO EVENTO ACIMA)        =");
+        System.out.println("===========================================================\n");
+
+        try {
+            long inicio = System.nanoTime();
+            ArvoreMaximos arvore = construir(arquivo);
+            long fim = System.nanoTime();
+
+            System.out.println("Arquivo: " + arquivo);
+            System.out.println("Eventos: " + arvore.tamanho());
+            System.out.printf("Tempo de construcao: %.3f ms%n", (fim - inicio) / 1_000_000.0);
+            if (arvore.tamanho() == 0) return;
+
+            long primeiro = arvore.getTimestamp(0);
+            long ultimo = arvore.getTimestamp(arvore.tamanho() - 1);
+            long maior = arvore.maximoEntre(primeiro, ultimo);
+            System.out.println("Maior transferencia do log: " + maior + " bytes");
+            System.out.println("------------------------------------------------------------");
+
+            // Primeiro evento acima de frações do maior, do começo e do meio do log
+            long meio = primeiro + (ultimo - primeiro) / 2;
+            for (long aPartirDe : new long[] {primeiro, meio}) {
+                for (int percentual : new int[] {10, 50, 90}) {
+                    long limiar = maior / 100 * percentual;
+                    int evento = arvore.primeiroAcima(aPartirDe, limiar);
+                    if (evento == SEM_EVENTO) {
+                        System.out.printf("A partir de %d, acima de %d bytes: nenhum%n", aPartirDe, limiar);
+                    } else {
+                        System.out.printf("A partir de %d, acima de %d bytes: %d (%d bytes)%n",
+                            aPartirDe, limiar, arvore.getTimestamp(evento), arvore.getBytes(evento));
+                    }
+                }
+            }
+
+            // Lote: uma consulta a partir de cada evento
+            long[] aPartirDe = new long[arvore.tamanho()];
+            long[] limiares = new long[arvore.tamanho()];
+            for (int i = 0; i < aPartirDe.length; i++) {
+                aPartirDe[i] = arvore.getTimestamp(i);
+                limiares[i] = maior / 2;
+            }
+            inicio = System.nanoTime();
+            int[] respostas = arvore.primeirosAcima(aPartirDe, limiares);
+            fim = System.nanoTime();
+            long respondidas = Arrays.stream(respostas).filter(r -> r != SEM_EVENTO).count();
+            System.out.printf("Lote de %d consultas: %.3f ms (%d com resposta)%n",
+                respostas.length, (fim - inicio) / 1_000_000.0, respondidas);
+            System.out.println("===========================================================");
+
+        } catch (IOException e) {
+            System.err.println("Erro: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Benchmark: BufferedReader + String.split(",") x LeitorCsvMapeado
+ *
+ * Mede linhas por segundo dos dois caminhos de leitura, fazendo o mesmo
+ * trabalho do Desafio 3 (converter TIMESTAMP, SEVERITY_LEVEL e
+ * BYTES_TRANSFERRED e, opcionalmente, criar as Strings de texto).
+ *
+ * Cada modo roda algumas vezes para aquecer o JIT antes de medir.
+ *
+ * Uso: java BenchmarkLeitorCsv [arquivo] [repeticoes]
+ */
+public class BenchmarkLeitorCsv {
+
+    private static final int AQUECIMENTO = 3;
+
+    // Acumulador para o JIT não eliminar o trabalho medido
+    private static long sumidouro;
+
+    public static void main(String[] args) throws IOException {
+        String arquivo = args.length > 0 ? args[0] : "analise-forense-aed.jar";
+        int repeticoes = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        System.out.println("===========================================================");
+        System.out.println("=      BENCHMARK: LEITURA DO CSV (LINHAS POR SEGUNDO)     =");
+        System.out.println("===========================================================\n");
+        System.out.println("Arquivo: " + arquivo);
+        System.out.println("------------------------------------------------------------");
+
+        medir("BufferedReader + split (todas as colunas)", arquivo, repeticoes, 0);
+        medir("LeitorCsvMapeado (todas as colunas)", arquivo, repeticoes, 1);
+        medir("LeitorCsvMapeado (somente numeros)", arquivo, repeticoes, 2);
+
+        System.out.println("===========================================================");
+        if (sumidouro == 42) System.out.println(); // Mantém o acumulador vivo
+    }
+
+    private static void medir(String nome, String arquivo, int repeticoes, int modo) throws IOException {
+        for (int i = 0; i < AQUECIMENTO; i++) {
+            executar(arquivo, modo);
+        }
+
+        double melhor = 0;
+        long linhas = 0;
+        for (int i = 0; i < repeticoes; i++) {
+            long inicio = System.nanoTime();
+            linhas = executar(arquivo, modo);
+            long fim = System.nanoTime();
+            melhor = Math.max(melhor, linhas / ((fim - inicio) / 1_000_000_000.0));
+        }
+
+        System.out.printf("%-45s %,14.0f linhas/s (%d linhas)%n", nome, melhor, linhas);
+    }
+
+    private static long executar(String arquivo, int modo) throws IOException {
+        return modo == 0 ? lerComSplit(arquivo) : lerMapeado(arquivo, modo == 1);
+    }
+
+    private static long lerComSplit(String arquivo) throws IOException {
+        long linhas = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(arquivo), 16384)) {
+            String linha = br.readLine(); // Cabeçalho
+            while ((linha = br.readLine()) != null) {
+                String[] campos = linha.trim().split(",");
+                if (campos.length < 7) continue;
+                try {
+                    sumidouro += Long.parseLong(campos[0].trim());
+                    sumidouro += campos[1].trim().length() + campos[2].trim().length()
+                            + campos[3].trim().length() + campos[4].trim().length();
+                    sumidouro += Integer.parseInt(campos[5].trim());
+                    sumidouro += Long.parseLong(campos[6].trim());
+                    linhas++;
+                } catch (NumberFormatException e) {
+                    // Linha malformada
+                }
+            }
+        }
+        return linhas;
+    }
+
+    private static long lerMapeado(String arquivo, boolean comTexto) throws IOException {
+        long linhas = 0;
+        try (LeitorCsvMapeado leitor = new LeitorCsvMapeado(arquivo)) {
+            leitor.proximaLinha(); // Cabeçalho
+            while (leitor.proximaLinha()) {
+                if (leitor.numeroCamposPreenchidos() < 7) continue;
+                try {
+                    sumidouro += leitor.campoLong(0);
+                    if (comTexto) {
+                        sumidouro += leitor.campoTexto(1).length() + leitor.campoTexto(2).length()
+                                + leitor.campoTexto(3).length() + leitor.campoTexto(4).length();
+                    }
+                    sumidouro += leitor.campoInt(5);
+                    sumidouro += leitor.campoLong(6);
+                    linhas++;
+                } catch (NumberFormatException e) {
+                    // Linha malformada
+                }
+            }
+        }
+        return linhas;
+    }
+}
@@ -0,0 +1,129 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * SESSION_ID e TARGET_RESOURCE como estão no log, com os espaços das pontas
+ *
+ * Os dicionários do {@link RepositorioEventos} guardam os valores aparados
+ * (regra dos Desafios 1 a 3), mas o Desafio 5 usa o split(",") sem trim().
+ * Só as linhas do grafo em que algum dos dois campos tem espaços nas pontas
+ * são guardadas aqui; o campo sem espaços fica null. Em logs sem espaços
+ * nas pontas a lista é vazia.
+ *
+ * As linhas ficam em ordem crescente (são adicionadas na ordem do log).
+ */
+class CamposOriginais {
+
+    private int[] linhas = new int[4];
+    private String[] sessoes = new String[4];
+    private String[] recursos = new String[4];
+    private int tamanho;
+
+    /**
+     * @param linha   Linha do repositório (maior que a última adicionada)
+     * @param sessao  SESSION_ID original, ou null se ele não tem espaços nas pontas
+     * @param recurso TARGET_RESOURCE original, ou null se ele não tem espaços nas pontas
+     */
+    void adicionar(int linha, String sessao, String recurso) {
+        if (tamanho == linhas.length) {
+            linhas = Arrays.copyOf(linhas, tamanho * 2);
+            sessoes = Arrays.copyOf(sessoes, tamanho * 2);
+            recursos = Arrays.copyOf(recursos, tamanho * 2);
+        }
+        linhas[tamanho] = linha;
+        sessoes[tamanho] = sessao;
+        recursos[tamanho] = recurso;
+        tamanho++;
+    }
+
+    /**
+     * Guarda a linha atual do leitor se SESSION_ID ou TARGET_RESOURCE tem
+     * espaços nas pontas.
+     */
+    void adicionar(int linha, LeitorCsvMapeado leitor) {
+        boolean sessao = leitor.temEspacosNasPontas(2);
+        boolean recurso = leitor.temEspacosNasPontas(4);
+        if (sessao || recurso) {
+            adicionar(linha, sessao ? leitor.campoTextoOriginal(2) : null,
+                    recurso ? leitor.campoTextoOriginal(4) : null);
+        }
+    }
+
+    int tamanho() {
+        return tamanho;
+    }
+
+    int getLinha(int i) {
+        return linhas[i];
+    }
+
+    String getSessao(int i) {
+        return sessoes[i];
+    }
+
+    String getRecurso(int i) {
+        return recursos[i];
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // FORMATO NO ARQUIVO COLUNAR
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * Seção do {@link ArquivoColunar}: int quantidade, int tamanho da seção
+     * em bytes, int[quantidade] linhas e depois, para cada linha, sessão e
+     * recurso como int tamanho (-1 = null) + bytes UTF-8.
+     */
+    ByteBuffer gravar() throws IOException {
+        byte[][] textos = new byte[tamanho * 2][];
+        long bytes = 8 + 4L * tamanho;
+        for (int i = 0; i < tamanho; i++) {
+            textos[2 * i] = sessoes[i] == null ? null : sessoes[i].getBytes(StandardCharsets.UTF_8);
+            textos[2 * i + 1] = recursos[i] == null ? null : recursos[i].getBytes(StandardCharsets.UTF_8);
+            bytes += 8 + (textos[2 * i] == null ? 0 : textos[2 * i].length)
+                    + (textos[2 * i + 1] == null ? 0 : textos[2 * i + 1].length);
+        }
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IOException("Campos originais maiores que 2 GB nao sao suportados");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) bytes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(tamanho);
+        buffer.putInt((int) bytes);
+        for (int i = 0; i < tamanho; i++) {
+            buffer.putInt(linhas[i]);
+        }
+        for (byte[] texto : textos) {
+            buffer.putInt(texto == null ? -1 : texto.length);
+            if (texto != null) buffer.put(texto);
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Decodifica uma seção gravada por {@link #gravar()}.
+     */
+    static CamposOriginais ler(ByteBuffer dados) {
+        CamposOriginais originais = new CamposOriginais();
+        int quantidade = dados.getInt(0);
+        int posicao = 8 + 4 * quantidade;
+        for (int i = 0; i < quantidade; i++) {
+            String[] par = new String[2];
+            for (int j = 0; j < 2; j++) {
+                int tamanhoTexto = dados.getInt(posicao);
+                posicao += 4;
+                if (tamanhoTexto >= 0) {
+                    byte[] texto = new byte[tamanhoTexto];
+                    dados.get(posicao, texto);
+                    par[j] = new String(texto, StandardCharsets.UTF_8);
+                    posicao += tamanhoTexto;
+                }
+            }
+            originais.adicionar(dados.getInt(8 + 4 * i), par[0], par[1]);
+        }
+        return originais;
+    }
+}
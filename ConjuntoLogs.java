@@ -0,0 +1,109 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Conjunto de logs rotacionados: um diretório ou um curinga no lugar de um único arquivo
+ *
+ * Em produção o log é rotacionado (um arquivo por hora, por exemplo). Em vez
+ * de concatenar os arquivos antes da análise, qualquer desafio aceita:
+ * - Um diretório: todos os arquivos dele (sem subdiretórios)
+ * - Um curinga no nome do arquivo: "logs/acesso-*.csv", "logs/*.{csv,gz}"
+ *
+ * Cada arquivo pode ser CSV, CSV comprimido ou colunar, cada um com o seu
+ * cabeçalho. Arquivos ocultos e os índices auxiliares (.tidx, .sidx, .vidx,
+ * .gzi) ficam de fora.
+ *
+ * Os arquivos são lidos em paralelo e intercalados por TIMESTAMP (ver
+ * {@link RepositorioEventosMemoria#carregarConjunto}), então uma sessão que
+ * começa num arquivo e termina no seguinte é vista como uma só, na ordem
+ * do tempo.
+ */
+public class ConjuntoLogs {
+
+    private ConjuntoLogs() {
+    }
+
+    /**
+     * @param caminho Caminho informado a um desafio
+     * @return true se o caminho é um diretório, ou se não existe e tem
+     *         curinga no nome do arquivo
+     */
+    public static boolean ehConjunto(String caminho) {
+        try {
+            Path arquivo = Paths.get(caminho);
+            if (Files.isDirectory(arquivo)) return true;
+            if (Files.exists(arquivo)) return false;
+        } catch (InvalidPathException e) {
+            // No Windows '*' e '?' não são aceitos em caminhos: só pode ser curinga
+        }
+        return temCuringa(nomeDoArquivo(caminho));
+    }
+
+    /**
+     * Lista os arquivos do conjunto, em ordem de nome (a mesma da rotação
+     * quando o nome tem data e hora). A ordem também desempata eventos com
+     * o mesmo TIMESTAMP em arquivos diferentes.
+     *
+     * @param caminho Diretório ou caminho com curinga no nome do arquivo
+     * @return Arquivos do conjunto (nunca vazio)
+     * @throws IOException Se o diretório não puder ser lido ou nenhum arquivo combinar
+     */
+    public static List<Path> arquivos(String caminho) throws IOException {
+        Path pasta;
+        PathMatcher filtro;
+        String nome = nomeDoArquivo(caminho);
+        if (temCuringa(nome)) {
+            String inicio = caminho.substring(0, caminho.length() - nome.length());
+            pasta = Paths.get(inicio.isEmpty() ? "." : inicio);
+            filtro = FileSystems.getDefault().getPathMatcher("glob:" + nome);
+        } else {
+            pasta = Paths.get(caminho);
+            filtro = arquivo -> true;
+        }
+
+        List<Path> arquivos = new ArrayList<>();
+        try (DirectoryStream<Path> conteudo = Files.newDirectoryStream(pasta)) {
+            for (Path arquivo : conteudo) {
+                if (Files.isRegularFile(arquivo) && !ehAuxiliar(arquivo) && filtro.matches(arquivo.getFileName())) {
+                    arquivos.add(arquivo);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Erro ao ler o arquivo: " + e.getMessage());
+            throw e;
+        }
+
+        if (arquivos.isEmpty()) {
+            throw new NoSuchFileException(caminho, null, "nenhum arquivo de log no conjunto");
+        }
+        Collections.sort(arquivos);
+        return arquivos;
+    }
+
+    /** @return true para arquivos ocultos e índices gravados ao lado dos logs */
+    private static boolean ehAuxiliar(Path arquivo) {
+        String nome = arquivo.getFileName().toString();
+        return nome.startsWith(".")
+                || nome.endsWith(IndiceTempo.EXTENSAO)
+                || nome.endsWith(IndiceSessoes.EXTENSAO)
+                || nome.endsWith(IndiceSeveridade.EXTENSAO)
+                || nome.endsWith(ArquivoComprimido.EXTENSAO_INDICE)
+                || nome.endsWith(".tmp");
+    }
+
+    private static String nomeDoArquivo(String caminho) {
+        int separador = Math.max(caminho.lastIndexOf('/'), caminho.lastIndexOf(java.io.File.separatorChar));
+        return caminho.substring(separador + 1);
+    }
+
+    private static boolean temCuringa(String nome) {
+        for (int i = 0; i < nome.length(); i++) {
+            char c = nome.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,314 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Desafio 1: Encontrar Sessões Inválidas
+ *
+ * Objetivo:
+ *  Percorrer o log e identificar as sessões (SESSION_ID) com problemas
+ *  de autenticação.
+ *
+ *  - Usa uma Pilha (Deque) de sessões abertas por USER_ID.
+ *  - LOGIN com sessão já aberta marca a sessão ATUAL (nova) como inválida.
+ *  - LOGOUT sem LOGIN, ou de uma sessão que não está no topo, é inválido.
+ *  - Sessões que ficam abertas ao final do arquivo também são inválidas.
+ */
+public class Desafio1_SessoesInvalidas {
+
+    private static final MetricasAnalise METRICAS = MetricasAnalise.de("desafio1");
+
+    /**
+     * Encontra as sessões inválidas do arquivo de logs.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs (ou arquivo colunar).
+     * @return Conjunto com os SESSION_ID inválidos (nunca null).
+     * @throws IOException Caso ocorra erro de leitura no arquivo.
+     */
+    public Set<String> encontrarSessoesInvalidas(String caminhoArquivo) throws IOException {
+        // Arquivo colunar binário ou conjunto de logs: usa o repositório
+        if (RepositorioEventos.usaRepositorio(caminhoArquivo)) {
+            return encontrarSessoesInvalidas(RepositorioEventos.carregar(caminhoArquivo));
+        }
+
+        Map<String, Deque<String>> pilhasPorUsuario = new HashMap<>(512);
+        Set<String> sessoesInvalidas = new HashSet<>(256);
+        long linhasLidas = 0;
+        long linhasRejeitadas = 0;
+        int profundidadeMaxima = 0;
+
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONVERSAO);
+             ArquivoComprimido.TextoDoLog texto = ArquivoComprimido.abrirTexto(caminhoArquivo);
+             BufferedReader br = new BufferedReader(texto, 16384)) {
+            br.readLine(); // Ignora o cabeçalho
+
+            String linha;
+            while ((linha = br.readLine()) != null) {
+                if (linha.isEmpty()) continue;
+                linhasLidas++;
+
+                // Divide até 5 colunas (TIMESTAMP, USER_ID, SESSION_ID, ACTION_TYPE, resto)
+                String[] partes = linha.split(",", 5);
+                if (partes.length < 4) {
+                    linhasRejeitadas++;
+                    continue;
+                }
+
+                String userId = partes[1].trim();
+                String sessionId = partes[2].trim();
+                String acao = partes[3].trim();
+
+                if (userId.isEmpty() || sessionId.isEmpty() || acao.isEmpty()) {
+                    linhasRejeitadas++;
+                    continue;
+                }
+
+                Deque<String> pilha = pilhasPorUsuario.computeIfAbsent(userId, k -> new ArrayDeque<>());
+
+                if ("LOGIN".equalsIgnoreCase(acao)) {
+                    // LOGIN aninhado: a sessão atual é inválida
+                    if (!pilha.isEmpty()) {
+                        sessoesInvalidas.add(sessionId);
+                    }
+                    pilha.push(sessionId);
+                    profundidadeMaxima = Math.max(profundidadeMaxima, pilha.size());
+                } else if ("LOGOUT".equalsIgnoreCase(acao)) {
+                    if (pilha.isEmpty()) {
+                        // LOGOUT sem LOGIN
+                        sessoesInvalidas.add(sessionId);
+                    } else if (pilha.peek().equals(sessionId)) {
+                        pilha.pop();
+                    } else {
+                        // LOGOUT de uma sessão que não está no topo
+                        sessoesInvalidas.add(sessionId);
+                    }
+                }
+            }
+            medicao.linhas(linhasLidas).rejeitadas(linhasRejeitadas).bytes(texto.bytesLidos());
+        }
+        METRICAS.registrarPico("profundidadePilha", profundidadeMaxima);
+
+        // Sessões que nunca fizeram LOGOUT
+        for (Deque<String> pilha : pilhasPorUsuario.values()) {
+            sessoesInvalidas.addAll(pilha);
+        }
+
+        return sessoesInvalidas;
+    }
+
+    /**
+     * Mesma análise, mas sobre um {@link RepositorioEventos} já carregado.
+     *
+     * As pilhas guardam ids de sessão (int) em vez de Strings, e o
+     * arquivo não é lido de novo.
+     *
+     * @param repositorio Eventos do log carregados uma única vez
+     * @return Conjunto com os SESSION_ID inválidos (nunca null)
+     */
+    public Set<String> encontrarSessoesInvalidas(RepositorioEventos repositorio) {
+        Dicionario usuarios = repositorio.usuarios();
+        Dicionario sessoes = repositorio.sessoes();
+        Dicionario acoes = repositorio.acoes();
+
+        // Classifica cada ACTION_TYPE distinto uma única vez
+        boolean[] ehLogin = new boolean[acoes.tamanho()];
+        boolean[] ehLogout = new boolean[acoes.tamanho()];
+        for (int id = 0; id < acoes.tamanho(); id++) {
+            ehLogin[id] = "LOGIN".equalsIgnoreCase(acoes.valor(id));
+            ehLogout[id] = "LOGOUT".equalsIgnoreCase(acoes.valor(id));
+        }
+
+        int usuarioVazio = usuarios.idDe("");
+        int sessaoVazia = sessoes.idDe("");
+        int acaoVazia = acoes.idDe("");
+
+        // Uma pilha de ids de sessão por usuário
+        int[][] pilhas = new int[usuarios.tamanho()][];
+        int[] topos = new int[usuarios.tamanho()];
+        boolean[] invalida = new boolean[sessoes.tamanho()];
+        int profundidadeMaxima = 0;
+
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONSTRUCAO)) {
+            for (int linha = 0; linha < repositorio.tamanho(); linha++) {
+                int usuario = repositorio.getUsuario(linha);
+                int sessao = repositorio.getSessao(linha);
+                int acao = repositorio.getAcao(linha);
+
+                if (usuario == usuarioVazio || sessao == sessaoVazia || acao == acaoVazia) continue;
+
+                if (ehLogin[acao]) {
+                    // LOGIN aninhado: a sessão atual é inválida
+                    if (topos[usuario] > 0) {
+                        invalida[sessao] = true;
+                    }
+                    if (pilhas[usuario] == null) {
+                        pilhas[usuario] = new int[2];
+                    } else if (topos[usuario] == pilhas[usuario].length) {
+                        pilhas[usuario] = Arrays.copyOf(pilhas[usuario], topos[usuario] * 2);
+                    }
+                    pilhas[usuario][topos[usuario]++] = sessao;
+                    profundidadeMaxima = Math.max(profundidadeMaxima, topos[usuario]);
+                } else if (ehLogout[acao]) {
+                    if (topos[usuario] == 0) {
+                        // LOGOUT sem LOGIN
+                        invalida[sessao] = true;
+                    } else if (pilhas[usuario][topos[usuario] - 1] == sessao) {
+                        topos[usuario]--;
+                    } else {
+                        // LOGOUT de uma sessão que não está no topo
+                        invalida[sessao] = true;
+                    }
+                }
+            }
+            medicao.linhas(repositorio.tamanho());
+        }
+        METRICAS.registrarPico("profundidadePilha", profundidadeMaxima);
+
+        // Sessões que nunca fizeram LOGOUT
+        for (int usuario = 0; usuario < pilhas.length; usuario++) {
+            for (int i = 0; i < topos[usuario]; i++) {
+                invalida[pilhas[usuario][i]] = true;
+            }
+        }
+
+        Set<String> sessoesInvalidas = new HashSet<>(256);
+        for (int sessao = 0; sessao < invalida.length; sessao++) {
+            if (invalida[sessao]) {
+                sessoesInvalidas.add(sessoes.valor(sessao));
+            }
+        }
+        return sessoesInvalidas;
+    }
+
+    /**
+     * Análise em fluxo: lê o log uma linha por vez e entrega cada evento ao
+     * detector, que avisa as sessões inválidas assim que elas aparecem.
+     * No fim do arquivo as sessões ainda abertas são avisadas
+     * ({@link DetectorSessoesInvalidas#finalizar()}).
+     *
+     * Mesmas regras de linha de {@link #encontrarSessoesInvalidas(String)};
+     * se o TIMESTAMP não for um número, vale o último TIMESTAMP lido
+     * (ele só é usado para o tempo limite de inatividade).
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs (ou arquivo colunar)
+     * @param detector       Detector que recebe os eventos
+     * @throws IOException Caso ocorra erro de leitura no arquivo
+     */
+    public void monitorarSessoes(String caminhoArquivo, DetectorSessoesInvalidas detector) throws IOException {
+        long ultimoTimestamp = 0;
+
+        if (RepositorioEventos.usaRepositorio(caminhoArquivo)) {
+            RepositorioEventos repositorio = RepositorioEventos.carregar(caminhoArquivo);
+            Dicionario usuarios = repositorio.usuarios();
+            Dicionario sessoes = repositorio.sessoes();
+            Dicionario acoes = repositorio.acoes();
+            int usuarioVazio = usuarios.idDe("");
+            int sessaoVazia = sessoes.idDe("");
+            int acaoVazia = acoes.idDe("");
+
+            for (int linha = 0; linha < repositorio.tamanho(); linha++) {
+                int usuario = repositorio.getUsuario(linha);
+                int sessao = repositorio.getSessao(linha);
+                int acao = repositorio.getAcao(linha);
+                if (usuario == usuarioVazio || sessao == sessaoVazia || acao == acaoVazia) continue;
+
+                if (repositorio.isCompleta(linha)) {
+                    ultimoTimestamp = repositorio.getTimestamp(linha);
+                }
+                detector.adicionar(ultimoTimestamp, usuarios.valor(usuario), sessoes.valor(sessao), acoes.valor(acao));
+            }
+            detector.finalizar();
+            return;
+        }
+
+        try (LeitorCsvMapeado leitor = new LeitorCsvMapeado(caminhoArquivo)) {
+            leitor.proximaLinha(); // Ignora o cabeçalho
+
+            while (leitor.proximaLinha()) {
+                // Mesmo filtro do split(",", 5): pelo menos 4 colunas e as 3 primeiras preenchidas
+                if (leitor.numeroCampos() < 4) continue;
+                if (leitor.campoVazio(1) || leitor.campoVazio(2) || leitor.campoVazio(3)) continue;
+
+                try {
+                    ultimoTimestamp = leitor.campoLong(0);
+                } catch (NumberFormatException e) {
+                    // Mantém o último TIMESTAMP válido
+                }
+                detector.adicionar(ultimoTimestamp, leitor.campoTexto(1), leitor.campoTexto(2), leitor.campoTexto(3));
+            }
+        }
+        detector.finalizar();
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // MÉTODO DE TESTE
+    // ═══════════════════════════════════════════════════════════════
+    public static void main(String[] args) {
+        Desafio1_SessoesInvalidas desafio = new Desafio1_SessoesInvalidas();
+        String arquivo = "analise-forense-aed.jar";
+
+        System.out.println("=========================================================");
+        System.out.println("=       DESAFIO 1: SESSOES INVALIDAS (CORRIGIDO)       =");
+        System.out.println("==========================================================\n");
+
+        try {
+            long inicio = System.nanoTime();
+            Set<String> invalidas = desafio.encontrarSessoesInvalidas(arquivo);
+            long fim = System.nanoTime();
+
+            double tempoMs = (fim - inicio) / 1_000_000.0;
+
+            System.out.println("=============================================");
+            System.out.printf("= Arquivo: %-30s =%n", arquivo);
+            System.out.printf("= Tempo: %10.3f ms                  =%n", tempoMs);
+            System.out.printf(" Total de sessoes invalidas: %-5d    %n", invalidas.size());
+            System.out.println("================================================\n");
+
+            if (invalidas.isEmpty()) {
+                System.out.println("✓ Nenhuma sessao invalida encontrada.\n");
+            } else {
+                System.out.println("Sessoes invalidas detectadas:");
+                System.out.println("==============================================");
+                System.out.println("= #  = SESSION_ID                          =");
+                System.out.println("===============================================");
+                int i = 1;
+                for (String sessao : invalidas) {
+                    System.out.printf("= %-2d = %-36s =%n", i++, sessao);
+                }
+                System.out.println("===============================================");
+            }
+
+            System.out.println("\n========================================================");
+            System.out.println("= CORREÇÃO APLICADA:");
+            System.out.println("  LOGIN aninhado marca a sessao ATUAL (nova)");
+            System.out.println("  Conforme interpretacao literal do edital:");
+            System.out.println("  'a sessao atual (SESSION_ID) e invalida'");
+            System.out.println("============================================================");
+
+            // Modo em fluxo: avisos na hora, só sessões abertas na memória
+            System.out.println("\n============================================================");
+            System.out.println("= MODO EM FLUXO (DetectorSessoesInvalidas)");
+            Set<String> avisadas = new HashSet<>();
+            Map<DetectorSessoesInvalidas.Motivo, Integer> porMotivo =
+                    new EnumMap<>(DetectorSessoesInvalidas.Motivo.class);
+            DetectorSessoesInvalidas detector = new DetectorSessoesInvalidas((sessao, motivo, timestamp) -> {
+                avisadas.add(sessao);
+                porMotivo.merge(motivo, 1, Integer::sum);
+            });
+
+            inicio = System.nanoTime();
+            desafio.monitorarSessoes(arquivo, detector);
+            fim = System.nanoTime();
+
+            System.out.printf("  Tempo: %.3f ms, eventos: %d%n", (fim - inicio) / 1_000_000.0, detector.eventosProcessados());
+            System.out.println("  Avisos por motivo: " + porMotivo);
+            System.out.println("  Mesmo conjunto do modo completo? " + (avisadas.equals(invalidas) ? "SIM" : "NAO"));
+            System.out.println("============================================================");
+
+        } catch (IOException e) {
+            System.err.println("= ERRO ao processar arquivo:");
+            System.err.println("   " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
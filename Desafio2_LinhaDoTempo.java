@@ -1,6 +1,7 @@
 import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.util.*;
 
 /**
@@ -16,10 +17,16 @@ import java.util.*;
  */
 public class Desafio2_LinhaDoTempo {
 
+    private static final MetricasAnalise METRICAS = MetricasAnalise.de("desafio2");
+
+    // Índice de sessões do último log consultado (reaproveitado entre chamadas)
+    private IndiceSessoes indiceSessoes;
+    private String caminhoIndexado;
+
     /**
      * Reconstrói a linha do tempo das ações executadas em uma sessão específica.
      *
-     * @param caminhoArquivo Caminho para o arquivo CSV de logs.
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs (ou arquivo colunar).
      * @param sessionId      ID da sessão que será analisada.
      * @return Lista com os ACTION_TYPE em ordem cronológica (nunca null).
      * @throws IOException Caso ocorra erro de leitura no arquivo.
@@ -33,16 +40,29 @@ public class Desafio2_LinhaDoTempo {
             return resultado; // Retorna lista vazia
         }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(caminhoArquivo), 16384)) {
+        // Arquivo colunar binário ou conjunto de logs: usa o repositório
+        if (RepositorioEventos.usaRepositorio(caminhoArquivo)) {
+            return reconstruirLinhaDoTempo(RepositorioEventos.carregar(caminhoArquivo), sessionId);
+        }
+
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONVERSAO);
+             ArquivoComprimido.TextoDoLog texto = ArquivoComprimido.abrirTexto(caminhoArquivo);
+             BufferedReader br = new BufferedReader(texto, 16384)) {
             String linha = br.readLine(); // Ignora o cabeçalho
             if (linha == null) return resultado; // Arquivo vazio
+            long linhasLidas = 0;
+            long linhasRejeitadas = 0;
 
             while ((linha = br.readLine()) != null) {
                 if (linha.isEmpty()) continue;
+                linhasLidas++;
 
                 // Divide até 5 colunas (TIMESTAMP, USER_ID, SESSION_ID, ACTION_TYPE, TARGET_RESOURCE)
                 String[] partes = linha.split(",", 5);
-                if (partes.length < 4) continue;
+                if (partes.length < 4) {
+                    linhasRejeitadas++;
+                    continue;
+                }
 
                 String sessaoAtual = partes[2].trim();
                 String acao = partes[3].trim();
@@ -57,6 +77,7 @@ public class Desafio2_LinhaDoTempo {
             while (!fila.isEmpty()) {
                 resultado.add(fila.poll());
             }
+            medicao.linhas(linhasLidas).rejeitadas(linhasRejeitadas).bytes(texto.bytesLidos());
 
         } catch (IOException e) {
             System.err.println("Erro ao ler o arquivo: " + e.getMessage());
@@ -66,6 +87,183 @@ public class Desafio2_LinhaDoTempo {
         return resultado;
     }
 
+    /**
+     * Reconstrói a linha do tempo usando o {@link IndiceSessoes} do log.
+     *
+     * Na primeira chamada o índice "&lt;log&gt;.sidx" é construído (uma passada
+     * pelo log) ou reaproveitado do disco; nas seguintes só são lidas as k
+     * linhas da sessão pedida. Se o log mudar, o índice é reconstruído.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs (ou arquivo colunar).
+     * @param sessionId      ID da sessão que será analisada.
+     * @return Lista com os ACTION_TYPE em ordem cronológica (nunca null).
+     * @throws IOException Caso ocorra erro de leitura no arquivo.
+     */
+    public List<String> reconstruirLinhaDoTempoIndexado(String caminhoArquivo, String sessionId) throws IOException {
+        List<String> resultado = new ArrayList<>();
+
+        if (sessionId == null || sessionId.isEmpty()) {
+            return resultado;
+        }
+
+        // O arquivo colunar e o conjunto de logs já têm as sessões como ids: não precisa de índice
+        if (RepositorioEventos.usaRepositorio(caminhoArquivo)) {
+            return reconstruirLinhaDoTempo(RepositorioEventos.carregar(caminhoArquivo), sessionId);
+        }
+
+        // gzip comum não permite pular direto para uma linha: lê o log todo
+        if (!ArquivoComprimido.permiteAcessoAleatorio(Paths.get(caminhoArquivo))) {
+            return reconstruirLinhaDoTempo(caminhoArquivo, sessionId);
+        }
+
+        try {
+            if (indiceSessoes == null || !caminhoArquivo.equals(caminhoIndexado) || !indiceSessoes.estaAtualizado()) {
+                try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONSTRUCAO)) {
+                    indiceSessoes = IndiceSessoes.abrir(caminhoArquivo);
+                    medicao.bytes(ArquivoComprimido.tamanhoTexto(Paths.get(caminhoArquivo)));
+                }
+                caminhoIndexado = caminhoArquivo;
+            }
+
+            try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONSULTA)) {
+                List<String> linhasDaSessao = indiceSessoes.linhasDaSessao(sessionId);
+                for (String linha : linhasDaSessao) {
+                    // Mesmo tratamento da leitura completa
+                    String[] partes = linha.split(",", 5);
+                    if (partes.length < 4) continue;
+
+                    if (partes[2].trim().equals(sessionId)) {
+                        resultado.add(partes[3].trim());
+                    }
+                }
+                medicao.linhas(linhasDaSessao.size());
+            }
+
+        } catch (IOException e) {
+            System.err.println("Erro ao ler o arquivo: " + e.getMessage());
+            throw e;
+        }
+
+        return resultado;
+    }
+
+    /**
+     * Reconstrói a linha do tempo usando um {@link RepositorioEventos} já carregado.
+     *
+     * A comparação é feita entre ids inteiros do dicionário, sem reler o arquivo.
+     *
+     * @param repositorio Eventos do log carregados uma única vez
+     * @param sessionId   ID da sessão que será analisada
+     * @return Lista com os ACTION_TYPE em ordem cronológica (nunca null)
+     */
+    public List<String> reconstruirLinhaDoTempo(RepositorioEventos repositorio, String sessionId) {
+        List<String> resultado = new ArrayList<>();
+
+        if (sessionId == null || sessionId.isEmpty()) {
+            return resultado;
+        }
+
+        int idSessao = repositorio.sessoes().idDe(sessionId);
+        if (idSessao < 0) {
+            return resultado; // Sessão não aparece no log
+        }
+
+        Dicionario acoes = repositorio.acoes();
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONSULTA)) {
+            for (int linha = 0; linha < repositorio.tamanho(); linha++) {
+                if (repositorio.getSessao(linha) == idSessao) {
+                    resultado.add(acoes.valor(repositorio.getAcao(linha)));
+                }
+            }
+            medicao.linhas(repositorio.tamanho());
+        }
+
+        return resultado;
+    }
+
+    /**
+     * Reconstrói a linha do tempo só com os eventos da janela [de, ate].
+     *
+     * Usa o {@link IndiceTempo} do log ("&lt;log&gt;.tidx", construído na
+     * primeira chamada) para ler apenas os blocos que podem ter eventos da
+     * janela. Só linhas completas (7 campos válidos) têm TIMESTAMP confiável,
+     * então só elas entram.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs (ou arquivo colunar).
+     * @param sessionId      ID da sessão que será analisada.
+     * @param de             Primeiro TIMESTAMP da janela (inclusivo).
+     * @param ate            Último TIMESTAMP da janela (inclusivo).
+     * @return Lista com os ACTION_TYPE da janela em ordem cronológica (nunca null).
+     * @throws IOException Caso ocorra erro de leitura no arquivo.
+     */
+    public List<String> reconstruirLinhaDoTempo(String caminhoArquivo, String sessionId, long de, long ate)
+            throws IOException {
+        List<String> resultado = new ArrayList<>();
+
+        if (sessionId == null || sessionId.isEmpty() || de > ate) {
+            return resultado;
+        }
+
+        if (RepositorioEventos.usaRepositorio(caminhoArquivo)) {
+            return reconstruirLinhaDoTempo(RepositorioEventos.carregar(caminhoArquivo), sessionId, de, ate);
+        }
+
+        byte[] sessaoProcurada = sessionId.getBytes(StandardCharsets.UTF_8);
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONVERSAO);
+             IndiceTempo.Janela janela = IndiceTempo.abrir(caminhoArquivo).janela(de, ate)) {
+            while (janela.proximaLinha()) {
+                LeitorCsvMapeado leitor = janela.leitor();
+                if (leitor.campoIgual(2, sessaoProcurada)) {
+                    resultado.add(leitor.campoTexto(3));
+                }
+            }
+            medicao.linhas(janela.linhasLidas()).bytes(janela.bytesDaJanela());
+
+        } catch (IOException e) {
+            System.err.println("Erro ao ler o arquivo: " + e.getMessage());
+            throw e;
+        }
+
+        return resultado;
+    }
+
+    /**
+     * Linha do tempo da janela [de, ate] sobre um {@link RepositorioEventos}
+     * já carregado (mesma regra: só linhas completas).
+     *
+     * @param repositorio Eventos do log carregados uma única vez
+     * @param sessionId   ID da sessão que será analisada
+     * @param de          Primeiro TIMESTAMP da janela (inclusivo)
+     * @param ate         Último TIMESTAMP da janela (inclusivo)
+     * @return Lista com os ACTION_TYPE da janela em ordem cronológica (nunca null)
+     */
+    public List<String> reconstruirLinhaDoTempo(RepositorioEventos repositorio, String sessionId, long de, long ate) {
+        List<String> resultado = new ArrayList<>();
+
+        if (sessionId == null || sessionId.isEmpty()) {
+            return resultado;
+        }
+
+        int idSessao = repositorio.sessoes().idDe(sessionId);
+        if (idSessao < 0) {
+            return resultado;
+        }
+
+        Dicionario acoes = repositorio.acoes();
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONSULTA)) {
+            for (int linha = 0; linha < repositorio.tamanho(); linha++) {
+                if (repositorio.getSessao(linha) != idSessao || !repositorio.isCompleta(linha)) continue;
+                long timestamp = repositorio.getTimestamp(linha);
+                if (timestamp >= de && timestamp <= ate) {
+                    resultado.add(acoes.valor(repositorio.getAcao(linha)));
+                }
+            }
+            medicao.linhas(repositorio.tamanho());
+        }
+
+        return resultado;
+    }
+
     // ═══════════════════════════════════════════════════════════════
     // MÉTODO DE TESTE
     // ════════s═══════════════════════════════════════════════════════
@@ -101,6 +299,14 @@ public class Desafio2_LinhaDoTempo {
 
             System.out.println("===========================================================");
 
+            // Mesma consulta pelo índice de sessões (.sidx)
+            inicio = System.nanoTime();
+            List<String> acoesIndexadas = desafio.reconstruirLinhaDoTempoIndexado(arquivo, sessao);
+            fim = System.nanoTime();
+            System.out.printf("Consulta pelo indice de sessoes: %.3f ms (mesmo resultado? %s)%n",
+                (fim - inicio) / 1_000_000.0, acoesIndexadas.equals(acoes) ? "SIM" : "NAO");
+            System.out.println("===========================================================");
+
         } catch (IOException e) {
             System.err.println("Erro: " + e.getMessage());
         }
@@ -1,102 +1,650 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
 
 
 public class Desafio3_PriorizarAlertas {
 
+    private static final MetricasAnalise METRICAS = MetricasAnalise.de("desafio3");
+
+    /**
+     * Ordem de prioridade: maior severidade primeiro; empates pelo TIMESTAMP
+     * mais antigo e depois pelos demais campos, para que a ordem seja total
+     * (o mesmo resultado em execuções sequenciais e paralelas).
+     */
+    static final Comparator<Alerta> PRIORIDADE = Comparator
+        .comparingInt(Alerta::getSeverityLevel).reversed()
+        .thenComparingLong(Alerta::getTimestamp)
+        .thenComparing(Alerta::getUserId)
+        .thenComparing(Alerta::getSessionId)
+        .thenComparing(Alerta::getActionType)
+        .thenComparing(Alerta::getTargetResource)
+        .thenComparingLong(Alerta::getBytesTransferred);
+
+    // Índice de severidade do último log consultado (reaproveitado entre chamadas)
+    private IndiceSeveridade indiceSeveridade;
+    private String caminhoIndexado;
+
     /**
      * Prioriza os N alertas de maior severidade do arquivo de logs.
      *
-     * @param caminhoArquivo Caminho para o arquivo CSV de logs
+     * Empates de severidade são resolvidos pelo TIMESTAMP mais antigo
+     * (ver {@link #PRIORIDADE}), então o resultado é sempre o mesmo.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs (ou arquivo colunar)
      * @param n              Número de alertas a serem retornados
-     * @return Lista com os N alertas de maior severidade (nunca null)
+     * @return Lista com os N alertas de maior severidade (nunca null; somente
+     *         leitura, ver {@link LoteAlertas.Lista})
      * @throws IOException Caso ocorra erro de leitura no arquivo
      */
     public List<Alerta> priorizarAlertas(String caminhoArquivo, int n) throws IOException {
-        List<Alerta> resultado = new ArrayList<>();
-
         // Caso especial: n = 0 (conforme requisito do PDF)
-        if (n == 0) {
-            return resultado;
+        if (n <= 0) {
+            return LoteAlertas.Lista.VAZIA;
         }
 
-        // PriorityQueue com ordem DECRESCENTE de severidade
-        // Maior severidade = maior prioridade (requisito do PDF)
-        PriorityQueue<Alerta> filaPrioridade = new PriorityQueue<>(
-            (a1, a2) -> Integer.compare(a2.getSeverityLevel(), a1.getSeverityLevel())
-        );
+        // Arquivo colunar binário ou conjunto de logs: usa o repositório
+        if (RepositorioEventos.usaRepositorio(caminhoArquivo)) {
+            return priorizarAlertas(RepositorioEventos.carregar(caminhoArquivo), n);
+        }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(caminhoArquivo), 16384)) {
-            String linha = br.readLine(); // Ignora o cabeçalho
-            
+        // Heap limitado a N alertas em colunas (ver MelhoresAlertas):
+        // a memória fica O(n) mesmo com milhões de linhas no log
+        MelhoresAlertas melhores = new MelhoresAlertas(n);
+
+        // Leitura byte a byte do arquivo mapeado (sem String.split por linha)
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONVERSAO);
+             LeitorCsvMapeado leitor = new LeitorCsvMapeado(caminhoArquivo)) {
             // Caso especial: arquivo vazio (conforme requisito do PDF)
-            if (linha == null) {
-                return resultado;
+            if (!leitor.proximaLinha()) { // Ignora o cabeçalho
+                return LoteAlertas.Lista.VAZIA;
             }
 
             // Processar todas as linhas do log
-            while ((linha = br.readLine()) != null) {
-                linha = linha.trim();
-                if (linha.isEmpty()) continue;
-
-                String[] campos = linha.split(",");
-
-                // Validação: garantir que a linha tem todos os 7 campos
-                if (campos.length >= 7) {
-                    try {
-                        // Parsing dos 7 campos do CSV
-                        long timestamp = Long.parseLong(campos[0].trim());
-                        String userId = campos[1].trim();
-                        String sessionId = campos[2].trim();
-                        String actionType = campos[3].trim();
-                        String targetResource = campos[4].trim();
-                        int severityLevel = Integer.parseInt(campos[5].trim());
-                        long bytesTransferred = Long.parseLong(campos[6].trim());
-
-                        // Criar objeto Alerta e adicionar à fila de prioridade
-                        // (conforme requisito do PDF: "crie um objeto Alerta e adicione-o à PriorityQueue")
-                        Alerta alerta = new Alerta(
-                            timestamp,
-                            userId,
-                            sessionId,
-                            actionType,
-                            targetResource,
-                            severityLevel,
-                            bytesTransferred
-                        );
-
-                        filaPrioridade.offer(alerta);
-
-                    } catch (NumberFormatException e) {
-                        // Ignora linhas malformadas
-                        System.err.println("Linha com formato invalido: " + linha);
-                    }
-                }
+            while (leitor.proximaLinha()) {
+                melhores.considerar(leitor);
             }
+            melhores.registrarMetricas(medicao.bytes(leitor.posicaoProximaLinha()));
 
         } catch (IOException e) {
             System.err.println("Erro ao ler o arquivo: " + e.getMessage());
             throw e; // Propaga a exceção conforme requisito
         }
 
-        // Extrair os N primeiros elementos
         // Caso especial: se n > total, retorna todos (conforme requisito do PDF)
-        int qtdExtrair = Math.min(n, filaPrioridade.size());
+        // Os Alertas da lista só são criados quando alguém os pede
+        // Sempre retorna lista válida (nunca null, conforme requisito do PDF)
+        return melhores.emOrdem();
+    }
+
+    /**
+     * Versão paralela de {@link #priorizarAlertas(String, int)}.
+     *
+     * O arquivo é dividido em blocos (um por núcleo, sempre no início de uma
+     * linha); cada bloco calcula o seu próprio top N numa thread separada e no
+     * final os tops parciais são juntados. Como o desempate é total
+     * ({@link #PRIORIDADE}), o resultado é idêntico ao da versão sequencial.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs (ou arquivo colunar)
+     * @param n              Número de alertas a serem retornados
+     * @return Lista com os N alertas de maior severidade (nunca null; somente leitura)
+     * @throws IOException Caso ocorra erro de leitura no arquivo
+     */
+    public List<Alerta> priorizarAlertasParalelo(String caminhoArquivo, int n) throws IOException {
+        List<Alerta> resultado = LoteAlertas.Lista.VAZIA;
+
+        if (n <= 0) {
+            return resultado;
+        }
+
+        if (RepositorioEventos.usaRepositorio(caminhoArquivo)) {
+            return priorizarAlertasParalelo(RepositorioEventos.carregar(caminhoArquivo), n);
+        }
+
+        Path arquivo = Paths.get(caminhoArquivo);
+        int nucleos = Runtime.getRuntime().availableProcessors();
+
+        ExecutorService executor = Executors.newFixedThreadPool(nucleos);
+        try {
+            // Os blocos começam logo depois do cabeçalho
+            long inicioDados;
+            try (LeitorCsvMapeado leitor = new LeitorCsvMapeado(caminhoArquivo)) {
+                if (!leitor.proximaLinha()) {
+                    return resultado; // Arquivo vazio
+                }
+                inicioDados = leitor.posicaoProximaLinha();
+            }
+
+            try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONVERSAO)) {
+                long[] limites = LeitorCsvMapeado.dividirEmBlocos(arquivo, inicioDados, nucleos);
+                List<Future<MelhoresAlertas>> parciais = new ArrayList<>();
+                LongAdder bytesLidos = new LongAdder(); // Texto lido (no .gz, descomprimido)
+                for (int i = 0; i + 1 < limites.length; i++) {
+                    long inicio = limites[i];
+                    long fim = limites[i + 1];
+                    parciais.add(executor.submit(() -> {
+                        MelhoresAlertas melhores = new MelhoresAlertas(n);
+                        try (LeitorCsvMapeado leitor = new LeitorCsvMapeado(arquivo, inicio, fim)) {
+                            while (leitor.proximaLinha()) {
+                                melhores.considerar(leitor);
+                            }
+                            bytesLidos.add(leitor.posicaoProximaLinha() - inicio);
+                        }
+                        return melhores;
+                    }));
+                }
 
-        // Usar poll() n vezes (conforme requisito do PDF)
-        for (int i = 0; i < qtdExtrair; i++) {
-            Alerta alerta = filaPrioridade.poll(); 
-            if (alerta != null) {
-                resultado.add(alerta);
+                MelhoresAlertas total = new MelhoresAlertas(n);
+                for (Future<MelhoresAlertas> parcial : parciais) {
+                    total.juntar(aguardar(parcial));
+                }
+                total.registrarMetricas(medicao.bytes(bytesLidos.sum()));
+                resultado = total.emOrdem();
             }
+
+        } catch (IOException e) {
+            System.err.println("Erro ao ler o arquivo: " + e.getMessage());
+            throw e;
+        } finally {
+            executor.shutdownNow();
         }
 
-        // Sempre retorna lista válida (nunca null, conforme requisito do PDF)
         return resultado;
     }
 
+    private static <T> T aguardar(Future<T> tarefa) throws IOException {
+        try {
+            return tarefa.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Leitura paralela interrompida");
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof IOException) throw (IOException) causa;
+            if (causa instanceof RuntimeException) throw (RuntimeException) causa;
+            throw new IOException(causa);
+        }
+    }
+
+    /**
+     * Prioriza os N alertas de maior severidade usando um {@link RepositorioEventos}
+     * já carregado (sem reler nem refazer o split do arquivo).
+     *
+     * @param repositorio Eventos do log carregados uma única vez
+     * @param n           Número de alertas a serem retornados
+     * @return Lista com os N alertas de maior severidade (nunca null; somente leitura)
+     */
+    public List<Alerta> priorizarAlertas(RepositorioEventos repositorio, int n) {
+        if (n <= 0) {
+            return LoteAlertas.Lista.VAZIA;
+        }
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONSTRUCAO)) {
+            MelhoresAlertas melhores = melhoresDoIntervalo(repositorio, 0, repositorio.tamanho(), n,
+                Long.MIN_VALUE, Long.MAX_VALUE);
+            melhores.registrarMetricas(medicao);
+            return melhores.emOrdem();
+        }
+    }
+
+    /**
+     * Prioriza os N alertas de maior severidade dentro da janela [de, ate].
+     *
+     * Usa o {@link IndiceTempo} do log ("&lt;log&gt;.tidx", construído na
+     * primeira chamada) para ler apenas os blocos que podem ter eventos da
+     * janela, em vez do arquivo inteiro.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs (ou arquivo colunar)
+     * @param n              Número de alertas a serem retornados
+     * @param de             Primeiro TIMESTAMP da janela (inclusivo)
+     * @param ate            Último TIMESTAMP da janela (inclusivo)
+     * @return Lista com os N alertas de maior severidade da janela (nunca null; somente leitura)
+     * @throws IOException Caso ocorra erro de leitura no arquivo
+     */
+    public List<Alerta> priorizarAlertas(String caminhoArquivo, int n, long de, long ate) throws IOException {
+        if (n <= 0 || de > ate) {
+            return LoteAlertas.Lista.VAZIA;
+        }
+
+        if (RepositorioEventos.usaRepositorio(caminhoArquivo)) {
+            return priorizarAlertas(RepositorioEventos.carregar(caminhoArquivo), n, de, ate);
+        }
+
+        MelhoresAlertas melhores = new MelhoresAlertas(n);
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONVERSAO);
+             IndiceTempo.Janela janela = IndiceTempo.abrir(caminhoArquivo).janela(de, ate)) {
+            // A janela só entrega linhas completas: considerar() não rejeita nenhuma
+            while (janela.proximaLinha()) {
+                melhores.considerar(janela.leitor());
+            }
+            melhores.registrarMetricas(medicao.bytes(janela.bytesDaJanela()));
+
+        } catch (IOException e) {
+            System.err.println("Erro ao ler o arquivo: " + e.getMessage());
+            throw e;
+        }
+
+        return melhores.emOrdem();
+    }
+
+    /**
+     * Top N da janela [de, ate] sobre um {@link RepositorioEventos} já carregado.
+     *
+     * @param repositorio Eventos do log carregados uma única vez
+     * @param n           Número de alertas a serem retornados
+     * @param de          Primeiro TIMESTAMP da janela (inclusivo)
+     * @param ate         Último TIMESTAMP da janela (inclusivo)
+     * @return Lista com os N alertas de maior severidade da janela (nunca null; somente leitura)
+     */
+    public List<Alerta> priorizarAlertas(RepositorioEventos repositorio, int n, long de, long ate) {
+        if (n <= 0) {
+            return LoteAlertas.Lista.VAZIA;
+        }
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONSTRUCAO)) {
+            MelhoresAlertas melhores = melhoresDoIntervalo(repositorio, 0, repositorio.tamanho(), n, de, ate);
+            melhores.registrarMetricas(medicao);
+            return melhores.emOrdem();
+        }
+    }
+
+    /**
+     * Versão paralela sobre o repositório: cada núcleo calcula o top N de uma
+     * faixa de linhas e os resultados parciais são juntados.
+     *
+     * @param repositorio Eventos do log carregados uma única vez
+     * @param n           Número de alertas a serem retornados
+     * @return Lista com os N alertas de maior severidade (nunca null; somente leitura)
+     */
+    public List<Alerta> priorizarAlertasParalelo(RepositorioEventos repositorio, int n) {
+        if (n <= 0) {
+            return LoteAlertas.Lista.VAZIA;
+        }
+
+        // Decodifica os dicionários antes de dividir o trabalho entre as threads
+        repositorio.usuarios();
+        repositorio.sessoes();
+        repositorio.acoes();
+        repositorio.recursos();
+
+        int total = repositorio.tamanho();
+        int partes = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), total / 4096));
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONSTRUCAO)) {
+            return IntStream.range(0, partes)
+                .parallel()
+                .mapToObj(p -> melhoresDoIntervalo(repositorio,
+                    (int) ((long) total * p / partes), (int) ((long) total * (p + 1) / partes), n,
+                    Long.MIN_VALUE, Long.MAX_VALUE))
+                .reduce((a, b) -> {
+                    a.juntar(b);
+                    return a;
+                })
+                .map(melhores -> {
+                    melhores.registrarMetricas(medicao);
+                    return melhores.emOrdem();
+                })
+                .orElse(LoteAlertas.Lista.VAZIA);
+        }
+    }
+
+    /** Top N das linhas [inicio, fim) com TIMESTAMP em [de, ate]. */
+    private static MelhoresAlertas melhoresDoIntervalo(RepositorioEventos repositorio, int inicio, int fim, int n,
+                                                       long de, long ate) {
+        MelhoresAlertas melhores = new MelhoresAlertas(n, repositorio);
+        melhores.linhasLidas = fim - inicio;
+        for (int linha = inicio; linha < fim; linha++) {
+            // Somente linhas com os 7 campos válidos viram alertas
+            if (!repositorio.isCompleta(linha)) {
+                melhores.linhasRejeitadas++;
+                continue;
+            }
+            long timestamp = repositorio.getTimestamp(linha);
+            if (timestamp < de || timestamp > ate) continue;
+
+            // Só copia a linha se o alerta puder entrar no top N
+            if (!melhores.podeEntrar(repositorio.getSeveridade(linha), timestamp)) continue;
+
+            melhores.adicionar(repositorio, linha);
+        }
+        return melhores;
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // CONSULTAS PELO ÍNDICE DE SEVERIDADE
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * Mesmo resultado de {@link #priorizarAlertas(String, int)}, usando o
+     * {@link IndiceSeveridade} do log ("&lt;log&gt;.vidx", construído na
+     * primeira chamada): o top N sai direto dos baldes de severidade e só as
+     * N linhas dele (mais os empates de severidade e TIMESTAMP com a última)
+     * são lidas do log.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs (ou arquivo colunar)
+     * @param n              Número de alertas a serem retornados
+     * @return Lista com os N alertas de maior severidade (nunca null; somente leitura)
+     * @throws IOException Caso ocorra erro de leitura no arquivo
+     */
+    public List<Alerta> priorizarAlertasIndexado(String caminhoArquivo, int n) throws IOException {
+        if (n <= 0) {
+            return LoteAlertas.Lista.VAZIA;
+        }
+
+        // O arquivo colunar e o conjunto de logs já têm a severidade em coluna: não precisa de índice
+        if (RepositorioEventos.usaRepositorio(caminhoArquivo)) {
+            return priorizarAlertas(RepositorioEventos.carregar(caminhoArquivo), n);
+        }
+
+        return lerDoIndice(caminhoArquivo, indice(caminhoArquivo).posicoesDoTopo(n), n);
+    }
+
+    /**
+     * Todos os alertas com severidade &gt;= {@code minimo} (o filtro "severidade
+     * &gt; 7" é {@code minimo = 8}), do mais prioritário para o menos. Pelo
+     * {@link IndiceSeveridade} é um trecho contíguo do índice: só as linhas
+     * que passam no filtro são lidas do log.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs (ou arquivo colunar)
+     * @param minimo         Menor severidade aceita
+     * @return Alertas com severidade &gt;= minimo, na ordem de {@link #PRIORIDADE}
+     *         (nunca null; somente leitura)
+     * @throws IOException Caso ocorra erro de leitura no arquivo
+     */
+    public List<Alerta> alertasComSeveridadeMinima(String caminhoArquivo, int minimo) throws IOException {
+        if (RepositorioEventos.usaRepositorio(caminhoArquivo)) {
+            return alertasComSeveridadeMinima(RepositorioEventos.carregar(caminhoArquivo), minimo);
+        }
+
+        long[] posicoes = indice(caminhoArquivo).posicoesAPartirDe(minimo);
+        if (posicoes.length == 0) {
+            return LoteAlertas.Lista.VAZIA;
+        }
+        return lerDoIndice(caminhoArquivo, posicoes, posicoes.length);
+    }
+
+    /**
+     * Alertas com severidade &gt;= {@code minimo} sobre um {@link RepositorioEventos}
+     * já carregado (uma passada pelas colunas).
+     *
+     * @param repositorio Eventos do log carregados uma única vez
+     * @param minimo      Menor severidade aceita
+     * @return Alertas com severidade &gt;= minimo, na ordem de {@link #PRIORIDADE}
+     *         (nunca null; somente leitura)
+     */
+    public List<Alerta> alertasComSeveridadeMinima(RepositorioEventos repositorio, int minimo) {
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONSTRUCAO)) {
+            MelhoresAlertas melhores = new MelhoresAlertas(Integer.MAX_VALUE, repositorio);
+            melhores.linhasLidas = repositorio.tamanho();
+            for (int linha = 0; linha < repositorio.tamanho(); linha++) {
+                if (!repositorio.isCompleta(linha)) {
+                    melhores.linhasRejeitadas++;
+                    continue;
+                }
+                if (repositorio.getSeveridade(linha) >= minimo) {
+                    melhores.adicionar(repositorio, linha);
+                }
+            }
+            melhores.registrarMetricas(medicao);
+            return melhores.emOrdem();
+        }
+    }
+
+    /**
+     * Número de alertas (linhas completas) por severidade, da maior para a
+     * menor. Sai direto do {@link IndiceSeveridade}, sem ler o log.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs (ou arquivo colunar)
+     * @return Severidade -&gt; número de alertas (só as severidades presentes)
+     * @throws IOException Caso ocorra erro de leitura no arquivo
+     */
+    public Map<Integer, Long> contarPorSeveridade(String caminhoArquivo) throws IOException {
+        if (RepositorioEventos.usaRepositorio(caminhoArquivo)) {
+            RepositorioEventos repositorio = RepositorioEventos.carregar(caminhoArquivo);
+            Map<Integer, Long> distribuicao = new TreeMap<>(Collections.reverseOrder());
+            for (int linha = 0; linha < repositorio.tamanho(); linha++) {
+                if (repositorio.isCompleta(linha)) {
+                    distribuicao.merge(repositorio.getSeveridade(linha), 1L, Long::sum);
+                }
+            }
+            return distribuicao;
+        }
+        return indice(caminhoArquivo).distribuicao();
+    }
+
+    private IndiceSeveridade indice(String caminhoArquivo) throws IOException {
+        try {
+            if (indiceSeveridade == null || !caminhoArquivo.equals(caminhoIndexado)
+                    || !indiceSeveridade.estaAtualizado()) {
+                indiceSeveridade = IndiceSeveridade.abrir(caminhoArquivo);
+                caminhoIndexado = caminhoArquivo;
+            }
+            return indiceSeveridade;
+        } catch (IOException e) {
+            System.err.println("Erro ao ler o arquivo: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Lê do log as linhas das posições (em ordem crescente) e devolve as N
+     * mais prioritárias. As linhas vêm do índice, então todas são completas.
+     */
+    private static List<Alerta> lerDoIndice(String caminhoArquivo, long[] posicoes, int n) throws IOException {
+        MelhoresAlertas melhores = new MelhoresAlertas(n);
+        if (posicoes.length == 0) {
+            return melhores.emOrdem();
+        }
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONSULTA);
+             LeitorCsvMapeado leitor = new LeitorCsvMapeado(Paths.get(caminhoArquivo), posicoes[0], -1)) {
+            for (long posicao : posicoes) {
+                if (leitor.irPara(posicao)) {
+                    melhores.considerar(leitor);
+                }
+            }
+            melhores.registrarMetricas(medicao);
+
+        } catch (IOException e) {
+            System.err.println("Erro ao ler o arquivo: " + e.getMessage());
+            throw e;
+        }
+        return melhores.emOrdem();
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // TOP N LIMITADO
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * Guarda no máximo N alertas num heap com o PIOR dos melhores no topo.
+     * Um alerta novo só entra se for melhor que ele, então a memória é O(n)
+     * e cada linha custa O(log n).
+     *
+     * Os alertas ficam num {@link LoteAlertas} (colunas primitivas e ids de
+     * dicionário, ~40 bytes por alerta) e o heap guarda só as posições. Há
+     * sempre uma posição de rascunho: o candidato é escrito nela e, se for
+     * melhor que o pior, troca de lugar com ele (a posição de quem saiu vira
+     * o novo rascunho). Nenhum objeto é criado por linha.
+     */
+    static class MelhoresAlertas {
+        private final int limite;
+        private final LoteAlertas lote;
+        private int[] heap;
+        private int tamanho;
+        private int rascunho = -1;
+
+        // Contadores para as métricas (somados no juntar)
+        long linhasLidas;
+        long linhasRejeitadas;
+        private int maiorTamanho;
+
+        /** Top N com dicionários próprios (leitura do CSV) */
+        MelhoresAlertas(int limite) {
+            this(limite, new LoteAlertas(Math.min(limite, 1024) + 1));
+        }
+
+        /** Top N sobre as linhas do repositório (guarda só os ids dele) */
+        MelhoresAlertas(int limite, RepositorioEventos repositorio) {
+            this(limite, new LoteAlertas(Math.min(limite, 1024) + 1, repositorio));
+        }
+
+        private MelhoresAlertas(int limite, LoteAlertas lote) {
+            this.limite = limite;
+            this.lote = lote;
+            this.heap = new int[Math.min(limite, 1024) + 1];
+        }
+
+        /**
+         * Teste rápido (só severidade e timestamp) para não criar um Alerta
+         * que com certeza ficaria de fora.
+         */
+        boolean podeEntrar(int severityLevel, long timestamp) {
+            if (tamanho < limite) return true;
+            int pior = heap[0];
+            if (severityLevel != lote.getSeverityLevel(pior)) return severityLevel > lote.getSeverityLevel(pior);
+            return timestamp <= lote.getTimestamp(pior);
+        }
+
+        void adicionar(Alerta alerta) {
+            adicionar(alerta.getTimestamp(), alerta.getUserId(), alerta.getSessionId(), alerta.getActionType(),
+                alerta.getTargetResource(), alerta.getSeverityLevel(), alerta.getBytesTransferred());
+        }
+
+        /** Mesmo que {@link #adicionar(Alerta)}, sem precisar criar o Alerta. */
+        void adicionar(long timestamp, String userId, String sessionId, String actionType,
+                       String targetResource, int severityLevel, long bytesTransferred) {
+            lote.escrever(rascunho(), timestamp, userId, sessionId, actionType, targetResource,
+                severityLevel, bytesTransferred);
+            entrarRascunho();
+        }
+
+        /** Mesmo que {@link #adicionar(Alerta)} para uma linha completa do repositório. */
+        void adicionar(RepositorioEventos repositorio, int linha) {
+            lote.escrever(rascunho(), repositorio, linha);
+            entrarRascunho();
+        }
+
+        /** Considera a linha atual do leitor (ignora linhas incompletas ou malformadas). */
+        void considerar(LeitorCsvMapeado leitor) {
+            linhasLidas++;
+
+            // Validação: garantir que a linha tem todos os 7 campos
+            if (leitor.numeroCamposPreenchidos() < 7) {
+                linhasRejeitadas++;
+                return;
+            }
+            try {
+                // Parsing dos campos numéricos direto dos bytes
+                long timestamp = leitor.campoLong(0);
+                int severityLevel = leitor.campoInt(5);
+                long bytesTransferred = leitor.campoLong(6);
+
+                // Os textos só são lidos se o alerta puder entrar no top N
+                if (!podeEntrar(severityLevel, timestamp)) return;
+
+                lote.escrever(rascunho(), leitor, timestamp, severityLevel, bytesTransferred);
+                entrarRascunho();
+
+            } catch (NumberFormatException e) {
+                // Ignora linhas malformadas
+                linhasRejeitadas++;
+                System.err.println("Linha com formato invalido: " + leitor.linhaComoTexto().trim());
+            }
+        }
+
+        void juntar(MelhoresAlertas outro) {
+            for (int i = 0; i < outro.tamanho; i++) {
+                int posicao = outro.heap[i];
+                if (!podeEntrar(outro.lote.getSeverityLevel(posicao), outro.lote.getTimestamp(posicao))) continue;
+                lote.escrever(rascunho(), outro.lote, posicao);
+                entrarRascunho();
+            }
+            linhasLidas += outro.linhasLidas;
+            linhasRejeitadas += outro.linhasRejeitadas;
+            maiorTamanho = Math.max(maiorTamanho, outro.maiorTamanho);
+        }
+
+        /** Passa os contadores para a medição e registra o maior tamanho do heap. */
+        void registrarMetricas(MetricasAnalise.Medicao medicao) {
+            medicao.linhas(linhasLidas).rejeitadas(linhasRejeitadas);
+            METRICAS.registrarPico("tamanhoHeap", maiorTamanho);
+        }
+
+        /**
+         * Os alertas guardados, do mais prioritário para o menos. Os Alertas
+         * são criados sob demanda pela lista; depois desta chamada não
+         * adicione mais alertas (as posições do lote seriam reaproveitadas).
+         */
+        List<Alerta> emOrdem() {
+            // Heap sort numa cópia: o pior sai primeiro e vai para o fim
+            int[] copia = Arrays.copyOf(heap, tamanho);
+            int[] ordem = new int[tamanho];
+            for (int restantes = tamanho; restantes > 0; restantes--) {
+                ordem[restantes - 1] = copia[0];
+                copia[0] = copia[restantes - 1];
+                descer(copia, restantes - 1, 0);
+            }
+            return new LoteAlertas.Lista(lote, ordem);
+        }
+
+        private int rascunho() {
+            if (rascunho < 0) {
+                rascunho = lote.novaPosicao();
+            }
+            return rascunho;
+        }
+
+        /** Coloca o rascunho no heap (se ainda há espaço ou se ele é melhor que o pior). */
+        private void entrarRascunho() {
+            if (tamanho < limite) {
+                if (tamanho == heap.length) {
+                    heap = Arrays.copyOf(heap, tamanho * 2);
+                }
+                heap[tamanho] = rascunho;
+                subir(heap, tamanho++);
+                rascunho = -1;
+                maiorTamanho = Math.max(maiorTamanho, tamanho);
+            } else if (lote.comparar(rascunho, heap[0]) < 0) {
+                int saiu = heap[0];
+                heap[0] = rascunho;
+                rascunho = saiu;
+                descer(heap, tamanho, 0);
+            }
+        }
+
+        // O pai é sempre PIOR (menos prioritário) que os filhos
+        private void subir(int[] h, int i) {
+            while (i > 0) {
+                int pai = (i - 1) / 2;
+                if (lote.comparar(h[i], h[pai]) <= 0) break;
+                int troca = h[i];
+                h[i] = h[pai];
+                h[pai] = troca;
+                i = pai;
+            }
+        }
+
+        private void descer(int[] h, int n, int i) {
+            while (true) {
+                int pior = i;
+                int esquerda = 2 * i + 1;
+                int direita = esquerda + 1;
+                if (esquerda < n && lote.comparar(h[esquerda], h[pior]) > 0) pior = esquerda;
+                if (direita < n && lote.comparar(h[direita], h[pior]) > 0) pior = direita;
+                if (pior == i) return;
+                int troca = h[i];
+                h[i] = h[pior];
+                h[pior] = troca;
+                i = pior;
+            }
+        }
+    }
+
     // ═══════════════════════════════════════════════════════════════
     // MÉTODOS DE TESTE - VALIDAÇÃO DE TODOS OS REQUISITOS
     // ═══════════════════════════════════════════════════════════════
@@ -188,87 +736,53 @@ public class Desafio3_PriorizarAlertas {
                              (ordenadoCorreto ? "SIM" : "NAO"));
             System.out.println("✓ REQUISITO ATENDIDO: " + (ordenadoCorreto ? "SIM" : "NAO"));
 
-            // Mostrar distribuição de severidades (ordem decrescente)
+            // Mostrar distribuição de severidades (ordem decrescente), direto do índice
             System.out.println("\nDistribuicao de Severidades (ordem decrescente):");
-            Map<Integer, Long> distribuicao = new TreeMap<>(Collections.reverseOrder());
-            for (Alerta a : todos) {
-                distribuicao.put(a.getSeverityLevel(), 
-                    distribuicao.getOrDefault(a.getSeverityLevel(), 0L) + 1);
-            }
+            Map<Integer, Long> distribuicao = desafio.contarPorSeveridade(arquivo);
             for (Map.Entry<Integer, Long> entry : distribuicao.entrySet()) {
                 System.out.printf("  Severidade %2d: %3d eventos%n", 
                     entry.getKey(), 
                     entry.getValue());
             }
 
+            System.out.println("\n===========================================================\n");
+
+            // ========== TESTE 4: versão paralela ==========
+            System.out.println("TESTE 4: Top 5 em paralelo (deve ser igual ao sequencial)");
+            System.out.println("------------------------------------------------------------");
+            inicio = System.nanoTime();
+            List<Alerta> top5Paralelo = desafio.priorizarAlertasParalelo(arquivo, 5);
+            fim = System.nanoTime();
+            System.out.printf("Tempo de execucao: %.3f ms%n", (fim - inicio) / 1_000_000.0);
+            boolean iguais = top5Paralelo.toString().equals(top5.toString());
+            System.out.println("✓ Mesmo resultado do sequencial? " + (iguais ? "SIM" : "NAO"));
+
+            System.out.println("\n===========================================================\n");
+
+            // ========== TESTE 5: índice de severidade ==========
+            System.out.println("TESTE 5: Top 5 e severidade > 7 pelo indice (" + IndiceSeveridade.EXTENSAO + ")");
+            System.out.println("------------------------------------------------------------");
+            inicio = System.nanoTime();
+            List<Alerta> top5Indexado = desafio.priorizarAlertasIndexado(arquivo, 5);
+            fim = System.nanoTime();
+            System.out.printf("Tempo de execucao (com construcao do indice): %.3f ms%n", (fim - inicio) / 1_000_000.0);
+            inicio = System.nanoTime();
+            top5Indexado = desafio.priorizarAlertasIndexado(arquivo, 5);
+            fim = System.nanoTime();
+            System.out.printf("Tempo de execucao (indice pronto): %.3f ms%n", (fim - inicio) / 1_000_000.0);
+            System.out.println("✓ Mesmo resultado do sequencial? " +
+                (top5Indexado.toString().equals(top5.toString()) ? "SIM" : "NAO"));
+
+            List<Alerta> altos = desafio.alertasComSeveridadeMinima(arquivo, 8);
+            long esperados = 0;
+            for (Alerta a : todos) {
+                if (a.getSeverityLevel() > 7) esperados++;
+            }
+            System.out.println("✓ Alertas com severidade > 7: " + altos.size() + " (esperado " + esperados + ")");
+
         } catch (IOException e) {
             System.err.println("Erro: " + e.getMessage());
             e.printStackTrace();
         }
     }
 }
-
-// ═══════════════════════════════════════════════════════════════
-// CLASSE ALERTA - Para testes locais
-// IMPORTANTE: Na entrega final do JAR, use a classe do analise-forense-api.jar
-// e remova esta classe local!
-// ═══════════════════════════════════════════════════════════════
-class Alerta {
-    private final long timestamp;
-    private final String userId;
-    private final String sessionId;
-    private final String actionType;
-    private final String targetResource;
-    private final int severityLevel;
-    private final long bytesTransferred;
-
-    /**
-     * Construtor da classe Alerta
-     */
-    public Alerta(long timestamp, String userId, String sessionId,
-                  String actionType, String targetResource,
-                  int severityLevel, long bytesTransferred) {
-        this.timestamp = timestamp;
-        this.userId = userId;
-        this.sessionId = sessionId;
-        this.actionType = actionType;
-        this.targetResource = targetResource;
-        this.severityLevel = severityLevel;
-        this.bytesTransferred = bytesTransferred;
-    }
-
-    // Getters
-    public long getTimestamp() {
-        return timestamp;
-    }
-
-    public String getUserId() {
-        return userId;
-    }
-
-    public String getSessionId() {
-        return sessionId;
-    }
-
-    public String getActionType() {
-        return actionType;
-    }
-
-    public String getTargetResource() {
-        return targetResource;
-    }
-
-    public int getSeverityLevel() {
-        return severityLevel;
-    }
-
-    public long getBytesTransferred() {
-        return bytesTransferred;
-    }
-
-    @Override
-    public String toString() {
-        return String.format("Alerta[timestamp=%d, user=%s, session=%s, action=%s, resource=%s, severity=%d, bytes=%d]",
-            timestamp, userId, sessionId, actionType, targetResource, severityLevel, bytesTransferred);
-    }
-}
\ No newline at end of file
@@ -1,9 +1,7 @@
-
-
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 /**
  * Desafio 4: Identificar Picos de Transferência de Dados
@@ -13,96 +11,109 @@ import java.util.*;
  */
 public class Desafio4_DetectorDeTransferenciaDeDados {
 
+    private static final MetricasAnalise METRICAS = MetricasAnalise.de("desafio4");
+
     /**
      * Encontra picos de transferência no arquivo de logs.
      *
      * Um pico acontece quando um evento tem menos bytes que outro evento futuro.
      * Exemplo: Se agora foram 100 bytes e depois foram 500 bytes, isso é um pico!
      *
-     * @param caminhoArquivo Caminho do arquivo CSV
+     * @param caminhoArquivo Caminho do arquivo CSV (ou do arquivo colunar)
      * @return Map com pares: timestamp atual → timestamp do próximo maior
      * @throws IOException Se der erro ao ler o arquivo
      */
     public Map<Long, Long> identificarPicosTransferencia(String caminhoArquivo) throws IOException {
+        // Faz a detecção por evento e converte para o Map do formato antigo
+        return detectarPicos(caminhoArquivo).paraMapa();
+    }
+
+    /**
+     * Detecta os picos e devolve o resultado POR EVENTO (sem perder eventos
+     * com o mesmo timestamp, como acontece no Map).
+     *
+     * Tudo é feito com arrays de tipos primitivos (long e int): nenhum
+     * objeto é criado por evento.
+     *
+     * @param caminhoArquivo Caminho do arquivo CSV (ou do arquivo colunar)
+     * @return Para cada evento, o índice do próximo evento com mais bytes
+     * @throws IOException Se der erro ao ler o arquivo
+     */
+    public PicosTransferencia detectarPicos(String caminhoArquivo) throws IOException {
+
+        // Se o arquivo já está no formato colunar binário, não precisa ler CSV:
+        // as colunas de timestamps e bytes já estão prontas no arquivo (um
+        // conjunto de logs também vem pelo repositório, já intercalado)
+        if (RepositorioEventos.usaRepositorio(caminhoArquivo)) {
+            return detectarPicos(RepositorioEventos.carregar(caminhoArquivo));
+        }
 
         // ═══════════════════════════════════════════════════════════════
         // PASSO 1: CRIAR AS ESTRUTURAS DE DADOS
         // ═══════════════════════════════════════════════════════════════
 
-        // Cria um Map (dicionário) para guardar os resultados
-        // Map funciona como: chave → valor
-        // Aqui: timestamp atual → timestamp do próximo maior
-        Map<Long, Long> picosEncontrados = new HashMap<>();
-
-        // Cria uma lista para guardar os timestamps (momentos) de cada evento
-        // Long é um tipo de número inteiro grande
-        // ArrayList é uma lista que pode crescer conforme adicionamos itens
-        List<Long> listaDeTimes = new ArrayList<>();
+        // Cria um vetor para guardar os timestamps (momentos) de cada evento
+        // VetorLong é como um ArrayList<Long>, mas guarda o número "puro"
+        // (long) em vez de criar um objeto Long para cada evento
+        VetorLong vetorDeTimes = new VetorLong(1024);
 
-        // Cria uma lista para guardar quantos bytes foram transferidos
-        // Esta lista vai estar sincronizada com a lista de timestamps
-        // Posição 0 de listaDeTimes corresponde à posição 0 de listaDeBytes
-        List<Long> listaDeBytes = new ArrayList<>();
+        // Cria um vetor para guardar quantos bytes foram transferidos
+        // Este vetor vai estar sincronizado com o vetor de timestamps
+        // Posição 0 de vetorDeTimes corresponde à posição 0 de vetorDeBytes
+        VetorLong vetorDeBytes = new VetorLong(1024);
 
 
         // ═══════════════════════════════════════════════════════════════
         // PASSO 2: LER O ARQUIVO CSV
         // ═══════════════════════════════════════════════════════════════
 
-        // BufferedReader é uma classe que lê arquivos de texto
-        // Usamos ela para ler o arquivo linha por linha
-        BufferedReader leitor = new BufferedReader(new FileReader(caminhoArquivo));
+        // LeitorCsvMapeado lê o arquivo direto da memória, byte a byte
+        // Ele não cria uma String para cada linha nem faz split(",")
+        // Só guarda onde começa e termina cada coluna
+        // try (...) SEMPRE fecha o arquivo no final, mesmo se der erro
+        // A medição conta as linhas lidas e as ignoradas (ver MetricasAnalise)
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONVERSAO);
+             LeitorCsvMapeado leitor = new LeitorCsvMapeado(caminhoArquivo)) {
 
-        try {
             // Lê a primeira linha do arquivo (cabeçalho)
             // Cabeçalho tem os nomes das colunas: TIMESTAMP, USER_ID, etc
             // Não vamos usar essa linha, só pulamos ela
-            String linhaDoArquivo = leitor.readLine();
+            leitor.proximaLinha();
+            long linhasLidas = 0;
 
             // Loop que vai ler TODAS as linhas do arquivo
-            // Continua enquanto houver linhas para ler
-            // Quando chegar no final, linhaDoArquivo será null
-            while ((linhaDoArquivo = leitor.readLine()) != null) {
-
-                // Se a linha está vazia (sem nada), pula para a próxima
-                if (linhaDoArquivo.isEmpty()) {
-                    continue; // Vai para a próxima iteração do loop
-                }
-
-                // split(",") divide a linha toda vez que encontra uma vírgula
-                // Exemplo: "100,alice,session1" vira ["100", "alice", "session1"]
-                // Isso transforma a linha CSV em um array (vetor) de textos
-                String[] colunasDoCSV = linhaDoArquivo.split(",");
+            // proximaLinha() já pula as linhas vazias
+            // Quando chegar no final, retorna false
+            while (leitor.proximaLinha()) {
+                linhasLidas++;
 
                 // Verifica se a linha tem pelo menos 7 colunas
+                // (colunas vazias no final não contam, igual ao split(","))
                 // As 7 colunas do CSV são:
                 // 0=TIMESTAMP, 1=USER_ID, 2=SESSION_ID, 3=ACTION_TYPE,
                 // 4=TARGET_RESOURCE, 5=SEVERITY_LEVEL, 6=BYTES_TRANSFERRED
-                if (colunasDoCSV.length >= 7) {
+                if (leitor.numeroCamposPreenchidos() >= 7) {
 
                     try {
                         // Pega a primeira coluna (índice 0): TIMESTAMP
-                        // trim() remove espaços em branco do início e fim
-                        // Long.parseLong() transforma texto em número Long
-                        String textoDoTimestamp = colunasDoCSV[0].trim();
-                        long numeroDoTimestamp = Long.parseLong(textoDoTimestamp);
+                        // campoLong() transforma os bytes em número Long
+                        // (já ignora os espaços do início e do fim)
+                        long numeroDoTimestamp = leitor.campoLong(0);
 
                         // Pega a sétima coluna (índice 6): BYTES_TRANSFERRED
                         // Começa com 0 porque algumas linhas podem estar vazias
                         long quantidadeDeBytes = 0;
 
                         // Verifica se a coluna de bytes NÃO está vazia
-                        // isEmpty() retorna true se o texto está vazio
-                        String textoDosBytes = colunasDoCSV[6].trim();
-                        if (!textoDosBytes.isEmpty()) {
+                        if (!leitor.campoVazio(6)) {
                             // Se tem algo, converte para número
-                            quantidadeDeBytes = Long.parseLong(textoDosBytes);
+                            quantidadeDeBytes = leitor.campoLong(6);
                         }
 
-                        // Adiciona os valores nas listas
-                        // add() coloca um item no final da lista
-                        listaDeTimes.add(numeroDoTimestamp);
-                        listaDeBytes.add(quantidadeDeBytes);
+                        // Adiciona os valores nos vetores
+                        // add() coloca um item no final do vetor
+                        vetorDeTimes.add(numeroDoTimestamp);
+                        vetorDeBytes.add(quantidadeDeBytes);
 
                     } catch (NumberFormatException erro) {
                         // Se der erro ao converter texto para número,
@@ -112,119 +123,497 @@ public class Desafio4_DetectorDeTransferenciaDeDados {
                 }
             }
 
-        } finally {
-            // SEMPRE fecha o arquivo no final
-            // Isso é importante para não deixar o arquivo "preso"
-            leitor.close();
+            // Rejeitadas = lidas - aceitas (menos de 7 colunas ou número inválido)
+            medicao.linhas(linhasLidas)
+                .rejeitadas(linhasLidas - vetorDeTimes.tamanho())
+                .bytes(leitor.posicaoProximaLinha());
         }
 
-        // Se não conseguiu ler nenhum evento, retorna Map vazio
-        // size() retorna quantos itens tem na lista
-        if (listaDeTimes.size() == 0) {
-            return picosEncontrados;
+        // Se não conseguiu ler nenhum evento, o resultado fica vazio
+        // (o PASSO 3 simplesmente não entra no loop)
+        return encontrarProximosMaiores(vetorDeTimes, vetorDeBytes);
+    }
+
+    /**
+     * Lê o log e entrega cada evento, na ordem, a um {@link DetectorPicosOnline}.
+     *
+     * Os picos são avisados ao ouvinte do detector DURANTE a leitura, assim
+     * que cada um é resolvido (não precisa esperar o fim do arquivo).
+     *
+     * @param caminhoArquivo Caminho do arquivo CSV (ou do arquivo colunar)
+     * @param detector       Detector que recebe os eventos
+     * @throws IOException Se der erro ao ler o arquivo
+     */
+    public void monitorarTransferencias(String caminhoArquivo, DetectorPicosOnline detector) throws IOException {
+        if (RepositorioEventos.usaRepositorio(caminhoArquivo)) {
+            RepositorioEventos repositorio = RepositorioEventos.carregar(caminhoArquivo);
+            // Mesmas regras do PASSO 2 (SEVERITY_LEVEL não importa aqui)
+            for (int linha = 0; linha < repositorio.tamanho(); linha++) {
+                if (repositorio.isTransferenciaValida(linha)) {
+                    detector.adicionar(repositorio.getTimestamp(linha), repositorio.getBytes(linha));
+                }
+            }
+            return;
         }
 
+        // Mesmas regras do PASSO 2: 7 colunas, bytes vazios contam como 0
+        try (LeitorCsvMapeado leitor = new LeitorCsvMapeado(caminhoArquivo)) {
+            leitor.proximaLinha(); // Pula o cabeçalho
+            while (leitor.proximaLinha()) {
+                if (leitor.numeroCamposPreenchidos() >= 7) {
+                    try {
+                        long numeroDoTimestamp = leitor.campoLong(0);
+                        long quantidadeDeBytes = leitor.campoVazio(6) ? 0 : leitor.campoLong(6);
+                        detector.adicionar(numeroDoTimestamp, quantidadeDeBytes);
+                    } catch (NumberFormatException erro) {
+                        // Linha com erro: ignora e continua
+                    }
+                }
+            }
+        }
+    }
 
-        // ═══════════════════════════════════════════════════════════════
-        // PASSO 3: ALGORITMO DA STACK (PILHA)
-        // ═══════════════════════════════════════════════════════════════
+    /**
+     * Detecção em fluxo (um evento por vez) com memória limitada.
+     *
+     * Com {@link DetectorPicosOnline#SEM_HORIZONTE} e
+     * {@link DetectorPicosOnline#SEM_LIMITE} o resultado é igual ao de
+     * {@link #identificarPicosTransferencia(String)}.
+     *
+     * @param caminhoArquivo  Caminho do arquivo CSV (ou do arquivo colunar)
+     * @param horizonte       Idade máxima (em unidades de TIMESTAMP) de um evento pendente
+     * @param maximoPendentes Quantidade máxima de eventos pendentes
+     * @return Map com pares: timestamp atual → timestamp do próximo maior
+     * @throws IOException Se der erro ao ler o arquivo
+     */
+    public Map<Long, Long> identificarPicosTransferenciaOnline(String caminhoArquivo, long horizonte,
+                                                              int maximoPendentes) throws IOException {
+        MapaLongLong picosEncontrados = new MapaLongLong();
+
+        // Para timestamps repetidos o Map antigo guardava o valor do evento
+        // mais ANTIGO; como aqui os picos chegam fora de ordem, guardamos
+        // também o número do evento que gerou cada chave
+        MapaLongLong eventoDaChave = new MapaLongLong();
+
+        DetectorPicosOnline detector = new DetectorPicosOnline(horizonte, maximoPendentes,
+            (evento, timestamp, eventoMaior, timestampMaior) -> {
+                if (eventoDaChave.valorDe(timestamp, Long.MAX_VALUE) > evento) {
+                    eventoDaChave.colocar(timestamp, evento);
+                    picosEncontrados.colocar(timestamp, timestampMaior);
+                }
+            });
 
-        // Stack = Pilha (como pilha de pratos)
-        // O último item que você coloca é o primeiro que você tira
-        // Isso se chama LIFO (Last In, First Out)
-        // Vamos guardar as POSIÇÕES (índices) dos eventos na pilha
-        Stack<Integer> pilhaDeIndices = new Stack<>();
+        monitorarTransferencias(caminhoArquivo, detector);
+        return picosEncontrados;
+    }
 
-        // Loop que percorre os eventos de TRÁS PARA FRENTE
-        // Por que de trás pra frente?
-        // Porque precisamos saber o que acontece DEPOIS de cada evento!
-        //
-        // Exemplo: Se temos 5 eventos nas posições [0, 1, 2, 3, 4]
-        // Vamos processar na ordem: 4 → 3 → 2 → 1 → 0
-        int totalDeEventos = listaDeTimes.size();
+    /**
+     * Mesma detecção de picos, mas usando um {@link RepositorioEventos} já carregado.
+     *
+     * Os timestamps e bytes já estão em arrays primitivos, então o PASSO 2
+     * (ler e quebrar o CSV) não precisa ser repetido.
+     *
+     * @param repositorio Eventos do log carregados uma única vez
+     * @return Map com pares: timestamp atual → timestamp do próximo maior
+     */
+    public Map<Long, Long> identificarPicosTransferencia(RepositorioEventos repositorio) {
+        return detectarPicos(repositorio).paraMapa();
+    }
 
-        // i começa no último índice e vai diminuindo até 0
-        // i-- significa: diminui 1 de i a cada volta do loop
-        for (int i = totalDeEventos - 1; i >= 0; i--) {
+    /**
+     * Detecção por evento (sem boxing) sobre um {@link RepositorioEventos} já carregado.
+     *
+     * @param repositorio Eventos do log carregados uma única vez
+     * @return Para cada evento, o índice do próximo evento com mais bytes
+     */
+    public PicosTransferencia detectarPicos(RepositorioEventos repositorio) {
+        return detectarPicos(repositorio, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
 
-            // Pega os bytes do evento ATUAL que estamos processando
-            // get(i) retorna o item na posição i da lista
-            long bytesDoEventoAtual = listaDeBytes.get(i);
+    /**
+     * Picos só entre os eventos da janela [de, ate]: o "próximo maior" de
+     * cada evento também precisa estar dentro da janela.
+     *
+     * Usa o {@link IndiceTempo} do log ("&lt;log&gt;.tidx", construído na
+     * primeira chamada) para ler apenas os blocos que podem ter eventos da
+     * janela, em vez do arquivo inteiro.
+     *
+     * @param caminhoArquivo Caminho do arquivo CSV (ou do arquivo colunar)
+     * @param de             Primeiro TIMESTAMP da janela (inclusivo)
+     * @param ate            Último TIMESTAMP da janela (inclusivo)
+     * @return Map com pares: timestamp atual → timestamp do próximo maior
+     * @throws IOException Se der erro ao ler o arquivo
+     */
+    public Map<Long, Long> identificarPicosTransferencia(String caminhoArquivo, long de, long ate) throws IOException {
+        return detectarPicos(caminhoArquivo, de, ate).paraMapa();
+    }
 
-            // ───────────────────────────────────────────────────────────
-            // Sub-passo 3.1: LIMPAR A PILHA
-            // ───────────────────────────────────────────────────────────
+    /**
+     * Detecção por evento só com os eventos da janela [de, ate].
+     *
+     * @param caminhoArquivo Caminho do arquivo CSV (ou do arquivo colunar)
+     * @param de             Primeiro TIMESTAMP da janela (inclusivo)
+     * @param ate            Último TIMESTAMP da janela (inclusivo)
+     * @return Para cada evento da janela, o índice do próximo evento com mais bytes
+     * @throws IOException Se der erro ao ler o arquivo
+     */
+    public PicosTransferencia detectarPicos(String caminhoArquivo, long de, long ate) throws IOException {
+        if (RepositorioEventos.usaRepositorio(caminhoArquivo)) {
+            return detectarPicos(RepositorioEventos.carregar(caminhoArquivo), de, ate);
+        }
+        if (de == Long.MIN_VALUE && ate == Long.MAX_VALUE) {
+            // Sem janela: o log inteiro, com as regras do PASSO 2
+            return detectarPicos(caminhoArquivo);
+        }
 
-            // Vamos remover da pilha os eventos que têm poucos bytes
-            // Por que? Porque se o atual tem mais bytes, aqueles
-            // nunca serão "próximo maior" de ninguém!
-            //
-            // Exemplo prático:
-            // Pilha tem: [50 bytes, 80 bytes]
-            // Evento atual: 100 bytes
-            // Ambos (50 e 80) são menores que 100, então removemos os dois!
-
-            // isEmpty() verifica se a pilha está vazia
-            // Continua enquanto a pilha NÃO estiver vazia
-            while (!pilhaDeIndices.isEmpty()) {
-
-                // peek() olha o topo da pilha SEM remover
-                // Retorna o índice do evento que está no topo
-                int indiceDoTopo = pilhaDeIndices.peek();
-
-                // Pega os bytes do evento que está no topo da pilha
-                long bytesDoTopo = listaDeBytes.get(indiceDoTopo);
-
-                // Compara: o topo tem MENOS OU IGUAL bytes que o atual?
-                if (bytesDoTopo <= bytesDoEventoAtual) {
-                    // SIM! Então remove da pilha porque não serve mais
-                    // pop() remove e retorna o item do topo
-                    pilhaDeIndices.pop();
-                } else {
-                    // NÃO! O topo tem MAIS bytes!
-                    // Encontramos o próximo maior! Para o loop
-                    break;
+        VetorLong vetorDeTimes = new VetorLong(1024);
+        VetorLong vetorDeBytes = new VetorLong(1024);
+
+        if (de <= ate) {
+            // Mesmas regras do PASSO 2; a janela já só entrega linhas completas
+            try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONVERSAO);
+                 IndiceTempo.Janela janela = IndiceTempo.abrir(caminhoArquivo).janela(de, ate)) {
+                while (janela.proximaLinha()) {
+                    LeitorCsvMapeado leitor = janela.leitor();
+                    vetorDeTimes.add(leitor.campoLong(0));
+                    vetorDeBytes.add(leitor.campoLong(6));
                 }
+                medicao.linhas(janela.linhasLidas())
+                    .rejeitadas(janela.linhasLidas() - vetorDeTimes.tamanho())
+                    .bytes(janela.bytesDaJanela());
             }
+        }
 
-            // ───────────────────────────────────────────────────────────
-            // Sub-passo 3.2: VERIFICAR SE HÁ PRÓXIMO MAIOR
-            // ───────────────────────────────────────────────────────────
+        return encontrarProximosMaiores(vetorDeTimes, vetorDeBytes);
+    }
 
-            // Se a pilha NÃO está vazia, significa que temos um
-            // evento futuro com MAIS bytes que o atual
-            if (!pilhaDeIndices.isEmpty()) {
+    /**
+     * Detecção por evento da janela [de, ate] sobre um {@link RepositorioEventos} já carregado.
+     *
+     * @param repositorio Eventos do log carregados uma única vez
+     * @param de          Primeiro TIMESTAMP da janela (inclusivo)
+     * @param ate         Último TIMESTAMP da janela (inclusivo)
+     * @return Para cada evento da janela, o índice do próximo evento com mais bytes
+     */
+    public PicosTransferencia detectarPicos(RepositorioEventos repositorio, long de, long ate) {
+        // Sem janela, todas as linhas podem entrar: já nasce com o tamanho final
+        boolean logInteiro = de == Long.MIN_VALUE && ate == Long.MAX_VALUE;
+        VetorLong vetorDeTimes = new VetorLong(logInteiro ? repositorio.tamanho() : 1024);
+        VetorLong vetorDeBytes = new VetorLong(logInteiro ? repositorio.tamanho() : 1024);
+
+        // Log inteiro: mesmas regras do PASSO 2 (TIMESTAMP e bytes válidos, bytes
+        // vazios contam como 0). Com janela, só as linhas completas, como no
+        // CSV lido pelo IndiceTempo
+        for (int linha = 0; linha < repositorio.tamanho(); linha++) {
+            if (logInteiro ? !repositorio.isTransferenciaValida(linha) : !repositorio.isCompleta(linha)) continue;
+            long timestamp = repositorio.getTimestamp(linha);
+            if (timestamp >= de && timestamp <= ate) {
+                vetorDeTimes.add(timestamp);
+                vetorDeBytes.add(repositorio.getBytes(linha));
+            }
+        }
 
-                // O topo da pilha é o próximo evento com mais bytes
-                int indiceMaior = pilhaDeIndices.peek();
+        return encontrarProximosMaiores(vetorDeTimes, vetorDeBytes);
+    }
 
-                // Pega o timestamp do evento ATUAL
-                long timeAtual = listaDeTimes.get(i);
+    // ═══════════════════════════════════════════════════════════════════
+    // PICOS POR PARTIÇÃO (USUÁRIO OU SESSÃO), EM PARALELO
+    // ═══════════════════════════════════════════════════════════════════
+
+    /**
+     * Detecta os picos separadamente para cada USER_ID ou SESSION_ID, com as
+     * partições processadas em paralelo no pool comum.
+     *
+     * @param caminhoArquivo Caminho do arquivo CSV (ou do arquivo colunar)
+     * @param particao       Coluna que separa as partições
+     * @param razaoMinima    Um pico exige bytes &gt; razaoMinima × bytes do evento
+     *                       (1 = "mais bytes", como no Desafio 4)
+     * @param janela         Largura da janela do máximo de bytes, ou {@link PicosParticionados#SEM_JANELA}
+     * @return Picos de cada partição
+     * @throws IOException Se der erro ao ler o arquivo
+     */
+    public PicosParticionados detectarPicosPorParticao(String caminhoArquivo, PicosParticionados.Particao particao,
+                                                       double razaoMinima, long janela) throws IOException {
+        return detectarPicosPorParticao(RepositorioEventos.carregar(caminhoArquivo), particao, razaoMinima, janela,
+            ForkJoinPool.commonPool());
+    }
 
-                // Pega o timestamp do evento com MAIS bytes
-                long timeMaior = listaDeTimes.get(indiceMaior);
+    /**
+     * Picos por partição sobre um {@link RepositorioEventos} já carregado.
+     *
+     * Um counting sort pelos ids do dicionário agrupa as linhas com
+     * transferência válida de cada partição (na ordem do arquivo); depois cada partição roda a sua
+     * pilha e a sua fila de máximos de forma independente, numa tarefa do
+     * pool. Não há estado compartilhado entre as partições, então o
+     * resultado não depende do número de threads.
+     *
+     * Com razão drástica r, o pico de um evento com b bytes é o primeiro
+     * evento posterior da partição com mais de r × b bytes. A pilha de trás
+     * para frente tem os bytes em ordem crescente do topo para o fundo, e o
+     * primeiro evento acima do limiar está sempre nela: uma busca binária na
+     * pilha acha o pico em O(log n).
+     *
+     * @param repositorio Eventos do log carregados uma única vez
+     * @param particao    Coluna que separa as partições
+     * @param razaoMinima Um pico exige bytes &gt; razaoMinima × bytes do evento (positiva)
+     * @param janela      Largura da janela do máximo de bytes (não negativa)
+     * @param pool        Pool onde as partições são processadas
+     * @return Picos de cada partição
+     */
+    public PicosParticionados detectarPicosPorParticao(RepositorioEventos repositorio,
+                                                       PicosParticionados.Particao particao,
+                                                       double razaoMinima, long janela, ForkJoinPool pool) {
+        if (!(razaoMinima > 0) || Double.isInfinite(razaoMinima)) {
+            throw new IllegalArgumentException("Razao minima deve ser positiva: " + razaoMinima);
+        }
+        if (janela < 0) {
+            throw new IllegalArgumentException("Janela negativa: " + janela);
+        }
 
-                // Adiciona no Map: timeAtual → timeMaior
-                // put() adiciona um par chave-valor no Map
-                // Isso significa: "No momento timeAtual teve poucos bytes,
-                // mas no momento timeMaior teve MUITOS bytes (pico!)"
-                picosEncontrados.put(timeAtual, timeMaior);
+        boolean porUsuario = particao == PicosParticionados.Particao.USUARIO;
+        Dicionario chaves = porUsuario ? repositorio.usuarios() : repositorio.sessoes();
+        int particoes = chaves.tamanho();
+
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONSTRUCAO)) {
+            // Counting sort das linhas com transferência válida pela partição (estável)
+            int[] inicios = new int[particoes + 1];
+            int validas = 0;
+            for (int linha = 0; linha < repositorio.tamanho(); linha++) {
+                if (!repositorio.isTransferenciaValida(linha)) continue;
+                int chave = porUsuario ? repositorio.getUsuario(linha) : repositorio.getSessao(linha);
+                inicios[chave + 1]++;
+                validas++;
+            }
+            for (int p = 0; p < particoes; p++) {
+                inicios[p + 1] += inicios[p];
+            }
+            int[] linhas = new int[validas];
+            int[] proxima = Arrays.copyOf(inicios, particoes);
+            for (int linha = 0; linha < repositorio.tamanho(); linha++) {
+                if (!repositorio.isTransferenciaValida(linha)) continue;
+                int chave = porUsuario ? repositorio.getUsuario(linha) : repositorio.getSessao(linha);
+                linhas[proxima[chave]++] = linha;
             }
-            // Se a pilha está vazia, NÃO existe próximo maior
-            // Neste caso não fazemos nada (conforme o requisito)
 
-            // ───────────────────────────────────────────────────────────
-            // Sub-passo 3.3: ADICIONAR EVENTO ATUAL NA PILHA
-            // ───────────────────────────────────────────────────────────
+            // Cada partição é independente: uma tarefa por partição no pool
+            PicosTransferencia[] picos = new PicosTransferencia[particoes];
+            long[][] maximos = new long[particoes][];
+            pool.submit(() -> IntStream.range(0, particoes).parallel().forEach(p -> {
+                int total = inicios[p + 1] - inicios[p];
+                long[] timestamps = new long[total];
+                long[] bytes = new long[total];
+                for (int i = 0; i < total; i++) {
+                    int linha = linhas[inicios[p] + i];
+                    timestamps[i] = repositorio.getTimestamp(linha);
+                    bytes[i] = repositorio.getBytes(linha);
+                }
+                picos[p] = new PicosTransferencia(timestamps, bytes,
+                    proximosMaioresComRazao(bytes, total, razaoMinima), total);
+                maximos[p] = maximosNaJanela(timestamps, bytes, total, janela);
+            })).join();
 
-            // push() adiciona um item no topo da pilha
-            // Guardamos o ÍNDICE (posição) do evento atual
-            // Este evento pode ser o "próximo maior" de eventos anteriores!
-            pilhaDeIndices.push(i);
+            medicao.linhas(repositorio.tamanho()).rejeitadas(repositorio.tamanho() - validas);
+            return new PicosParticionados(particao, razaoMinima, janela, chaves, picos, maximos);
         }
+    }
 
-        // Retorna o Map com todos os picos que encontramos
-        return picosEncontrados;
+    /**
+     * Próximo evento com mais de razao × bytes (a pilha do PASSO 3 com um
+     * limiar). Com razao = 1 é exatamente o {@link #encontrarProximosMaiores}.
+     */
+    private static int[] proximosMaioresComRazao(long[] bytes, int total, double razao) {
+        int[] proximoMaior = new int[total];
+
+        // pilha[0..topo): índices com bytes estritamente DECRESCENTES do
+        // fundo (evento mais distante) para o topo (o mais próximo)
+        int[] pilha = new int[total];
+        int topo = 0;
+        for (int i = total - 1; i >= 0; i--) {
+            long limiar = limiar(bytes[i], razao);
+
+            // Os eventos da pilha acima do limiar são um prefixo [0, k):
+            // o pico é o mais próximo deles, pilha[k - 1]
+            int esquerda = 0;
+            int direita = topo;
+            while (esquerda < direita) {
+                int meio = (esquerda + direita) >>> 1;
+                if (bytes[pilha[meio]] > limiar) esquerda = meio + 1;
+                else direita = meio;
+            }
+            proximoMaior[i] = esquerda > 0 ? pilha[esquerda - 1] : PicosTransferencia.SEM_PICO;
+
+            // Mesma limpeza do PASSO 3: quem tem bytes <= atual não serve mais
+            while (topo > 0 && bytes[pilha[topo - 1]] <= bytes[i]) {
+                topo--;
+            }
+            pilha[topo++] = i;
+        }
+        return proximoMaior;
+    }
+
+    /**
+     * Maior valor inteiro que NÃO é pico: b &gt; razao × bytes equivale a
+     * b &gt; floor(razao × bytes) para b inteiro. Com razao = 1 é o próprio
+     * bytes (sem passar por double).
+     */
+    private static long limiar(long bytes, double razao) {
+        if (razao == 1.0) return bytes;
+        double produto = Math.floor(razao * bytes);
+        if (produto >= Long.MAX_VALUE) return Long.MAX_VALUE;
+        if (produto <= Long.MIN_VALUE) return Long.MIN_VALUE;
+        return (long) produto;
+    }
+
+    /**
+     * Máximo de bytes na janela de tempo que termina em cada evento, com
+     * uma fila monotônica: os índices na fila têm bytes decrescentes, o
+     * máximo está sempre na frente e cada evento entra e sai uma vez.
+     */
+    private static long[] maximosNaJanela(long[] timestamps, long[] bytes, int total, long janela) {
+        long[] maximos = new long[total];
+        int[] fila = new int[total];
+        int frente = 0;
+        int fundo = 0;
+        for (int i = 0; i < total; i++) {
+            // Quem tem bytes <= atual nunca mais será o máximo
+            while (fundo > frente && bytes[fila[fundo - 1]] <= bytes[i]) {
+                fundo--;
+            }
+            fila[fundo++] = i;
+
+            // Sai pela frente quem ficou mais antigo que a janela
+            if (janela != PicosParticionados.SEM_JANELA) {
+                long limite = timestamps[i] < Long.MIN_VALUE + janela ? Long.MIN_VALUE : timestamps[i] - janela;
+                while (timestamps[fila[frente]] < limite) {
+                    frente++;
+                }
+            }
+            maximos[i] = bytes[fila[frente]];
+        }
+        return maximos;
+    }
+
+    /**
+     * Algoritmo da pilha: para cada evento, encontra o próximo evento com mais bytes.
+     *
+     * Depois que os vetores estão prontos, este passo não cria nenhum objeto:
+     * a pilha é um int[] e o resultado é outro int[].
+     *
+     * @param vetorDeTimes Timestamps dos eventos, na ordem do arquivo
+     * @param vetorDeBytes Bytes de cada evento (mesma posição de vetorDeTimes)
+     * @return Para cada evento, o índice do próximo evento com mais bytes
+     */
+    private PicosTransferencia encontrarProximosMaiores(VetorLong vetorDeTimes, VetorLong vetorDeBytes) {
+        int totalDeEventos = vetorDeTimes.tamanho();
+
+        // Arrays "crus" dos vetores: acesso direto, sem verificação extra
+        long[] bytes = vetorDeBytes.arrayInterno();
+
+        // Para cada evento i, proximoMaior[i] é a POSIÇÃO do próximo evento
+        // com mais bytes (ou SEM_PICO se não existir)
+        int[] proximoMaior = new int[totalDeEventos];
+
+        // ═══════════════════════════════════════════════════════════════
+        // PASSO 3: ALGORITMO DA STACK (PILHA)
+        // ═══════════════════════════════════════════════════════════════
+
+        // Pilha (como pilha de pratos)
+        // O último item que você coloca é o primeiro que você tira
+        // Isso se chama LIFO (Last In, First Out)
+        // Vamos guardar as POSIÇÕES (índices) dos eventos na pilha
+        // PilhaInt guarda int direto num array (Stack<Integer> criaria
+        // um objeto Integer a cada push e ainda é sincronizada)
+        // Já nasce com espaço para todos os eventos: nunca precisa crescer
+        PilhaInt pilhaDeIndices = new PilhaInt(totalDeEventos);
+
+        // Maior profundidade que a pilha atingiu (para as métricas)
+        int profundidadeMaxima = 0;
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONSTRUCAO)) {
+
+            // Loop que percorre os eventos de TRÁS PARA FRENTE
+            // Por que de trás pra frente?
+            // Porque precisamos saber o que acontece DEPOIS de cada evento!
+            //
+            // Exemplo: Se temos 5 eventos nas posições [0, 1, 2, 3, 4]
+            // Vamos processar na ordem: 4 → 3 → 2 → 1 → 0
+
+            // i começa no último índice e vai diminuindo até 0
+            // i-- significa: diminui 1 de i a cada volta do loop
+            for (int i = totalDeEventos - 1; i >= 0; i--) {
+
+                // Pega os bytes do evento ATUAL que estamos processando
+                // bytes[i] é o item na posição i do array
+                long bytesDoEventoAtual = bytes[i];
+
+                // ───────────────────────────────────────────────────────────
+                // Sub-passo 3.1: LIMPAR A PILHA
+                // ───────────────────────────────────────────────────────────
+
+                // Vamos remover da pilha os eventos que têm poucos bytes
+                // Por que? Porque se o atual tem mais bytes, aqueles
+                // nunca serão "próximo maior" de ninguém!
+                //
+                // Exemplo prático:
+                // Pilha tem: [50 bytes, 80 bytes]
+                // Evento atual: 100 bytes
+                // Ambos (50 e 80) são menores que 100, então removemos os dois!
+
+                // isEmpty() verifica se a pilha está vazia
+                // Continua enquanto a pilha NÃO estiver vazia
+                while (!pilhaDeIndices.isEmpty()) {
+
+                    // peek() olha o topo da pilha SEM remover
+                    // Retorna o índice do evento que está no topo
+                    int indiceDoTopo = pilhaDeIndices.peek();
+
+                    // Pega os bytes do evento que está no topo da pilha
+                    long bytesDoTopo = bytes[indiceDoTopo];
+
+                    // Compara: o topo tem MENOS OU IGUAL bytes que o atual?
+                    if (bytesDoTopo <= bytesDoEventoAtual) {
+                        // SIM! Então remove da pilha porque não serve mais
+                        // pop() remove e retorna o item do topo
+                        pilhaDeIndices.pop();
+                    } else {
+                        // NÃO! O topo tem MAIS bytes!
+                        // Encontramos o próximo maior! Para o loop
+                        break;
+                    }
+                }
+
+                // ───────────────────────────────────────────────────────────
+                // Sub-passo 3.2: VERIFICAR SE HÁ PRÓXIMO MAIOR
+                // ───────────────────────────────────────────────────────────
+
+                // Se a pilha NÃO está vazia, significa que temos um
+                // evento futuro com MAIS bytes que o atual
+                if (!pilhaDeIndices.isEmpty()) {
+
+                    // O topo da pilha é o próximo evento com mais bytes
+                    // Guardamos a POSIÇÃO dele: "o evento i teve poucos bytes,
+                    // mas o evento proximoMaior[i] teve MUITOS bytes (pico!)"
+                    proximoMaior[i] = pilhaDeIndices.peek();
+                } else {
+                    // Se a pilha está vazia, NÃO existe próximo maior
+                    proximoMaior[i] = PicosTransferencia.SEM_PICO;
+                }
+
+                // ───────────────────────────────────────────────────────────
+                // Sub-passo 3.3: ADICIONAR EVENTO ATUAL NA PILHA
+                // ───────────────────────────────────────────────────────────
+
+                // push() adiciona um item no topo da pilha
+                // Guardamos o ÍNDICE (posição) do evento atual
+                // Este evento pode ser o "próximo maior" de eventos anteriores!
+                pilhaDeIndices.push(i);
+                profundidadeMaxima = Math.max(profundidadeMaxima, pilhaDeIndices.tamanho());
+            }
+            medicao.linhas(totalDeEventos);
+        }
+        METRICAS.registrarPico("profundidadePilha", profundidadeMaxima);
+
+        // Retorna o resultado com todos os picos que encontramos
+        return new PicosTransferencia(vetorDeTimes.arrayInterno(), bytes, proximoMaior, totalDeEventos);
     }
 
     // ═══════════════════════════════════════════════════════════════════
@@ -272,6 +661,21 @@ public class Desafio4_DetectorDeTransferenciaDeDados {
             // printf permite formatar números (%.3f = 3 casas decimais)
             System.out.printf("Tempo: %.3f ms%n", tempoEmMilissegundos);
             System.out.println("Total de picos encontrados: " + resultadoDoPicos.size());
+
+            // O resultado por evento não perde eventos com o mesmo timestamp
+            PicosTransferencia picosPorEvento = meuDesafio.detectarPicos(caminhoDoArquivo);
+            System.out.println("Eventos com pico (contando timestamps repetidos): " + picosPorEvento.numeroPicos());
+
+            // Versão em fluxo: os picos aparecem enquanto o arquivo é lido
+            Map<Long, Long> picosOnline = meuDesafio.identificarPicosTransferenciaOnline(caminhoDoArquivo,
+                DetectorPicosOnline.SEM_HORIZONTE, DetectorPicosOnline.SEM_LIMITE);
+            System.out.println("Deteccao em fluxo igual? " + (picosOnline.equals(resultadoDoPicos) ? "SIM" : "NAO"));
+
+            // Por usuário, em paralelo: só picos "drásticos" (mais que o dobro)
+            PicosParticionados porUsuario = meuDesafio.detectarPicosPorParticao(caminhoDoArquivo,
+                PicosParticionados.Particao.USUARIO, 2.0, 60);
+            System.out.println("Picos drasticos (> 2x) por usuario: " + porUsuario.numeroPicos()
+                + " em " + porUsuario.paraMapa().size() + " de " + porUsuario.numeroParticoes() + " usuarios");
             System.out.println("===========================================================\n");
 
             // ───────────────────────────────────────────────────────────
@@ -1,5 +1,3 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
 
@@ -15,34 +13,14 @@ import java.util.*;
  */
 public class Desafio5RastrearContaminacao {
 
-    /**
-     * Classe interna para representar um evento de log
-     */
-    private static class LogEvent {
-        long timestamp;
-        String userId;
-        String sessionId;
-        String actionType;
-        String targetResource;
-        int severityLevel;
-        long bytesTransferred;
-
-        public LogEvent(String csvLine) {
-            String[] parts = csvLine.split(",");
-            this.timestamp = Long.parseLong(parts[0]);
-            this.userId = parts[1];
-            this.sessionId = parts[2];
-            this.actionType = parts[3];
-            this.targetResource = parts[4];
-            this.severityLevel = Integer.parseInt(parts[5]);
-            this.bytesTransferred = Long.parseLong(parts[6]);
-        }
-    }
-
     /**
      * Rastreia o caminho de contaminação entre dois recursos usando BFS.
      *
-     * @param caminhoArquivo Caminho para o arquivo CSV de logs
+     * Constrói o grafo a cada chamada; para várias consultas sobre o mesmo
+     * log, construa um {@link GrafoContaminacao} uma vez e use
+     * {@link #rastrearContaminacao(GrafoContaminacao, String, String)}.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs (ou arquivo colunar)
      * @param recursoInicial Recurso de origem
      * @param recursoAlvo Recurso de destino
      * @return Optional contendo a lista do caminho mais curto, ou Optional.empty() se não houver caminho
@@ -54,164 +32,148 @@ public class Desafio5RastrearContaminacao {
             String recursoAlvo) throws IOException {
 
         // Passo 1: Construir o grafo de movimentação lateral
-        Map<String, List<String>> grafo = construirGrafo(caminhoArquivo);
-
-        // Passo 2: Verificar se os recursos existem no grafo
-        if (!grafo.containsKey(recursoInicial)) {
-            return Optional.empty();
-        }
-
-        // Caso especial: origem e destino são o mesmo
-        if (recursoInicial.equals(recursoAlvo)) {
-            // Verifica se o recurso existe no log
-            if (grafo.containsKey(recursoInicial)) {
-                return Optional.of(Collections.singletonList(recursoInicial));
-            }
-            return Optional.empty();
-        }
+        GrafoContaminacao grafo = GrafoContaminacao.construir(caminhoArquivo);
 
-        // Passo 3: Executar BFS
-        return executarBFS(grafo, recursoInicial, recursoAlvo);
+        // Passo 2: Executar BFS
+        return rastrearContaminacao(grafo, recursoInicial, recursoAlvo);
     }
 
     /**
-     * Constrói o grafo direcionado de movimentação lateral entre recursos.
+     * Rastreia o caminho de contaminação só com os eventos da janela [de, ate].
      *
-     * Lógica:
-     * - Agrupa eventos por SESSION_ID
-     * - Dentro de cada sessão, cria arestas direcionadas entre recursos acessados sequencialmente
-     * - Se uma sessão acessa A, depois B, depois C: cria arestas A->B e B->C
+     * O grafo é construído lendo apenas os blocos do log que podem ter
+     * eventos da janela (ver {@link IndiceTempo}).
      *
-     * @param caminhoArquivo Caminho para o arquivo CSV
-     * @return Mapa de adjacências representando o grafo
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs (ou arquivo colunar)
+     * @param recursoInicial Recurso de origem
+     * @param recursoAlvo Recurso de destino
+     * @param de Primeiro TIMESTAMP da janela (inclusivo)
+     * @param ate Último TIMESTAMP da janela (inclusivo)
+     * @return Optional contendo a lista do caminho mais curto, ou Optional.empty() se não houver caminho
      * @throws IOException Se houver erro ao ler o arquivo
      */
-    private static Map<String, List<String>> construirGrafo(String caminhoArquivo) throws IOException {
-        // Mapa para armazenar eventos agrupados por sessão
-        Map<String, List<LogEvent>> eventosPorSessao = new LinkedHashMap<>();
-
-        try (BufferedReader br = new BufferedReader(new FileReader(caminhoArquivo))) {
-            String linha = br.readLine(); // Pular cabeçalho
-
-            while ((linha = br.readLine()) != null) {
-                if (linha.trim().isEmpty()) continue;
-
-                // Verificar se não é o cabeçalho
-                if (linha.startsWith("TIMESTAMP")) continue;
-
-                try {
-                    LogEvent evento = new LogEvent(linha);
-
-                    // Agrupar eventos por sessão
-                    eventosPorSessao
-                            .computeIfAbsent(evento.sessionId, k -> new ArrayList<>())
-                            .add(evento);
-                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
-                    // Ignorar linhas malformadas
-                    System.err.println("Aviso: Linha ignorada (formato invalido): " + linha);
-                }
-            }
-        }
-
-        // Construir o grafo a partir das sessões
-        Map<String, List<String>> grafo = new HashMap<>();
-
-        for (List<LogEvent> eventosNaSessao : eventosPorSessao.values()) {
-            // Para cada par consecutivo de eventos na sessão, criar uma aresta
-            for (int i = 0; i < eventosNaSessao.size() - 1; i++) {
-                String recursoAtual = eventosNaSessao.get(i).targetResource;
-                String proximoRecurso = eventosNaSessao.get(i + 1).targetResource;
+    public static Optional<List<String>> rastrearContaminacao(
+            String caminhoArquivo,
+            String recursoInicial,
+            String recursoAlvo,
+            long de,
+            long ate) throws IOException {
 
-                // Adicionar aresta direcionada: recursoAtual -> proximoRecurso
-                grafo
-                        .computeIfAbsent(recursoAtual, k -> new ArrayList<>())
-                        .add(proximoRecurso);
-            }
+        GrafoContaminacao grafo = GrafoContaminacao.construir(caminhoArquivo, de, ate);
+        return rastrearContaminacao(grafo, recursoInicial, recursoAlvo);
+    }
 
-            // Garantir que o último recurso também esteja no grafo
-            if (!eventosNaSessao.isEmpty()) {
-                String ultimoRecurso = eventosNaSessao.get(eventosNaSessao.size() - 1).targetResource;
-                grafo.putIfAbsent(ultimoRecurso, new ArrayList<>());
-            }
-        }
+    /**
+     * Rastreia o caminho de contaminação num log maior que o heap.
+     *
+     * As sessões são agrupadas em arquivos temporários (ver
+     * {@link GrafoContaminacaoEmDisco}); o caminho encontrado é o mesmo de
+     * {@link #rastrearContaminacao(String, String, String)}.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs (pode estar comprimido)
+     * @param recursoInicial Recurso de origem
+     * @param recursoAlvo Recurso de destino
+     * @param orcamentoBytes Heap que cada partição do log pode ocupar
+     * @return Optional contendo a lista do caminho mais curto, ou Optional.empty() se não houver caminho
+     * @throws IOException Se houver erro ao ler o arquivo ou gravar os temporários
+     */
+    public static Optional<List<String>> rastrearContaminacaoEmDisco(
+            String caminhoArquivo,
+            String recursoInicial,
+            String recursoAlvo,
+            long orcamentoBytes) throws IOException {
 
-        return grafo;
+        GrafoContaminacao grafo = GrafoContaminacaoEmDisco.construir(caminhoArquivo, orcamentoBytes);
+        return rastrearContaminacao(grafo, recursoInicial, recursoAlvo);
     }
 
     /**
-     * Executa o algoritmo BFS para encontrar o caminho mais curto.
+     * Rastreia o caminho de contaminação usando um {@link RepositorioEventos} já carregado.
      *
-     * @param grafo Grafo de adjacências
-     * @param inicio Recurso inicial
-     * @param alvo Recurso alvo
-     * @return Optional com o caminho ou Optional.empty() se não houver caminho
+     * @param repositorio Eventos do log carregados uma única vez
+     * @param recursoInicial Recurso de origem
+     * @param recursoAlvo Recurso de destino
+     * @return Optional contendo a lista do caminho mais curto, ou Optional.empty() se não houver caminho
      */
-    private static Optional<List<String>> executarBFS(
-            Map<String, List<String>> grafo,
-            String inicio,
-            String alvo) {
-
-        // Fila para BFS
-        Queue<String> fila = new LinkedList<>();
+    public static Optional<List<String>> rastrearContaminacao(
+            RepositorioEventos repositorio,
+            String recursoInicial,
+            String recursoAlvo) {
 
-        // Mapa para rastrear predecessores (para reconstruir o caminho)
-        Map<String, String> predecessor = new HashMap<>();
+        return rastrearContaminacao(GrafoContaminacao.construir(repositorio), recursoInicial, recursoAlvo);
+    }
 
-        // Conjunto de visitados
-        Set<String> visitados = new HashSet<>();
+    /**
+     * Rastreia o caminho de contaminação da janela [de, ate] usando um
+     * {@link RepositorioEventos} já carregado.
+     *
+     * @param repositorio Eventos do log carregados uma única vez
+     * @param recursoInicial Recurso de origem
+     * @param recursoAlvo Recurso de destino
+     * @param de Primeiro TIMESTAMP da janela (inclusivo)
+     * @param ate Último TIMESTAMP da janela (inclusivo)
+     * @return Optional contendo a lista do caminho mais curto, ou Optional.empty() se não houver caminho
+     */
+    public static Optional<List<String>> rastrearContaminacao(
+            RepositorioEventos repositorio,
+            String recursoInicial,
+            String recursoAlvo,
+            long de,
+            long ate) {
 
-        // Inicializar BFS
-        fila.offer(inicio);
-        visitados.add(inicio);
-        predecessor.put(inicio, null); // O início não tem predecessor
+        return rastrearContaminacao(GrafoContaminacao.construir(repositorio, de, ate), recursoInicial, recursoAlvo);
+    }
 
-        // Executar BFS
-        while (!fila.isEmpty()) {
-            String recursoAtual = fila.poll();
+    /**
+     * Rastreia o caminho de contaminação sobre um grafo já construído.
+     * Consultas repetidas custam só o BFS (O(V + E)), sem reler o log.
+     *
+     * @param grafo Grafo de movimentação lateral construído uma vez
+     * @param recursoInicial Recurso de origem
+     * @param recursoAlvo Recurso de destino
+     * @return Optional contendo a lista do caminho mais curto, ou Optional.empty() se não houver caminho
+     */
+    public static Optional<List<String>> rastrearContaminacao(
+            GrafoContaminacao grafo,
+            String recursoInicial,
+            String recursoAlvo) {
 
-            // Verificar se chegamos ao alvo
-            if (recursoAtual.equals(alvo)) {
-                return Optional.of(reconstruirCaminho(predecessor, inicio, alvo));
-            }
+        return grafo.caminhoMaisCurto(recursoInicial, recursoAlvo);
+    }
 
-            // Explorar vizinhos
-            List<String> vizinhos = grafo.getOrDefault(recursoAtual, Collections.emptyList());
-            for (String vizinho : vizinhos) {
-                if (!visitados.contains(vizinho)) {
-                    visitados.add(vizinho);
-                    predecessor.put(vizinho, recursoAtual);
-                    fila.offer(vizinho);
-                }
-            }
-        }
+    /**
+     * Mesmo resultado de {@link #rastrearContaminacao(GrafoContaminacao, String, String)},
+     * mas com BFS bidirecional (origem e alvo ao mesmo tempo), que explora
+     * bem menos do grafo em consultas de ponto a ponto.
+     *
+     * @param grafo Grafo de movimentação lateral construído uma vez
+     * @param recursoInicial Recurso de origem
+     * @param recursoAlvo Recurso de destino
+     * @return Optional contendo a lista do caminho mais curto, ou Optional.empty() se não houver caminho
+     */
+    public static Optional<List<String>> rastrearContaminacaoBidirecional(
+            GrafoContaminacao grafo,
+            String recursoInicial,
+            String recursoAlvo) {
 
-        // Alvo não foi alcançado
-        return Optional.empty();
+        return grafo.caminhoMaisCurtoBidirecional(recursoInicial, recursoAlvo);
     }
 
     /**
-     * Reconstrói o caminho a partir do mapa de predecessores.
+     * Raio de impacto: recursos alcançáveis a partir de um recurso
+     * comprometido em até {@code maximoSaltos} movimentos laterais.
      *
-     * @param predecessor Mapa de predecessores gerado pelo BFS
-     * @param inicio Recurso inicial
-     * @param alvo Recurso alvo
-     * @return Lista ordenada representando o caminho
+     * @param grafo Grafo de movimentação lateral construído uma vez
+     * @param recursoComprometido Recurso de origem
+     * @param maximoSaltos Número máximo de saltos
+     * @return Recurso → distância em saltos (o próprio recurso com 0)
      */
-    private static List<String> reconstruirCaminho(
-            Map<String, String> predecessor,
-            String inicio,
-            String alvo) {
-
-        LinkedList<String> caminho = new LinkedList<>();
-        String recursoAtual = alvo;
-
-        // Reconstruir caminho do alvo até o início
-        while (recursoAtual != null) {
-            caminho.addFirst(recursoAtual);
-            recursoAtual = predecessor.get(recursoAtual);
-        }
+    public static Map<String, Integer> raioDeImpacto(
+            GrafoContaminacao grafo,
+            String recursoComprometido,
+            int maximoSaltos) {
 
-        return caminho;
+        return grafo.raioDeImpacto(recursoComprometido, maximoSaltos);
     }
 
     /**
@@ -343,6 +305,42 @@ public class Desafio5RastrearContaminacao {
             }
             System.out.println();
 
+            // Teste 4: Várias consultas sobre o mesmo grafo (construído uma vez)
+            System.out.println("TESTE 4: Consultas repetidas sobre um grafo construido uma vez");
+            System.out.println("-".repeat(70));
+            GrafoContaminacao grafo = GrafoContaminacao.construir(arquivo);
+            System.out.println("Recursos: " + grafo.numeroVertices() + ", arestas distintas: " + grafo.numeroArestas());
+            long inicio = System.nanoTime();
+            Optional<List<String>> resultado4 = Optional.empty();
+            for (int i = 0; i < 1000; i++) {
+                resultado4 = rastrearContaminacao(grafo, "/usr/bin/sshd", "/var/secrets/key.dat");
+            }
+            long fim = System.nanoTime();
+            System.out.printf("1000 consultas: %.3f ms (mesmo caminho do teste 1? %s)%n",
+                    (fim - inicio) / 1_000_000.0, resultado4.equals(resultado1) ? "SIM" : "NAO");
+            System.out.println();
+
+            // Teste 5: BFS bidirecional e raio de impacto
+            System.out.println("TESTE 5: BFS bidirecional e raio de impacto de /usr/bin/sshd (2 saltos)");
+            System.out.println("-".repeat(70));
+            Optional<List<String>> resultado5 = rastrearContaminacaoBidirecional(
+                    grafo, "/usr/bin/sshd", "/var/secrets/key.dat");
+            System.out.println("Bidirecional igual ao BFS simples? " + (resultado5.equals(resultado1) ? "SIM" : "NAO"));
+            Map<String, Integer> raio = raioDeImpacto(grafo, "/usr/bin/sshd", 2);
+            System.out.println("Recursos alcancados em ate 2 saltos: " + raio.size());
+            for (Map.Entry<String, Integer> entrada : raio.entrySet()) {
+                System.out.printf("  [%d] %s%n", entrada.getValue(), entrada.getKey());
+            }
+            System.out.println();
+
+            // Teste 6: Sessões agrupadas em disco (logs maiores que o heap)
+            System.out.println("TESTE 6: Grafo construido em disco com orcamento de 1 MB");
+            System.out.println("-".repeat(70));
+            Optional<List<String>> resultado6 = rastrearContaminacaoEmDisco(
+                    arquivo, "/usr/bin/sshd", "/var/secrets/key.dat", GrafoContaminacaoEmDisco.ORCAMENTO_MINIMO);
+            System.out.println("Mesmo caminho do teste 1? " + (resultado6.equals(resultado1) ? "SIM" : "NAO"));
+            System.out.println();
+
             System.out.println("=".repeat(70));
             System.out.println("TESTES CONCLUÍDOS");
             System.out.println("=".repeat(70));
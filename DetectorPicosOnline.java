@@ -0,0 +1,174 @@
+/**
+ * Detector de Picos de Transferência em tempo real (Desafio 4 "online")
+ *
+ * O Desafio 4 original precisa do log inteiro antes de começar (a pilha
+ * percorre os eventos de trás para frente). Aqui os eventos chegam um por
+ * vez, na ordem do log, e a pilha guarda os eventos PENDENTES, que ainda
+ * não encontraram um evento posterior com mais bytes.
+ *
+ * Quando chega um evento com mais bytes que o topo, todos os pendentes com
+ * menos bytes são resolvidos NA HORA e avisados ao {@link OuvintePico}.
+ * Os pendentes ficam sempre em ordem não crescente de bytes, então cada
+ * evento entra e sai da pilha uma única vez (O(1) amortizado por evento).
+ *
+ * Memória limitada (para fluxos sem fim):
+ * - horizonte de tempo: um pendente mais antigo que (timestamp atual - horizonte)
+ *   é descartado, porque um pico tão tardio já não interessa
+ * - máximo de pendentes: se a pilha encher, o pendente mais antigo é descartado
+ *
+ * Sem horizonte e sem máximo, os pares avisados são exatamente os do
+ * {@link Desafio4_DetectorDeTransferenciaDeDados#identificarPicosTransferencia}.
+ *
+ * Os pendentes ficam num buffer circular (arrays primitivos): o topo é
+ * resolvido por um lado e os expirados saem pelo outro.
+ */
+public class DetectorPicosOnline {
+
+    /** Sem limite de tempo para os pendentes */
+    public static final long SEM_HORIZONTE = Long.MAX_VALUE;
+
+    /** Sem limite de quantidade de pendentes */
+    public static final int SEM_LIMITE = Integer.MAX_VALUE;
+
+    /**
+     * Recebe cada pico no momento em que ele é resolvido.
+     */
+    @FunctionalInterface
+    public interface OuvintePico {
+        /**
+         * @param evento         Número do evento resolvido (0, 1, 2, ... na ordem de chegada)
+         * @param timestamp      TIMESTAMP do evento resolvido
+         * @param eventoMaior    Número do evento que transferiu mais bytes
+         * @param timestampMaior TIMESTAMP desse evento
+         */
+        void picoEncontrado(long evento, long timestamp, long eventoMaior, long timestampMaior);
+    }
+
+    private final long horizonte;
+    private final int maximoPendentes;
+    private final OuvintePico ouvinte;
+
+    // Buffer circular: os pendentes estão em [base, base + quantidade)
+    private long[] timestamps;
+    private long[] bytes;
+    private long[] eventos;
+    private int base;
+    private int quantidade;
+
+    private long proximoEvento;
+    private long expirados;
+
+    /**
+     * Detector sem horizonte e sem limite de pendentes.
+     */
+    public DetectorPicosOnline(OuvintePico ouvinte) {
+        this(SEM_HORIZONTE, SEM_LIMITE, ouvinte);
+    }
+
+    /**
+     * @param horizonte       Idade máxima (em unidades de TIMESTAMP) de um pendente
+     * @param maximoPendentes Quantidade máxima de pendentes guardados
+     * @param ouvinte         Quem recebe os picos encontrados
+     */
+    public DetectorPicosOnline(long horizonte, int maximoPendentes, OuvintePico ouvinte) {
+        if (horizonte < 0) {
+            throw new IllegalArgumentException("Horizonte negativo: " + horizonte);
+        }
+        if (maximoPendentes < 1) {
+            throw new IllegalArgumentException("Maximo de pendentes deve ser pelo menos 1: " + maximoPendentes);
+        }
+        this.horizonte = horizonte;
+        this.maximoPendentes = maximoPendentes;
+        this.ouvinte = ouvinte;
+
+        int capacidade = Integer.highestOneBit(Math.min(Math.max(maximoPendentes, 16), 1024) - 1) << 1;
+        this.timestamps = new long[capacidade];
+        this.bytes = new long[capacidade];
+        this.eventos = new long[capacidade];
+    }
+
+    /**
+     * Processa o próximo evento do log.
+     *
+     * @param timestamp        TIMESTAMP do evento
+     * @param bytesTransferidos BYTES_TRANSFERRED do evento
+     * @return Número atribuído ao evento (ordem de chegada)
+     */
+    public long adicionar(long timestamp, long bytesTransferidos) {
+        long evento = proximoEvento++;
+
+        // 1) Resolve os pendentes do topo com MENOS bytes que o evento atual
+        while (quantidade > 0) {
+            int topo = (base + quantidade - 1) & (timestamps.length - 1);
+            if (bytes[topo] >= bytesTransferidos) break;
+            quantidade--;
+            ouvinte.picoEncontrado(eventos[topo], timestamps[topo], evento, timestamp);
+        }
+
+        // 2) Expira os pendentes mais antigos (fundo da pilha)
+        if (horizonte != SEM_HORIZONTE) {
+            long limite = timestamp - horizonte;
+            while (quantidade > 0 && timestamps[base] < limite) {
+                descartarMaisAntigo();
+            }
+        }
+        if (quantidade == maximoPendentes) {
+            descartarMaisAntigo();
+        }
+
+        // 3) O evento atual passa a esperar pelo seu próximo maior
+        if (quantidade == timestamps.length) {
+            crescer();
+        }
+        int posicao = (base + quantidade) & (timestamps.length - 1);
+        timestamps[posicao] = timestamp;
+        bytes[posicao] = bytesTransferidos;
+        eventos[posicao] = evento;
+        quantidade++;
+
+        return evento;
+    }
+
+    private void descartarMaisAntigo() {
+        base = (base + 1) & (timestamps.length - 1);
+        quantidade--;
+        expirados++;
+    }
+
+    private void crescer() {
+        int capacidade = timestamps.length * 2;
+        timestamps = reorganizar(timestamps, capacidade);
+        bytes = reorganizar(bytes, capacidade);
+        eventos = reorganizar(eventos, capacidade);
+        base = 0;
+    }
+
+    private long[] reorganizar(long[] antigo, int capacidade) {
+        long[] novo = new long[capacidade];
+        int ateOFim = Math.min(quantidade, antigo.length - base);
+        System.arraycopy(antigo, base, novo, 0, ateOFim);
+        System.arraycopy(antigo, 0, novo, ateOFim, quantidade - ateOFim);
+        return novo;
+    }
+
+    /** @return Eventos que ainda esperam um próximo maior */
+    public int pendentes() {
+        return quantidade;
+    }
+
+    /** @return Total de eventos processados */
+    public long eventosProcessados() {
+        return proximoEvento;
+    }
+
+    /** @return Pendentes descartados pelo horizonte ou pelo limite */
+    public long eventosExpirados() {
+        return expirados;
+    }
+
+    /** Esquece todos os pendentes (os números de evento continuam a contagem). */
+    public void limpar() {
+        base = 0;
+        quantidade = 0;
+    }
+}
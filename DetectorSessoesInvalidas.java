@@ -0,0 +1,252 @@
+import java.util.*;
+
+/**
+ * Detector de Sessões Inválidas em tempo real (Desafio 1 "online")
+ *
+ * O Desafio 1 original guarda uma pilha para cada USER_ID até o fim do
+ * arquivo e só então devolve o Set de sessões inválidas. Aqui os eventos
+ * chegam um por vez e cada sessão inválida é avisada ao
+ * {@link OuvinteSessao} no momento em que o problema aparece.
+ *
+ * Só as sessões ABERTAS ocupam memória (id, usuário, última atividade e
+ * se já foi avisada). A sessão é liberada:
+ * - no LOGOUT (quando está no topo da pilha do usuário)
+ * - quando fica sem atividade por mais que o tempo limite (e aí é avisada
+ *   como {@link Motivo#SESSAO_ABERTA}, igual às que sobram no fim do log)
+ * Pilhas de usuários sem sessão aberta também são liberadas.
+ *
+ * Sem tempo limite, o conjunto de sessões avisadas é exatamente o Set do
+ * {@link Desafio1_SessoesInvalidas#encontrarSessoesInvalidas(String)}.
+ * Uma sessão é avisada uma única vez enquanto está aberta; depois de
+ * liberada ela é esquecida, então um LOGOUT repetido pode avisá-la de novo.
+ *
+ * SESSION_ID repetido: um LOGIN com um id que já está aberto entra de novo
+ * na pilha do usuário (como no Desafio 1) e o id fica aberto até o último
+ * desses LOGINs ser fechado. A atividade e o aviso são do id: qualquer
+ * evento dele adia a expiração de todos os seus LOGINs abertos.
+ */
+public class DetectorSessoesInvalidas {
+
+    /** Sem tempo limite de inatividade */
+    public static final long SEM_TIMEOUT = Long.MAX_VALUE;
+
+    /** Por que a sessão foi considerada inválida */
+    public enum Motivo {
+        /** LOGIN com outra sessão do mesmo usuário ainda aberta */
+        LOGIN_ANINHADO,
+        /** LOGOUT sem nenhuma sessão aberta do usuário */
+        LOGOUT_SEM_LOGIN,
+        /** LOGOUT de uma sessão que não está no topo da pilha do usuário */
+        LOGOUT_FORA_DE_ORDEM,
+        /** Sessão sem LOGOUT (fim do log ou inatividade) */
+        SESSAO_ABERTA
+    }
+
+    /**
+     * Recebe cada sessão inválida no momento em que ela é detectada.
+     */
+    @FunctionalInterface
+    public interface OuvinteSessao {
+        /**
+         * @param sessionId SESSION_ID inválido
+         * @param motivo    Regra que invalidou a sessão
+         * @param timestamp TIMESTAMP do evento que causou o aviso
+         */
+        void sessaoInvalida(String sessionId, Motivo motivo, long timestamp);
+    }
+
+    /** Estado compacto de um SESSION_ID aberto */
+    private static final class Sessao {
+        final String id;
+        long ultimaAtividade;
+        boolean avisada;
+        // LOGINs deste id (os fechados saem aos poucos, ver fechar)
+        final ArrayList<Login> logins = new ArrayList<>(1);
+        int loginsAbertos;
+
+        Sessao(String id) {
+            this.id = id;
+        }
+    }
+
+    /** Um LOGIN ainda sem LOGOUT, guardado na pilha do usuário */
+    private static final class Login {
+        final Sessao sessao;
+        final String usuario;
+        boolean fechado;
+
+        Login(Sessao sessao, String usuario) {
+            this.sessao = sessao;
+            this.usuario = usuario;
+        }
+    }
+
+    private final long timeoutInatividade;
+    private final OuvinteSessao ouvinte;
+
+    // Pilha de sessões abertas por usuário (só usuários com sessão aberta)
+    private final Map<String, ArrayDeque<Login>> pilhasPorUsuario = new HashMap<>(512);
+
+    // Sessões abertas em ordem de última atividade (ordem de inserção: cada
+    // atividade tira a sessão e põe de volta no fim), a primeira é a próxima a expirar
+    private final LinkedHashMap<String, Sessao> abertas = new LinkedHashMap<>(1024);
+
+    private long eventosProcessados;
+    private long sessoesExpiradas;
+
+    /**
+     * Detector sem tempo limite (mesmo resultado do Desafio 1).
+     */
+    public DetectorSessoesInvalidas(OuvinteSessao ouvinte) {
+        this(SEM_TIMEOUT, ouvinte);
+    }
+
+    /**
+     * @param timeoutInatividade Tempo máximo (em unidades de TIMESTAMP) sem eventos de uma sessão aberta
+     * @param ouvinte            Quem recebe as sessões inválidas
+     */
+    public DetectorSessoesInvalidas(long timeoutInatividade, OuvinteSessao ouvinte) {
+        if (timeoutInatividade < 0) {
+            throw new IllegalArgumentException("Timeout negativo: " + timeoutInatividade);
+        }
+        this.timeoutInatividade = timeoutInatividade;
+        this.ouvinte = ouvinte;
+    }
+
+    /**
+     * Processa o próximo evento do log.
+     *
+     * @param timestamp TIMESTAMP do evento
+     * @param userId    USER_ID do evento
+     * @param sessionId SESSION_ID do evento
+     * @param acao      ACTION_TYPE do evento
+     */
+    public void adicionar(long timestamp, String userId, String sessionId, String acao) {
+        eventosProcessados++;
+        expirar(timestamp);
+
+        if ("LOGIN".equalsIgnoreCase(acao)) {
+            ArrayDeque<Login> pilha = pilhasPorUsuario.computeIfAbsent(userId, k -> new ArrayDeque<>(2));
+            Sessao sessao = registrarAtividade(sessionId, timestamp);
+            if (sessao == null) {
+                sessao = new Sessao(sessionId);
+                sessao.ultimaAtividade = timestamp;
+                abertas.put(sessionId, sessao);
+            }
+            Login login = new Login(sessao, userId);
+            sessao.logins.add(login);
+            sessao.loginsAbertos++;
+            if (!pilha.isEmpty()) {
+                // LOGIN aninhado: a sessão atual é inválida
+                avisar(sessionId, Motivo.LOGIN_ANINHADO, timestamp);
+            }
+            pilha.push(login);
+
+        } else if ("LOGOUT".equalsIgnoreCase(acao)) {
+            ArrayDeque<Login> pilha = pilhasPorUsuario.get(userId);
+            if (pilha == null) {
+                avisar(sessionId, Motivo.LOGOUT_SEM_LOGIN, timestamp);
+            } else if (pilha.peek().sessao.id.equals(sessionId)) {
+                fechar(pilha.pop());
+                if (pilha.isEmpty()) {
+                    pilhasPorUsuario.remove(userId);
+                }
+            } else {
+                avisar(sessionId, Motivo.LOGOUT_FORA_DE_ORDEM, timestamp);
+            }
+
+        } else {
+            // Qualquer outra ação conta como atividade da sessão
+            registrarAtividade(sessionId, timestamp);
+        }
+    }
+
+    /** Atualiza a última atividade e leva a sessão para o fim da ordem de expiração. */
+    private Sessao registrarAtividade(String sessionId, long timestamp) {
+        Sessao sessao = abertas.remove(sessionId);
+        if (sessao != null) {
+            sessao.ultimaAtividade = timestamp;
+            abertas.put(sessionId, sessao);
+        }
+        return sessao;
+    }
+
+    /**
+     * Fim do fluxo: todas as sessões que continuam abertas são inválidas.
+     * Depois disso o detector fica vazio e pode continuar recebendo eventos.
+     */
+    public void finalizar() {
+        for (ArrayDeque<Login> pilha : pilhasPorUsuario.values()) {
+            for (Iterator<Login> i = pilha.descendingIterator(); i.hasNext(); ) {
+                Sessao sessao = i.next().sessao;
+                if (!sessao.avisada) {
+                    sessao.avisada = true;
+                    ouvinte.sessaoInvalida(sessao.id, Motivo.SESSAO_ABERTA, sessao.ultimaAtividade);
+                }
+            }
+        }
+        abertas.clear();
+        pilhasPorUsuario.clear();
+    }
+
+    private void avisar(String sessionId, Motivo motivo, long timestamp) {
+        // Se a sessão ainda está aberta, ela só é avisada uma vez
+        Sessao aberta = abertas.get(sessionId);
+        if (aberta != null) {
+            if (aberta.avisada) return;
+            aberta.avisada = true;
+        }
+        ouvinte.sessaoInvalida(sessionId, motivo, timestamp);
+    }
+
+    private void expirar(long timestamp) {
+        if (timeoutInatividade == SEM_TIMEOUT || timestamp - timeoutInatividade > timestamp) return;
+        long limite = timestamp - timeoutInatividade;
+
+        Iterator<Sessao> iterador = abertas.values().iterator();
+        while (iterador.hasNext()) {
+            Sessao sessao = iterador.next();
+            if (sessao.ultimaAtividade >= limite) break;
+            iterador.remove();
+            sessoesExpiradas++;
+
+            for (Login login : sessao.logins) {
+                if (login.fechado) continue;
+                login.fechado = true;
+                ArrayDeque<Login> pilha = pilhasPorUsuario.get(login.usuario);
+                if (pilha != null && pilha.remove(login) && pilha.isEmpty()) {
+                    pilhasPorUsuario.remove(login.usuario);
+                }
+            }
+            if (!sessao.avisada) {
+                ouvinte.sessaoInvalida(sessao.id, Motivo.SESSAO_ABERTA, timestamp);
+            }
+        }
+    }
+
+    private void fechar(Login login) {
+        login.fechado = true;
+        Sessao sessao = login.sessao;
+        if (--sessao.loginsAbertos == 0) {
+            abertas.remove(sessao.id);
+        } else if (sessao.logins.size() > 2 * sessao.loginsAbertos) {
+            // Tira os LOGINs fechados quando passam da metade (custo amortizado O(1))
+            sessao.logins.removeIf(l -> l.fechado);
+        }
+    }
+
+    /** @return Sessões abertas guardadas agora */
+    public int sessoesAbertas() {
+        return abertas.size();
+    }
+
+    /** @return Total de eventos processados */
+    public long eventosProcessados() {
+        return eventosProcessados;
+    }
+
+    /** @return Sessões liberadas por inatividade */
+    public long sessoesExpiradas() {
+        return sessoesExpiradas;
+    }
+}
@@ -0,0 +1,176 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Dicionário de Strings (codificação por dicionário)
+ *
+ * Cada valor distinto de uma coluna de texto (USER_ID, SESSION_ID,
+ * ACTION_TYPE, TARGET_RESOURCE) recebe um id inteiro sequencial, na ordem
+ * em que aparece pela primeira vez no log. As colunas passam a guardar só
+ * o id (4 bytes) em vez de uma String por linha.
+ *
+ * Complexidade:
+ * - adicionar / idDe: O(1) em média (tabela hash própria)
+ * - valor: O(1) (acesso direto ao array)
+ *
+ * Cada valor é guardado uma vez só, no array {@code valores}. A tabela hash
+ * (endereçamento aberto) guarda ids, e o hash é o dos bytes UTF-8 do valor,
+ * o mesmo de {@link LeitorCsvMapeado#hashCampo}: ao carregar do leitor, a
+ * busca é feita direto sobre os bytes da coluna e só valores NOVOS viram
+ * String.
+ */
+public class Dicionario {
+
+    private String[] valores;
+    private int[] hashDosValores;
+    private int tamanho;
+
+    // Ids por posição (-1 = livre); no máximo meio cheia
+    private int[] tabela;
+
+    public Dicionario() {
+        this(64);
+    }
+
+    public Dicionario(int capacidadeInicial) {
+        this.valores = new String[Math.max(capacidadeInicial, 1)];
+        this.hashDosValores = new int[valores.length];
+        this.tabela = new int[Integer.highestOneBit(Math.max(capacidadeInicial, 8)) * 4];
+        Arrays.fill(tabela, -1);
+    }
+
+    /**
+     * Retorna o id do valor, criando um novo id se ele ainda não existir.
+     *
+     * @param valor Texto da coluna
+     * @return Id do valor (0, 1, 2, ... na ordem da primeira aparição)
+     */
+    public int adicionar(String valor) {
+        int hash = hashUtf8(valor);
+        int id = procurar(valor, hash);
+        return id >= 0 ? id : inserir(valor, hash);
+    }
+
+    /**
+     * Mesmo que {@link #adicionar(String)}, mas lendo a coluna direto dos
+     * bytes do leitor. Se o valor já existe, nenhuma String é criada.
+     *
+     * @param leitor Leitor posicionado na linha atual
+     * @param coluna Índice da coluna
+     * @return Id do valor
+     */
+    public int adicionar(LeitorCsvMapeado leitor, int coluna) {
+        int hash = leitor.hashCampo(coluna);
+        int mascara = tabela.length - 1;
+        for (int posicao = misturar(hash) & mascara; tabela[posicao] >= 0; posicao = (posicao + 1) & mascara) {
+            int id = tabela[posicao];
+            if (hashDosValores[id] == hash && leitor.campoIgual(coluna, valores[id])) {
+                return id;
+            }
+        }
+
+        // Bytes UTF-8 inválidos viram U+FFFD na String: o hash dela pode ser
+        // outro, então a busca é refeita pelo texto
+        return adicionar(leitor.campoTexto(coluna));
+    }
+
+    /**
+     * Como {@link #adicionar(LeitorCsvMapeado, int)}, mas mantendo os espaços
+     * das pontas da coluna (regra do split(",") do Desafio 5). Só a coluna
+     * com espaços vira String; as demais continuam sendo lidas dos bytes.
+     *
+     * @param leitor Leitor posicionado na linha atual
+     * @param coluna Índice da coluna
+     * @return Id do valor
+     */
+    public int adicionarSemAparar(LeitorCsvMapeado leitor, int coluna) {
+        if (leitor.temEspacosNasPontas(coluna)) {
+            return adicionar(leitor.campoTextoOriginal(coluna));
+        }
+        return adicionar(leitor, coluna);
+    }
+
+    /** @return Id do valor, ou -1 se ele não está na tabela */
+    private int procurar(String valor, int hash) {
+        int mascara = tabela.length - 1;
+        for (int posicao = misturar(hash) & mascara; tabela[posicao] >= 0; posicao = (posicao + 1) & mascara) {
+            int id = tabela[posicao];
+            if (hashDosValores[id] == hash && valores[id].equals(valor)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    private int inserir(String valor, int hash) {
+        if (tamanho == valores.length) {
+            valores = Arrays.copyOf(valores, tamanho * 2);
+            hashDosValores = Arrays.copyOf(hashDosValores, tamanho * 2);
+        }
+        int id = tamanho++;
+        valores[id] = valor;
+        hashDosValores[id] = hash;
+
+        // Mantém a tabela no máximo meio cheia
+        if (tamanho * 2 > tabela.length) {
+            tabela = new int[tabela.length * 2];
+            Arrays.fill(tabela, -1);
+            for (int i = 0; i < tamanho; i++) {
+                colocarNaTabela(i);
+            }
+        } else {
+            colocarNaTabela(id);
+        }
+        return id;
+    }
+
+    private void colocarNaTabela(int id) {
+        int mascara = tabela.length - 1;
+        int posicao = misturar(hashDosValores[id]) & mascara;
+        while (tabela[posicao] >= 0) {
+            posicao = (posicao + 1) & mascara;
+        }
+        tabela[posicao] = id;
+    }
+
+    /**
+     * Mesmo hash usado por LeitorCsvMapeado.hashCampo, calculado sobre os
+     * bytes UTF-8 do valor. Texto só com ASCII (o caso comum no log) é
+     * calculado direto dos chars, sem criar o byte[].
+     */
+    private static int hashUtf8(String valor) {
+        int hash = 1;
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c >= 0x80) {
+                return Arrays.hashCode(valor.getBytes(StandardCharsets.UTF_8));
+            }
+            hash = 31 * hash + c;
+        }
+        return hash;
+    }
+
+    private static int misturar(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * @param valor Texto procurado
+     * @return Id do valor, ou -1 se ele nunca apareceu no log
+     */
+    public int idDe(String valor) {
+        return procurar(valor, hashUtf8(valor));
+    }
+
+    /**
+     * @param id Id retornado por {@link #adicionar(String)}
+     * @return Texto original
+     */
+    public String valor(int id) {
+        return valores[id];
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+}
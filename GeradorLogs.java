@@ -0,0 +1,564 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Gerador de Logs Sintéticos (testes de escala)
+ *
+ * Escreve logs no mesmo formato de 7 colunas do analise-forense-aed.jar
+ * (TIMESTAMP,USER_ID,SESSION_ID,ACTION_TYPE,TARGET_RESOURCE,SEVERITY_LEVEL,BYTES_TRANSFERRED),
+ * de qualquer tamanho. A mesma semente e a mesma configuração geram sempre
+ * o mesmo arquivo, byte a byte.
+ *
+ * Tráfego normal: várias sessões abertas ao mesmo tempo (LOGIN, ações,
+ * LOGOUT), intercaladas no log. Cada sessão ativa usa um grupo próprio de
+ * usuários, então não há LOGIN aninhado por acaso. Uma sessão sem LOGOUT
+ * (percentual configurável) é inválida para o Desafio 1 e deixa o usuário
+ * com a sessão aberta, então as próximas sessões dele ficam aninhadas.
+ *
+ * Ataques plantados, que servem de gabarito:
+ * - cadeias de movimentação lateral: uma sessão "lateral-N" que passa por
+ *   recursos que só ela acessa (/lateral/N/host-0 → host-1 → ...). O único
+ *   caminho de host-0 até o último host é a própria cadeia (Desafio 5).
+ * - rajadas de exfiltração: DATA_TRANSFER seguidos com mais bytes que
+ *   qualquer evento normal, cada um maior que o anterior. O próximo maior
+ *   de cada um é o evento seguinte da rajada (Desafio 4).
+ *
+ * Velocidade: cada linha é montada direto em um buffer de bytes (sem
+ * String.format nem String por linha), com números convertidos à mão.
+ *
+ * Uso: java GeradorLogs [arquivo] [linhas] [semente]
+ */
+public class GeradorLogs {
+
+    private static final String CABECALHO =
+            "TIMESTAMP,USER_ID,SESSION_ID,ACTION_TYPE,TARGET_RESOURCE,SEVERITY_LEVEL,BYTES_TRANSFERRED\n";
+
+    // Ações normais, na ordem dos pesos de misturaAcoes()
+    private static final String[] ACOES = {"FILE_ACCESS", "COMMAND_EXEC", "DATA_TRANSFER", "PERMISSION_DENIED"};
+
+    private static final byte[] LOGIN = bytes("LOGIN");
+    private static final byte[] LOGOUT = bytes("LOGOUT");
+    private static final byte[] RECURSO_LOGIN = bytes("/usr/bin/sshd");
+
+    private final long semente;
+
+    private long linhas = 1_000_000;
+    private int sessoesSimultaneas = 256;
+    private int usuarios = 10_000;
+    private int recursos = 5_000;
+    private int eventosPorSessao = 12;
+    private int percentualSemLogout = 1;
+    private int passoMaximoTimestamp = 13;
+    private int[] pesosAcoes = validarPesos(new int[]{40, 35, 20, 5}, "misturaAcoes");
+    private int[] pesosSeveridade = validarPesos(new int[]{2, 4, 8, 8, 60, 6, 5, 4, 2, 1}, "pesosSeveridade");
+    private double assimetriaBytes = 1.2;
+    private long bytesMaximoNormal = 1L << 30;
+    private int cadeiasLaterais = 4;
+    private int comprimentoCadeia = 8;
+    private int rajadasExfiltracao = 4;
+    private int eventosPorRajada = 5;
+
+    /**
+     * @param semente Semente do gerador pseudoaleatório
+     */
+    public GeradorLogs(long semente) {
+        this.semente = semente;
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // CONFIGURAÇÃO
+    // ═══════════════════════════════════════════════════════════════
+
+    /** Total de linhas de eventos (sem contar o cabeçalho), incluindo as plantadas */
+    public GeradorLogs linhas(long linhas) {
+        this.linhas = exigir(linhas, 0, "linhas");
+        return this;
+    }
+
+    /** Sessões abertas ao mesmo tempo (intercaladas no log) */
+    public GeradorLogs sessoesSimultaneas(int sessoes) {
+        this.sessoesSimultaneas = (int) exigir(sessoes, 1, "sessoesSimultaneas");
+        return this;
+    }
+
+    /** Número de USER_ID distintos (menos usuários que sessões simultâneas gera LOGIN aninhado) */
+    public GeradorLogs usuarios(int usuarios) {
+        this.usuarios = (int) exigir(usuarios, 1, "usuarios");
+        return this;
+    }
+
+    /** Número de TARGET_RESOURCE distintos do tráfego normal */
+    public GeradorLogs recursos(int recursos) {
+        this.recursos = (int) exigir(recursos, 1, "recursos");
+        return this;
+    }
+
+    /** Média de ações entre o LOGIN e o LOGOUT de uma sessão normal */
+    public GeradorLogs eventosPorSessao(int eventos) {
+        this.eventosPorSessao = (int) exigir(eventos, 1, "eventosPorSessao");
+        return this;
+    }
+
+    /** Percentual (0 a 100) de sessões normais que terminam sem LOGOUT */
+    public GeradorLogs percentualSemLogout(int percentual) {
+        if (percentual < 0 || percentual > 100) {
+            throw new IllegalArgumentException("percentualSemLogout fora de [0, 100]: " + percentual);
+        }
+        this.percentualSemLogout = percentual;
+        return this;
+    }
+
+    /**
+     * Pesos das ações normais: FILE_ACCESS, COMMAND_EXEC, DATA_TRANSFER e
+     * PERMISSION_DENIED (LOGIN e LOGOUT vêm do ciclo de cada sessão).
+     */
+    public GeradorLogs misturaAcoes(int fileAccess, int commandExec, int dataTransfer, int permissionDenied) {
+        this.pesosAcoes = validarPesos(new int[]{fileAccess, commandExec, dataTransfer, permissionDenied}, "misturaAcoes");
+        return this;
+    }
+
+    /** Pesos das severidades 1 a 10 (exatamente 10 valores) */
+    public GeradorLogs pesosSeveridade(int... pesos) {
+        if (pesos.length != 10) {
+            throw new IllegalArgumentException("pesosSeveridade precisa de 10 valores, recebeu " + pesos.length);
+        }
+        this.pesosSeveridade = validarPesos(pesos.clone(), "pesosSeveridade");
+        return this;
+    }
+
+    /**
+     * Assimetria dos bytes (expoente de Pareto): perto de 1, cauda longa
+     * com transferências enormes; valores maiores concentram em poucos bytes.
+     */
+    public GeradorLogs assimetriaBytes(double alfa) {
+        if (!(alfa > 0)) {
+            throw new IllegalArgumentException("assimetriaBytes deve ser positiva: " + alfa);
+        }
+        this.assimetriaBytes = alfa;
+        return this;
+    }
+
+    /** Teto de bytes do tráfego normal; as rajadas ficam sempre acima dele */
+    public GeradorLogs bytesMaximoNormal(long bytes) {
+        this.bytesMaximoNormal = exigir(bytes, 1, "bytesMaximoNormal");
+        return this;
+    }
+
+    /** Cadeias de movimentação lateral plantadas e quantos recursos cada uma percorre */
+    public GeradorLogs cadeiasLaterais(int quantidade, int comprimento) {
+        this.cadeiasLaterais = (int) exigir(quantidade, 0, "cadeiasLaterais");
+        this.comprimentoCadeia = (int) exigir(comprimento, 2, "comprimentoCadeia");
+        return this;
+    }
+
+    /** Rajadas de exfiltração plantadas e quantos DATA_TRANSFER cada uma tem */
+    public GeradorLogs rajadasExfiltracao(int quantidade, int eventos) {
+        this.rajadasExfiltracao = (int) exigir(quantidade, 0, "rajadasExfiltracao");
+        this.eventosPorRajada = (int) exigir(eventos, 1, "eventosPorRajada");
+        return this;
+    }
+
+    private static long exigir(long valor, long minimo, String nome) {
+        if (valor < minimo) {
+            throw new IllegalArgumentException(nome + " deve ser pelo menos " + minimo + ": " + valor);
+        }
+        return valor;
+    }
+
+    private static int[] validarPesos(int[] pesos, String nome) {
+        long soma = 0;
+        for (int peso : pesos) {
+            if (peso < 0) throw new IllegalArgumentException(nome + ": peso negativo " + peso);
+            soma += peso;
+        }
+        if (soma == 0 || soma > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(nome + ": soma dos pesos invalida " + soma);
+        }
+        // Guarda os pesos acumulados para o sorteio
+        for (int i = 1; i < pesos.length; i++) {
+            pesos[i] += pesos[i - 1];
+        }
+        return pesos;
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // GABARITO
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * O que foi plantado no log, para conferir as respostas dos desafios.
+     */
+    public static final class Gabarito {
+        private final long linhasEscritas;
+        private final List<List<String>> cadeias;
+        private final Map<Long, Long> picos;
+
+        private Gabarito(long linhasEscritas, List<List<String>> cadeias, Map<Long, Long> picos) {
+            this.linhasEscritas = linhasEscritas;
+            this.cadeias = cadeias;
+            this.picos = picos;
+        }
+
+        /** @return Linhas de eventos escritas (sem o cabeçalho) */
+        public long linhasEscritas() {
+            return linhasEscritas;
+        }
+
+        /** @return Cada cadeia lateral plantada, na ordem dos saltos (caminho esperado do Desafio 5) */
+        public List<List<String>> cadeias() {
+            return cadeias;
+        }
+
+        /** @return Pares timestamp → timestamp do próximo maior que o Desafio 4 deve encontrar */
+        public Map<Long, Long> picos() {
+            return picos;
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // GERAÇÃO
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * Gera o log no arquivo (sobrescrevendo se já existir).
+     *
+     * @param arquivo Caminho do CSV a ser escrito
+     * @return Gabarito com as cadeias e os picos plantados
+     * @throws IOException Se houver erro ao escrever o arquivo
+     */
+    public Gabarito gerar(Path arquivo) throws IOException {
+        try (OutputStream saida = Files.newOutputStream(arquivo)) {
+            return gerar(saida);
+        }
+    }
+
+    /**
+     * Gera o log na saída (que não é fechada).
+     *
+     * @param saida Onde o CSV é escrito
+     * @return Gabarito com as cadeias e os picos plantados
+     * @throws IOException Se houver erro ao escrever
+     */
+    public Gabarito gerar(OutputStream saida) throws IOException {
+        // Cada ataque plantado precisa caber na sua região do log
+        long ataques = (long) cadeiasLaterais + rajadasExfiltracao;
+        long maiorAtaque = Math.max(comprimentoCadeia, eventosPorRajada) + 2;
+        if (ataques * maiorAtaque * 2 > linhas) {
+            throw new IllegalArgumentException("Linhas insuficientes para " + ataques + " ataques plantados: " + linhas);
+        }
+
+        SplittableRandom aleatorio = new SplittableRandom(semente);
+        Linha linha = new Linha(saida);
+        linha.texto(bytes(CABECALHO));
+
+        // Sessões normais ativas: grupo de usuários, número da sessão, ações restantes
+        int[] usuarioDaVaga = new int[sessoesSimultaneas];
+        long[] sessaoDaVaga = new long[sessoesSimultaneas];
+        int[] restantes = new int[sessoesSimultaneas];
+        boolean[] semLogout = new boolean[sessoesSimultaneas];
+        long proximaSessao = 1;
+
+        Plantio plantio = new Plantio(linhas, aleatorio.split());
+        long timestamp = 1_700_000_000L;
+
+        for (long escritas = 0; escritas < linhas; escritas++) {
+            timestamp += 1 + aleatorio.nextInt(passoMaximoTimestamp);
+
+            if (plantio.temEventoEm(escritas)) {
+                plantio.escrever(linha, timestamp);
+                continue;
+            }
+
+            int vaga = aleatorio.nextInt(sessoesSimultaneas);
+            linha.numero(timestamp).virgula();
+
+            if (restantes[vaga] == 0) {
+                // Nova sessão: usuários separados por vaga (sem LOGIN aninhado por acaso)
+                usuarioDaVaga[vaga] = usuarios >= sessoesSimultaneas
+                        ? vaga + sessoesSimultaneas * aleatorio.nextInt(usuarios / sessoesSimultaneas)
+                        : vaga % usuarios;
+                sessaoDaVaga[vaga] = proximaSessao++;
+                restantes[vaga] = 1 + aleatorio.nextInt(2 * eventosPorSessao);
+                semLogout[vaga] = aleatorio.nextInt(100) < percentualSemLogout;
+
+                linha.texto("user-", usuarioDaVaga[vaga]).virgula().texto("sess-", sessaoDaVaga[vaga]).virgula();
+                linha.texto(LOGIN).virgula().texto(RECURSO_LOGIN).virgula();
+                linha.numero(severidade(aleatorio)).virgula().numero(0).fimDaLinha();
+                continue;
+            }
+
+            linha.texto("user-", usuarioDaVaga[vaga]).virgula().texto("sess-", sessaoDaVaga[vaga]).virgula();
+            if (--restantes[vaga] == 0 && !semLogout[vaga]) {
+                linha.texto(LOGOUT).virgula().texto(RECURSO_LOGIN).virgula();
+                linha.numero(severidade(aleatorio)).virgula().numero(0).fimDaLinha();
+            } else {
+                // Sessão sem LOGOUT: a última ação fica sem fechamento
+                linha.texto(ACOES[sortear(pesosAcoes, aleatorio)]).virgula();
+                linha.texto("/srv/recurso-", aleatorio.nextInt(recursos)).virgula();
+                linha.numero(severidade(aleatorio)).virgula().numero(bytesNormais(aleatorio)).fimDaLinha();
+            }
+        }
+
+        linha.descarregar();
+        return new Gabarito(linhas, plantio.cadeias(), plantio.picos);
+    }
+
+    private int severidade(SplittableRandom aleatorio) {
+        return 1 + sortear(pesosSeveridade, aleatorio);
+    }
+
+    private static int sortear(int[] pesosAcumulados, SplittableRandom aleatorio) {
+        int sorteio = aleatorio.nextInt(pesosAcumulados[pesosAcumulados.length - 1]);
+        int i = 0;
+        while (pesosAcumulados[i] <= sorteio) i++;
+        return i;
+    }
+
+    private long bytesNormais(SplittableRandom aleatorio) {
+        // Pareto com escala de 512 bytes, cortada no teto do tráfego normal
+        double u = 1.0 - aleatorio.nextDouble(); // (0, 1]
+        double valor = 512.0 / Math.pow(u, 1.0 / assimetriaBytes);
+        return valor >= bytesMaximoNormal ? bytesMaximoNormal : (long) valor;
+    }
+
+    /**
+     * Agenda dos eventos plantados. Cada cadeia e cada rajada começa em uma
+     * região diferente do log; os eventos de uma cadeia ficam espaçados (a
+     * sessão é intercalada com o tráfego normal) e os de uma rajada seguidos.
+     */
+    private final class Plantio {
+        // Um "ataque" por posição: cadeias primeiro, depois rajadas
+        private final long[] proximaLinha;
+        private final int[] proximoPasso;
+        private final int[] espacamento;
+        private final Map<Long, Long> picos = new LinkedHashMap<>();
+        private long timestampRajadaAnterior = -1;
+        private long bytesRajada = bytesMaximoNormal;
+        private long proximo;
+
+        Plantio(long linhas, SplittableRandom aleatorio) {
+            int ataques = cadeiasLaterais + rajadasExfiltracao;
+            proximaLinha = new long[ataques];
+            proximoPasso = new int[ataques];
+            espacamento = new int[ataques];
+
+            long regiao = linhas / Math.max(1, ataques);
+            for (int a = 0; a < ataques; a++) {
+                int eventos = eventosDoAtaque(a);
+                int passo = a < cadeiasLaterais ? (int) Math.max(1, Math.min(64, regiao / (2L * eventos))) : 1;
+                long folga = Math.max(1, regiao - (long) passo * eventos);
+                proximaLinha[a] = a * regiao + aleatorio.nextLong(folga);
+                espacamento[a] = passo;
+            }
+            atualizarProximo();
+        }
+
+        private int eventosDoAtaque(int ataque) {
+            return ataque < cadeiasLaterais ? comprimentoCadeia + 2 : eventosPorRajada + 2;
+        }
+
+        boolean temEventoEm(long posicao) {
+            return posicao >= proximo;
+        }
+
+        void escrever(Linha linha, long timestamp) throws IOException {
+            int ataque = 0;
+            while (proximaLinha[ataque] != proximo) ataque++;
+
+            int passo = proximoPasso[ataque]++;
+            int eventos = eventosDoAtaque(ataque);
+            boolean primeiro = passo == 0;
+            boolean ultimo = passo == eventos - 1;
+
+            linha.numero(timestamp).virgula();
+            if (ataque < cadeiasLaterais) {
+                // Movimentação lateral: LOGIN, um salto por host, LOGOUT
+                linha.texto("intruso-", ataque).virgula().texto("lateral-", ataque).virgula();
+                if (primeiro || ultimo) {
+                    linha.texto(primeiro ? LOGIN : LOGOUT).virgula().texto(RECURSO_LOGIN).virgula();
+                    linha.numero(5).virgula().numero(0).fimDaLinha();
+                } else {
+                    linha.texto(passo % 2 == 0 ? "FILE_ACCESS" : "COMMAND_EXEC").virgula();
+                    linha.texto(recursoDaCadeia(ataque, passo - 1)).virgula();
+                    linha.numero(8).virgula().numero(1024).fimDaLinha();
+                }
+            } else {
+                // Exfiltração: LOGIN, DATA_TRANSFER crescentes acima do teto normal, LOGOUT
+                int rajada = ataque - cadeiasLaterais;
+                linha.texto("exfil-", rajada).virgula().texto("exfil-sess-", rajada).virgula();
+                if (primeiro || ultimo) {
+                    linha.texto(primeiro ? LOGIN : LOGOUT).virgula().texto(RECURSO_LOGIN).virgula();
+                    linha.numero(5).virgula().numero(0).fimDaLinha();
+                } else {
+                    bytesRajada += 1 + (bytesMaximoNormal >>> 4);
+                    linha.texto("DATA_TRANSFER").virgula().texto("/srv/exportacao-", rajada).virgula();
+                    linha.numero(10).virgula().numero(bytesRajada).fimDaLinha();
+                    if (timestampRajadaAnterior >= 0) {
+                        picos.put(timestampRajadaAnterior, timestamp);
+                    }
+                    timestampRajadaAnterior = timestamp;
+                }
+            }
+
+            proximaLinha[ataque] = ultimo ? Long.MAX_VALUE : proximaLinha[ataque] + espacamento[ataque];
+            atualizarProximo();
+        }
+
+        private void atualizarProximo() {
+            proximo = Long.MAX_VALUE;
+            for (long linha : proximaLinha) {
+                proximo = Math.min(proximo, linha);
+            }
+            // Dois ataques na mesma linha: o segundo vai para a linha seguinte
+            for (int a = 0, achados = 0; a < proximaLinha.length; a++) {
+                if (proximaLinha[a] == proximo && achados++ > 0) proximaLinha[a]++;
+            }
+        }
+
+        List<List<String>> cadeias() {
+            List<List<String>> cadeias = new ArrayList<>(cadeiasLaterais);
+            for (int c = 0; c < cadeiasLaterais; c++) {
+                List<String> cadeia = new ArrayList<>(comprimentoCadeia);
+                for (int salto = 0; salto < comprimentoCadeia; salto++) {
+                    cadeia.add(recursoDaCadeia(c, salto));
+                }
+                cadeias.add(Collections.unmodifiableList(cadeia));
+            }
+            return Collections.unmodifiableList(cadeias);
+        }
+    }
+
+    /** @return Recurso do salto {@code salto} da cadeia lateral {@code cadeia} */
+    public static String recursoDaCadeia(int cadeia, int salto) {
+        return "/lateral/" + cadeia + "/host-" + salto;
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // ESCRITA DAS LINHAS (BUFFER DE BYTES)
+    // ═══════════════════════════════════════════════════════════════
+
+    private static final class Linha {
+        private final OutputStream saida;
+        private final byte[] buffer = new byte[1 << 20];
+        private final byte[] digitos = new byte[20];
+        private int posicao;
+
+        Linha(OutputStream saida) {
+            this.saida = saida;
+        }
+
+        Linha texto(byte[] valor) throws IOException {
+            garantir(valor.length);
+            System.arraycopy(valor, 0, buffer, posicao, valor.length);
+            posicao += valor.length;
+            return this;
+        }
+
+        Linha texto(String prefixoAscii, long numero) throws IOException {
+            garantir(prefixoAscii.length());
+            for (int i = 0; i < prefixoAscii.length(); i++) {
+                buffer[posicao++] = (byte) prefixoAscii.charAt(i);
+            }
+            return numero(numero);
+        }
+
+        Linha texto(String ascii) throws IOException {
+            garantir(ascii.length());
+            for (int i = 0; i < ascii.length(); i++) {
+                buffer[posicao++] = (byte) ascii.charAt(i);
+            }
+            return this;
+        }
+
+        Linha numero(long valor) throws IOException {
+            // Todos os números do log são não negativos
+            int n = 0;
+            do {
+                digitos[n++] = (byte) ('0' + valor % 10);
+                valor /= 10;
+            } while (valor > 0);
+            garantir(n);
+            while (n > 0) {
+                buffer[posicao++] = digitos[--n];
+            }
+            return this;
+        }
+
+        Linha virgula() throws IOException {
+            garantir(1);
+            buffer[posicao++] = ',';
+            return this;
+        }
+
+        void fimDaLinha() throws IOException {
+            garantir(1);
+            buffer[posicao++] = '\n';
+        }
+
+        private void garantir(int bytes) throws IOException {
+            if (posicao + bytes > buffer.length) {
+                descarregar();
+            }
+        }
+
+        void descarregar() throws IOException {
+            saida.write(buffer, 0, posicao);
+            posicao = 0;
+        }
+    }
+
+    private static byte[] bytes(String ascii) {
+        return ascii.getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // MÉTODO DE TESTE - O GABARITO CONFERE COM OS DESAFIOS 4 E 5?
+    // ═══════════════════════════════════════════════════════════════
+    public static void main(String[] args) {
+        String arquivo = args.length > 0 ? args[0] : "log-sintetico.csv";
+        long linhas = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000;
+        long semente = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+        System.out.println("===========================================================");
+        System.out.println("=           GERADOR DE LOGS SINTETICOS                    =");
+        System.out.println("===========================================================\n");
+
+        try {
+            long inicio = System.nanoTime();
+            Gabarito gabarito = new GeradorLogs(semente).linhas(linhas).gerar(Paths.get(arquivo));
+            long fim = System.nanoTime();
+
+            double segundos = (fim - inicio) / 1_000_000_000.0;
+            System.out.println("Arquivo: " + arquivo);
+            System.out.printf("Linhas: %,d em %.3f s (%,.0f linhas/s, %.1f MB)%n", gabarito.linhasEscritas(), segundos,
+                    gabarito.linhasEscritas() / segundos, Files.size(Paths.get(arquivo)) / (1024.0 * 1024.0));
+            System.out.println("------------------------------------------------------------");
+
+            // Desafio 5: cada cadeia plantada deve ser o caminho encontrado
+            GrafoContaminacao grafo = GrafoContaminacao.construir(arquivo);
+            int cadeiasOk = 0;
+            for (List<String> cadeia : gabarito.cadeias()) {
+                Optional<List<String>> caminho = Desafio5RastrearContaminacao.rastrearContaminacao(
+                        grafo, cadeia.get(0), cadeia.get(cadeia.size() - 1));
+                if (caminho.isPresent() && caminho.get().equals(cadeia)) cadeiasOk++;
+            }
+            System.out.printf("Desafio 5 - cadeias laterais encontradas: %d de %d%n", cadeiasOk, gabarito.cadeias().size());
+
+            // Desafio 4: cada evento de rajada aponta para o seguinte
+            Map<Long, Long> picos = new Desafio4_DetectorDeTransferenciaDeDados().identificarPicosTransferencia(arquivo);
+            int picosOk = 0;
+            for (Map.Entry<Long, Long> esperado : gabarito.picos().entrySet()) {
+                if (esperado.getValue().equals(picos.get(esperado.getKey()))) picosOk++;
+            }
+            System.out.printf("Desafio 4 - picos de exfiltracao encontrados: %d de %d%n", picosOk, gabarito.picos().size());
+            System.out.println("===========================================================");
+
+        } catch (IOException e) {
+            System.err.println("Erro: " + e.getMessage());
+        }
+    }
+}
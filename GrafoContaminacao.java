@@ -0,0 +1,756 @@
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Grafo de movimentação lateral entre recursos (Desafio 5), construído uma vez
+ *
+ * - Cada TARGET_RESOURCE recebe um id inteiro (via {@link Dicionario})
+ * - As arestas ficam em formato CSR (compressed sparse row): os vizinhos do
+ *   vértice v estão em vizinhos[inicioVizinhos[v] .. inicioVizinhos[v + 1])
+ * - Arestas repetidas (a mesma transição em várias sessões) são guardadas
+ *   uma única vez, na ordem da primeira ocorrência
+ *
+ * Como a ordem dos vizinhos é a mesma do grafo antigo (Map&lt;String, List&lt;String&gt;&gt;
+ * com as sessões na ordem da primeira aparição), o BFS encontra exatamente
+ * o mesmo caminho. Depois de construído, cada consulta custa só o BFS.
+ *
+ * Complexidade:
+ * - Construção: O(n) onde n é o número de linhas válidas do log
+ * - BFS: O(V + E) sobre arrays de int
+ * - BFS bidirecional: explora só as vizinhanças da origem e do alvo
+ *   até elas se encontrarem (em geral muito menos que V + E)
+ */
+public class GrafoContaminacao {
+
+    private static final MetricasAnalise METRICAS = MetricasAnalise.de("desafio5");
+
+    private final Dicionario recursos;
+    private final int[] inicioVizinhos;
+    private final int[] vizinhos;
+
+    // Adjacência reversa (arestas de chegada), usada pelo BFS bidirecional
+    private final int[] inicioAntecessores;
+    private final int[] antecessores;
+
+    private GrafoContaminacao(Dicionario recursos, int[] inicioVizinhos, int[] vizinhos) {
+        this.recursos = recursos;
+        this.inicioVizinhos = inicioVizinhos;
+        this.vizinhos = vizinhos;
+
+        int totalVertices = recursos.tamanho();
+        this.inicioAntecessores = new int[totalVertices + 1];
+        for (int destino : vizinhos) {
+            inicioAntecessores[destino + 1]++;
+        }
+        for (int v = 0; v < totalVertices; v++) {
+            inicioAntecessores[v + 1] += inicioAntecessores[v];
+        }
+        int[] proxima = Arrays.copyOf(inicioAntecessores, totalVertices);
+        this.antecessores = new int[vizinhos.length];
+        for (int origem = 0; origem < totalVertices; origem++) {
+            for (int i = inicioVizinhos[origem]; i < inicioVizinhos[origem + 1]; i++) {
+                antecessores[proxima[vizinhos[i]]++] = origem;
+            }
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // CONSTRUÇÃO
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * Constrói o grafo lendo o arquivo de logs uma única vez.
+     *
+     * Só linhas com os 7 campos válidos geram vértices e arestas; as
+     * demais são ignoradas com um aviso (como no Desafio 5).
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs (ou arquivo colunar)
+     * @return Grafo pronto para consultas
+     * @throws IOException Se houver erro ao ler o arquivo
+     */
+    public static GrafoContaminacao construir(String caminhoArquivo) throws IOException {
+        if (RepositorioEventos.usaRepositorio(caminhoArquivo)) {
+            return construir(RepositorioEventos.carregar(caminhoArquivo));
+        }
+
+        // Sessões e recursos recebem ids na ordem da primeira aparição
+        Dicionario sessoes = new Dicionario(1024);
+        Dicionario recursos = new Dicionario(1024);
+        int[] sessaoDaLinha = new int[1024];
+        int[] recursoDaLinha = new int[1024];
+        int linhas = 0;
+
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONVERSAO);
+             LeitorCsvMapeado leitor = new LeitorCsvMapeado(caminhoArquivo)) {
+            leitor.proximaLinha(); // Pular cabeçalho
+            long linhasRejeitadas = 0;
+
+            while (leitor.proximaLinha()) {
+                if (!linhaValida(leitor)) {
+                    if (!leitor.linhaEmBranco()) linhasRejeitadas++;
+                    continue;
+                }
+
+                if (linhas == sessaoDaLinha.length) {
+                    sessaoDaLinha = Arrays.copyOf(sessaoDaLinha, linhas * 2);
+                    recursoDaLinha = Arrays.copyOf(recursoDaLinha, linhas * 2);
+                }
+                sessaoDaLinha[linhas] = sessoes.adicionarSemAparar(leitor, 2);
+                recursoDaLinha[linhas] = recursos.adicionarSemAparar(leitor, 4);
+                linhas++;
+            }
+            medicao.linhas(linhas + linhasRejeitadas).rejeitadas(linhasRejeitadas).bytes(leitor.posicaoProximaLinha());
+        }
+
+        // Agrupa as linhas por sessão (counting sort estável: ordem do arquivo
+        // dentro de cada sessão, sessões na ordem da primeira aparição)
+        int totalSessoes = sessoes.tamanho();
+        int[] inicioSessao = new int[totalSessoes + 1];
+        for (int i = 0; i < linhas; i++) {
+            inicioSessao[sessaoDaLinha[i] + 1]++;
+        }
+        for (int s = 0; s < totalSessoes; s++) {
+            inicioSessao[s + 1] += inicioSessao[s];
+        }
+        int[] proximaPosicao = Arrays.copyOf(inicioSessao, totalSessoes);
+        int[] recursoAgrupado = new int[linhas];
+        for (int i = 0; i < linhas; i++) {
+            recursoAgrupado[proximaPosicao[sessaoDaLinha[i]]++] = recursoDaLinha[i];
+        }
+
+        return montar(recursos, recursoAgrupado, inicioSessao, totalSessoes);
+    }
+
+    /**
+     * Regras de linha do Desafio 5: ignora linhas em branco e cabeçalhos
+     * repetidos; linhas sem os 7 campos válidos são ignoradas com um aviso.
+     * Como no split(",") do LogEvent, nada é aparado: um número com espaços
+     * nas pontas invalida a linha, e SESSION_ID e TARGET_RESOURCE são usados
+     * como estão ({@link Dicionario#adicionarSemAparar}).
+     *
+     * @param leitor Leitor posicionado na linha atual
+     * @return true se a linha deve entrar no grafo
+     */
+    static boolean linhaValida(LeitorCsvMapeado leitor) {
+        if (leitor.linhaEmBranco()) return false;
+
+        // Verificar se não é o cabeçalho
+        if (leitor.linhaComecaCom("TIMESTAMP")) return false;
+
+        try {
+            if (leitor.numeroCamposPreenchidos() < 7) {
+                throw new ArrayIndexOutOfBoundsException("Linha com menos de 7 colunas");
+            }
+            // Os campos numéricos precisam ser válidos, mesmo sem serem usados no grafo
+            leitor.campoLong(0);
+            leitor.campoInt(5);
+            leitor.campoLong(6);
+            if (!numerosSemEspacos(leitor)) {
+                throw new NumberFormatException("Numero com espacos nas pontas");
+            }
+            return true;
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            // Ignorar linhas malformadas
+            System.err.println("Aviso: Linha ignorada (formato invalido): " + leitor.linhaComoTexto());
+            return false;
+        }
+    }
+
+    /**
+     * @return true se TIMESTAMP, SEVERITY_LEVEL e BYTES_TRANSFERRED não têm
+     *         espaços nas pontas (o Long.parseLong do LogEvent não os aceita).
+     *         Uma linha completa que passa nesse teste entra no grafo
+     */
+    static boolean numerosSemEspacos(LeitorCsvMapeado leitor) {
+        return !leitor.temEspacosNasPontas(0) && !leitor.temEspacosNasPontas(5) && !leitor.temEspacosNasPontas(6);
+    }
+
+    /**
+     * Constrói o grafo a partir de um {@link RepositorioEventos} já carregado
+     * (só as linhas de {@link RepositorioEventos#isLinhaDoGrafo} entram no grafo).
+     *
+     * @param repositorio Eventos do log carregados uma única vez
+     * @return Grafo pronto para consultas
+     */
+    public static GrafoContaminacao construir(RepositorioEventos repositorio) {
+        return construir(repositorio, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Constrói o grafo só com os eventos da janela [de, ate] de um
+     * {@link RepositorioEventos} já carregado (linhas de
+     * {@link RepositorioEventos#isLinhaDoGrafo}).
+     *
+     * @param repositorio Eventos do log carregados uma única vez
+     * @param de          Primeiro TIMESTAMP da janela (inclusivo)
+     * @param ate         Último TIMESTAMP da janela (inclusivo)
+     * @return Grafo pronto para consultas
+     */
+    public static GrafoContaminacao construir(RepositorioEventos repositorio, long de, long ate) {
+        int naJanela = 0;
+        for (int linha = 0; linha < repositorio.tamanho(); linha++) {
+            if (estaNaJanela(repositorio, linha, de, ate)) naJanela++;
+        }
+
+        int[] sessaoDaLinha = new int[naJanela];
+        int[] recursoDaLinha = new int[naJanela];
+        int posicao = 0;
+
+        // Valores com espaços nas pontas não estão nos dicionários (que são aparados)
+        CamposOriginais originais = repositorio.camposOriginais();
+        Dicionario sessoesOriginais = new Dicionario(16);
+        Dicionario recursosOriginais = new Dicionario(16);
+        int proximoOriginal = 0;
+
+        for (int linha = 0; linha < repositorio.tamanho(); linha++) {
+            if (!estaNaJanela(repositorio, linha, de, ate)) continue;
+            sessaoDaLinha[posicao] = repositorio.getSessao(linha);
+            recursoDaLinha[posicao] = repositorio.getRecurso(linha);
+
+            while (proximoOriginal < originais.tamanho() && originais.getLinha(proximoOriginal) < linha) {
+                proximoOriginal++;
+            }
+            if (proximoOriginal < originais.tamanho() && originais.getLinha(proximoOriginal) == linha) {
+                String sessao = originais.getSessao(proximoOriginal);
+                String recurso = originais.getRecurso(proximoOriginal);
+                if (sessao != null) sessaoDaLinha[posicao] = -1 - sessoesOriginais.adicionar(sessao);
+                if (recurso != null) recursoDaLinha[posicao] = -1 - recursosOriginais.adicionar(recurso);
+            }
+            posicao++;
+        }
+
+        return construir(sessaoDaLinha, recursoDaLinha, naJanela, repositorio.sessoes().tamanho(), repositorio.recursos(),
+                sessoesOriginais, recursosOriginais);
+    }
+
+    private static boolean estaNaJanela(RepositorioEventos repositorio, int linha, long de, long ate) {
+        if (!repositorio.isLinhaDoGrafo(linha)) return false;
+        long timestamp = repositorio.getTimestamp(linha);
+        return timestamp >= de && timestamp <= ate;
+    }
+
+    /**
+     * Constrói o grafo só com os eventos da janela [de, ate].
+     *
+     * Usa o {@link IndiceTempo} do log ("&lt;log&gt;.tidx", construído na
+     * primeira chamada) para ler apenas os blocos que podem ter eventos da
+     * janela. Uma sessão que começa antes da janela só contribui com as
+     * arestas entre os seus eventos de dentro dela.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs (ou arquivo colunar)
+     * @param de             Primeiro TIMESTAMP da janela (inclusivo)
+     * @param ate            Último TIMESTAMP da janela (inclusivo)
+     * @return Grafo pronto para consultas
+     * @throws IOException Se houver erro ao ler o arquivo
+     */
+    public static GrafoContaminacao construir(String caminhoArquivo, long de, long ate) throws IOException {
+        if (RepositorioEventos.usaRepositorio(caminhoArquivo)) {
+            return construir(RepositorioEventos.carregar(caminhoArquivo), de, ate);
+        }
+
+        Dicionario sessoes = new Dicionario(1024);
+        Dicionario recursos = new Dicionario(1024);
+        int[] sessaoDaLinha = new int[1024];
+        int[] recursoDaLinha = new int[1024];
+        int linhas = 0;
+
+        if (de <= ate) {
+            // A janela só entrega linhas completas; falta a regra dos números sem espaços do linhaValida
+            try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONVERSAO);
+                 IndiceTempo.Janela janela = IndiceTempo.abrir(caminhoArquivo).janela(de, ate)) {
+                while (janela.proximaLinha()) {
+                    LeitorCsvMapeado leitor = janela.leitor();
+                    if (!numerosSemEspacos(leitor)) continue;
+                    if (linhas == sessaoDaLinha.length) {
+                        sessaoDaLinha = Arrays.copyOf(sessaoDaLinha, linhas * 2);
+                        recursoDaLinha = Arrays.copyOf(recursoDaLinha, linhas * 2);
+                    }
+                    sessaoDaLinha[linhas] = sessoes.adicionarSemAparar(leitor, 2);
+                    recursoDaLinha[linhas] = recursos.adicionarSemAparar(leitor, 4);
+                    linhas++;
+                }
+                medicao.linhas(janela.linhasLidas()).rejeitadas(janela.linhasLidas() - linhas)
+                    .bytes(janela.bytesDaJanela());
+            }
+        }
+
+        // Ids já estão na ordem da primeira aparição: o agrupamento é o mesmo
+        // da construção a partir das colunas
+        return construir(sessaoDaLinha, recursoDaLinha, linhas, sessoes.tamanho(), recursos);
+    }
+
+    /**
+     * Constrói o grafo a partir da sessão e do recurso de cada linha válida,
+     * na ordem do arquivo (usado também pelo {@link PipelineAnalises}).
+     *
+     * @param sessaoDaLinha   Id da sessão de cada linha
+     * @param recursoDaLinha  Id do recurso de cada linha (em {@code recursosOrigem})
+     * @param linhas          Número de linhas válidas
+     * @param totalSessoes    Maior id de sessão + 1
+     * @param recursosOrigem  Dicionário dos ids de recurso (só os usados viram vértices)
+     * @return Grafo pronto para consultas
+     */
+    static GrafoContaminacao construir(int[] sessaoDaLinha, int[] recursoDaLinha, int linhas,
+                                       int totalSessoes, Dicionario recursosOrigem) {
+        return construir(sessaoDaLinha, recursoDaLinha, linhas, totalSessoes, recursosOrigem,
+                new Dicionario(16), new Dicionario(16));
+    }
+
+    /**
+     * Como {@link #construir(int[], int[], int, int, Dicionario)}, para
+     * dicionários aparados (os do {@link RepositorioEventos} e do
+     * {@link PipelineAnalises}): um id negativo -1 - k indica o valor k de
+     * {@code sessoesOriginais} ou {@code recursosOriginais}, os SESSION_ID e
+     * TARGET_RESOURCE que tinham espaços nas pontas. Os arrays são alterados.
+     */
+    static GrafoContaminacao construir(int[] sessaoDaLinha, int[] recursoDaLinha, int linhas,
+                                       int totalSessoes, Dicionario recursosOrigem,
+                                       Dicionario sessoesOriginais, Dicionario recursosOriginais) {
+        if (sessoesOriginais.tamanho() > 0 || recursosOriginais.tamanho() > 0) {
+            // Um valor com espaços nas pontas nunca é igual a um valor aparado:
+            // as sessões ganham ids depois das do dicionário e os recursos
+            // entram numa cópia do dicionário
+            Dicionario todosRecursos = recursosOrigem;
+            int[] recursoOriginal = new int[recursosOriginais.tamanho()];
+            if (recursoOriginal.length > 0) {
+                todosRecursos = new Dicionario(recursosOrigem.tamanho() + recursoOriginal.length);
+                for (int id = 0; id < recursosOrigem.tamanho(); id++) {
+                    todosRecursos.adicionar(recursosOrigem.valor(id));
+                }
+                for (int k = 0; k < recursoOriginal.length; k++) {
+                    recursoOriginal[k] = todosRecursos.adicionar(recursosOriginais.valor(k));
+                }
+            }
+            for (int linha = 0; linha < linhas; linha++) {
+                if (sessaoDaLinha[linha] < 0) sessaoDaLinha[linha] = totalSessoes - 1 - sessaoDaLinha[linha];
+                if (recursoDaLinha[linha] < 0) recursoDaLinha[linha] = recursoOriginal[-1 - recursoDaLinha[linha]];
+            }
+            totalSessoes += sessoesOriginais.tamanho();
+            recursosOrigem = todosRecursos;
+        }
+
+        // Ordem de primeira aparição de cada sessão
+        int[] ordemDaSessao = new int[totalSessoes];
+        Arrays.fill(ordemDaSessao, -1);
+        int[] quantidadePorOrdem = new int[totalSessoes];
+        int sessoesVistas = 0;
+
+        for (int linha = 0; linha < linhas; linha++) {
+            int sessao = sessaoDaLinha[linha];
+            if (ordemDaSessao[sessao] < 0) {
+                ordemDaSessao[sessao] = sessoesVistas++;
+            }
+            quantidadePorOrdem[ordemDaSessao[sessao]]++;
+        }
+
+        int[] inicioSessao = new int[sessoesVistas + 1];
+        for (int i = 0; i < sessoesVistas; i++) {
+            inicioSessao[i + 1] = inicioSessao[i] + quantidadePorOrdem[i];
+        }
+
+        // Os vértices são só os recursos usados: renumera os ids
+        int[] idNoGrafo = new int[recursosOrigem.tamanho()];
+        Arrays.fill(idNoGrafo, -1);
+        Dicionario recursos = new Dicionario(Math.max(16, recursosOrigem.tamanho()));
+
+        int[] proximaPosicao = Arrays.copyOf(inicioSessao, sessoesVistas);
+        int[] recursoAgrupado = new int[inicioSessao[sessoesVistas]];
+        for (int linha = 0; linha < linhas; linha++) {
+            int recurso = recursoDaLinha[linha];
+            if (idNoGrafo[recurso] < 0) {
+                idNoGrafo[recurso] = recursos.adicionar(recursosOrigem.valor(recurso));
+            }
+            int ordem = ordemDaSessao[sessaoDaLinha[linha]];
+            recursoAgrupado[proximaPosicao[ordem]++] = idNoGrafo[recurso];
+        }
+
+        return montar(recursos, recursoAgrupado, inicioSessao, sessoesVistas);
+    }
+
+    /**
+     * Gera as arestas (recursos consecutivos de cada sessão), remove as
+     * repetidas e monta o CSR.
+     *
+     * @param recursos        Dicionário dos vértices
+     * @param recursoAgrupado Recurso de cada linha, agrupado por sessão
+     * @param inicioSessao    As linhas da sessão s estão em [inicioSessao[s], inicioSessao[s + 1])
+     * @param totalSessoes    Número de sessões
+     */
+    static GrafoContaminacao montar(Dicionario recursos, int[] recursoAgrupado, int[] inicioSessao, int totalSessoes) {
+        int totalVertices = recursos.tamanho();
+        int totalArestas;
+        GrafoContaminacao grafo;
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONSTRUCAO)) {
+            // Arestas únicas na ordem da primeira ocorrência (origem << 32 | destino)
+            MapaLongLong arestasVistas = new MapaLongLong(1024);
+            VetorLong arestas = new VetorLong(1024);
+            for (int s = 0; s < totalSessoes; s++) {
+                for (int i = inicioSessao[s]; i < inicioSessao[s + 1] - 1; i++) {
+                    long aresta = ((long) recursoAgrupado[i] << 32) | recursoAgrupado[i + 1];
+                    if (!arestasVistas.contemChave(aresta)) {
+                        arestasVistas.colocar(aresta, 0);
+                        arestas.add(aresta);
+                    }
+                }
+            }
+
+            totalArestas = arestas.tamanho();
+            grafo = deArestas(recursos, arestas.arrayInterno(), totalArestas);
+            medicao.linhas(recursoAgrupado.length);
+        }
+        METRICAS.registrarPico("vertices", totalVertices);
+        METRICAS.registrarPico("arestas", totalArestas);
+        return grafo;
+    }
+
+    /**
+     * Monta o CSR a partir das arestas únicas (origem &lt;&lt; 32 | destino) já
+     * na ordem da primeira ocorrência (usado também pelo
+     * {@link GrafoContaminacaoEmDisco}).
+     *
+     * @param recursos     Dicionário dos vértices
+     * @param todas        Arestas únicas nas posições [0, totalArestas)
+     * @param totalArestas Número de arestas
+     */
+    static GrafoContaminacao deArestas(Dicionario recursos, long[] todas, int totalArestas) {
+        int totalVertices = recursos.tamanho();
+
+        // CSR: conta o grau de saída e distribui (estável, mantém a ordem)
+        int[] inicioVizinhos = new int[totalVertices + 1];
+        for (int i = 0; i < totalArestas; i++) {
+            inicioVizinhos[(int) (todas[i] >>> 32) + 1]++;
+        }
+        for (int v = 0; v < totalVertices; v++) {
+            inicioVizinhos[v + 1] += inicioVizinhos[v];
+        }
+        int[] proxima = Arrays.copyOf(inicioVizinhos, totalVertices);
+        int[] vizinhos = new int[totalArestas];
+        for (int i = 0; i < totalArestas; i++) {
+            vizinhos[proxima[(int) (todas[i] >>> 32)]++] = (int) todas[i];
+        }
+        return new GrafoContaminacao(recursos, inicioVizinhos, vizinhos);
+    }
+
+    /**
+     * Monta o CSR a partir de listas de vizinhos já sem repetição e na ordem
+     * final (usado pelo {@link GrafoContaminacaoIncremental}).
+     *
+     * @param recursos Dicionário dos vértices (não deve mais ser alterado)
+     * @param destinos destinos[v] tem os vizinhos de v nas posições [0, graus[v])
+     * @param graus    Número de vizinhos de cada vértice
+     */
+    static GrafoContaminacao deListas(Dicionario recursos, int[][] destinos, int[] graus) {
+        int totalVertices = recursos.tamanho();
+        int[] inicioVizinhos = new int[totalVertices + 1];
+        for (int v = 0; v < totalVertices; v++) {
+            inicioVizinhos[v + 1] = inicioVizinhos[v] + graus[v];
+        }
+        int[] vizinhos = new int[inicioVizinhos[totalVertices]];
+        for (int v = 0; v < totalVertices; v++) {
+            if (graus[v] > 0) {
+                System.arraycopy(destinos[v], 0, vizinhos, inicioVizinhos[v], graus[v]);
+            }
+        }
+        return new GrafoContaminacao(recursos, inicioVizinhos, vizinhos);
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // CONSULTAS
+    // ═══════════════════════════════════════════════════════════════
+
+    /** @return Número de recursos (vértices) */
+    public int numeroVertices() {
+        return recursos.tamanho();
+    }
+
+    /** @return Número de arestas distintas */
+    public int numeroArestas() {
+        return vizinhos.length;
+    }
+
+    /** @return true se o recurso aparece em alguma linha válida do log */
+    public boolean contem(String recurso) {
+        return recursos.idDe(recurso) >= 0;
+    }
+
+    /** @return Id do recurso, ou -1 se ele não está no grafo */
+    public int idDe(String recurso) {
+        return recursos.idDe(recurso);
+    }
+
+    /** @return Nome do recurso com o id dado */
+    public String recurso(int id) {
+        return recursos.valor(id);
+    }
+
+    /** @return Ids dos vizinhos do vértice, na ordem da primeira ocorrência */
+    public int[] vizinhos(int vertice) {
+        return Arrays.copyOfRange(vizinhos, inicioVizinhos[vertice], inicioVizinhos[vertice + 1]);
+    }
+
+    /**
+     * Caminho mais curto (em número de arestas) entre dois recursos, via BFS.
+     *
+     * @param recursoInicial Recurso de origem
+     * @param recursoAlvo    Recurso de destino
+     * @return Optional com o caminho, ou Optional.empty() se não houver caminho
+     */
+    public Optional<List<String>> caminhoMaisCurto(String recursoInicial, String recursoAlvo) {
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONSULTA)) {
+            medicao.linhas(1); // Uma consulta
+            return buscarCaminho(recursoInicial, recursoAlvo);
+        }
+    }
+
+    private Optional<List<String>> buscarCaminho(String recursoInicial, String recursoAlvo) {
+        int inicio = recursos.idDe(recursoInicial);
+        if (inicio < 0) {
+            return Optional.empty();
+        }
+
+        // Caso especial: origem e destino são o mesmo
+        if (recursoInicial.equals(recursoAlvo)) {
+            return Optional.of(Collections.singletonList(recursoInicial));
+        }
+
+        int alvo = recursos.idDe(recursoAlvo);
+        if (alvo < 0) {
+            return Optional.empty();
+        }
+
+        // predecessor[v] = -1 enquanto v não foi visitado
+        int[] predecessor = new int[numeroVertices()];
+        Arrays.fill(predecessor, -1);
+        int[] fila = new int[numeroVertices()];
+        int cabeca = 0;
+        int cauda = 0;
+
+        fila[cauda++] = inicio;
+        predecessor[inicio] = inicio;
+
+        while (cabeca < cauda) {
+            int atual = fila[cabeca++];
+            for (int i = inicioVizinhos[atual]; i < inicioVizinhos[atual + 1]; i++) {
+                int vizinho = vizinhos[i];
+                if (predecessor[vizinho] >= 0) continue;
+
+                predecessor[vizinho] = atual;
+                if (vizinho == alvo) {
+                    return Optional.of(reconstruirCaminho(predecessor, inicio, alvo));
+                }
+                fila[cauda++] = vizinho;
+            }
+        }
+
+        // Alvo não foi alcançado
+        return Optional.empty();
+    }
+
+    /**
+     * Mesmo resultado de {@link #caminhoMaisCurto}, mas com BFS bidirecional:
+     * uma busca sai da origem (pelas arestas normais) e outra sai do alvo
+     * (pela adjacência reversa), sempre expandindo o nível inteiro da
+     * fronteira menor, até que as duas se encontrem.
+     *
+     * Para devolver EXATAMENTE o mesmo caminho do BFS simples: o BFS com
+     * vizinhos em ordem fixa sempre escolhe, entre os caminhos mais curtos,
+     * o primeiro na ordem dos vizinhos. Depois do encontro sabemos a
+     * distância d e a distância até o alvo dos vértices do lado de trás,
+     * então o caminho é: o primeiro vértice (na ordem do BFS de ida) do
+     * nível i que está a d - i do alvo, e dele em diante sempre o primeiro
+     * vizinho que fica um passo mais perto do alvo.
+     *
+     * @param recursoInicial Recurso de origem
+     * @param recursoAlvo    Recurso de destino
+     * @return Optional com o caminho, ou Optional.empty() se não houver caminho
+     */
+    public Optional<List<String>> caminhoMaisCurtoBidirecional(String recursoInicial, String recursoAlvo) {
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONSULTA)) {
+            medicao.linhas(1); // Uma consulta
+            return buscarCaminhoBidirecional(recursoInicial, recursoAlvo);
+        }
+    }
+
+    private Optional<List<String>> buscarCaminhoBidirecional(String recursoInicial, String recursoAlvo) {
+        int inicio = recursos.idDe(recursoInicial);
+        if (inicio < 0) {
+            return Optional.empty();
+        }
+        if (recursoInicial.equals(recursoAlvo)) {
+            return Optional.of(Collections.singletonList(recursoInicial));
+        }
+        int alvo = recursos.idDe(recursoAlvo);
+        if (alvo < 0) {
+            return Optional.empty();
+        }
+
+        int totalVertices = numeroVertices();
+
+        // Lado da ida: distância, predecessor e ordem de visita (por nível)
+        int[] distanciaIda = new int[totalVertices];
+        Arrays.fill(distanciaIda, -1);
+        int[] predecessor = new int[totalVertices];
+        int[] filaIda = new int[totalVertices];
+        int[] inicioNivelIda = new int[totalVertices + 2];
+        int niveisIda = 0;
+        int caudaIda = 0;
+
+        // Lado da volta: só a distância até o alvo
+        int[] distanciaVolta = new int[totalVertices];
+        Arrays.fill(distanciaVolta, -1);
+        int[] filaVolta = new int[totalVertices];
+        int inicioNivelVolta = 0;
+        int caudaVolta = 0;
+        int niveisVolta = 0;
+
+        filaIda[caudaIda++] = inicio;
+        distanciaIda[inicio] = 0;
+        predecessor[inicio] = inicio;
+        inicioNivelIda[1] = caudaIda;
+
+        filaVolta[caudaVolta++] = alvo;
+        distanciaVolta[alvo] = 0;
+
+        boolean encontrou = false;
+        while (!encontrou) {
+            int fronteiraIda = caudaIda - inicioNivelIda[niveisIda];
+            int fronteiraVolta = caudaVolta - inicioNivelVolta;
+            if (fronteiraIda == 0 || fronteiraVolta == 0) {
+                return Optional.empty(); // Um dos lados esgotou: não há caminho
+            }
+
+            if (fronteiraIda <= fronteiraVolta) {
+                // Expande o nível inteiro da ida (na ordem do BFS simples)
+                for (int k = inicioNivelIda[niveisIda]; k < inicioNivelIda[niveisIda + 1]; k++) {
+                    int atual = filaIda[k];
+                    for (int i = inicioVizinhos[atual]; i < inicioVizinhos[atual + 1]; i++) {
+                        int vizinho = vizinhos[i];
+                        if (distanciaIda[vizinho] >= 0) continue;
+                        distanciaIda[vizinho] = niveisIda + 1;
+                        predecessor[vizinho] = atual;
+                        filaIda[caudaIda++] = vizinho;
+                        if (distanciaVolta[vizinho] >= 0) encontrou = true;
+                    }
+                }
+                niveisIda++;
+                inicioNivelIda[niveisIda + 1] = caudaIda;
+            } else {
+                // Expande o nível inteiro da volta (arestas ao contrário)
+                int fimNivel = caudaVolta;
+                for (int k = inicioNivelVolta; k < fimNivel; k++) {
+                    int atual = filaVolta[k];
+                    for (int i = inicioAntecessores[atual]; i < inicioAntecessores[atual + 1]; i++) {
+                        int anterior = antecessores[i];
+                        if (distanciaVolta[anterior] >= 0) continue;
+                        distanciaVolta[anterior] = niveisVolta + 1;
+                        filaVolta[caudaVolta++] = anterior;
+                        if (distanciaIda[anterior] >= 0) encontrou = true;
+                    }
+                }
+                inicioNivelVolta = fimNivel;
+                niveisVolta++;
+            }
+        }
+
+        // Distância exata: menor soma entre os vértices vistos pelos dois lados
+        int distancia = Integer.MAX_VALUE;
+        for (int k = 0; k < caudaIda; k++) {
+            int v = filaIda[k];
+            if (distanciaVolta[v] >= 0) {
+                distancia = Math.min(distancia, distanciaIda[v] + distanciaVolta[v]);
+            }
+        }
+
+        // Primeiro vértice (na ordem do BFS de ida) do nível i que está a d - i do alvo
+        int nivel = Math.min(niveisIda, distancia);
+        int meio = -1;
+        for (int k = inicioNivelIda[nivel]; k < inicioNivelIda[nivel + 1]; k++) {
+            if (distanciaVolta[filaIda[k]] == distancia - nivel) {
+                meio = filaIda[k];
+                break;
+            }
+        }
+
+        // Do início até o meio: pelos predecessores do BFS de ida
+        List<String> caminho = reconstruirCaminho(predecessor, inicio, meio);
+
+        // Do meio até o alvo: sempre o primeiro vizinho um passo mais perto
+        int atual = meio;
+        for (int restante = distancia - nivel; restante > 0; restante--) {
+            for (int i = inicioVizinhos[atual]; i < inicioVizinhos[atual + 1]; i++) {
+                if (distanciaVolta[vizinhos[i]] == restante - 1) {
+                    atual = vizinhos[i];
+                    break;
+                }
+            }
+            caminho.add(recursos.valor(atual));
+        }
+
+        return Optional.of(caminho);
+    }
+
+    /**
+     * "Raio de impacto": todos os recursos alcançáveis a partir de um recurso
+     * comprometido em até {@code maximoSaltos} arestas.
+     *
+     * Os visitados ficam num BitSet (1 bit por recurso). As distâncias são as
+     * mesmas dos caminhos de {@link #caminhoMaisCurto}.
+     *
+     * @param recursoComprometido Recurso de origem
+     * @param maximoSaltos        Número máximo de arestas (0 = só o próprio recurso)
+     * @return Recurso → distância em saltos, na ordem do BFS (vazio se o recurso não existe)
+     */
+    public Map<String, Integer> raioDeImpacto(String recursoComprometido, int maximoSaltos) {
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONSULTA)) {
+            medicao.linhas(1); // Uma consulta
+            return buscarRaio(recursoComprometido, maximoSaltos);
+        }
+    }
+
+    private Map<String, Integer> buscarRaio(String recursoComprometido, int maximoSaltos) {
+        Map<String, Integer> alcancados = new LinkedHashMap<>();
+        int inicio = recursos.idDe(recursoComprometido);
+        if (inicio < 0 || maximoSaltos < 0) {
+            return alcancados;
+        }
+
+        BitSet visitados = new BitSet(numeroVertices());
+        int[] fila = new int[numeroVertices()];
+        int cauda = 0;
+
+        fila[cauda++] = inicio;
+        visitados.set(inicio);
+        alcancados.put(recursoComprometido, 0);
+
+        int inicioNivel = 0;
+        for (int salto = 1; salto <= maximoSaltos && inicioNivel < cauda; salto++) {
+            int fimNivel = cauda;
+            for (int k = inicioNivel; k < fimNivel; k++) {
+                int atual = fila[k];
+                for (int i = inicioVizinhos[atual]; i < inicioVizinhos[atual + 1]; i++) {
+                    int vizinho = vizinhos[i];
+                    if (visitados.get(vizinho)) continue;
+                    visitados.set(vizinho);
+                    fila[cauda++] = vizinho;
+                    alcancados.put(recursos.valor(vizinho), salto);
+                }
+            }
+            inicioNivel = fimNivel;
+        }
+
+        return alcancados;
+    }
+
+    /**
+     * Reconstrói o caminho (do início ao alvo) a partir dos predecessores.
+     */
+    private List<String> reconstruirCaminho(int[] predecessor, int inicio, int alvo) {
+        List<String> caminho = new ArrayList<>();
+        for (int v = alvo; v != inicio; v = predecessor[v]) {
+            caminho.add(recursos.valor(v));
+        }
+        caminho.add(recursos.valor(inicio));
+        Collections.reverse(caminho);
+        return caminho;
+    }
+}
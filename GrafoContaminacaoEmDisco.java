@@ -0,0 +1,437 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ * Construção do grafo do Desafio 5 em memória externa, para logs maiores que o heap
+ *
+ * O {@link GrafoContaminacao#construir(String)} guarda a sessão e o recurso
+ * de todas as linhas antes de agrupá-las por sessão. Aqui o agrupamento é
+ * feito em disco:
+ * 1. Uma leitura do log grava cada linha válida (número da linha, recurso,
+ *    SESSION_ID) num de K arquivos temporários, escolhido pelo hash do
+ *    SESSION_ID: todas as linhas de uma sessão caem no mesmo arquivo
+ * 2. Cada arquivo é carregado sozinho, agrupado por sessão e gera as suas
+ *    arestas; um arquivo que ainda não cabe no orçamento é redistribuído
+ *    em arquivos menores (com outro hash) antes de ser processado
+ * 3. As arestas de todas as partições se juntam num único mapa e o CSR é
+ *    montado como na construção em memória
+ *
+ * Só os recursos (vértices), as arestas únicas e uma partição por vez
+ * ficam no heap. O orçamento controla o tamanho das partições; uma única
+ * sessão maior que o orçamento não pode ser dividida e é processada inteira.
+ *
+ * Ordem dos vizinhos: cada aresta guarda a chave (primeira linha da sessão,
+ * posição na sessão) da sua PRIMEIRA ocorrência. Ordenar as sessões pela
+ * primeira linha é o mesmo que ordená-las pela primeira aparição, então a
+ * ordem final das arestas (e os caminhos do BFS) é exatamente a do
+ * {@link GrafoContaminacao#construir(String)}, qualquer que seja K.
+ *
+ * Complexidade:
+ * - E/S: O(n) para gravar e O(n) para reler cada nível de partição
+ * - Heap: O(V + E) + O(orçamento)
+ */
+public class GrafoContaminacaoEmDisco {
+
+    private static final MetricasAnalise METRICAS = MetricasAnalise.de("desafio5");
+
+    /** Orçamento padrão de heap para uma partição (64 MB) */
+    public static final long ORCAMENTO_PADRAO = 64L * 1024 * 1024;
+
+    /** Orçamentos menores são arredondados para este (1 MB): abaixo disso sobram só arquivos temporários */
+    public static final long ORCAMENTO_MINIMO = 1024L * 1024;
+
+    // Bytes de heap estimados por byte de arquivo temporário (arrays das
+    // linhas, agrupamento e dicionário das sessões da partição)
+    private static final int BYTES_HEAP_POR_BYTE = 4;
+
+    // Bytes fixos de um registro no arquivo temporário (sem o SESSION_ID)
+    private static final int TAMANHO_REGISTRO = 8 + 4 + 4 + 4;
+
+    private static final int MAXIMO_PARTICOES = 256;
+    private static final int MAXIMO_NIVEIS = 4;
+    private static final int BUFFER_MINIMO = 8 * 1024;
+    private static final int BUFFER_MAXIMO = 64 * 1024;
+
+    private final Dicionario recursos = new Dicionario(1024);
+    private final long orcamentoBytes;
+    private final int tamanhoBuffer;
+
+    // Aresta (origem << 32 | destino) → chave da primeira ocorrência
+    private final MapaLongLong chaveDaAresta = new MapaLongLong(1024);
+    private final VetorLong arestas = new VetorLong(1024);
+    private int particoesProcessadas;
+
+    private GrafoContaminacaoEmDisco(long orcamentoBytes, int tamanhoBuffer) {
+        this.orcamentoBytes = orcamentoBytes;
+        this.tamanhoBuffer = tamanhoBuffer;
+    }
+
+    /**
+     * Constrói o grafo com o orçamento padrão ({@link #ORCAMENTO_PADRAO}).
+     *
+     * @see #construir(String, long)
+     */
+    public static GrafoContaminacao construir(String caminhoArquivo) throws IOException {
+        return construir(caminhoArquivo, ORCAMENTO_PADRAO);
+    }
+
+    /**
+     * Constrói o grafo com os arquivos temporários na pasta temporária do
+     * sistema (java.io.tmpdir).
+     *
+     * @see #construir(String, long, Path)
+     */
+    public static GrafoContaminacao construir(String caminhoArquivo, long orcamentoBytes) throws IOException {
+        return construir(caminhoArquivo, orcamentoBytes, null);
+    }
+
+    /**
+     * Constrói o grafo agrupando as sessões em arquivos temporários, criados
+     * numa pasta nova dentro de {@code pastaTemporarios} e apagados no final.
+     *
+     * Mesmas regras de linha do {@link GrafoContaminacao#construir(String)}
+     * (linhas sem os 7 campos válidos são ignoradas com um aviso). O arquivo
+     * colunar já fica mapeado fora do heap e vai direto para a construção
+     * em memória, assim como um {@link ConjuntoLogs} (que precisa ser
+     * intercalado no repositório).
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs (pode estar comprimido)
+     * @param orcamentoBytes Heap que uma partição pode ocupar (no mínimo {@link #ORCAMENTO_MINIMO})
+     * @param pastaTemporarios Onde criar a pasta dos temporários (ex.: um disco com
+     *                         mais espaço); null usa a pasta temporária do sistema
+     * @return Grafo pronto para consultas (o mesmo da construção em memória)
+     * @throws IOException Se houver erro ao ler o log ou gravar os temporários
+     */
+    public static GrafoContaminacao construir(String caminhoArquivo, long orcamentoBytes,
+                                              Path pastaTemporarios) throws IOException {
+        if (orcamentoBytes <= 0) {
+            throw new IllegalArgumentException("Orcamento deve ser positivo: " + orcamentoBytes);
+        }
+        orcamentoBytes = Math.max(orcamentoBytes, ORCAMENTO_MINIMO);
+        if (RepositorioEventos.usaRepositorio(caminhoArquivo)) {
+            return GrafoContaminacao.construir(caminhoArquivo);
+        }
+
+        long tamanhoArquivo = new File(caminhoArquivo).length();
+        int particoes = numeroParticoes(tamanhoArquivo, orcamentoBytes);
+        int tamanhoBuffer = (int) Math.max(BUFFER_MINIMO,
+                Math.min(BUFFER_MAXIMO, orcamentoBytes / (4L * particoes)));
+
+        GrafoContaminacaoEmDisco construcao = new GrafoContaminacaoEmDisco(orcamentoBytes, tamanhoBuffer);
+        Path pastaTemporaria = pastaTemporarios == null
+                ? Files.createTempDirectory("grafo-")
+                : Files.createTempDirectory(pastaTemporarios, "grafo-");
+        try {
+            Path[] arquivos = construcao.particionarLog(caminhoArquivo, pastaTemporaria, particoes);
+            try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONSTRUCAO)) {
+                for (Path arquivo : arquivos) {
+                    medicao.linhas(construcao.processar(arquivo, 0));
+                }
+            }
+            return construcao.montar();
+        } finally {
+            apagar(pastaTemporaria);
+        }
+    }
+
+    static int numeroParticoes(long tamanhoArquivo, long orcamentoBytes) {
+        long necessarias = (tamanhoArquivo * BYTES_HEAP_POR_BYTE + orcamentoBytes - 1) / orcamentoBytes;
+        return (int) Math.max(1, Math.min(MAXIMO_PARTICOES, necessarias));
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // PARTICIONAMENTO
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * Lê o log uma vez e distribui as linhas válidas pelos arquivos das partições.
+     * Os recursos recebem ids na ordem da primeira aparição, como na construção em memória.
+     */
+    private Path[] particionarLog(String caminhoArquivo, Path pasta, int particoes) throws IOException {
+        Path[] arquivos = new Path[particoes];
+        EscritorParticao[] escritores = new EscritorParticao[particoes];
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONVERSAO);
+             LeitorCsvMapeado leitor = new LeitorCsvMapeado(caminhoArquivo)) {
+            for (int p = 0; p < particoes; p++) {
+                arquivos[p] = pasta.resolve("particao-" + p);
+                escritores[p] = new EscritorParticao(arquivos[p], tamanhoBuffer);
+            }
+
+            leitor.proximaLinha(); // Pular cabeçalho
+            long linhas = 0;
+            long linhasRejeitadas = 0;
+            byte[] sessao = new byte[64];
+
+            while (leitor.proximaLinha()) {
+                if (!GrafoContaminacao.linhaValida(leitor)) {
+                    if (!leitor.linhaEmBranco()) linhasRejeitadas++;
+                    continue;
+                }
+                if (linhas == Integer.MAX_VALUE) {
+                    throw new IOException("Log com mais de " + Integer.MAX_VALUE + " linhas nao e suportado");
+                }
+
+                int tamanhoSessao;
+                int hash;
+                if (leitor.temEspacosNasPontas(2)) {
+                    // SESSION_ID como está no log (split(",") sem trim); mesmo hash do hashCampo
+                    byte[] original = leitor.campoTextoOriginal(2).getBytes(StandardCharsets.UTF_8);
+                    tamanhoSessao = original.length;
+                    if (tamanhoSessao > sessao.length) {
+                        sessao = new byte[Math.max(tamanhoSessao, sessao.length * 2)];
+                    }
+                    System.arraycopy(original, 0, sessao, 0, tamanhoSessao);
+                    hash = Arrays.hashCode(original);
+                } else {
+                    tamanhoSessao = leitor.tamanhoCampo(2);
+                    if (tamanhoSessao > sessao.length) {
+                        sessao = new byte[Math.max(tamanhoSessao, sessao.length * 2)];
+                    }
+                    leitor.copiarCampo(2, sessao);
+                    hash = leitor.hashCampo(2);
+                }
+                int recurso = recursos.adicionarSemAparar(leitor, 4);
+
+                escritores[particaoDe(hash, 0, particoes)].gravar(linhas, recurso, hash, sessao, tamanhoSessao);
+                linhas++;
+            }
+            medicao.linhas(linhas + linhasRejeitadas).rejeitadas(linhasRejeitadas).bytes(leitor.posicaoProximaLinha());
+        } catch (IOException e) {
+            System.err.println("Erro ao ler o arquivo: " + e.getMessage());
+            throw e;
+        } finally {
+            for (EscritorParticao escritor : escritores) {
+                if (escritor != null) escritor.close();
+            }
+        }
+        return arquivos;
+    }
+
+    /**
+     * Partição de uma sessão no nível dado. Cada nível mistura o hash de
+     * outro jeito, para que uma partição redistribuída realmente se divida.
+     */
+    private static int particaoDe(int hashSessao, int nivel, int particoes) {
+        long h = hashSessao ^ (0x9E3779B97F4A7C15L * (nivel + 1));
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return (int) Long.remainderUnsigned(h, particoes);
+    }
+
+    /**
+     * Processa um arquivo de partição (e o apaga), redistribuindo-o antes
+     * se ele não couber no orçamento.
+     *
+     * @return Número de linhas processadas
+     */
+    private long processar(Path arquivo, int nivel) throws IOException {
+        long tamanho = Files.size(arquivo);
+        if (tamanho * BYTES_HEAP_POR_BYTE <= orcamentoBytes || nivel + 1 == MAXIMO_NIVEIS) {
+            long linhas = tamanho == 0 ? 0 : agruparSessoes(arquivo);
+            Files.delete(arquivo);
+            return linhas;
+        }
+
+        Path[] menores = redistribuir(arquivo, nivel + 1, numeroParticoes(tamanho, orcamentoBytes));
+        Files.delete(arquivo);
+
+        // Tudo numa única sessão: dividir de novo não adianta
+        for (Path menor : menores) {
+            if (Files.size(menor) == tamanho) {
+                long linhas = agruparSessoes(menor);
+                apagarArquivos(menores);
+                return linhas;
+            }
+        }
+
+        long linhas = 0;
+        for (Path menor : menores) {
+            linhas += processar(menor, nivel + 1);
+        }
+        return linhas;
+    }
+
+    private Path[] redistribuir(Path arquivo, int nivel, int particoes) throws IOException {
+        Path[] menores = new Path[particoes];
+        EscritorParticao[] escritores = new EscritorParticao[particoes];
+        long restante = Files.size(arquivo);
+        try (DataInputStream entrada = abrirLeitura(arquivo)) {
+            for (int p = 0; p < particoes; p++) {
+                menores[p] = arquivo.resolveSibling(arquivo.getFileName() + "-" + p);
+                escritores[p] = new EscritorParticao(menores[p], tamanhoBuffer);
+            }
+            byte[] sessao = new byte[64];
+            while (restante > 0) {
+                long linha = entrada.readLong();
+                int recurso = entrada.readInt();
+                int hash = entrada.readInt();
+                int tamanhoSessao = entrada.readInt();
+                if (tamanhoSessao > sessao.length) {
+                    sessao = new byte[Math.max(tamanhoSessao, sessao.length * 2)];
+                }
+                entrada.readFully(sessao, 0, tamanhoSessao);
+                restante -= TAMANHO_REGISTRO + tamanhoSessao;
+                escritores[particaoDe(hash, nivel, particoes)].gravar(linha, recurso, hash, sessao, tamanhoSessao);
+            }
+        } finally {
+            for (EscritorParticao escritor : escritores) {
+                if (escritor != null) escritor.close();
+            }
+        }
+        return menores;
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // ARESTAS DE UMA PARTIÇÃO
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * Carrega uma partição, agrupa as linhas por sessão e junta as arestas
+     * dela ao mapa global.
+     *
+     * @return Número de linhas da partição
+     */
+    private long agruparSessoes(Path arquivo) throws IOException {
+        // Dentro do arquivo as linhas estão na ordem do log, então os ids
+        // das sessões seguem a ordem da primeira aparição
+        Dicionario sessoes = new Dicionario(1024);
+        long[] linhaDoRegistro = new long[1024];
+        int[] sessaoDoRegistro = new int[1024];
+        int[] recursoDoRegistro = new int[1024];
+        int registros = 0;
+
+        long restante = Files.size(arquivo);
+        try (DataInputStream entrada = abrirLeitura(arquivo)) {
+            byte[] sessao = new byte[64];
+            while (restante > 0) {
+                if (registros == linhaDoRegistro.length) {
+                    linhaDoRegistro = Arrays.copyOf(linhaDoRegistro, registros * 2);
+                    sessaoDoRegistro = Arrays.copyOf(sessaoDoRegistro, registros * 2);
+                    recursoDoRegistro = Arrays.copyOf(recursoDoRegistro, registros * 2);
+                }
+                linhaDoRegistro[registros] = entrada.readLong();
+                recursoDoRegistro[registros] = entrada.readInt();
+                entrada.readInt(); // Hash da sessão (só usado na redistribuição)
+                int tamanhoSessao = entrada.readInt();
+                if (tamanhoSessao > sessao.length) {
+                    sessao = new byte[Math.max(tamanhoSessao, sessao.length * 2)];
+                }
+                entrada.readFully(sessao, 0, tamanhoSessao);
+                restante -= TAMANHO_REGISTRO + tamanhoSessao;
+                sessaoDoRegistro[registros] = sessoes.adicionar(new String(sessao, 0, tamanhoSessao, StandardCharsets.UTF_8));
+                registros++;
+            }
+        }
+
+        // Counting sort estável por sessão
+        int totalSessoes = sessoes.tamanho();
+        int[] inicioSessao = new int[totalSessoes + 1];
+        for (int i = 0; i < registros; i++) {
+            inicioSessao[sessaoDoRegistro[i] + 1]++;
+        }
+        for (int s = 0; s < totalSessoes; s++) {
+            inicioSessao[s + 1] += inicioSessao[s];
+        }
+        int[] proximaPosicao = Arrays.copyOf(inicioSessao, totalSessoes);
+        int[] recursoAgrupado = new int[registros];
+        long[] primeiraLinha = new long[totalSessoes];
+        for (int i = 0; i < registros; i++) {
+            int s = sessaoDoRegistro[i];
+            if (proximaPosicao[s] == inicioSessao[s]) {
+                primeiraLinha[s] = linhaDoRegistro[i];
+            }
+            recursoAgrupado[proximaPosicao[s]++] = recursoDoRegistro[i];
+        }
+
+        // Chave da aresta: (primeira linha da sessão, posição na sessão)
+        for (int s = 0; s < totalSessoes; s++) {
+            for (int i = inicioSessao[s]; i < inicioSessao[s + 1] - 1; i++) {
+                long aresta = ((long) recursoAgrupado[i] << 32) | recursoAgrupado[i + 1];
+                long chave = (primeiraLinha[s] << 32) | (i - inicioSessao[s]);
+                long chaveAnterior = chaveDaAresta.valorDe(aresta, -1);
+                if (chaveAnterior < 0) {
+                    arestas.add(aresta);
+                    chaveDaAresta.colocar(aresta, chave);
+                } else if (chave < chaveAnterior) {
+                    chaveDaAresta.colocar(aresta, chave);
+                }
+            }
+        }
+
+        particoesProcessadas++;
+        METRICAS.registrarPico("linhasParticao", registros);
+        return registros;
+    }
+
+    /** Ordena as arestas pela chave da primeira ocorrência e monta o CSR. */
+    private GrafoContaminacao montar() {
+        int totalArestas = arestas.tamanho();
+        long[] todas = Arrays.copyOf(arestas.arrayInterno(), totalArestas);
+        long[] chaves = new long[totalArestas];
+        for (int i = 0; i < totalArestas; i++) {
+            chaves[i] = chaveDaAresta.valorDe(todas[i], -1);
+        }
+        if (!IndiceSeveridade.estaOrdenado(chaves, 0, totalArestas)) {
+            IndiceSeveridade.ordenarPorTimestamp(chaves, todas, 0, totalArestas,
+                    new long[totalArestas], new long[totalArestas]);
+        }
+
+        GrafoContaminacao grafo = GrafoContaminacao.deArestas(recursos, todas, totalArestas);
+        METRICAS.registrarPico("particoes", particoesProcessadas);
+        METRICAS.registrarPico("vertices", recursos.tamanho());
+        METRICAS.registrarPico("arestas", totalArestas);
+        return grafo;
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // ARQUIVOS TEMPORÁRIOS
+    // ═══════════════════════════════════════════════════════════════
+
+    private DataInputStream abrirLeitura(Path arquivo) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivo), tamanhoBuffer));
+    }
+
+    private static void apagarArquivos(Path[] arquivos) throws IOException {
+        for (Path arquivo : arquivos) {
+            Files.deleteIfExists(arquivo);
+        }
+    }
+
+    private static void apagar(Path pasta) throws IOException {
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(pasta)) {
+            for (Path arquivo : arquivos) {
+                Files.deleteIfExists(arquivo);
+            }
+        }
+        Files.deleteIfExists(pasta);
+    }
+
+    /**
+     * Registro de uma linha: número da linha (long), recurso (int), hash
+     * da sessão (int), tamanho do SESSION_ID (int) e os bytes dele.
+     */
+    private static class EscritorParticao implements AutoCloseable {
+        final DataOutputStream saida;
+
+        EscritorParticao(Path arquivo, int tamanhoBuffer) throws IOException {
+            this.saida = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(arquivo, StandardOpenOption.CREATE_NEW), tamanhoBuffer));
+        }
+
+        void gravar(long linha, int recurso, int hash, byte[] sessao, int tamanhoSessao) throws IOException {
+            saida.writeLong(linha);
+            saida.writeInt(recurso);
+            saida.writeInt(hash);
+            saida.writeInt(tamanhoSessao);
+            saida.write(sessao, 0, tamanhoSessao);
+        }
+
+        @Override
+        public void close() throws IOException {
+            saida.close();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Grafo de contaminação mantido de forma incremental (Desafio 5)
+ *
+ * As arestas vêm de eventos consecutivos da mesma sessão, então basta
+ * lembrar o último TARGET_RESOURCE de cada sessão: quando chega uma linha
+ * nova, só a aresta (último recurso → recurso novo) é adicionada, sem
+ * reler o histórico.
+ *
+ * Ordem dos vizinhos: cada aresta guarda uma chave (ordem da sessão,
+ * posição na sessão) da sua PRIMEIRA ocorrência, e a lista de vizinhos
+ * fica ordenada por essa chave. É a mesma ordem do
+ * {@link GrafoContaminacao#construir}, então os caminhos encontrados são
+ * exatamente os mesmos de uma reconstrução completa.
+ *
+ * Concorrência: um único escritor (os métodos de atualização são
+ * synchronized) e leitores sem bloqueio. Os leitores consultam uma
+ * fotografia imutável ({@link #grafoAtual()}), refeita sob demanda só
+ * depois que houve atualização (custo O(V + E), nunca O(linhas do log)).
+ */
+public class GrafoContaminacaoIncremental {
+
+    // Sessões: ordem da primeira aparição, último recurso e eventos vistos
+    private final Dicionario sessoes = new Dicionario(1024);
+    private int[] ultimoRecurso = new int[1024];
+    private int[] eventosNaSessao = new int[1024];
+
+    // Vértices e listas de vizinhos ordenadas pela chave da aresta
+    private final Dicionario recursos = new Dicionario(1024);
+    private int[][] destinos = new int[1024][];
+    private long[][] chaves = new long[1024][];
+    private int[] graus = new int[1024];
+
+    // Aresta (origem << 32 | destino) → chave da primeira ocorrência
+    private final MapaLongLong chaveDaAresta = new MapaLongLong(1024);
+
+    // Arquivo acompanhado e até onde ele já foi lido
+    private Path arquivoAcompanhado;
+    private long posicaoLida;
+
+    private volatile GrafoContaminacao fotografia;
+
+    // ═══════════════════════════════════════════════════════════════
+    // ATUALIZAÇÃO (UM ÚNICO ESCRITOR)
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * Registra um evento válido do log (na ordem do arquivo).
+     *
+     * @param sessionId      SESSION_ID do evento
+     * @param targetResource TARGET_RESOURCE do evento
+     */
+    public synchronized void adicionarEvento(String sessionId, String targetResource) {
+        adicionarEvento(sessoes.adicionar(sessionId), recursos.adicionar(targetResource));
+        fotografia = null;
+    }
+
+    /**
+     * Lê as linhas novas do arquivo desde a última chamada e adiciona só as
+     * arestas novas. Na primeira chamada o arquivo é lido do início (o
+     * cabeçalho é pulado). Uma linha ainda sem quebra no final fica para a
+     * próxima chamada.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs (sempre o mesmo)
+     * @return Número de linhas válidas adicionadas
+     * @throws IOException Se houver erro ao ler o arquivo, ou se ele diminuiu
+     */
+    public synchronized int lerNovasLinhas(String caminhoArquivo) throws IOException {
+        Path arquivo = Paths.get(caminhoArquivo);
+        if (arquivoAcompanhado == null) {
+            arquivoAcompanhado = arquivo;
+        } else if (!arquivoAcompanhado.equals(arquivo)) {
+            throw new IllegalArgumentException("Este grafo acompanha o arquivo " + arquivoAcompanhado);
+        }
+
+        // O fim de um gzip não é o fim do texto: não dá para acompanhar
+        if (ArquivoComprimido.ehComprimido(arquivo)) {
+            throw new IOException("Log comprimido nao pode ser acompanhado: " + caminhoArquivo);
+        }
+
+        long fim = fimDaUltimaLinhaCompleta(arquivo);
+        if (fim < posicaoLida) {
+            throw new IOException("O arquivo diminuiu desde a ultima leitura: " + caminhoArquivo);
+        }
+        if (fim == posicaoLida) {
+            return 0;
+        }
+
+        int adicionadas = 0;
+        try (LeitorCsvMapeado leitor = new LeitorCsvMapeado(arquivo, posicaoLida, fim)) {
+            if (posicaoLida == 0) {
+                leitor.proximaLinha(); // Pular cabeçalho
+            }
+            while (leitor.proximaLinha()) {
+                if (!GrafoContaminacao.linhaValida(leitor)) continue;
+                adicionarEvento(sessoes.adicionarSemAparar(leitor, 2), recursos.adicionarSemAparar(leitor, 4));
+                adicionadas++;
+            }
+        }
+
+        posicaoLida = fim;
+        fotografia = null;
+        return adicionadas;
+    }
+
+    private void adicionarEvento(int sessao, int recurso) {
+        if (sessao == ultimoRecurso.length) {
+            ultimoRecurso = Arrays.copyOf(ultimoRecurso, sessao * 2);
+            eventosNaSessao = Arrays.copyOf(eventosNaSessao, sessao * 2);
+        }
+        if (recurso == graus.length) {
+            destinos = Arrays.copyOf(destinos, recurso * 2);
+            chaves = Arrays.copyOf(chaves, recurso * 2);
+            graus = Arrays.copyOf(graus, recurso * 2);
+        }
+
+        int posicao = eventosNaSessao[sessao];
+        if (posicao > 0) {
+            // Aresta do evento anterior desta sessão para o atual
+            adicionarAresta(ultimoRecurso[sessao], recurso, ((long) sessao << 32) | (posicao - 1));
+        }
+        ultimoRecurso[sessao] = recurso;
+        eventosNaSessao[sessao] = posicao + 1;
+    }
+
+    private void adicionarAresta(int origem, int destino, long chave) {
+        long aresta = ((long) origem << 32) | destino;
+        long chaveAnterior = chaveDaAresta.valorDe(aresta, -1);
+        if (chaveAnterior >= 0 && chaveAnterior <= chave) {
+            return; // Aresta repetida: a primeira ocorrência continua valendo
+        }
+        if (chaveAnterior >= 0) {
+            // Uma sessão mais antiga acabou de gerar a mesma aresta: ela sobe na lista
+            removerVizinho(origem, chaveAnterior);
+        }
+        inserirVizinho(origem, destino, chave);
+        chaveDaAresta.colocar(aresta, chave);
+    }
+
+    private void inserirVizinho(int origem, int destino, long chave) {
+        int grau = graus[origem];
+        if (destinos[origem] == null) {
+            destinos[origem] = new int[4];
+            chaves[origem] = new long[4];
+        } else if (grau == destinos[origem].length) {
+            destinos[origem] = Arrays.copyOf(destinos[origem], grau * 2);
+            chaves[origem] = Arrays.copyOf(chaves[origem], grau * 2);
+        }
+
+        // Quase sempre a chave é a maior (vai para o final)
+        int posicao = grau;
+        if (grau > 0 && chaves[origem][grau - 1] > chave) {
+            posicao = -Arrays.binarySearch(chaves[origem], 0, grau, chave) - 1;
+            System.arraycopy(destinos[origem], posicao, destinos[origem], posicao + 1, grau - posicao);
+            System.arraycopy(chaves[origem], posicao, chaves[origem], posicao + 1, grau - posicao);
+        }
+        destinos[origem][posicao] = destino;
+        chaves[origem][posicao] = chave;
+        graus[origem] = grau + 1;
+    }
+
+    private void removerVizinho(int origem, long chave) {
+        int grau = graus[origem];
+        int posicao = Arrays.binarySearch(chaves[origem], 0, grau, chave);
+        System.arraycopy(destinos[origem], posicao + 1, destinos[origem], posicao, grau - posicao - 1);
+        System.arraycopy(chaves[origem], posicao + 1, chaves[origem], posicao, grau - posicao - 1);
+        graus[origem] = grau - 1;
+    }
+
+    /**
+     * @return Posição logo depois da última quebra de linha do arquivo
+     */
+    private static long fimDaUltimaLinhaCompleta(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(4096);
+            long fim = canal.size();
+            while (fim > 0) {
+                long inicio = Math.max(0, fim - buffer.capacity());
+                buffer.clear().limit((int) (fim - inicio));
+                while (buffer.hasRemaining()) {
+                    if (canal.read(buffer, inicio + buffer.position()) < 0) break;
+                }
+                for (int i = buffer.position() - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n') return inicio + i + 1;
+                }
+                fim = inicio;
+            }
+            return 0;
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // CONSULTAS (QUALQUER THREAD)
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * Fotografia imutável do grafo com tudo o que já foi adicionado.
+     * Pode ser consultada à vontade, mesmo enquanto o escritor atualiza.
+     *
+     * @return Grafo pronto para consultas
+     */
+    public GrafoContaminacao grafoAtual() {
+        GrafoContaminacao atual = fotografia;
+        if (atual != null) {
+            return atual;
+        }
+        synchronized (this) {
+            if (fotografia == null) {
+                // Cópia do dicionário: o original continua recebendo recursos novos
+                Dicionario copiaRecursos = new Dicionario(Math.max(16, recursos.tamanho()));
+                for (int id = 0; id < recursos.tamanho(); id++) {
+                    copiaRecursos.adicionar(recursos.valor(id));
+                }
+                fotografia = GrafoContaminacao.deListas(copiaRecursos, destinos, graus);
+            }
+            return fotografia;
+        }
+    }
+
+    /**
+     * Caminho mais curto entre dois recursos no estado atual do grafo.
+     *
+     * @param recursoInicial Recurso de origem
+     * @param recursoAlvo    Recurso de destino
+     * @return Optional com o caminho, ou Optional.empty() se não houver caminho
+     */
+    public Optional<List<String>> rastrearContaminacao(String recursoInicial, String recursoAlvo) {
+        return grafoAtual().caminhoMaisCurto(recursoInicial, recursoAlvo);
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // MÉTODO DE TESTE
+    // ═══════════════════════════════════════════════════════════════
+    public static void main(String[] args) {
+        String arquivo = args.length > 0 ? args[0] : "analise-forense-aed.jar";
+
+        System.out.println("===========================================================");
+        System.out.println("=        GRAFO DE CONTAMINACAO INCREMENTAL                =");
+        System.out.println("===========================================================\n");
+
+        try {
+            GrafoContaminacaoIncremental incremental = new GrafoContaminacaoIncremental();
+
+            long inicio = System.nanoTime();
+            int linhas = incremental.lerNovasLinhas(arquivo);
+            long fim = System.nanoTime();
+            System.out.println("Linhas adicionadas: " + linhas);
+            System.out.printf("Tempo da carga inicial: %.3f ms%n", (fim - inicio) / 1_000_000.0);
+
+            // Sem linhas novas: nada é relido
+            inicio = System.nanoTime();
+            int novas = incremental.lerNovasLinhas(arquivo);
+            fim = System.nanoTime();
+            System.out.printf("Atualizacao sem linhas novas: %d linhas em %.3f ms%n", novas, (fim - inicio) / 1_000_000.0);
+
+            GrafoContaminacao grafo = incremental.grafoAtual();
+            System.out.println("Recursos: " + grafo.numeroVertices() + ", arestas distintas: " + grafo.numeroArestas());
+
+            Optional<List<String>> caminho = incremental.rastrearContaminacao("/usr/bin/sshd", "/var/secrets/key.dat");
+            Optional<List<String>> completo = GrafoContaminacao.construir(arquivo)
+                    .caminhoMaisCurto("/usr/bin/sshd", "/var/secrets/key.dat");
+            System.out.println("Caminho sshd -> key.dat: " + caminho.map(c -> String.join(" → ", c)).orElse("nenhum"));
+            System.out.println("Igual ao grafo reconstruido? " + (caminho.equals(completo) ? "SIM" : "NAO"));
+            System.out.println("===========================================================");
+
+        } catch (IOException e) {
+            System.err.println("Erro: " + e.getMessage());
+        }
+    }
+}
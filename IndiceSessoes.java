@@ -0,0 +1,370 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Índice de Sessões (arquivo auxiliar "&lt;log&gt;.sidx")
+ *
+ * Para cada SESSION_ID guarda as posições (em bytes) das linhas do log que
+ * pertencem a ela, na ordem do arquivo. Com o índice, reconstruir a linha do
+ * tempo de uma sessão lê só as k linhas dela, em vez de percorrer o log todo.
+ *
+ * - Construído em UMA passada pelo log (com o {@link LeitorCsvMapeado})
+ * - Gravado ao lado do log e reaproveitado nas próximas execuções
+ * - Invalidado quando o tamanho ou a data de modificação do log mudam
+ *
+ * Formato (little-endian):
+ * <pre>
+ * cabeçalho (64 bytes):
+ *   "AFSIDX01", int versao, int reservado,
+ *   long tamanhoLog, long modificadoLog, long linhas,
+ *   long posicaoInicios, long posicaoPosicoes, long posicaoDicionario
+ * long[sessoes + 1] inicios   - as posições da sessão s estão em [inicios[s], inicios[s + 1])
+ * long[linhas]      posicoes  - posição de cada linha no log, agrupadas por sessão
+ * dicionário de SESSION_ID    - mesmo formato do {@link ArquivoColunar}
+ * </pre>
+ */
+public class IndiceSessoes {
+
+    static final byte[] IDENTIFICADOR = "AFSIDX01".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSAO = 1;
+    static final int TAMANHO_CABECALHO = 64;
+    static final String EXTENSAO = ".sidx";
+
+    // Cada segmento mapeado tem no máximo 1 GB (2^27 longs)
+    private static final int BITS_SEGMENTO = 27;
+
+    private final Path log;
+    private final long tamanhoLog;
+    private final long modificadoLog;
+    private final Dicionario sessoes;
+    private final LongBuffer[] inicios;
+    private final LongBuffer[] posicoes;
+
+    private IndiceSessoes(Path log, FileChannel canal) throws IOException {
+        ByteBuffer cabecalho = canal.map(FileChannel.MapMode.READ_ONLY, 0, TAMANHO_CABECALHO)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        byte[] identificador = new byte[IDENTIFICADOR.length];
+        cabecalho.get(identificador);
+        if (!Arrays.equals(identificador, IDENTIFICADOR) || cabecalho.getInt() != VERSAO) {
+            throw new IOException("Indice de sessoes invalido");
+        }
+        cabecalho.getInt(); // reservado
+
+        this.log = log;
+        this.tamanhoLog = cabecalho.getLong();
+        this.modificadoLog = cabecalho.getLong();
+        long linhas = cabecalho.getLong();
+        long posicaoInicios = cabecalho.getLong();
+        long posicaoPosicoes = cabecalho.getLong();
+        long posicaoDicionario = cabecalho.getLong();
+
+        this.sessoes = ArquivoColunar.lerDicionario(ArquivoColunar.mapearDicionario(canal, posicaoDicionario));
+        this.inicios = mapearLongs(canal, posicaoInicios, sessoes.tamanho() + 1L);
+        this.posicoes = mapearLongs(canal, posicaoPosicoes, linhas);
+    }
+
+    /**
+     * Abre o índice do log, construindo (ou reconstruindo) o arquivo
+     * auxiliar se ele não existir ou estiver desatualizado.
+     *
+     * @param caminhoLog Caminho para o arquivo CSV de logs
+     * @return Índice pronto para consulta
+     * @throws IOException Caso ocorra erro de leitura ou gravação
+     */
+    public static IndiceSessoes abrir(String caminhoLog) throws IOException {
+        Path log = Paths.get(caminhoLog);
+        Path arquivoIndice = Paths.get(caminhoLog + EXTENSAO);
+
+        if (Files.exists(arquivoIndice)) {
+            try {
+                IndiceSessoes indice = mapear(log, arquivoIndice);
+                if (indice.estaAtualizado()) {
+                    return indice;
+                }
+            } catch (IOException e) {
+                // Índice corrompido ou de outra versão: reconstrói abaixo
+            }
+        }
+
+        construir(log, arquivoIndice);
+        return mapear(log, arquivoIndice);
+    }
+
+    private static IndiceSessoes mapear(Path log, Path arquivoIndice) throws IOException {
+        // Os buffers mapeados continuam válidos depois que o canal é fechado
+        try (FileChannel canal = FileChannel.open(arquivoIndice, StandardOpenOption.READ)) {
+            if (canal.size() < TAMANHO_CABECALHO) {
+                throw new IOException("Indice de sessoes invalido");
+            }
+            return new IndiceSessoes(log, canal);
+        }
+    }
+
+    /**
+     * Constrói o índice em uma única passada pelo log.
+     *
+     * @param log           Arquivo CSV de logs
+     * @param arquivoIndice Onde gravar o índice
+     * @return Número de linhas indexadas
+     * @throws IOException Caso ocorra erro de leitura ou gravação
+     */
+    public static long construir(Path log, Path arquivoIndice) throws IOException {
+        // Tamanho e data lidos ANTES da passada: se o log mudar durante a
+        // construção, o índice já nasce desatualizado e será refeito
+        long tamanhoLog = Files.size(log);
+        long modificadoLog = Files.getLastModifiedTime(log).toMillis();
+
+        Dicionario sessoes = new Dicionario(1024);
+        int[] sessaoDaLinha = new int[1024];
+        long[] posicaoDaLinha = new long[1024];
+        int linhas = 0;
+
+        try (LeitorCsvMapeado leitor = new LeitorCsvMapeado(log, 0, -1)) {
+            if (leitor.proximaLinha()) { // Ignora o cabeçalho
+                while (leitor.proximaLinha()) {
+                    // Mesma regra do Desafio 2: pelo menos 4 colunas
+                    if (leitor.numeroCampos() < 4) continue;
+
+                    if (linhas == sessaoDaLinha.length) {
+                        if (linhas == Integer.MAX_VALUE - 8) {
+                            throw new IOException("Log com linhas demais para o indice de sessoes");
+                        }
+                        int novaCapacidade = (int) Math.min((long) linhas * 2, Integer.MAX_VALUE - 8);
+                        sessaoDaLinha = Arrays.copyOf(sessaoDaLinha, novaCapacidade);
+                        posicaoDaLinha = Arrays.copyOf(posicaoDaLinha, novaCapacidade);
+                    }
+                    sessaoDaLinha[linhas] = sessoes.adicionar(leitor, 2);
+                    posicaoDaLinha[linhas] = leitor.posicaoLinha();
+                    linhas++;
+                }
+            }
+        }
+
+        // Counting sort por sessão (estável: mantém a ordem do arquivo)
+        long[] inicios = new long[sessoes.tamanho() + 1];
+        for (int i = 0; i < linhas; i++) {
+            inicios[sessaoDaLinha[i] + 1]++;
+        }
+        for (int s = 0; s < sessoes.tamanho(); s++) {
+            inicios[s + 1] += inicios[s];
+        }
+        long[] agrupadas = new long[linhas];
+        long[] proxima = Arrays.copyOf(inicios, sessoes.tamanho());
+        for (int i = 0; i < linhas; i++) {
+            agrupadas[(int) proxima[sessaoDaLinha[i]]++] = posicaoDaLinha[i];
+        }
+
+        // Grava num arquivo temporário e troca no final: quem estiver lendo
+        // nunca enxerga um índice pela metade
+        Path pasta = arquivoIndice.toAbsolutePath().getParent();
+        Path temporario = Files.createTempFile(pasta, arquivoIndice.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel saida = FileChannel.open(temporario, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                long posicaoInicios = TAMANHO_CABECALHO;
+                long posicao = gravarLongs(saida, posicaoInicios, inicios, inicios.length);
+                long posicaoPosicoes = posicao;
+                posicao = gravarLongs(saida, posicaoPosicoes, agrupadas, linhas);
+                long posicaoDicionario = ArquivoColunar.alinhar(posicao);
+                ArquivoColunar.gravarDicionario(saida, posicaoDicionario, sessoes);
+
+                ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO).order(ByteOrder.LITTLE_ENDIAN);
+                cabecalho.put(IDENTIFICADOR);
+                cabecalho.putInt(VERSAO);
+                cabecalho.putInt(0);
+                cabecalho.putLong(tamanhoLog);
+                cabecalho.putLong(modificadoLog);
+                cabecalho.putLong(linhas);
+                cabecalho.putLong(posicaoInicios);
+                cabecalho.putLong(posicaoPosicoes);
+                cabecalho.putLong(posicaoDicionario);
+                cabecalho.flip();
+                ArquivoColunar.gravarTudo(saida, cabecalho, 0);
+            }
+            try {
+                Files.move(temporario, arquivoIndice, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temporario, arquivoIndice, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+
+        return linhas;
+    }
+
+    static long gravarLongs(FileChannel saida, long posicao, long[] valores, int quantidade) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < quantidade; i++) {
+            if (!buffer.hasRemaining()) {
+                buffer.flip();
+                posicao = ArquivoColunar.gravarTudo(saida, buffer, posicao);
+                buffer.clear();
+            }
+            buffer.putLong(valores[i]);
+        }
+        buffer.flip();
+        return ArquivoColunar.gravarTudo(saida, buffer, posicao);
+    }
+
+    static LongBuffer[] mapearLongs(FileChannel canal, long posicao, long quantidade) throws IOException {
+        long porSegmento = 1L << BITS_SEGMENTO;
+        LongBuffer[] segmentos = new LongBuffer[(int) Math.max(1, (quantidade + porSegmento - 1) / porSegmento)];
+        for (int i = 0; i < segmentos.length; i++) {
+            long inicio = i * porSegmento;
+            long tamanho = Math.max(0, Math.min(porSegmento, quantidade - inicio));
+            segmentos[i] = canal.map(FileChannel.MapMode.READ_ONLY, posicao + inicio * 8, tamanho * 8)
+                    .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        }
+        return segmentos;
+    }
+
+    static long ler(LongBuffer[] segmentos, long indice) {
+        return segmentos[(int) (indice >>> BITS_SEGMENTO)].get((int) (indice & ((1L << BITS_SEGMENTO) - 1)));
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // CONSULTA
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * @return true se o log ainda tem o mesmo tamanho e data de modificação
+     *         de quando o índice foi construído
+     */
+    public boolean estaAtualizado() throws IOException {
+        return Files.size(log) == tamanhoLog
+                && Files.getLastModifiedTime(log).toMillis() == modificadoLog;
+    }
+
+    /** @return Número de sessões distintas no índice */
+    public int numeroSessoes() {
+        return sessoes.tamanho();
+    }
+
+    /**
+     * @param sessionId SESSION_ID procurado
+     * @return Posições (em bytes) das linhas da sessão, na ordem do log
+     *         (vazio se a sessão não existe)
+     */
+    public long[] posicoesDaSessao(String sessionId) {
+        int sessao = sessoes.idDe(sessionId);
+        if (sessao < 0) {
+            return new long[0];
+        }
+        long inicio = ler(inicios, sessao);
+        long fim = ler(inicios, sessao + 1);
+        long[] resultado = new long[(int) (fim - inicio)];
+        for (int i = 0; i < resultado.length; i++) {
+            resultado[i] = ler(posicoes, inicio + i);
+        }
+        return resultado;
+    }
+
+    /**
+     * Lê do log apenas as linhas da sessão (O(k), com k = linhas da sessão).
+     *
+     * @param sessionId SESSION_ID procurado
+     * @return Linhas da sessão, na ordem do log (nunca null)
+     * @throws IOException Caso ocorra erro de leitura no log
+     */
+    public List<String> linhasDaSessao(String sessionId) throws IOException {
+        long[] posicoesDaSessao = posicoesDaSessao(sessionId);
+        List<String> linhas = new ArrayList<>(posicoesDaSessao.length);
+        if (posicoesDaSessao.length == 0) {
+            return linhas;
+        }
+
+        // Log gzip: as posições são do texto descomprimido, lidas pelo leitor
+        // (no gzip em blocos, só o bloco de cada linha é descomprimido)
+        if (ArquivoComprimido.ehComprimido(log)) {
+            for (long posicao : posicoesDaSessao) {
+                try (LeitorCsvMapeado leitor = new LeitorCsvMapeado(log, posicao, -1)) {
+                    linhas.add(leitor.proximaLinha() ? leitor.linhaComoTexto() : "");
+                }
+            }
+            return linhas;
+        }
+
+        try (FileChannel canal = FileChannel.open(log, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(512);
+            for (long posicao : posicoesDaSessao) {
+                buffer = lerLinha(canal, posicao, buffer);
+                linhas.add(new String(buffer.array(), 0, buffer.limit(), StandardCharsets.UTF_8));
+            }
+        }
+        return linhas;
+    }
+
+    /**
+     * Lê a linha que começa em {@code posicao} (sem a quebra de linha).
+     * O buffer cresce se a linha não couber; o buffer retornado deve ser
+     * reutilizado na próxima chamada.
+     */
+    private static ByteBuffer lerLinha(FileChannel canal, long posicao, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        int verificados = 0;
+        while (true) {
+            int lidos = canal.read(buffer, posicao + buffer.position());
+            for (int i = verificados; i < buffer.position(); i++) {
+                if (buffer.get(i) == '\n') {
+                    int fim = (i > 0 && buffer.get(i - 1) == '\r') ? i - 1 : i;
+                    buffer.limit(fim).position(0);
+                    return buffer;
+                }
+            }
+            verificados = buffer.position();
+
+            if (lidos < 0) {
+                // Última linha do arquivo, sem quebra no final
+                int fim = (verificados > 0 && buffer.get(verificados - 1) == '\r') ? verificados - 1 : verificados;
+                buffer.limit(fim).position(0);
+                return buffer;
+            }
+            if (!buffer.hasRemaining()) {
+                ByteBuffer maior = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                maior.put(buffer);
+                buffer = maior;
+            }
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // CONSTRUÇÃO - LINHA DE COMANDO
+    // ═══════════════════════════════════════════════════════════════
+    public static void main(String[] args) {
+        String arquivo = args.length > 0 ? args[0] : "analise-forense-aed.jar";
+
+        System.out.println("===========================================================");
+        System.out.println("=              INDICE DE SESSOES (" + EXTENSAO + ")                  =");
+        System.out.println("===========================================================\n");
+
+        try {
+            long inicio = System.nanoTime();
+            long linhas = construir(Paths.get(arquivo), Paths.get(arquivo + EXTENSAO));
+            long fim = System.nanoTime();
+
+            IndiceSessoes indice = abrir(arquivo);
+            System.out.println("Log: " + arquivo);
+            System.out.println("Indice: " + arquivo + EXTENSAO);
+            System.out.println("Linhas indexadas: " + linhas);
+            System.out.println("Sessoes distintas: " + indice.numeroSessoes());
+            System.out.printf("Tempo de construcao: %.3f ms%n", (fim - inicio) / 1_000_000.0);
+            System.out.println("===========================================================");
+
+        } catch (IOException e) {
+            System.err.println("Erro: " + e.getMessage());
+        }
+    }
+}
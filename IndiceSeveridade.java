@@ -0,0 +1,465 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Índice de Severidade (arquivo auxiliar "&lt;log&gt;.vidx")
+ *
+ * SEVERITY_LEVEL é um inteiro pequeno: o índice guarda um balde por
+ * severidade, da maior para a menor, com as posições (em bytes) das linhas
+ * completas do log que têm aquela severidade. Dentro do balde as linhas
+ * ficam em ordem crescente de TIMESTAMP, a mesma ordem de
+ * {@link Desafio3_PriorizarAlertas#PRIORIDADE} até o desempate pelos textos.
+ * Com isso:
+ * - o top N é o começo do índice (lido balde a balde, sem heap sobre o log)
+ * - "severidade &gt;= X" é um trecho contíguo do índice
+ * - a contagem de uma severidade é O(1)
+ *
+ * - Construído em UMA passada pelo log e um counting sort pelos baldes
+ * - Gravado ao lado do log e reaproveitado nas próximas execuções
+ * - Invalidado quando o tamanho ou a data de modificação do log mudam
+ *
+ * Formato (little-endian):
+ * <pre>
+ * cabeçalho (64 bytes):
+ *   "AFVIDX01", int versao, int menorSeveridade,
+ *   long tamanhoLog, long modificadoLog, long linhas,
+ *   long baldes, long posicaoInicios, long posicaoPosicoes
+ * long[baldes + 1] inicios    - o balde b (severidade maior - b) está em [inicios[b], inicios[b + 1])
+ * long[linhas]     posicoes   - posição de cada linha no log, agrupadas por balde
+ * long[linhas]     timestamps - TIMESTAMP de cada linha (logo depois das posições)
+ * </pre>
+ *
+ * Só entram as linhas completas (mesma regra do {@link RepositorioEventos#isCompleta(int)}).
+ * Num log gzip as posições são do texto descomprimido (ver {@link ArquivoComprimido}).
+ */
+public class IndiceSeveridade {
+
+    static final byte[] IDENTIFICADOR = "AFVIDX01".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSAO = 1;
+    static final int TAMANHO_CABECALHO = 64;
+    static final String EXTENSAO = ".vidx";
+
+    /** Maior distância entre a menor e a maior severidade (um balde para cada valor) */
+    static final int FAIXA_MAXIMA = 1 << 16;
+
+    private static final MetricasAnalise METRICAS = MetricasAnalise.de("indiceSeveridade");
+
+    private final Path log;
+    private final long tamanhoLog;
+    private final long modificadoLog;
+    private final int menorSeveridade;
+    private final long[] inicios;
+    private final LongBuffer[] posicoes;
+    private final LongBuffer[] timestamps;
+
+    private IndiceSeveridade(Path log, FileChannel canal) throws IOException {
+        ByteBuffer cabecalho = canal.map(FileChannel.MapMode.READ_ONLY, 0, TAMANHO_CABECALHO)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        byte[] identificador = new byte[IDENTIFICADOR.length];
+        cabecalho.get(identificador);
+        if (!Arrays.equals(identificador, IDENTIFICADOR) || cabecalho.getInt() != VERSAO) {
+            throw new IOException("Indice de severidade invalido");
+        }
+
+        this.log = log;
+        this.menorSeveridade = cabecalho.getInt();
+        this.tamanhoLog = cabecalho.getLong();
+        this.modificadoLog = cabecalho.getLong();
+        long linhas = cabecalho.getLong();
+        long baldes = cabecalho.getLong();
+        long posicaoInicios = cabecalho.getLong();
+        long posicaoPosicoes = cabecalho.getLong();
+        if (baldes < 0 || baldes > FAIXA_MAXIMA || linhas < 0
+                || posicaoPosicoes + linhas * 16 > canal.size()) {
+            throw new IOException("Indice de severidade invalido");
+        }
+
+        // São poucos baldes (um por severidade): cabem num array comum
+        this.inicios = new long[(int) baldes + 1];
+        canal.map(FileChannel.MapMode.READ_ONLY, posicaoInicios, inicios.length * 8L)
+                .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(inicios);
+        this.posicoes = IndiceSessoes.mapearLongs(canal, posicaoPosicoes, linhas);
+        this.timestamps = IndiceSessoes.mapearLongs(canal, posicaoPosicoes + linhas * 8, linhas);
+    }
+
+    /**
+     * Abre o índice do log, construindo (ou reconstruindo) o arquivo
+     * auxiliar se ele não existir ou estiver desatualizado.
+     *
+     * @param caminhoLog Caminho para o arquivo CSV de logs
+     * @return Índice pronto para consulta
+     * @throws IOException Caso ocorra erro de leitura ou gravação
+     */
+    public static IndiceSeveridade abrir(String caminhoLog) throws IOException {
+        Path log = Paths.get(caminhoLog);
+        Path arquivoIndice = Paths.get(caminhoLog + EXTENSAO);
+
+        if (Files.exists(arquivoIndice)) {
+            try {
+                IndiceSeveridade indice = mapear(log, arquivoIndice);
+                if (indice.estaAtualizado()) {
+                    return indice;
+                }
+            } catch (IOException e) {
+                // Índice corrompido ou de outra versão: reconstrói abaixo
+            }
+        }
+
+        construir(log, arquivoIndice);
+        return mapear(log, arquivoIndice);
+    }
+
+    private static IndiceSeveridade mapear(Path log, Path arquivoIndice) throws IOException {
+        // Os buffers mapeados continuam válidos depois que o canal é fechado
+        try (FileChannel canal = FileChannel.open(arquivoIndice, StandardOpenOption.READ)) {
+            if (canal.size() < TAMANHO_CABECALHO) {
+                throw new IOException("Indice de severidade invalido");
+            }
+            return new IndiceSeveridade(log, canal);
+        }
+    }
+
+    /**
+     * Constrói o índice em uma única passada pelo log.
+     *
+     * @param log           Arquivo CSV de logs
+     * @param arquivoIndice Onde gravar o índice
+     * @return Número de linhas indexadas
+     * @throws IOException Caso ocorra erro de leitura ou gravação, ou se as
+     *                     severidades do log forem espalhadas demais para
+     *                     um balde por valor
+     */
+    public static long construir(Path log, Path arquivoIndice) throws IOException {
+        // Tamanho e data lidos ANTES da passada: se o log mudar durante a
+        // construção, o índice já nasce desatualizado e será refeito
+        long tamanhoLog = Files.size(log);
+        long modificadoLog = Files.getLastModifiedTime(log).toMillis();
+
+        int[] severidadeDaLinha = new int[1024];
+        long[] timestampDaLinha = new long[1024];
+        long[] posicaoDaLinha = new long[1024];
+        int linhas = 0;
+        int menor = Integer.MAX_VALUE;
+        int maior = Integer.MIN_VALUE;
+
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONSTRUCAO);
+             LeitorCsvMapeado leitor = new LeitorCsvMapeado(log, 0, -1)) {
+            long lidas = 0;
+            if (leitor.proximaLinha()) { // Ignora o cabeçalho
+                while (leitor.proximaLinha()) {
+                    lidas++;
+                    // Mesma regra do Desafio 3: só linhas completas viram alertas
+                    if (leitor.numeroCamposPreenchidos() < 7) continue;
+                    long timestamp;
+                    int severidade;
+                    try {
+                        timestamp = leitor.campoLong(0);
+                        severidade = leitor.campoInt(5);
+                        leitor.campoLong(6);
+                    } catch (NumberFormatException e) {
+                        continue;
+                    }
+
+                    if (linhas == severidadeDaLinha.length) {
+                        if (linhas == Integer.MAX_VALUE - 8) {
+                            throw new IOException("Log com linhas demais para o indice de severidade");
+                        }
+                        int novaCapacidade = (int) Math.min((long) linhas * 2, Integer.MAX_VALUE - 8);
+                        severidadeDaLinha = Arrays.copyOf(severidadeDaLinha, novaCapacidade);
+                        timestampDaLinha = Arrays.copyOf(timestampDaLinha, novaCapacidade);
+                        posicaoDaLinha = Arrays.copyOf(posicaoDaLinha, novaCapacidade);
+                    }
+                    severidadeDaLinha[linhas] = severidade;
+                    timestampDaLinha[linhas] = timestamp;
+                    posicaoDaLinha[linhas] = leitor.posicaoLinha();
+                    linhas++;
+                    menor = Math.min(menor, severidade);
+                    maior = Math.max(maior, severidade);
+                }
+            }
+            medicao.linhas(lidas).rejeitadas(lidas - linhas).bytes(leitor.posicaoProximaLinha());
+        }
+
+        if (linhas == 0) {
+            menor = 0;
+            maior = -1;
+        } else if ((long) maior - menor >= FAIXA_MAXIMA) {
+            throw new IOException("Severidades espalhadas demais para o indice: de " + menor + " a " + maior);
+        }
+        int baldes = maior - menor + 1;
+
+        // Counting sort pelos baldes, da maior severidade para a menor
+        // (estável: dentro do balde fica a ordem do arquivo)
+        long[] inicios = new long[baldes + 1];
+        for (int i = 0; i < linhas; i++) {
+            inicios[maior - severidadeDaLinha[i] + 1]++;
+        }
+        for (int b = 0; b < baldes; b++) {
+            inicios[b + 1] += inicios[b];
+        }
+        long[] posicoes = new long[linhas];
+        long[] timestamps = new long[linhas];
+        long[] proxima = Arrays.copyOf(inicios, baldes);
+        for (int i = 0; i < linhas; i++) {
+            int destino = (int) proxima[maior - severidadeDaLinha[i]]++;
+            posicoes[destino] = posicaoDaLinha[i];
+            timestamps[destino] = timestampDaLinha[i];
+        }
+        severidadeDaLinha = null;
+        timestampDaLinha = null;
+        posicaoDaLinha = null;
+
+        // Dentro de cada balde: TIMESTAMP crescente (empates na ordem do arquivo)
+        long[] rascunhoTimestamps = new long[0];
+        long[] rascunhoPosicoes = new long[0];
+        for (int b = 0; b < baldes; b++) {
+            int inicio = (int) inicios[b];
+            int fim = (int) inicios[b + 1];
+            if (estaOrdenado(timestamps, inicio, fim)) continue; // Log já em ordem de tempo
+            if (rascunhoTimestamps.length < fim - inicio) {
+                rascunhoTimestamps = new long[fim - inicio];
+                rascunhoPosicoes = new long[fim - inicio];
+            }
+            ordenarPorTimestamp(timestamps, posicoes, inicio, fim, rascunhoTimestamps, rascunhoPosicoes);
+        }
+
+        // Grava num arquivo temporário e troca no final: quem estiver lendo
+        // nunca enxerga um índice pela metade
+        Path pasta = arquivoIndice.toAbsolutePath().getParent();
+        Path temporario = Files.createTempFile(pasta, arquivoIndice.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel saida = FileChannel.open(temporario, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                long posicaoInicios = TAMANHO_CABECALHO;
+                long posicao = IndiceSessoes.gravarLongs(saida, posicaoInicios, inicios, inicios.length);
+                long posicaoPosicoes = posicao;
+                posicao = IndiceSessoes.gravarLongs(saida, posicaoPosicoes, posicoes, linhas);
+                IndiceSessoes.gravarLongs(saida, posicao, timestamps, linhas);
+
+                ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO).order(ByteOrder.LITTLE_ENDIAN);
+                cabecalho.put(IDENTIFICADOR);
+                cabecalho.putInt(VERSAO);
+                cabecalho.putInt(menor);
+                cabecalho.putLong(tamanhoLog);
+                cabecalho.putLong(modificadoLog);
+                cabecalho.putLong(linhas);
+                cabecalho.putLong(baldes);
+                cabecalho.putLong(posicaoInicios);
+                cabecalho.putLong(posicaoPosicoes);
+                cabecalho.flip();
+                ArquivoColunar.gravarTudo(saida, cabecalho, 0);
+            }
+            try {
+                Files.move(temporario, arquivoIndice, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temporario, arquivoIndice, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+
+        return linhas;
+    }
+
+    static boolean estaOrdenado(long[] chaves, int inicio, int fim) {
+        for (int i = inicio + 1; i < fim; i++) {
+            if (chaves[i - 1] > chaves[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Merge sort (estável) de [inicio, fim) pelas chaves, levando junto os
+     * valores. Os rascunhos devem ter pelo menos fim - inicio posições.
+     */
+    static void ordenarPorTimestamp(long[] chaves, long[] valores, int inicio, int fim,
+                                    long[] rascunhoChaves, long[] rascunhoValores) {
+        int tamanho = fim - inicio;
+        for (int largura = 1; largura < tamanho; largura *= 2) {
+            for (int esquerda = inicio; esquerda < fim - largura; esquerda += 2 * largura) {
+                int meio = esquerda + largura;
+                int direita = (int) Math.min((long) meio + largura, fim);
+                if (chaves[meio - 1] <= chaves[meio]) continue; // Metades já em ordem
+
+                int a = esquerda;
+                int b = meio;
+                int k = 0;
+                while (a < meio && b < direita) {
+                    if (chaves[b] < chaves[a]) {
+                        rascunhoChaves[k] = chaves[b];
+                        rascunhoValores[k++] = valores[b++];
+                    } else {
+                        rascunhoChaves[k] = chaves[a];
+                        rascunhoValores[k++] = valores[a++];
+                    }
+                }
+                while (a < meio) {
+                    rascunhoChaves[k] = chaves[a];
+                    rascunhoValores[k++] = valores[a++];
+                }
+                // O que sobrou da direita já está no lugar
+                System.arraycopy(rascunhoChaves, 0, chaves, esquerda, k);
+                System.arraycopy(rascunhoValores, 0, valores, esquerda, k);
+            }
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // CONSULTA
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * @return true se o log ainda tem o mesmo tamanho e data de modificação
+     *         de quando o índice foi construído
+     */
+    public boolean estaAtualizado() throws IOException {
+        return Files.size(log) == tamanhoLog
+                && Files.getLastModifiedTime(log).toMillis() == modificadoLog;
+    }
+
+    /** @return Número de linhas completas indexadas */
+    public long numeroLinhas() {
+        return inicios[inicios.length - 1];
+    }
+
+    /** @return Menor severidade do log (maior que {@link #maiorSeveridade()} se o índice está vazio) */
+    public int menorSeveridade() {
+        return menorSeveridade;
+    }
+
+    /** @return Maior severidade do log */
+    public int maiorSeveridade() {
+        return menorSeveridade + inicios.length - 2;
+    }
+
+    /**
+     * Primeira entrada do índice com severidade menor que {@code severidade}:
+     * as entradas [0, resultado) são as de severidade &gt;= {@code severidade}.
+     */
+    private long fimDasSeveridades(long severidade) {
+        long balde = (long) maiorSeveridade() - severidade + 1;
+        return inicios[(int) Math.max(0, Math.min(balde, inicios.length - 1))];
+    }
+
+    /** @return Número de linhas completas com a severidade (O(1)) */
+    public long contar(int severidade) {
+        return fimDasSeveridades(severidade) - fimDasSeveridades(severidade + 1L);
+    }
+
+    /** @return Número de linhas completas com severidade &gt;= {@code minimo} (O(1)) */
+    public long contarAPartirDe(int minimo) {
+        return fimDasSeveridades(minimo);
+    }
+
+    /**
+     * @return Número de linhas por severidade, da maior para a menor (só as
+     *         severidades presentes no log)
+     */
+    public Map<Integer, Long> distribuicao() {
+        Map<Integer, Long> distribuicao = new TreeMap<>(Collections.reverseOrder());
+        for (int b = 0; b + 1 < inicios.length; b++) {
+            long quantidade = inicios[b + 1] - inicios[b];
+            if (quantidade > 0) {
+                distribuicao.put(maiorSeveridade() - b, quantidade);
+            }
+        }
+        return distribuicao;
+    }
+
+    /**
+     * Posições das linhas que podem estar no top N: as N primeiras do índice
+     * e as que empatam em severidade e TIMESTAMP com a N-ésima (entre elas o
+     * desempate é pelos textos, que só a leitura das linhas resolve).
+     *
+     * @param n Número de alertas do top
+     * @return Posições em ordem crescente (prontas para {@link LeitorCsvMapeado#irPara(long)})
+     */
+    public long[] posicoesDoTopo(int n) {
+        long total = numeroLinhas();
+        long fim = Math.min(Math.max(n, 0), total);
+        if (fim > 0 && fim < total) {
+            long ultimo = fim - 1;
+            long fimDoBalde = inicios[baldeDa(ultimo) + 1];
+            long timestamp = IndiceSessoes.ler(timestamps, ultimo);
+            while (fim < fimDoBalde && IndiceSessoes.ler(timestamps, fim) == timestamp) {
+                fim++;
+            }
+        }
+        return posicoesOrdenadas(fim);
+    }
+
+    /**
+     * @param minimo Menor severidade procurada
+     * @return Posições das linhas completas com severidade &gt;= {@code minimo},
+     *         em ordem crescente
+     */
+    public long[] posicoesAPartirDe(int minimo) {
+        return posicoesOrdenadas(fimDasSeveridades(minimo));
+    }
+
+    private int baldeDa(long entrada) {
+        // Último balde que começa em ou antes da entrada (pula os vazios)
+        int esquerda = 0;
+        int direita = inicios.length - 2;
+        while (esquerda < direita) {
+            int meio = (esquerda + direita + 1) >>> 1;
+            if (inicios[meio] <= entrada) esquerda = meio;
+            else direita = meio - 1;
+        }
+        return esquerda;
+    }
+
+    /** Posições das entradas [0, fim) do índice, em ordem do arquivo. */
+    private long[] posicoesOrdenadas(long fim) {
+        long[] resultado = new long[(int) fim];
+        for (int i = 0; i < resultado.length; i++) {
+            resultado[i] = IndiceSessoes.ler(posicoes, i);
+        }
+        // Ler as linhas em ordem do arquivo: acesso sequencial ao log (e
+        // obrigatório no gzip, que só anda para frente)
+        Arrays.sort(resultado);
+        return resultado;
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // CONSTRUÇÃO - LINHA DE COMANDO
+    // ═══════════════════════════════════════════════════════════════
+    public static void main(String[] args) {
+        String arquivo = args.length > 0 ? args[0] : "analise-forense-aed.jar";
+
+        System.out.println("===========================================================");
+        System.out.println("=            INDICE DE SEVERIDADE (" + EXTENSAO + ")                 =");
+        System.out.println("===========================================================\n");
+
+        try {
+            long inicio = System.nanoTime();
+            long linhas = construir(Paths.get(arquivo), Paths.get(arquivo + EXTENSAO));
+            long fim = System.nanoTime();
+
+            IndiceSeveridade indice = abrir(arquivo);
+            System.out.println("Log: " + arquivo);
+            System.out.println("Indice: " + arquivo + EXTENSAO);
+            System.out.println("Linhas completas indexadas: " + linhas);
+            System.out.printf("Tempo de construcao: %.3f ms%n", (fim - inicio) / 1_000_000.0);
+            System.out.println("\nDistribuicao de Severidades (ordem decrescente):");
+            for (Map.Entry<Integer, Long> entry : indice.distribuicao().entrySet()) {
+                System.out.printf("  Severidade %2d: %3d eventos%n", entry.getKey(), entry.getValue());
+            }
+            System.out.println("===========================================================");
+
+        } catch (IOException e) {
+            System.err.println("Erro: " + e.getMessage());
+        }
+    }
+}
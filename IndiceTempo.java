@@ -0,0 +1,483 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Índice de Tempo (arquivo auxiliar "&lt;log&gt;.tidx")
+ *
+ * Índice esparso por blocos: a cada K linhas do log guarda a posição (em
+ * bytes) onde o bloco começa e o menor e o maior TIMESTAMP dele. Uma análise
+ * limitada a uma janela [de, ate] lê só os blocos que podem ter eventos da
+ * janela, em vez de percorrer o log inteiro a partir do cabeçalho.
+ *
+ * - Construído em UMA passada pelo log (com o {@link LeitorCsvMapeado})
+ * - Gravado ao lado do log e reaproveitado nas próximas execuções
+ * - Invalidado quando o tamanho ou a data de modificação do log mudam
+ * - Não exige log ordenado: o mínimo e o máximo são por bloco, então um
+ *   evento fora de ordem só faz o bloco dele ser lido a mais
+ *
+ * Formato (little-endian):
+ * <pre>
+ * cabeçalho (64 bytes):
+ *   "AFTIDX01", int versao, int linhasPorBloco,
+ *   long tamanhoLog, long modificadoLog, long linhas,
+ *   long blocos, long posicaoBlocos, long fimTexto
+ * long[blocos * 3]  para cada bloco: posição do início, menor e maior TIMESTAMP
+ * </pre>
+ *
+ * O bloco b vai do seu início até o início do bloco b + 1 (o último vai até
+ * fimTexto, o fim do log). Num log gzip as posições são do texto
+ * descomprimido (ver {@link ArquivoComprimido}). Um bloco sem nenhum TIMESTAMP válido tem menor = Long.MAX_VALUE
+ * e maior = Long.MIN_VALUE, e nunca é lido.
+ */
+public class IndiceTempo {
+
+    static final byte[] IDENTIFICADOR = "AFTIDX01".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSAO = 2;
+    static final int TAMANHO_CABECALHO = 64;
+    static final String EXTENSAO = ".tidx";
+
+    /** Linhas por bloco: com ~80 bytes por linha, blocos de ~320 KB */
+    public static final int LINHAS_POR_BLOCO_PADRAO = 4096;
+
+    private static final MetricasAnalise METRICAS = MetricasAnalise.de("indiceTempo");
+
+    private final Path log;
+    private final long tamanhoLog;
+    private final long fimTexto;
+    private final long modificadoLog;
+    private final int linhasPorBloco;
+    private final long linhas;
+    private final long[] inicioBloco;
+    private final long[] menorTimestamp;
+    private final long[] maiorTimestamp;
+
+    // gzip comum: cada faixa obrigaria a descomprimir o log desde o início
+    private boolean acessoAleatorio = true;
+
+    private IndiceTempo(Path log, FileChannel canal) throws IOException {
+        ByteBuffer cabecalho = canal.map(FileChannel.MapMode.READ_ONLY, 0, TAMANHO_CABECALHO)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        byte[] identificador = new byte[IDENTIFICADOR.length];
+        cabecalho.get(identificador);
+        if (!Arrays.equals(identificador, IDENTIFICADOR) || cabecalho.getInt() != VERSAO) {
+            throw new IOException("Indice de tempo invalido");
+        }
+
+        this.log = log;
+        this.linhasPorBloco = cabecalho.getInt();
+        this.tamanhoLog = cabecalho.getLong();
+        this.modificadoLog = cabecalho.getLong();
+        this.linhas = cabecalho.getLong();
+        long blocos = cabecalho.getLong();
+        long posicaoBlocos = cabecalho.getLong();
+        this.fimTexto = cabecalho.getLong();
+        if (blocos < 0 || blocos > Integer.MAX_VALUE / 3
+                || posicaoBlocos + blocos * 3 * 8 > canal.size()) {
+            throw new IOException("Indice de tempo invalido");
+        }
+
+        // São poucos blocos (um a cada K linhas): cabem em arrays comuns
+        int total = (int) blocos;
+        this.inicioBloco = new long[total];
+        this.menorTimestamp = new long[total];
+        this.maiorTimestamp = new long[total];
+        ByteBuffer dados = canal.map(FileChannel.MapMode.READ_ONLY, posicaoBlocos, blocos * 3 * 8)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        for (int b = 0; b < total; b++) {
+            inicioBloco[b] = dados.getLong();
+            menorTimestamp[b] = dados.getLong();
+            maiorTimestamp[b] = dados.getLong();
+        }
+    }
+
+    /**
+     * Abre o índice do log, construindo (ou reconstruindo) o arquivo
+     * auxiliar se ele não existir ou estiver desatualizado.
+     *
+     * @param caminhoLog Caminho para o arquivo CSV de logs
+     * @return Índice pronto para consulta
+     * @throws IOException Caso ocorra erro de leitura ou gravação
+     */
+    public static IndiceTempo abrir(String caminhoLog) throws IOException {
+        Path log = Paths.get(caminhoLog);
+        Path arquivoIndice = Paths.get(caminhoLog + EXTENSAO);
+
+        if (Files.exists(arquivoIndice)) {
+            try {
+                IndiceTempo indice = mapear(log, arquivoIndice);
+                if (indice.estaAtualizado()) {
+                    indice.acessoAleatorio = ArquivoComprimido.permiteAcessoAleatorio(log);
+                    return indice;
+                }
+            } catch (IOException e) {
+                // Índice corrompido ou de outra versão: reconstrói abaixo
+            }
+        }
+
+        construir(log, arquivoIndice, LINHAS_POR_BLOCO_PADRAO);
+        IndiceTempo indice = mapear(log, arquivoIndice);
+        indice.acessoAleatorio = ArquivoComprimido.permiteAcessoAleatorio(log);
+        return indice;
+    }
+
+    private static IndiceTempo mapear(Path log, Path arquivoIndice) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivoIndice, StandardOpenOption.READ)) {
+            if (canal.size() < TAMANHO_CABECALHO) {
+                throw new IOException("Indice de tempo invalido");
+            }
+            return new IndiceTempo(log, canal);
+        }
+    }
+
+    /**
+     * Constrói o índice em uma única passada pelo log.
+     *
+     * @param log            Arquivo CSV de logs
+     * @param arquivoIndice  Onde gravar o índice
+     * @param linhasPorBloco Linhas (não vazias) por bloco
+     * @return Número de linhas indexadas
+     * @throws IOException Caso ocorra erro de leitura ou gravação
+     */
+    public static long construir(Path log, Path arquivoIndice, int linhasPorBloco) throws IOException {
+        if (linhasPorBloco <= 0) {
+            throw new IllegalArgumentException("Linhas por bloco deve ser positivo: " + linhasPorBloco);
+        }
+
+        // Tamanho e data lidos ANTES da passada: se o log mudar durante a
+        // construção, o índice já nasce desatualizado e será refeito
+        long tamanhoLog = Files.size(log);
+        long modificadoLog = Files.getLastModifiedTime(log).toMillis();
+
+        VetorLong blocos = new VetorLong(1024);
+        long linhas = 0;
+        long fimTexto = 0;
+
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONSTRUCAO);
+             LeitorCsvMapeado leitor = new LeitorCsvMapeado(log, 0, -1)) {
+            if (leitor.proximaLinha()) { // Ignora o cabeçalho
+                long menor = Long.MAX_VALUE;
+                long maior = Long.MIN_VALUE;
+                while (leitor.proximaLinha()) {
+                    if (linhas % linhasPorBloco == 0) {
+                        if (linhas > 0) {
+                            blocos.add(menor);
+                            blocos.add(maior);
+                        }
+                        blocos.add(leitor.posicaoLinha());
+                        menor = Long.MAX_VALUE;
+                        maior = Long.MIN_VALUE;
+                    }
+                    linhas++;
+
+                    try {
+                        long timestamp = leitor.campoLong(0);
+                        menor = Math.min(menor, timestamp);
+                        maior = Math.max(maior, timestamp);
+                    } catch (NumberFormatException e) {
+                        // Sem TIMESTAMP válido: a linha nunca cai numa janela
+                    }
+                }
+                if (linhas > 0) {
+                    blocos.add(menor);
+                    blocos.add(maior);
+                }
+            }
+            fimTexto = leitor.posicaoProximaLinha();
+            medicao.linhas(linhas).bytes(fimTexto);
+        }
+
+        // Grava num arquivo temporário e troca no final: quem estiver lendo
+        // nunca enxerga um índice pela metade
+        Path pasta = arquivoIndice.toAbsolutePath().getParent();
+        Path temporario = Files.createTempFile(pasta, arquivoIndice.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel saida = FileChannel.open(temporario, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                long posicaoBlocos = TAMANHO_CABECALHO;
+                ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+                long posicao = posicaoBlocos;
+                for (int i = 0; i < blocos.tamanho(); i++) {
+                    if (!buffer.hasRemaining()) {
+                        buffer.flip();
+                        posicao = ArquivoColunar.gravarTudo(saida, buffer, posicao);
+                        buffer.clear();
+                    }
+                    buffer.putLong(blocos.get(i));
+                }
+                buffer.flip();
+                ArquivoColunar.gravarTudo(saida, buffer, posicao);
+
+                ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO).order(ByteOrder.LITTLE_ENDIAN);
+                cabecalho.put(IDENTIFICADOR);
+                cabecalho.putInt(VERSAO);
+                cabecalho.putInt(linhasPorBloco);
+                cabecalho.putLong(tamanhoLog);
+                cabecalho.putLong(modificadoLog);
+                cabecalho.putLong(linhas);
+                cabecalho.putLong(blocos.tamanho() / 3);
+                cabecalho.putLong(posicaoBlocos);
+                cabecalho.putLong(fimTexto);
+                cabecalho.flip();
+                ArquivoColunar.gravarTudo(saida, cabecalho, 0);
+            }
+            try {
+                Files.move(temporario, arquivoIndice, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temporario, arquivoIndice, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+
+        return linhas;
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // CONSULTA
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * @return true se o log ainda tem o mesmo tamanho e data de modificação
+     *         de quando o índice foi construído
+     */
+    public boolean estaAtualizado() throws IOException {
+        return Files.size(log) == tamanhoLog
+                && Files.getLastModifiedTime(log).toMillis() == modificadoLog;
+    }
+
+    /** @return Número de blocos do índice */
+    public int numeroBlocos() {
+        return inicioBloco.length;
+    }
+
+    /** @return Número de linhas (não vazias, sem o cabeçalho) indexadas */
+    public long numeroLinhas() {
+        return linhas;
+    }
+
+    /** @return Linhas por bloco usadas na construção */
+    public int linhasPorBloco() {
+        return linhasPorBloco;
+    }
+
+    /** @return Menor TIMESTAMP do log (Long.MAX_VALUE se não houver nenhum) */
+    public long menorTimestamp() {
+        long menor = Long.MAX_VALUE;
+        for (long valor : menorTimestamp) menor = Math.min(menor, valor);
+        return menor;
+    }
+
+    /** @return Maior TIMESTAMP do log (Long.MIN_VALUE se não houver nenhum) */
+    public long maiorTimestamp() {
+        long maior = Long.MIN_VALUE;
+        for (long valor : maiorTimestamp) maior = Math.max(maior, valor);
+        return maior;
+    }
+
+    /**
+     * Intervalos de bytes do log que podem ter eventos da janela. Blocos
+     * vizinhos são juntados num único intervalo, então um log em ordem de
+     * tempo dá sempre um intervalo só.
+     *
+     * @param de  Primeiro TIMESTAMP da janela (inclusivo)
+     * @param ate Último TIMESTAMP da janela (inclusivo)
+     * @return Pares [inicio, fim) em sequência: {inicio0, fim0, inicio1, fim1, ...}
+     */
+    public long[] faixas(long de, long ate) {
+        long[] faixas = new long[8];
+        int tamanho = 0;
+        for (int b = 0; b < inicioBloco.length; b++) {
+            if (menorTimestamp[b] > ate || maiorTimestamp[b] < de) continue;
+
+            long inicio = inicioBloco[b];
+            long fim = b + 1 < inicioBloco.length ? inicioBloco[b + 1] : fimTexto;
+            if (tamanho > 0 && faixas[tamanho - 1] == inicio) {
+                faixas[tamanho - 1] = fim; // Bloco seguinte ao anterior: estende a faixa
+            } else {
+                if (tamanho == faixas.length) {
+                    faixas = Arrays.copyOf(faixas, tamanho * 2);
+                }
+                faixas[tamanho++] = inicio;
+                faixas[tamanho++] = fim;
+            }
+        }
+        return Arrays.copyOf(faixas, tamanho);
+    }
+
+    /**
+     * Abre a leitura das linhas da janela [de, ate].
+     *
+     * @param de  Primeiro TIMESTAMP da janela (inclusivo)
+     * @param ate Último TIMESTAMP da janela (inclusivo)
+     * @return Leitura que entrega só as linhas completas da janela
+     */
+    public Janela janela(long de, long ate) {
+        long[] faixas = faixas(de, ate);
+        if (!acessoAleatorio && faixas.length > 2) {
+            // Uma passada só, da primeira à última faixa
+            faixas = new long[] {faixas[0], faixas[faixas.length - 1]};
+        }
+        return new Janela(log, faixas, de, ate);
+    }
+
+    /**
+     * Regra de linha das análises por janela: só as linhas completas (os 7
+     * campos, com TIMESTAMP, SEVERITY_LEVEL e BYTES_TRANSFERRED numéricos,
+     * a mesma regra do {@link RepositorioEventos#isCompleta(int)}) têm um
+     * TIMESTAMP confiável para cair numa janela.
+     *
+     * @param leitor Leitor posicionado na linha atual
+     * @param de     Primeiro TIMESTAMP da janela (inclusivo)
+     * @param ate    Último TIMESTAMP da janela (inclusivo)
+     * @return true se a linha é completa e o TIMESTAMP está na janela
+     */
+    static boolean linhaNaJanela(LeitorCsvMapeado leitor, long de, long ate) {
+        if (leitor.numeroCamposPreenchidos() < 7) return false;
+        try {
+            long timestamp = leitor.campoLong(0);
+            if (timestamp < de || timestamp > ate) return false;
+            leitor.campoInt(5);
+            leitor.campoLong(6);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Leitura das linhas de uma janela de tempo: percorre as faixas do
+     * índice com um {@link LeitorCsvMapeado} por faixa e para só nas linhas
+     * completas com TIMESTAMP dentro da janela.
+     *
+     * <pre>
+     * try (IndiceTempo.Janela janela = IndiceTempo.abrir(caminho).janela(de, ate)) {
+     *     while (janela.proximaLinha()) {
+     *         LeitorCsvMapeado leitor = janela.leitor();
+     *         ...
+     *     }
+     * }
+     * </pre>
+     */
+    public static final class Janela implements Closeable {
+        private final Path log;
+        private final long[] faixas;
+        private final long de;
+        private final long ate;
+        private int proximaFaixa;
+        private LeitorCsvMapeado leitor;
+        private long linhasLidas;
+
+        private Janela(Path log, long[] faixas, long de, long ate) {
+            this.log = log;
+            this.faixas = faixas;
+            this.de = de;
+            this.ate = ate;
+        }
+
+        /**
+         * Avança para a próxima linha completa da janela.
+         *
+         * @return false quando não há mais linhas na janela
+         * @throws IOException Caso ocorra erro de leitura no log
+         */
+        public boolean proximaLinha() throws IOException {
+            while (true) {
+                if (leitor == null) {
+                    if (proximaFaixa >= faixas.length) {
+                        return false;
+                    }
+                    leitor = new LeitorCsvMapeado(log, faixas[proximaFaixa], faixas[proximaFaixa + 1]);
+                    proximaFaixa += 2;
+                }
+                while (leitor.proximaLinha()) {
+                    linhasLidas++;
+                    if (linhaNaJanela(leitor, de, ate)) {
+                        return true;
+                    }
+                }
+                leitor.close();
+                leitor = null;
+            }
+        }
+
+        /** @return Leitor posicionado na linha atual da janela */
+        public LeitorCsvMapeado leitor() {
+            return leitor;
+        }
+
+        /** @return Linhas lidas nos blocos da janela (dentro e fora dela) */
+        public long linhasLidas() {
+            return linhasLidas;
+        }
+
+        /** @return Bytes do log cobertos pelos blocos da janela */
+        public long bytesDaJanela() {
+            long total = 0;
+            for (int i = 0; i < faixas.length; i += 2) {
+                total += faixas[i + 1] - faixas[i];
+            }
+            return total;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (leitor != null) {
+                leitor.close();
+                leitor = null;
+            }
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // CONSTRUÇÃO - LINHA DE COMANDO
+    // ═══════════════════════════════════════════════════════════════
+    public static void main(String[] args) {
+        String arquivo = args.length > 0 ? args[0] : "analise-forense-aed.jar";
+        int linhasPorBloco = args.length > 1 ? Integer.parseInt(args[1]) : LINHAS_POR_BLOCO_PADRAO;
+
+        System.out.println("===========================================================");
+        System.out.println("=                INDICE DE TEMPO (" + EXTENSAO + ")                   =");
+        System.out.println("===========================================================\n");
+
+        try {
+            long inicio = System.nanoTime();
+            long linhas = construir(Paths.get(arquivo), Paths.get(arquivo + EXTENSAO), linhasPorBloco);
+            long fim = System.nanoTime();
+
+            IndiceTempo indice = abrir(arquivo);
+            System.out.println("Log: " + arquivo);
+            System.out.println("Indice: " + arquivo + EXTENSAO);
+            System.out.println("Linhas indexadas: " + linhas);
+            System.out.println("Blocos: " + indice.numeroBlocos() + " (" + linhasPorBloco + " linhas por bloco)");
+            System.out.println("TIMESTAMP: " + indice.menorTimestamp() + " a " + indice.maiorTimestamp());
+            System.out.printf("Tempo de construcao: %.3f ms%n", (fim - inicio) / 1_000_000.0);
+
+            // Exemplo: janela com o primeiro 1% do intervalo de tempo
+            if (indice.numeroBlocos() > 0) {
+                long de = indice.menorTimestamp();
+                long ate = de + Math.max(0, (indice.maiorTimestamp() - de) / 100);
+                try (Janela janela = indice.janela(de, ate)) {
+                    long naJanela = 0;
+                    while (janela.proximaLinha()) naJanela++;
+                    System.out.printf("Janela [%d, %d]: %d linhas, %d de %d bytes lidos%n",
+                            de, ate, naJanela, janela.bytesDaJanela(), Files.size(Paths.get(arquivo)));
+                }
+            }
+            System.out.println("===========================================================");
+
+        } catch (IOException e) {
+            System.err.println("Erro: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,659 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Leitor de CSV mapeado em memória (byte a byte)
+ *
+ * Substitui o par BufferedReader + String.split(","): o arquivo é mapeado
+ * com FileChannel/MappedByteBuffer e cada linha é quebrada em colunas
+ * guardando apenas as posições das vírgulas. Números são convertidos
+ * direto dos bytes (sem criar Strings) e as colunas de texto só viram
+ * String quando alguém pede por {@link #campoTexto(int)}.
+ *
+ * Uso:
+ * <pre>
+ * try (LeitorCsvMapeado leitor = new LeitorCsvMapeado(caminho)) {
+ *     leitor.proximaLinha();                 // cabeçalho
+ *     while (leitor.proximaLinha()) {
+ *         long timestamp = leitor.campoLong(0);
+ *         ...
+ *     }
+ * }
+ * </pre>
+ *
+ * O arquivo é mapeado em janelas de até 64 MB, então funciona com arquivos
+ * maiores que 2 GB (limite de um único MappedByteBuffer).
+ *
+ * Logs gzip (ver {@link ArquivoComprimido}) são lidos do mesmo jeito: em vez
+ * de mapeada, a janela é um buffer no heap preenchido com o texto
+ * descomprimido, e todas as posições são posições no texto descomprimido.
+ */
+public class LeitorCsvMapeado implements Closeable {
+
+    private static final int TAMANHO_JANELA = 64 * 1024 * 1024;
+
+    // Janela inicial para logs comprimidos (cresce se uma linha não couber)
+    private static final int TAMANHO_JANELA_COMPRIMIDO = 1024 * 1024;
+
+    // Só um dos dois: o canal mapeado (CSV) ou o texto descomprimido (gzip)
+    private final FileChannel canal;
+    private final InputStream descomprimido;
+
+    // No gzip o fim pode ser desconhecido (Long.MAX_VALUE) até o texto acabar
+    private long fim;
+
+    // Janela atual: bytes [inicioJanela, inicioJanela + janela.limit())
+    private ByteBuffer janela;
+    private byte[] bufferDescomprimido;
+    private long inicioJanela;
+    private long proximaPosicao;
+
+    // Linha atual (posições relativas à janela)
+    private int inicioLinha;
+    private int fimLinha;
+    private int[] inicioCampo = new int[8];
+    private int[] fimCampo = new int[8];
+    private int numeroCampos;
+
+    // Buffer reutilizado para decodificar as colunas de texto
+    private byte[] rascunho = new byte[256];
+
+    /**
+     * Abre o arquivo inteiro para leitura.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV
+     * @throws IOException Se o arquivo não puder ser aberto
+     */
+    public LeitorCsvMapeado(String caminhoArquivo) throws IOException {
+        this(Paths.get(caminhoArquivo), 0, -1);
+    }
+
+    /**
+     * Abre apenas o intervalo de bytes [inicio, fim) do arquivo.
+     * O intervalo deve começar no início de uma linha. Num log gzip, o
+     * intervalo é de posições do texto descomprimido.
+     *
+     * @param arquivo Caminho para o arquivo CSV
+     * @param inicio  Primeiro byte do intervalo
+     * @param fim     Byte final (exclusivo); -1 para ler até o final do arquivo
+     * @throws IOException Se o arquivo não puder ser aberto
+     */
+    public LeitorCsvMapeado(Path arquivo, long inicio, long fim) throws IOException {
+        if (ArquivoComprimido.ehComprimido(arquivo)) {
+            this.canal = null;
+            this.descomprimido = ArquivoComprimido.abrir(arquivo, inicio, fim);
+            this.fim = fim < 0 ? Long.MAX_VALUE : fim;
+            this.bufferDescomprimido = new byte[TAMANHO_JANELA_COMPRIMIDO];
+            try {
+                mapear(inicio);
+            } catch (IOException e) {
+                descomprimido.close();
+                throw e;
+            }
+            return;
+        }
+
+        this.canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+        this.descomprimido = null;
+        try {
+            this.fim = fim < 0 ? canal.size() : Math.min(fim, canal.size());
+            mapear(inicio);
+        } catch (IOException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    private void mapear(long posicao) throws IOException {
+        if (descomprimido != null) {
+            encher(posicao);
+            return;
+        }
+        long tamanho = Math.min(TAMANHO_JANELA, fim - posicao);
+        janela = canal.map(FileChannel.MapMode.READ_ONLY, posicao, Math.max(tamanho, 0));
+        inicioJanela = posicao;
+        proximaPosicao = posicao;
+    }
+
+    /**
+     * Janela do gzip: guarda o que já foi descomprimido a partir de
+     * {@code posicao} (o começo da linha que não coube) e completa o buffer
+     * com o texto seguinte. Se nem a linha inteira coube, o buffer dobra.
+     */
+    private void encher(long posicao) throws IOException {
+        byte[] buffer = bufferDescomprimido;
+        int mantidos = 0;
+        if (janela != null) {
+            int desde = (int) (posicao - inicioJanela);
+            mantidos = janela.limit() - desde;
+            if (desde == 0 && mantidos == buffer.length) {
+                if (buffer.length >= TAMANHO_JANELA) {
+                    throw new IOException("Linha maior que " + TAMANHO_JANELA + " bytes na posicao " + posicao);
+                }
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                bufferDescomprimido = buffer;
+            } else {
+                System.arraycopy(buffer, desde, buffer, 0, mantidos);
+            }
+        }
+
+        int limite = (int) Math.min(buffer.length, fim - posicao);
+        int lidos = mantidos;
+        while (lidos < limite) {
+            int n = descomprimido.read(buffer, lidos, limite - lidos);
+            if (n < 0) {
+                fim = posicao + lidos; // O texto acabou antes do fim pedido
+                break;
+            }
+            lidos += n;
+        }
+
+        janela = ByteBuffer.wrap(buffer, 0, lidos);
+        inicioJanela = posicao;
+        proximaPosicao = posicao;
+    }
+
+    /**
+     * Avança para a próxima linha não vazia e separa suas colunas.
+     *
+     * @return false quando não há mais linhas
+     * @throws IOException Se uma única linha não couber na janela mapeada
+     */
+    public boolean proximaLinha() throws IOException {
+        while (true) {
+            if (proximaPosicao >= fim) {
+                return false;
+            }
+
+            int posicao = (int) (proximaPosicao - inicioJanela);
+            int limite = janela.limit();
+
+            // Uma única passada: acha as vírgulas e a quebra de linha
+            numeroCampos = 0;
+            int inicioDoCampo = posicao;
+            int quebra = posicao;
+            while (quebra < limite) {
+                byte b = janela.get(quebra);
+                if (b == '\n') break;
+                if (b == ',') {
+                    registrarCampo(inicioDoCampo, quebra);
+                    inicioDoCampo = quebra + 1;
+                }
+                quebra++;
+            }
+
+            if (quebra == limite && inicioJanela + limite < fim) {
+                // A linha continua além da janela: remapeia a partir do início dela
+                if (posicao == 0 && descomprimido == null) {
+                    throw new IOException("Linha maior que " + TAMANHO_JANELA + " bytes na posicao " + proximaPosicao);
+                }
+                mapear(proximaPosicao);
+                continue;
+            }
+
+            inicioLinha = posicao;
+            fimLinha = quebra;
+            proximaPosicao = inicioJanela + Math.min(quebra + 1, limite);
+
+            // Ignora o '\r' de arquivos com quebra de linha do Windows
+            if (fimLinha > inicioLinha && janela.get(fimLinha - 1) == '\r') {
+                fimLinha--;
+            }
+
+            if (fimLinha > inicioLinha) {
+                registrarCampo(Math.min(inicioDoCampo, fimLinha), fimLinha);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Vai direto para a linha que começa em {@code posicao} e separa suas
+     * colunas (para ler linhas salteadas de um índice). No CSV a janela é
+     * remapeada se a posição estiver fora dela; no gzip só dá para ir
+     * adiante, então as posições devem vir em ordem crescente.
+     *
+     * @param posicao Posição (em bytes) do início de uma linha
+     * @return false se não há linha a partir da posição
+     * @throws IOException Se a posição ficou para trás num log gzip
+     */
+    boolean irPara(long posicao) throws IOException {
+        long fimJanela = inicioJanela + janela.limit();
+        if (posicao >= inicioJanela && posicao < fimJanela) {
+            proximaPosicao = posicao;
+        } else if (descomprimido == null) {
+            mapear(posicao);
+        } else if (posicao >= fimJanela) {
+            // Descarta o texto descomprimido até a posição
+            descomprimido.skipNBytes(Math.min(posicao, fim) - fimJanela);
+            janela = null;
+            encher(Math.min(posicao, fim));
+        } else {
+            throw new IOException("Posicao " + posicao + " anterior a janela do log comprimido");
+        }
+        return proximaLinha();
+    }
+
+    private void registrarCampo(int inicio, int fim) {
+        if (numeroCampos == inicioCampo.length) {
+            inicioCampo = Arrays.copyOf(inicioCampo, numeroCampos * 2);
+            fimCampo = Arrays.copyOf(fimCampo, numeroCampos * 2);
+        }
+        inicioCampo[numeroCampos] = inicio;
+        fimCampo[numeroCampos] = fim;
+        numeroCampos++;
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // INFORMAÇÕES DA LINHA ATUAL
+    // ═══════════════════════════════════════════════════════════════
+
+    /** @return Número de colunas, contando as vazias (como split(",", -1)) */
+    public int numeroCampos() {
+        return numeroCampos;
+    }
+
+    /** @return Número de colunas sem as vazias do final (como split(",")) */
+    public int numeroCamposPreenchidos() {
+        int n = numeroCampos;
+        while (n > 0 && inicioCampo[n - 1] == fimCampo[n - 1]) {
+            n--;
+        }
+        return n;
+    }
+
+    /** @return Posição (em bytes) do início da linha atual no arquivo */
+    public long posicaoLinha() {
+        return inicioJanela + inicioLinha;
+    }
+
+    /** @return Posição (em bytes) no arquivo onde começa a próxima linha */
+    public long posicaoProximaLinha() {
+        return proximaPosicao;
+    }
+
+    /** @return true se a linha só tem espaços */
+    public boolean linhaEmBranco() {
+        for (int i = inicioLinha; i < fimLinha; i++) {
+            if (!ehEspaco(janela.get(i))) return false;
+        }
+        return true;
+    }
+
+    /** @return true se a linha começa com o prefixo (somente ASCII) */
+    public boolean linhaComecaCom(String prefixo) {
+        if (fimLinha - inicioLinha < prefixo.length()) return false;
+        for (int i = 0; i < prefixo.length(); i++) {
+            if (janela.get(inicioLinha + i) != prefixo.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /** @return A linha atual como texto (usado em mensagens de erro) */
+    public String linhaComoTexto() {
+        return decodificar(inicioLinha, fimLinha);
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // LEITURA DAS COLUNAS
+    // ═══════════════════════════════════════════════════════════════
+
+    /** @return true se a coluna está vazia (ou só tem espaços) */
+    public boolean campoVazio(int indice) {
+        verificarIndice(indice);
+        return inicioAparado(indice) == fimAparado(indice);
+    }
+
+    /**
+     * Lê a coluna como texto, sem os espaços das pontas (como trim()).
+     */
+    public String campoTexto(int indice) {
+        verificarIndice(indice);
+        return decodificar(inicioAparado(indice), fimAparado(indice));
+    }
+
+    /**
+     * @return true se a coluna tem espaços no início ou no fim (o valor
+     *         aparado é diferente do original)
+     */
+    public boolean temEspacosNasPontas(int indice) {
+        verificarIndice(indice);
+        return inicioAparado(indice) != inicioCampo[indice] || fimAparado(indice) != fimCampo[indice];
+    }
+
+    /**
+     * Lê a coluna como texto exatamente como está na linha, com os espaços
+     * das pontas (como o split(",") sem trim()).
+     */
+    public String campoTextoOriginal(int indice) {
+        verificarIndice(indice);
+        return decodificar(inicioCampo[indice], fimCampo[indice]);
+    }
+
+    /**
+     * Converte a coluna para long direto dos bytes, sem criar String.
+     *
+     * @throws NumberFormatException Se a coluna não for um número válido
+     */
+    public long campoLong(int indice) {
+        verificarIndice(indice);
+        int inicio = inicioAparado(indice);
+        int fim = fimAparado(indice);
+
+        boolean negativo = false;
+        int i = inicio;
+        if (i < fim && (janela.get(i) == '-' || janela.get(i) == '+')) {
+            negativo = janela.get(i) == '-';
+            i++;
+        }
+
+        // Mais de 18 dígitos pode estourar: deixa o Long.parseLong decidir
+        if (i == fim || fim - i > 18) {
+            return Long.parseLong(decodificar(inicio, fim));
+        }
+
+        long valor = 0;
+        for (; i < fim; i++) {
+            int digito = janela.get(i) - '0';
+            if (digito < 0 || digito > 9) {
+                // Fora de 0-9 (inclusive dígitos Unicode): quem decide é o Long.parseLong
+                return Long.parseLong(decodificar(inicio, fim));
+            }
+            valor = valor * 10 + digito;
+        }
+        return negativo ? -valor : valor;
+    }
+
+    /**
+     * Converte a coluna para int direto dos bytes, sem criar String.
+     *
+     * @throws NumberFormatException Se a coluna não for um int válido
+     */
+    public int campoInt(int indice) {
+        long valor = campoLong(indice);
+        if (valor < Integer.MIN_VALUE || valor > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Valor fora do intervalo de int: " + valor);
+        }
+        return (int) valor;
+    }
+
+    /**
+     * Hash dos bytes da coluna (sem os espaços das pontas), usado pelo
+     * {@link Dicionario} para achar o id sem criar uma String.
+     */
+    public int hashCampo(int indice) {
+        verificarIndice(indice);
+        int fim = fimAparado(indice);
+        int hash = 1;
+        for (int i = inicioAparado(indice); i < fim; i++) {
+            hash = 31 * hash + janela.get(i);
+        }
+        return hash;
+    }
+
+    /** @return true se os bytes da coluna (sem espaços nas pontas) são iguais a {@code valor} */
+    public boolean campoIgual(int indice, byte[] valor) {
+        verificarIndice(indice);
+        int inicio = inicioAparado(indice);
+        if (fimAparado(indice) - inicio != valor.length) return false;
+        for (int i = 0; i < valor.length; i++) {
+            if (janela.get(inicio + i) != valor[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return true se a coluna (sem espaços nas pontas) é igual a {@code valor}.
+     *         Texto só com ASCII é comparado char a char, sem criar o byte[].
+     */
+    public boolean campoIgual(int indice, String valor) {
+        verificarIndice(indice);
+        int inicio = inicioAparado(indice);
+        int tamanho = fimAparado(indice) - inicio;
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c >= 0x80) {
+                return campoIgual(indice, valor.getBytes(StandardCharsets.UTF_8));
+            }
+            if (i >= tamanho || janela.get(inicio + i) != c) return false;
+        }
+        return tamanho == valor.length();
+    }
+
+    /** @return Número de bytes da coluna, sem os espaços das pontas */
+    int tamanhoCampo(int indice) {
+        verificarIndice(indice);
+        return fimAparado(indice) - inicioAparado(indice);
+    }
+
+    /**
+     * Copia os bytes da coluna (sem os espaços das pontas) para o início de
+     * {@code destino}, que precisa ter pelo menos {@link #tamanhoCampo(int)} posições.
+     */
+    void copiarCampo(int indice, byte[] destino) {
+        verificarIndice(indice);
+        int inicio = inicioAparado(indice);
+        janela.get(inicio, destino, 0, fimAparado(indice) - inicio);
+    }
+
+    private void verificarIndice(int indice) {
+        if (indice < 0 || indice >= numeroCampos) {
+            throw new ArrayIndexOutOfBoundsException("Coluna " + indice + " inexistente (linha com " + numeroCampos + " colunas)");
+        }
+    }
+
+    private int inicioAparado(int indice) {
+        int inicio = inicioCampo[indice];
+        int fim = fimCampo[indice];
+        while (inicio < fim && ehEspaco(janela.get(inicio))) inicio++;
+        return inicio;
+    }
+
+    // Para no início aparado: coluna só de espaços vira [inicio, inicio)
+    private int fimAparado(int indice) {
+        int inicio = inicioAparado(indice);
+        int fim = fimCampo[indice];
+        while (fim > inicio && ehEspaco(janela.get(fim - 1))) fim--;
+        return fim;
+    }
+
+    /**
+     * Mesma regra do trim(): espaço é qualquer caractere até ' '. A
+     * comparação é sem sinal, senão os bytes de UTF-8 (0x80 em diante, que
+     * são negativos em Java) também seriam cortados.
+     */
+    private static boolean ehEspaco(byte b) {
+        return (b & 0xFF) <= ' ';
+    }
+
+    private String decodificar(int inicio, int fim) {
+        int tamanho = fim - inicio;
+        if (tamanho > rascunho.length) {
+            rascunho = new byte[Math.max(tamanho, rascunho.length * 2)];
+        }
+        janela.get(inicio, rascunho, 0, tamanho);
+        return new String(rascunho, 0, tamanho, StandardCharsets.UTF_8);
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // DIVISÃO EM BLOCOS (LEITURA PARALELA)
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * Divide o intervalo [inicio, fim do arquivo) em até {@code partes} blocos
+     * de tamanho parecido, cada um começando no início de uma linha.
+     * Cada bloco pode ser lido por um {@link #LeitorCsvMapeado(Path, long, long)}
+     * separado, em paralelo.
+     *
+     * @param arquivo Caminho para o arquivo CSV
+     * @param inicio  Posição do início da primeira linha a dividir
+     * @param partes  Número desejado de blocos
+     * @return Limites dos blocos: o bloco i é [limites[i], limites[i + 1])
+     * @throws IOException Se o arquivo não puder ser lido
+     */
+    public static long[] dividirEmBlocos(Path arquivo, long inicio, int partes) throws IOException {
+        if (ArquivoComprimido.ehComprimido(arquivo)) {
+            return ArquivoComprimido.dividirEmBlocos(arquivo, inicio, partes);
+        }
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            long tamanho = canal.size();
+            long passo = Math.max(1, (tamanho - inicio) / Math.max(1, partes));
+
+            long[] limites = new long[partes + 1];
+            int quantidade = 0;
+            limites[quantidade++] = Math.min(inicio, tamanho);
+
+            ByteBuffer buffer = ByteBuffer.allocate(4096);
+            for (int i = 1; i < partes; i++) {
+                long alvo = Math.max(inicio + i * passo, limites[quantidade - 1]);
+                if (alvo >= tamanho) break;
+
+                // Avança até logo depois da próxima quebra de linha
+                long limite = proximaQuebra(canal, alvo, buffer);
+                if (limite >= tamanho) break;
+                if (limite > limites[quantidade - 1]) {
+                    limites[quantidade++] = limite;
+                }
+            }
+            limites[quantidade++] = tamanho;
+            return Arrays.copyOf(limites, quantidade);
+        }
+    }
+
+    private static long proximaQuebra(FileChannel canal, long posicao, ByteBuffer buffer) throws IOException {
+        // Se o byte anterior já é uma quebra, a posição já é início de linha
+        if (posicao > 0) {
+            buffer.clear().limit(1);
+            canal.read(buffer, posicao - 1);
+            if (buffer.get(0) == '\n') return posicao;
+        }
+        while (true) {
+            buffer.clear();
+            int lidos = canal.read(buffer, posicao);
+            if (lidos <= 0) return canal.size();
+            for (int i = 0; i < lidos; i++) {
+                if (buffer.get(i) == '\n') return posicao + i + 1;
+            }
+            posicao += lidos;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (descomprimido != null) {
+            descomprimido.close();
+        } else {
+            canal.close();
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // CONFERÊNCIA
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * Confere as colunas lidas pelo leitor com o split(",") + trim() das
+     * versões antigas, em linhas com colunas em branco e com texto fora do
+     * ASCII (UTF-8). Sem argumentos usa as linhas de exemplo abaixo; com um
+     * argumento confere todas as linhas daquele CSV.
+     */
+    public static void main(String[] args) {
+        System.out.println("===========================================================");
+        System.out.println("=       LEITOR CSV MAPEADO: CONFERENCIA COM O SPLIT       =");
+        System.out.println("===========================================================\n");
+
+        try {
+            Path arquivo;
+            boolean temporario = args.length == 0;
+            if (temporario) {
+                arquivo = Files.createTempFile("leitor-csv-", ".csv");
+                Files.write(arquivo, Arrays.asList(
+                    "TIMESTAMP,USER_ID,SESSION_ID,ACTION_TYPE,TARGET_RESOURCE,SEVERITY_LEVEL,BYTES_TRANSFERRED",
+                    "1,u1, ,LOGIN,/a,5,10",
+                    "2,u1,s1,READ,/b, ,20",
+                    "8,u3,s3,READ,/e,9, ",
+                    "3,josé,sé,READ,/relatórios/ação,4,30",
+                    "4,u2,s2,READ,/x,١,٤٠",
+                    "5,u2, s2 ,READ, /y ,\t7\t, 50 ",
+                    "   ",
+                    "6,\u00a0u4\u00a0,s4,READ,/z,1,1"), StandardCharsets.UTF_8);
+            } else {
+                arquivo = Paths.get(args[0]);
+            }
+
+            long linhas = 0;
+            long divergencias = 0;
+            try (LeitorCsvMapeado leitor = new LeitorCsvMapeado(arquivo, 0, -1);
+                 BufferedReader br = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+                String linha;
+                while ((linha = br.readLine()) != null) {
+                    if (linha.isEmpty()) continue;
+                    if (!leitor.proximaLinha()) {
+                        System.out.println("Linha sem par no leitor: " + linha);
+                        divergencias++;
+                        break;
+                    }
+                    linhas++;
+                    divergencias += conferirLinha(leitor, linha);
+                }
+            } finally {
+                if (temporario) Files.deleteIfExists(arquivo);
+            }
+
+            System.out.println("Linhas conferidas: " + linhas);
+            System.out.println("Divergencias: " + divergencias);
+            System.out.println(divergencias == 0 ? "OK" : "FALHOU");
+            System.out.println("===========================================================");
+
+        } catch (IOException e) {
+            System.err.println("Erro ao ler o arquivo: " + e.getMessage());
+        }
+    }
+
+    private static int conferirLinha(LeitorCsvMapeado leitor, String linha) {
+        int divergencias = 0;
+        if (leitor.linhaEmBranco() != linha.trim().isEmpty()) {
+            System.out.println("linhaEmBranco diverge: \"" + linha + "\"");
+            divergencias++;
+        }
+        String[] partes = linha.split(",");
+        if (leitor.numeroCamposPreenchidos() != partes.length) {
+            System.out.println("Numero de colunas diverge: \"" + linha + "\"");
+            divergencias++;
+        }
+        for (int i = 0; i < partes.length && i < leitor.numeroCampos(); i++) {
+            String esperado = partes[i].trim();
+            String numeroEsperado;
+            try {
+                numeroEsperado = String.valueOf(Long.parseLong(esperado));
+            } catch (NumberFormatException e) {
+                numeroEsperado = "invalido";
+            }
+            String numeroLido;
+            try {
+                numeroLido = String.valueOf(leitor.campoLong(i));
+            } catch (NumberFormatException e) {
+                numeroLido = "invalido";
+            }
+            if (!leitor.campoTexto(i).equals(esperado)
+                    || leitor.campoVazio(i) != esperado.isEmpty()
+                    || !numeroLido.equals(numeroEsperado)) {
+                System.out.println("Coluna " + i + " diverge: \"" + linha + "\" (texto \""
+                    + leitor.campoTexto(i) + "\", numero " + numeroLido + ", esperado \""
+                    + esperado + "\", " + numeroEsperado + ")");
+                divergencias++;
+            }
+        }
+        return divergencias;
+    }
+}
@@ -0,0 +1,311 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lote de Alertas em colunas (struct-of-arrays)
+ *
+ * Um {@link Alerta} é um objeto com quatro Strings e dois longs: por volta de
+ * 200 bytes por evento contando os cabeçalhos e as Strings repetidas. Aqui
+ * cada alerta é uma POSIÇÃO em arrays primitivos:
+ * - TIMESTAMP, SEVERITY_LEVEL e BYTES_TRANSFERRED como long/int
+ * - USER_ID, SESSION_ID, ACTION_TYPE e TARGET_RESOURCE como ids de um
+ *   {@link Dicionario} do lote (cada texto distinto é guardado uma vez)
+ *
+ * São 36 bytes por posição. O objeto Alerta só é criado quando alguém pede
+ * ({@link #alerta(int)} ou a {@link Lista}).
+ *
+ * Um lote pode ter dicionários próprios (leitura do CSV) ou usar os de um
+ * {@link RepositorioEventos}: aí as linhas entram só com os ids que o
+ * repositório já tem, sem nenhuma cópia de texto.
+ *
+ * As posições podem ser reescritas ({@link #escrever}), o que permite ao top
+ * N reaproveitar a posição do alerta que saiu do ranking.
+ */
+public class LoteAlertas {
+
+    private final Dicionario usuarios;
+    private final Dicionario sessoes;
+    private final Dicionario acoes;
+    private final Dicionario recursos;
+    private final boolean dicionariosProprios;
+
+    private long[] timestamps;
+    private int[] severidades;
+    private long[] bytes;
+    private int[] idsUsuario;
+    private int[] idsSessao;
+    private int[] idsAcao;
+    private int[] idsRecurso;
+    private int tamanho;
+
+    /** Lote com dicionários próprios */
+    public LoteAlertas(int capacidadeInicial) {
+        this(capacidadeInicial, new Dicionario(64), new Dicionario(256), new Dicionario(16), new Dicionario(256), true);
+    }
+
+    /** Lote que usa os dicionários do repositório (só aceita linhas dele) */
+    public LoteAlertas(int capacidadeInicial, RepositorioEventos repositorio) {
+        this(capacidadeInicial, repositorio.usuarios(), repositorio.sessoes(), repositorio.acoes(),
+                repositorio.recursos(), false);
+    }
+
+    private LoteAlertas(int capacidadeInicial, Dicionario usuarios, Dicionario sessoes, Dicionario acoes,
+                        Dicionario recursos, boolean dicionariosProprios) {
+        this.usuarios = usuarios;
+        this.sessoes = sessoes;
+        this.acoes = acoes;
+        this.recursos = recursos;
+        this.dicionariosProprios = dicionariosProprios;
+        int capacidade = Math.max(capacidadeInicial, 1);
+        timestamps = new long[capacidade];
+        severidades = new int[capacidade];
+        bytes = new long[capacidade];
+        idsUsuario = new int[capacidade];
+        idsSessao = new int[capacidade];
+        idsAcao = new int[capacidade];
+        idsRecurso = new int[capacidade];
+    }
+
+    /** @return Número de posições ocupadas */
+    public int tamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Acrescenta um alerta no fim do lote.
+     *
+     * @return Posição do alerta
+     */
+    public int adicionar(long timestamp, String userId, String sessionId, String actionType,
+                         String targetResource, int severityLevel, long bytesTransferred) {
+        int posicao = novaPosicao();
+        escrever(posicao, timestamp, userId, sessionId, actionType, targetResource, severityLevel, bytesTransferred);
+        return posicao;
+    }
+
+    /** @return Uma posição nova no fim do lote (com conteúdo indefinido até ser escrita) */
+    int novaPosicao() {
+        if (tamanho == timestamps.length) {
+            int capacidade = tamanho * 2;
+            timestamps = Arrays.copyOf(timestamps, capacidade);
+            severidades = Arrays.copyOf(severidades, capacidade);
+            bytes = Arrays.copyOf(bytes, capacidade);
+            idsUsuario = Arrays.copyOf(idsUsuario, capacidade);
+            idsSessao = Arrays.copyOf(idsSessao, capacidade);
+            idsAcao = Arrays.copyOf(idsAcao, capacidade);
+            idsRecurso = Arrays.copyOf(idsRecurso, capacidade);
+        }
+        return tamanho++;
+    }
+
+    /** Reescreve a posição com os campos de um alerta. */
+    void escrever(int posicao, long timestamp, String userId, String sessionId, String actionType,
+                  String targetResource, int severityLevel, long bytesTransferred) {
+        exigirDicionariosProprios();
+        timestamps[posicao] = timestamp;
+        severidades[posicao] = severityLevel;
+        bytes[posicao] = bytesTransferred;
+        idsUsuario[posicao] = usuarios.adicionar(userId);
+        idsSessao[posicao] = sessoes.adicionar(sessionId);
+        idsAcao[posicao] = acoes.adicionar(actionType);
+        idsRecurso[posicao] = recursos.adicionar(targetResource);
+    }
+
+    /**
+     * Reescreve a posição com a linha atual do leitor: as colunas de texto
+     * (1 a 4) vão direto dos bytes para o dicionário, sem criar String se o
+     * valor já existe.
+     */
+    void escrever(int posicao, LeitorCsvMapeado leitor, long timestamp, int severityLevel, long bytesTransferred) {
+        exigirDicionariosProprios();
+        timestamps[posicao] = timestamp;
+        severidades[posicao] = severityLevel;
+        bytes[posicao] = bytesTransferred;
+        idsUsuario[posicao] = usuarios.adicionar(leitor, 1);
+        idsSessao[posicao] = sessoes.adicionar(leitor, 2);
+        idsAcao[posicao] = acoes.adicionar(leitor, 3);
+        idsRecurso[posicao] = recursos.adicionar(leitor, 4);
+    }
+
+    /** Reescreve a posição com uma linha completa do repositório dos dicionários deste lote. */
+    void escrever(int posicao, RepositorioEventos repositorio, int linha) {
+        if (repositorio.sessoes() != sessoes) {
+            throw new IllegalArgumentException("O lote usa os dicionarios de outro repositorio");
+        }
+        timestamps[posicao] = repositorio.getTimestamp(linha);
+        severidades[posicao] = repositorio.getSeveridade(linha);
+        bytes[posicao] = repositorio.getBytes(linha);
+        idsUsuario[posicao] = repositorio.getUsuario(linha);
+        idsSessao[posicao] = repositorio.getSessao(linha);
+        idsAcao[posicao] = repositorio.getAcao(linha);
+        idsRecurso[posicao] = repositorio.getRecurso(linha);
+    }
+
+    /** Copia a posição de outro lote para a posição deste. */
+    void escrever(int posicao, LoteAlertas origem, int posicaoOrigem) {
+        if (origem.sessoes == sessoes) {
+            // Mesmos dicionários: basta copiar os ids
+            timestamps[posicao] = origem.timestamps[posicaoOrigem];
+            severidades[posicao] = origem.severidades[posicaoOrigem];
+            bytes[posicao] = origem.bytes[posicaoOrigem];
+            idsUsuario[posicao] = origem.idsUsuario[posicaoOrigem];
+            idsSessao[posicao] = origem.idsSessao[posicaoOrigem];
+            idsAcao[posicao] = origem.idsAcao[posicaoOrigem];
+            idsRecurso[posicao] = origem.idsRecurso[posicaoOrigem];
+            return;
+        }
+        escrever(posicao, origem.getTimestamp(posicaoOrigem), origem.getUserId(posicaoOrigem),
+                origem.getSessionId(posicaoOrigem), origem.getActionType(posicaoOrigem),
+                origem.getTargetResource(posicaoOrigem), origem.getSeverityLevel(posicaoOrigem),
+                origem.getBytesTransferred(posicaoOrigem));
+    }
+
+    private void exigirDicionariosProprios() {
+        // Os dicionários de um repositório não podem ganhar valores novos
+        if (!dicionariosProprios) {
+            throw new IllegalStateException("Lote com os dicionarios do repositorio so aceita linhas dele");
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // ACESSO POR POSIÇÃO
+    // ═══════════════════════════════════════════════════════════════
+
+    public long getTimestamp(int posicao) {
+        return timestamps[posicao];
+    }
+
+    public int getSeverityLevel(int posicao) {
+        return severidades[posicao];
+    }
+
+    public long getBytesTransferred(int posicao) {
+        return bytes[posicao];
+    }
+
+    public String getUserId(int posicao) {
+        return usuarios.valor(idsUsuario[posicao]);
+    }
+
+    public String getSessionId(int posicao) {
+        return sessoes.valor(idsSessao[posicao]);
+    }
+
+    public String getActionType(int posicao) {
+        return acoes.valor(idsAcao[posicao]);
+    }
+
+    public String getTargetResource(int posicao) {
+        return recursos.valor(idsRecurso[posicao]);
+    }
+
+    /** @return Um Alerta novo com os campos da posição */
+    public Alerta alerta(int posicao) {
+        return new Alerta(getTimestamp(posicao), getUserId(posicao), getSessionId(posicao), getActionType(posicao),
+                getTargetResource(posicao), getSeverityLevel(posicao), getBytesTransferred(posicao));
+    }
+
+    /**
+     * Mesma ordem de {@link Desafio3_PriorizarAlertas#PRIORIDADE}, sem criar
+     * os Alertas.
+     * Ids iguais no dicionário são textos iguais, então a comparação de
+     * Strings só acontece quando os ids diferem.
+     *
+     * @return Negativo se a posição {@code a} é mais prioritária que {@code b}
+     */
+    int comparar(int a, int b) {
+        int resultado = Integer.compare(severidades[b], severidades[a]);
+        if (resultado != 0) return resultado;
+        resultado = Long.compare(timestamps[a], timestamps[b]);
+        if (resultado != 0) return resultado;
+        resultado = compararTexto(usuarios, idsUsuario[a], idsUsuario[b]);
+        if (resultado != 0) return resultado;
+        resultado = compararTexto(sessoes, idsSessao[a], idsSessao[b]);
+        if (resultado != 0) return resultado;
+        resultado = compararTexto(acoes, idsAcao[a], idsAcao[b]);
+        if (resultado != 0) return resultado;
+        resultado = compararTexto(recursos, idsRecurso[a], idsRecurso[b]);
+        if (resultado != 0) return resultado;
+        return Long.compare(bytes[a], bytes[b]);
+    }
+
+    private static int compararTexto(Dicionario dicionario, int idA, int idB) {
+        return idA == idB ? 0 : dicionario.valor(idA).compareTo(dicionario.valor(idB));
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // LISTA SOB DEMANDA
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * Lista (somente leitura) de posições do lote, numa ordem dada.
+     *
+     * Cada Alerta é criado na primeira vez que é pedido e guardado, então
+     * get(i) devolve sempre o mesmo objeto. A lista pode ser lida por várias
+     * threads ao mesmo tempo: o Alerta é publicado com compareAndSet e, se
+     * duas threads criarem o mesmo, todas ficam com o que entrou primeiro.
+     * Quem só precisa dos campos pode usar os getters por índice, que não
+     * criam nada.
+     */
+    public static final class Lista extends AbstractList<Alerta> implements RandomAccess {
+        /** Lista sem alertas (compartilhada: é somente leitura) */
+        static final Lista VAZIA = new Lista(new LoteAlertas(1), new int[0]);
+
+        private final LoteAlertas lote;
+        private final int[] posicoes;
+        private final AtomicReferenceArray<Alerta> criados;
+
+        Lista(LoteAlertas lote, int[] posicoes) {
+            this.lote = lote;
+            this.posicoes = posicoes;
+            this.criados = new AtomicReferenceArray<>(posicoes.length);
+        }
+
+        @Override
+        public Alerta get(int indice) {
+            Objects.checkIndex(indice, posicoes.length);
+            Alerta alerta = criados.get(indice);
+            if (alerta == null) {
+                Alerta novo = lote.alerta(posicoes[indice]);
+                alerta = criados.compareAndSet(indice, null, novo) ? novo : criados.get(indice);
+            }
+            return alerta;
+        }
+
+        @Override
+        public int size() {
+            return posicoes.length;
+        }
+
+        public long getTimestamp(int indice) {
+            return lote.getTimestamp(posicoes[indice]);
+        }
+
+        public int getSeverityLevel(int indice) {
+            return lote.getSeverityLevel(posicoes[indice]);
+        }
+
+        public long getBytesTransferred(int indice) {
+            return lote.getBytesTransferred(posicoes[indice]);
+        }
+
+        public String getUserId(int indice) {
+            return lote.getUserId(posicoes[indice]);
+        }
+
+        public String getSessionId(int indice) {
+            return lote.getSessionId(posicoes[indice]);
+        }
+
+        public String getActionType(int indice) {
+            return lote.getActionType(posicoes[indice]);
+        }
+
+        public String getTargetResource(int indice) {
+            return lote.getTargetResource(posicoes[indice]);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+import java.util.*;
+
+/**
+ * Mapa long → long com endereçamento aberto (sondagem linear)
+ *
+ * Chaves e valores ficam em dois long[] paralelos, sem criar um Long nem
+ * um nó por entrada como o HashMap&lt;Long, Long&gt;. Os métodos primitivos
+ * ({@link #colocar}, {@link #valorDe}, {@link #contemChave}) não alocam nada.
+ *
+ * Também é um {@code Map<Long, Long>} (via AbstractMap) para poder ser
+ * devolvido nas assinaturas existentes; nesse caso os valores são
+ * convertidos para Long só quando alguém os lê. Como o HashMap que ele
+ * substitui, o mapa é modificável por completo: remove, clear,
+ * Entry.setValue e Iterator.remove. Uma chave removida deixa uma marca
+ * (a sondagem continua por ela) que é limpa quando a tabela é refeita.
+ */
+public class MapaLongLong extends AbstractMap<Long, Long> {
+
+    // Estado de cada posição da tabela
+    private static final byte LIVRE = 0;
+    private static final byte OCUPADO = 1;
+    private static final byte REMOVIDO = 2;
+
+    private long[] chaves;
+    private long[] valores;
+    private byte[] estado;
+    private int tamanho;
+    private int removidos;
+    private int mascara;
+
+    public MapaLongLong() {
+        this(16);
+    }
+
+    public MapaLongLong(int capacidadeEsperada) {
+        int capacidade = Integer.highestOneBit(Math.max(capacidadeEsperada, 4) * 2 - 1) * 2;
+        alocar(capacidade);
+    }
+
+    private void alocar(int capacidade) {
+        chaves = new long[capacidade];
+        valores = new long[capacidade];
+        estado = new byte[capacidade];
+        mascara = capacidade - 1;
+        removidos = 0;
+    }
+
+    private static int misturar(long chave) {
+        long h = chave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /** @return Posição da chave, ou -1 se ela não existir */
+    private int posicaoDe(long chave) {
+        int posicao = misturar(chave) & mascara;
+        while (estado[posicao] != LIVRE) {
+            if (estado[posicao] == OCUPADO && chaves[posicao] == chave) return posicao;
+            posicao = (posicao + 1) & mascara;
+        }
+        return -1;
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // OPERAÇÕES PRIMITIVAS (SEM BOXING)
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * Associa o valor à chave, sobrescrevendo o valor anterior (como put()).
+     */
+    public void colocar(long chave, long valor) {
+        int posicao = posicaoDe(chave);
+        if (posicao < 0) {
+            // Marcas de remoção também alongam a sondagem: contam para refazer a tabela
+            if ((tamanho + removidos + 1) * 4 > chaves.length * 3) {
+                refazer();
+            }
+            posicao = misturar(chave) & mascara;
+            while (estado[posicao] == OCUPADO) {
+                posicao = (posicao + 1) & mascara;
+            }
+            if (estado[posicao] == REMOVIDO) removidos--;
+            estado[posicao] = OCUPADO;
+            chaves[posicao] = chave;
+            tamanho++;
+        }
+        valores[posicao] = valor;
+    }
+
+    /** @return O valor da chave, ou {@code padrao} se ela não existir */
+    public long valorDe(long chave, long padrao) {
+        int posicao = posicaoDe(chave);
+        return posicao >= 0 ? valores[posicao] : padrao;
+    }
+
+    public boolean contemChave(long chave) {
+        return posicaoDe(chave) >= 0;
+    }
+
+    /**
+     * Remove a chave (como remove()).
+     *
+     * @return true se ela existia
+     */
+    public boolean remover(long chave) {
+        int posicao = posicaoDe(chave);
+        if (posicao < 0) return false;
+        removerPosicao(posicao);
+        return true;
+    }
+
+    private void removerPosicao(int posicao) {
+        estado[posicao] = REMOVIDO;
+        tamanho--;
+        removidos++;
+    }
+
+    /**
+     * Copia as entradas para uma tabela nova, sem as marcas de remoção.
+     * Dobra de tamanho só se o mapa estiver de fato cheio.
+     */
+    private void refazer() {
+        long[] chavesAntigas = chaves;
+        long[] valoresAntigos = valores;
+        byte[] estadoAntigo = estado;
+        alocar((tamanho + 1) * 2 > chaves.length ? chaves.length * 2 : chaves.length);
+        for (int i = 0; i < chavesAntigas.length; i++) {
+            if (estadoAntigo[i] == OCUPADO) {
+                int posicao = misturar(chavesAntigas[i]) & mascara;
+                while (estado[posicao] != LIVRE) {
+                    posicao = (posicao + 1) & mascara;
+                }
+                estado[posicao] = OCUPADO;
+                chaves[posicao] = chavesAntigas[i];
+                valores[posicao] = valoresAntigos[i];
+            }
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // VISÃO COMO Map<Long, Long>
+    // ═══════════════════════════════════════════════════════════════
+
+    @Override
+    public int size() {
+        return tamanho;
+    }
+
+    @Override
+    public boolean containsKey(Object chave) {
+        return chave instanceof Long && contemChave((Long) chave);
+    }
+
+    @Override
+    public Long get(Object chave) {
+        if (!(chave instanceof Long)) return null;
+        int posicao = posicaoDe((Long) chave);
+        return posicao >= 0 ? valores[posicao] : null;
+    }
+
+    @Override
+    public Long put(Long chave, Long valor) {
+        Long anterior = get(chave);
+        colocar(chave, valor);
+        return anterior;
+    }
+
+    @Override
+    public Long remove(Object chave) {
+        if (!(chave instanceof Long)) return null;
+        int posicao = posicaoDe((Long) chave);
+        if (posicao < 0) return null;
+        long anterior = valores[posicao];
+        removerPosicao(posicao);
+        return anterior;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(estado, LIVRE);
+        tamanho = 0;
+        removidos = 0;
+    }
+
+    @Override
+    public Set<Map.Entry<Long, Long>> entrySet() {
+        return new AbstractSet<Map.Entry<Long, Long>>() {
+            @Override
+            public int size() {
+                return tamanho;
+            }
+
+            @Override
+            public Iterator<Map.Entry<Long, Long>> iterator() {
+                // Remover não refaz a tabela: as posições seguintes não mudam durante a iteração
+                return new Iterator<Map.Entry<Long, Long>>() {
+                    private int posicao = proximaOcupada(0);
+                    private int ultima = -1;
+
+                    private int proximaOcupada(int inicio) {
+                        while (inicio < estado.length && estado[inicio] != OCUPADO) inicio++;
+                        return inicio;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return posicao < estado.length;
+                    }
+
+                    @Override
+                    public Map.Entry<Long, Long> next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        ultima = posicao;
+                        posicao = proximaOcupada(posicao + 1);
+                        return new Entrada(ultima);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (ultima < 0 || estado[ultima] != OCUPADO) throw new IllegalStateException();
+                        removerPosicao(ultima);
+                        ultima = -1;
+                    }
+                };
+            }
+
+            @Override
+            public void clear() {
+                MapaLongLong.this.clear();
+            }
+        };
+    }
+
+    /** Entrada do entrySet: setValue grava direto na tabela */
+    private final class Entrada extends AbstractMap.SimpleEntry<Long, Long> {
+        private static final long serialVersionUID = 1L;
+        private final int posicao;
+
+        Entrada(int posicao) {
+            super(chaves[posicao], valores[posicao]);
+            this.posicao = posicao;
+        }
+
+        @Override
+        public Long setValue(Long valor) {
+            valores[posicao] = valor;
+            return super.setValue(valor);
+        }
+    }
+}
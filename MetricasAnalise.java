@@ -0,0 +1,425 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Métricas das Análises (contadores, histogramas e eventos JFR)
+ *
+ * Cada análise ("desafio1" ... "desafio5", "repositorio", "servico") mede
+ * as suas fases:
+ * - LEITURA: abrir/mapear o log (ou carregar o repositório inteiro)
+ * - CONVERSAO: percorrer as linhas e converter os campos (no CSV mapeado a
+ *   leitura dos bytes e a conversão acontecem no mesmo laço)
+ * - CONSTRUCAO: montar a estrutura da análise (pilha, heap, grafo)
+ * - CONSULTA: responder a uma pergunta sobre a estrutura pronta
+ *
+ * Por fase são acumulados: execuções, tempo, linhas, bytes e linhas
+ * rejeitadas (daí linhas/s e bytes/s) e um histograma de latência em
+ * potências de 2 (p50, p90, p99). Por estrutura é guardado o maior tamanho
+ * visto (profundidade da pilha, tamanho do heap, vértices, arestas).
+ *
+ * O custo é fixo por fase medida (nada é feito por linha), então as
+ * métricas ficam sempre ligadas. Cada fase também vira um evento JFR
+ * (forense.FaseAnalise, forense.EstruturaAnalise), visível numa gravação
+ * com -XX:StartFlightRecording. Com -Dforense.metricas.json=arquivo.json o
+ * relatório JSON é gravado ao final da JVM.
+ *
+ * Uso:
+ * <pre>
+ *   try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.CONVERSAO)) {
+ *       ... laço das linhas ...
+ *       medicao.linhas(lidas).rejeitadas(ignoradas).bytes(tamanhoArquivo);
+ *   }
+ * </pre>
+ */
+public final class MetricasAnalise {
+
+    public enum Fase { LEITURA, CONVERSAO, CONSTRUCAO, CONSULTA }
+
+    /** Faixas do histograma: a faixa b guarda durações em [2^(b-1), 2^b) ns */
+    private static final int FAIXAS = 64;
+
+    private static final Map<String, MetricasAnalise> REGISTRO = new ConcurrentHashMap<>();
+
+    static {
+        String destino = System.getProperty("forense.metricas.json");
+        if (destino != null && !destino.isEmpty()) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    salvarJson(Path.of(destino));
+                } catch (IOException e) {
+                    System.err.println("Erro ao gravar as metricas: " + e.getMessage());
+                }
+            }, "metricas-json"));
+        }
+    }
+
+    private final String analise;
+    private final EstatisticaFase[] fases = new EstatisticaFase[Fase.values().length];
+    private final Map<String, LongAccumulator> picos = new ConcurrentHashMap<>();
+
+    private MetricasAnalise(String analise) {
+        this.analise = analise;
+        for (int i = 0; i < fases.length; i++) {
+            fases[i] = new EstatisticaFase();
+        }
+    }
+
+    /**
+     * @param analise Nome da análise (ex.: "desafio4")
+     * @return As métricas dessa análise (criadas na primeira chamada)
+     */
+    public static MetricasAnalise de(String analise) {
+        return REGISTRO.computeIfAbsent(analise, MetricasAnalise::new);
+    }
+
+    /** Começa a medir uma fase; a medição termina no close(). */
+    public Medicao iniciar(Fase fase) {
+        return new Medicao(fase);
+    }
+
+    /**
+     * Registra o tamanho atual de uma estrutura; fica guardado o maior.
+     *
+     * @param estrutura Nome da estrutura (ex.: "profundidadePilha")
+     * @param tamanho   Tamanho observado
+     */
+    public void registrarPico(String estrutura, long tamanho) {
+        picos.computeIfAbsent(estrutura, e -> new LongAccumulator(Math::max, 0)).accumulate(tamanho);
+
+        EventoEstrutura evento = new EventoEstrutura();
+        if (evento.shouldCommit()) {
+            evento.analise = analise;
+            evento.estrutura = estrutura;
+            evento.tamanho = tamanho;
+            evento.commit();
+        }
+    }
+
+    public String analise() {
+        return analise;
+    }
+
+    /** @return Maior tamanho registrado da estrutura (0 se nunca registrado) */
+    public long pico(String estrutura) {
+        LongAccumulator pico = picos.get(estrutura);
+        return pico == null ? 0 : pico.get();
+    }
+
+    public long execucoes(Fase fase) {
+        return fases[fase.ordinal()].execucoes.sum();
+    }
+
+    public long linhas(Fase fase) {
+        return fases[fase.ordinal()].linhas.sum();
+    }
+
+    public long linhasRejeitadas(Fase fase) {
+        return fases[fase.ordinal()].rejeitadas.sum();
+    }
+
+    /**
+     * @param fase       Fase medida
+     * @param percentual Entre 0 e 100
+     * @return Limite superior (em ns) da faixa do histograma onde cai o percentil
+     */
+    public long percentilNs(Fase fase, double percentual) {
+        return fases[fase.ordinal()].percentilNs(percentual);
+    }
+
+    /** Zera as métricas de todas as análises. */
+    public static void zerar() {
+        REGISTRO.clear();
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // MEDIÇÃO DE UMA FASE
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * Uma execução de uma fase. Não é thread-safe: cada thread abre a sua.
+     */
+    public final class Medicao implements AutoCloseable {
+        private final Fase fase;
+        private final EventoFase evento = new EventoFase();
+        private final long inicio;
+        private long linhas;
+        private long bytes;
+        private long rejeitadas;
+
+        private Medicao(Fase fase) {
+            this.fase = fase;
+            evento.begin();
+            this.inicio = System.nanoTime();
+        }
+
+        /** Soma linhas processadas nesta fase */
+        public Medicao linhas(long quantidade) {
+            linhas += quantidade;
+            return this;
+        }
+
+        /** Soma bytes processados nesta fase */
+        public Medicao bytes(long quantidade) {
+            bytes += quantidade;
+            return this;
+        }
+
+        /** Soma linhas ignoradas (formato inválido ou campos faltando) */
+        public Medicao rejeitadas(long quantidade) {
+            rejeitadas += quantidade;
+            return this;
+        }
+
+        @Override
+        public void close() {
+            long duracaoNs = System.nanoTime() - inicio;
+            fases[fase.ordinal()].registrar(duracaoNs, linhas, bytes, rejeitadas);
+
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.analise = analise;
+                evento.fase = fase.name();
+                evento.linhas = linhas;
+                evento.bytes = bytes;
+                evento.linhasRejeitadas = rejeitadas;
+                evento.commit();
+            }
+        }
+    }
+
+    private static final class EstatisticaFase {
+        final LongAdder execucoes = new LongAdder();
+        final LongAdder tempoTotalNs = new LongAdder();
+        final LongAdder linhas = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder rejeitadas = new LongAdder();
+        final LongAccumulator maximoNs = new LongAccumulator(Math::max, 0);
+        final AtomicLongArray histograma = new AtomicLongArray(FAIXAS);
+
+        void registrar(long duracaoNs, long linhasFase, long bytesFase, long rejeitadasFase) {
+            execucoes.increment();
+            tempoTotalNs.add(duracaoNs);
+            linhas.add(linhasFase);
+            bytes.add(bytesFase);
+            rejeitadas.add(rejeitadasFase);
+            maximoNs.accumulate(duracaoNs);
+            histograma.incrementAndGet(faixa(duracaoNs));
+        }
+
+        long percentilNs(double percentual) {
+            long total = execucoes.sum();
+            if (total == 0) return 0;
+            long alvo = Math.max(1, (long) Math.ceil(total * percentual / 100.0));
+            long acumulado = 0;
+            for (int faixa = 0; faixa < FAIXAS; faixa++) {
+                acumulado += histograma.get(faixa);
+                if (acumulado >= alvo) {
+                    return Math.min(limiteSuperior(faixa), maximoNs.get());
+                }
+            }
+            return maximoNs.get();
+        }
+    }
+
+    private static int faixa(long duracaoNs) {
+        return Math.min(FAIXAS - 1, 64 - Long.numberOfLeadingZeros(Math.max(duracaoNs, 0)));
+    }
+
+    private static long limiteSuperior(int faixa) {
+        return faixa >= 63 ? Long.MAX_VALUE : (1L << faixa);
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // EVENTOS JFR
+    // ═══════════════════════════════════════════════════════════════
+
+    @Name("forense.FaseAnalise")
+    @Label("Fase de Analise")
+    @Description("Uma fase (leitura, conversao, construcao ou consulta) de uma analise do log")
+    @Category("Analise Forense")
+    @StackTrace(false)
+    static final class EventoFase extends Event {
+        @Label("Analise")
+        String analise;
+
+        @Label("Fase")
+        String fase;
+
+        @Label("Linhas")
+        long linhas;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Linhas Rejeitadas")
+        long linhasRejeitadas;
+    }
+
+    @Name("forense.EstruturaAnalise")
+    @Label("Tamanho de Estrutura")
+    @Description("Tamanho de uma estrutura de dados de uma analise (pilha, heap, grafo)")
+    @Category("Analise Forense")
+    @StackTrace(false)
+    static final class EventoEstrutura extends Event {
+        @Label("Analise")
+        String analise;
+
+        @Label("Estrutura")
+        String estrutura;
+
+        @Label("Tamanho")
+        long tamanho;
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // RELATÓRIO JSON
+    // ═══════════════════════════════════════════════════════════════
+
+    /** @return Relatório de todas as análises (ordenadas pelo nome) em JSON */
+    public static String relatorioJson() {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\"analises\":[");
+        List<String> nomes = new ArrayList<>(REGISTRO.keySet());
+        Collections.sort(nomes);
+        for (int i = 0; i < nomes.size(); i++) {
+            if (i > 0) json.append(',');
+            REGISTRO.get(nomes.get(i)).paraJson(json);
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Grava {@link #relatorioJson()} no arquivo.
+     *
+     * @param destino Arquivo do relatório
+     * @throws IOException Se houver erro ao gravar
+     */
+    public static void salvarJson(Path destino) throws IOException {
+        Files.write(destino, relatorioJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void paraJson(StringBuilder json) {
+        json.append("{\"analise\":");
+        texto(json, analise);
+        json.append(",\"fases\":{");
+        boolean primeira = true;
+        for (Fase fase : Fase.values()) {
+            EstatisticaFase estatistica = fases[fase.ordinal()];
+            long execucoes = estatistica.execucoes.sum();
+            if (execucoes == 0) continue;
+            if (!primeira) json.append(',');
+            primeira = false;
+
+            long tempoNs = estatistica.tempoTotalNs.sum();
+            long linhasFase = estatistica.linhas.sum();
+            long bytesFase = estatistica.bytes.sum();
+            double segundos = tempoNs / 1e9;
+
+            json.append('"').append(fase.name()).append("\":{");
+            json.append("\"execucoes\":").append(execucoes);
+            json.append(",\"tempoTotalMs\":").append(String.format(Locale.ROOT, "%.3f", tempoNs / 1e6));
+            json.append(",\"linhas\":").append(linhasFase);
+            json.append(",\"bytes\":").append(bytesFase);
+            json.append(",\"linhasRejeitadas\":").append(estatistica.rejeitadas.sum());
+            json.append(",\"linhasPorSegundo\":").append(segundos > 0 ? Math.round(linhasFase / segundos) : 0);
+            json.append(",\"bytesPorSegundo\":").append(segundos > 0 ? Math.round(bytesFase / segundos) : 0);
+            json.append(",\"latenciaNs\":{\"p50\":").append(estatistica.percentilNs(50));
+            json.append(",\"p90\":").append(estatistica.percentilNs(90));
+            json.append(",\"p99\":").append(estatistica.percentilNs(99));
+            json.append(",\"max\":").append(estatistica.maximoNs.get());
+            json.append("},\"histograma\":[");
+            boolean primeiraFaixa = true;
+            for (int faixa = 0; faixa < FAIXAS; faixa++) {
+                long quantidade = estatistica.histograma.get(faixa);
+                if (quantidade == 0) continue;
+                if (!primeiraFaixa) json.append(',');
+                primeiraFaixa = false;
+                json.append("{\"ateNs\":").append(limiteSuperior(faixa))
+                        .append(",\"quantidade\":").append(quantidade).append('}');
+            }
+            json.append("]}");
+        }
+        json.append("},\"picos\":{");
+        List<String> estruturas = new ArrayList<>(picos.keySet());
+        Collections.sort(estruturas);
+        for (int i = 0; i < estruturas.size(); i++) {
+            if (i > 0) json.append(',');
+            texto(json, estruturas.get(i));
+            json.append(':').append(picos.get(estruturas.get(i)).get());
+        }
+        json.append("}}");
+    }
+
+    private static void texto(StringBuilder json, String valor) {
+        json.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // MÉTODO DE TESTE
+    // ═══════════════════════════════════════════════════════════════
+    public static void main(String[] args) {
+        String arquivo = args.length > 0 ? args[0] : "analise-forense-aed.jar";
+
+        System.out.println("===========================================================");
+        System.out.println("=     METRICAS DAS CINCO ANALISES                         =");
+        System.out.println("===========================================================\n");
+
+        try {
+            new Desafio1_SessoesInvalidas().encontrarSessoesInvalidas(arquivo);
+            new Desafio2_LinhaDoTempo().reconstruirLinhaDoTempo(arquivo, "session-a-01");
+            new Desafio3_PriorizarAlertas().priorizarAlertas(arquivo, 5);
+            new Desafio4_DetectorDeTransferenciaDeDados().identificarPicosTransferencia(arquivo);
+            GrafoContaminacao grafo = GrafoContaminacao.construir(arquivo);
+            for (int i = 0; i < 1000; i++) {
+                grafo.caminhoMaisCurto("/usr/bin/sshd", "/etc/shadow");
+            }
+
+            for (String nome : new TreeSet<>(REGISTRO.keySet())) {
+                MetricasAnalise metricas = REGISTRO.get(nome);
+                System.out.println(nome + ":");
+                for (Fase fase : Fase.values()) {
+                    if (metricas.execucoes(fase) == 0) continue;
+                    System.out.printf("  %-10s execucoes=%d linhas=%d rejeitadas=%d p50=%.3f ms p99=%.3f ms%n",
+                            fase, metricas.execucoes(fase), metricas.linhas(fase), metricas.linhasRejeitadas(fase),
+                            metricas.percentilNs(fase, 50) / 1e6, metricas.percentilNs(fase, 99) / 1e6);
+                }
+                if (!metricas.picos.isEmpty()) {
+                    System.out.println("  picos: " + new TreeMap<>(metricas.picos));
+                }
+            }
+            System.out.println("------------------------------------------------------------");
+            System.out.println(relatorioJson());
+            System.out.println("===========================================================");
+
+        } catch (IOException e) {
+            System.err.println("Erro: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resultado da detecção de picos POR PARTIÇÃO (Desafio 4 por usuário ou sessão)
+ *
+ * Os eventos são separados por USER_ID ou SESSION_ID e cada partição tem a
+ * sua própria detecção ({@link PicosTransferencia}): o "próximo maior" de um
+ * evento só pode ser um evento posterior DA MESMA partição, então as
+ * transferências de usuários diferentes não se misturam.
+ *
+ * Além do pico, cada evento tem o máximo de bytes da partição na janela de
+ * tempo que termina nele (ver {@link #maximoNaJanela(int, int)}).
+ *
+ * A partição p é o id da chave no dicionário do repositório; partições sem
+ * nenhuma linha completa ficam vazias.
+ */
+public class PicosParticionados {
+
+    /** Coluna que separa os eventos em partições */
+    public enum Particao { USUARIO, SESSAO }
+
+    /** Valor de janela: o máximo considera todos os eventos anteriores da partição */
+    public static final long SEM_JANELA = Long.MAX_VALUE;
+
+    private final Particao particao;
+    private final double razaoMinima;
+    private final long janela;
+    private final Dicionario chaves;
+    private final PicosTransferencia[] picos;
+    private final long[][] maximosNaJanela;
+
+    PicosParticionados(Particao particao, double razaoMinima, long janela, Dicionario chaves,
+                       PicosTransferencia[] picos, long[][] maximosNaJanela) {
+        this.particao = particao;
+        this.razaoMinima = razaoMinima;
+        this.janela = janela;
+        this.chaves = chaves;
+        this.picos = picos;
+        this.maximosNaJanela = maximosNaJanela;
+    }
+
+    public Particao particao() {
+        return particao;
+    }
+
+    /** @return Razão mínima entre os bytes do próximo maior e os do evento */
+    public double razaoMinima() {
+        return razaoMinima;
+    }
+
+    /** @return Largura (em unidades de TIMESTAMP) da janela do máximo */
+    public long janela() {
+        return janela;
+    }
+
+    /** @return Número de partições (chaves distintas no log) */
+    public int numeroParticoes() {
+        return picos.length;
+    }
+
+    /** @return USER_ID ou SESSION_ID da partição */
+    public String chave(int particao) {
+        return chaves.valor(particao);
+    }
+
+    /**
+     * @return Picos da partição; o evento i é o i-ésimo evento completo da
+     *         partição, na ordem do arquivo
+     */
+    public PicosTransferencia picos(int particao) {
+        return picos[particao];
+    }
+
+    /**
+     * @param chave USER_ID ou SESSION_ID procurado
+     * @return Picos da partição, ou null se a chave não aparece no log
+     */
+    public PicosTransferencia picosDe(String chave) {
+        int particao = chaves.idDe(chave);
+        return particao < 0 ? null : picos[particao];
+    }
+
+    /**
+     * Máximo de bytes entre os eventos da partição que vieram até este (na
+     * ordem do arquivo) e ainda estão na janela [TIMESTAMP - janela,
+     * TIMESTAMP] dele. Com o log em ordem de tempo é o máximo da partição
+     * na janela; num log fora de ordem, um evento sai da janela quando
+     * chega um posterior com TIMESTAMP mais de {@code janela} à frente.
+     */
+    public long maximoNaJanela(int particao, int evento) {
+        picos[particao].getBytes(evento); // Verifica o índice
+        return maximosNaJanela[particao][evento];
+    }
+
+    /** @return Total de eventos com pico, somando todas as partições */
+    public long numeroPicos() {
+        long total = 0;
+        for (PicosTransferencia p : picos) {
+            total += p.numeroPicos();
+        }
+        return total;
+    }
+
+    /**
+     * Converte para o formato do Desafio 4, uma entrada por partição com
+     * pico: chave → (timestamp atual → timestamp do próximo maior).
+     */
+    public Map<String, Map<Long, Long>> paraMapa() {
+        Map<String, Map<Long, Long>> mapa = new LinkedHashMap<>();
+        for (int p = 0; p < picos.length; p++) {
+            if (picos[p].numeroPicos() > 0) {
+                mapa.put(chave(p), picos[p].paraMapa());
+            }
+        }
+        return mapa;
+    }
+}
@@ -0,0 +1,112 @@
+import java.util.Map;
+
+/**
+ * Resultado da detecção de picos de transferência (Desafio 4), por evento
+ *
+ * O evento i é o i-ésimo evento válido do log (na ordem do arquivo).
+ * Para cada um guardamos o índice do próximo evento com MAIS bytes
+ * (ou -1 se não existir). Diferente do {@code Map<Long, Long>}, eventos
+ * com o mesmo TIMESTAMP não se sobrescrevem.
+ *
+ * Tudo fica em arrays primitivos paralelos.
+ */
+public class PicosTransferencia {
+
+    /** Valor de {@link #indiceProximoMaior(int)} quando não há próximo maior */
+    public static final int SEM_PICO = -1;
+
+    private final long[] timestamps;
+    private final long[] bytes;
+    private final int[] proximoMaior;
+    private final int totalEventos;
+    private final int totalPicos;
+
+    PicosTransferencia(long[] timestamps, long[] bytes, int[] proximoMaior, int totalEventos) {
+        this.timestamps = timestamps;
+        this.bytes = bytes;
+        this.proximoMaior = proximoMaior;
+        this.totalEventos = totalEventos;
+
+        int picos = 0;
+        for (int i = 0; i < totalEventos; i++) {
+            if (proximoMaior[i] != SEM_PICO) picos++;
+        }
+        this.totalPicos = picos;
+    }
+
+    /** @return Número de eventos analisados */
+    public int tamanho() {
+        return totalEventos;
+    }
+
+    /** @return Número de eventos que têm um próximo maior (um por evento, sem perder duplicados) */
+    public int numeroPicos() {
+        return totalPicos;
+    }
+
+    public long getTimestamp(int evento) {
+        verificar(evento);
+        return timestamps[evento];
+    }
+
+    public long getBytes(int evento) {
+        verificar(evento);
+        return bytes[evento];
+    }
+
+    /** @return true se algum evento posterior transferiu mais bytes */
+    public boolean temPico(int evento) {
+        verificar(evento);
+        return proximoMaior[evento] != SEM_PICO;
+    }
+
+    /** @return Índice do próximo evento com mais bytes, ou {@link #SEM_PICO} */
+    public int indiceProximoMaior(int evento) {
+        verificar(evento);
+        return proximoMaior[evento];
+    }
+
+    /**
+     * @return TIMESTAMP do próximo evento com mais bytes
+     * @throws IllegalStateException Se o evento não tiver próximo maior
+     */
+    public long getTimestampProximoMaior(int evento) {
+        int indice = indiceProximoMaior(evento);
+        if (indice == SEM_PICO) {
+            throw new IllegalStateException("Evento " + evento + " nao tem proximo maior");
+        }
+        return timestamps[indice];
+    }
+
+    /**
+     * Converte para o formato antigo: timestamp atual → timestamp do próximo maior.
+     *
+     * Percorre os eventos de trás para frente, como o algoritmo original,
+     * então quando dois eventos têm o mesmo TIMESTAMP fica o valor do
+     * evento mais antigo (mesmo resultado do HashMap de antes).
+     */
+    public Map<Long, Long> paraMapa() {
+        return mapaPorTimestamp();
+    }
+
+    /**
+     * Mesmo conteúdo de {@link #paraMapa()}, com o tipo primitivo exposto
+     * (consultas por {@link MapaLongLong#valorDe} sem converter para Long).
+     * Cada chamada monta um mapa novo.
+     */
+    public MapaLongLong mapaPorTimestamp() {
+        MapaLongLong mapa = new MapaLongLong(totalPicos);
+        for (int i = totalEventos - 1; i >= 0; i--) {
+            if (proximoMaior[i] != SEM_PICO) {
+                mapa.colocar(timestamps[i], timestamps[proximoMaior[i]]);
+            }
+        }
+        return mapa;
+    }
+
+    private void verificar(int evento) {
+        if (evento < 0 || evento >= totalEventos) {
+            throw new IndexOutOfBoundsException("Evento " + evento + " fora do intervalo [0, " + totalEventos + ")");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+import java.util.Arrays;
+import java.util.EmptyStackException;
+
+/**
+ * Pilha de int sobre um array (substitui Stack&lt;Integer&gt;)
+ *
+ * Stack é sincronizada e guarda Integer (boxing a cada push); esta pilha
+ * guarda int direto num int[] e não aloca nada depois que atinge o
+ * tamanho máximo usado.
+ */
+public class PilhaInt {
+
+    private int[] valores;
+    private int topo;
+
+    public PilhaInt() {
+        this(16);
+    }
+
+    public PilhaInt(int capacidadeInicial) {
+        this.valores = new int[Math.max(capacidadeInicial, 1)];
+    }
+
+    public void push(int valor) {
+        if (topo == valores.length) {
+            valores = Arrays.copyOf(valores, topo * 2);
+        }
+        valores[topo++] = valor;
+    }
+
+    public int pop() {
+        if (topo == 0) throw new EmptyStackException();
+        return valores[--topo];
+    }
+
+    public int peek() {
+        if (topo == 0) throw new EmptyStackException();
+        return valores[topo - 1];
+    }
+
+    public boolean isEmpty() {
+        return topo == 0;
+    }
+
+    public int tamanho() {
+        return topo;
+    }
+
+    public void limpar() {
+        topo = 0;
+    }
+}
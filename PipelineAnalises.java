@@ -0,0 +1,808 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Pipeline de Análises: UMA leitura do log, CINCO detectores ao mesmo tempo
+ *
+ * Rodar os Desafios 1 a 5 um depois do outro lê o arquivo cinco vezes.
+ * Aqui uma única thread lê e converte o log em lotes de linhas, e cada lote
+ * é entregue aos cinco detectores, cada um na sua thread:
+ *
+ *   leitor ──┬──▶ [fila] Desafio 1: sessões inválidas
+ *            ├──▶ [fila] Desafio 2: linhas do tempo de todas as sessões
+ *            ├──▶ [fila] Desafio 3: top N alertas
+ *            ├──▶ [fila] Desafio 4: próximo maior (pilha em fluxo)
+ *            └──▶ [fila] Desafio 5: agrupamento das sessões para o grafo
+ *
+ * As filas são limitadas (ArrayBlockingQueue): se um detector ficar para
+ * trás, o leitor espera por ele (contrapressão) em vez de acumular lotes,
+ * então a memória em trânsito é no máximo (capacidade da fila + 1) lotes
+ * por detector. O tempo total tende ao do detector mais lento, não à soma.
+ *
+ * Os lotes são imutáveis depois de publicados e guardam só ids dos
+ * dicionários; os textos novos de cada lote vão junto (o Desafio 3 precisa
+ * deles durante o fluxo). As regras de linha são as do {@link RepositorioEventos},
+ * então cada resultado é igual ao da versão do desafio sobre o repositório.
+ */
+public class PipelineAnalises {
+
+    /** Linhas por lote */
+    static final int TAMANHO_LOTE = 4096;
+
+    /** Lotes que podem esperar na fila de cada detector */
+    public static final int CAPACIDADE_FILA_PADRAO = 8;
+
+    // Tipo da ação de cada linha (para o Desafio 1)
+    private static final byte OUTRA_ACAO = 0;
+    private static final byte LOGIN = 1;
+    private static final byte LOGOUT = 2;
+
+    // ═══════════════════════════════════════════════════════════════
+    // LOTE DE LINHAS
+    // ═══════════════════════════════════════════════════════════════
+
+    private static final class Lote {
+        int tamanho;
+        final long[] timestamps;
+        final int[] severidades;
+        final long[] bytes;
+        final int[] usuarios;
+        final int[] sessoes;
+        final int[] acoes;
+        final int[] recursos;
+        final boolean[] completas;
+        final boolean[] transferencias; // TIMESTAMP e BYTES_TRANSFERRED válidos (regra do Desafio 4)
+        final boolean[] linhasDoGrafo; // Completas com os números sem espaços nas pontas (regra do Desafio 5)
+        final byte[] tipoAcao;
+        final boolean[] identificadas; // USER_ID, SESSION_ID e ACTION_TYPE preenchidos
+
+        // Valores que entraram nos dicionários desde o lote anterior (na ordem dos ids)
+        String[] novosUsuarios;
+        String[] novasSessoes;
+        String[] novasAcoes;
+        String[] novosRecursos;
+
+        // SESSION_ID e TARGET_RESOURCE com espaços nas pontas (null enquanto não houver nenhum)
+        String[] sessoesOriginais;
+        String[] recursosOriginais;
+
+        Lote(int capacidade) {
+            timestamps = new long[capacidade];
+            severidades = new int[capacidade];
+            bytes = new long[capacidade];
+            usuarios = new int[capacidade];
+            sessoes = new int[capacidade];
+            acoes = new int[capacidade];
+            recursos = new int[capacidade];
+            completas = new boolean[capacidade];
+            transferencias = new boolean[capacidade];
+            linhasDoGrafo = new boolean[capacidade];
+            tipoAcao = new byte[capacidade];
+            identificadas = new boolean[capacidade];
+        }
+
+        boolean cheio() {
+            return tamanho == timestamps.length;
+        }
+
+        void guardarOriginais(int i, String sessao, String recurso) {
+            if (sessoesOriginais == null) {
+                sessoesOriginais = new String[timestamps.length];
+                recursosOriginais = new String[timestamps.length];
+            }
+            sessoesOriginais[i] = sessao;
+            recursosOriginais[i] = recurso;
+        }
+    }
+
+    /** Marca de fim do log (uma para cada fila) */
+    private static final Lote FIM = new Lote(0);
+
+    // ═══════════════════════════════════════════════════════════════
+    // RELATÓRIO COMBINADO
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * Resultado dos cinco detectores, mais os tempos de cada um.
+     */
+    public static final class Relatorio {
+        private final long linhas;
+        private final Set<String> sessoesInvalidas;
+        private final LinhasDoTempo linhasDoTempo;
+        private final List<Alerta> alertas;
+        private final PicosTransferencia picos;
+        private final GrafoContaminacao grafo;
+        private final Map<String, Long> temposMs;
+        private final long tempoTotalMs;
+
+        private Relatorio(long linhas, Set<String> sessoesInvalidas, LinhasDoTempo linhasDoTempo, List<Alerta> alertas,
+                          PicosTransferencia picos, GrafoContaminacao grafo, Map<String, Long> temposMs,
+                          long tempoTotalMs) {
+            this.linhas = linhas;
+            this.sessoesInvalidas = sessoesInvalidas;
+            this.linhasDoTempo = linhasDoTempo;
+            this.alertas = alertas;
+            this.picos = picos;
+            this.grafo = grafo;
+            this.temposMs = temposMs;
+            this.tempoTotalMs = tempoTotalMs;
+        }
+
+        /** @return Linhas lidas (com pelo menos 4 colunas) */
+        public long linhas() {
+            return linhas;
+        }
+
+        /** @return Desafio 1 */
+        public Set<String> sessoesInvalidas() {
+            return sessoesInvalidas;
+        }
+
+        /** @return Desafio 2 para uma sessão (lista vazia se ela não aparece no log) */
+        public List<String> linhaDoTempo(String sessionId) {
+            return linhasDoTempo.daSessao(sessionId);
+        }
+
+        /** @return Desafio 2: número de sessões com linha do tempo */
+        public int numeroSessoes() {
+            return linhasDoTempo.numeroSessoes();
+        }
+
+        /** @return Desafio 3 */
+        public List<Alerta> alertas() {
+            return alertas;
+        }
+
+        /** @return Desafio 4 */
+        public PicosTransferencia picos() {
+            return picos;
+        }
+
+        /** @return Grafo do Desafio 5, pronto para consultas de caminho */
+        public GrafoContaminacao grafo() {
+            return grafo;
+        }
+
+        /** @return Tempo ocupado (sem esperas) do leitor e de cada detector, em ms */
+        public Map<String, Long> temposMs() {
+            return temposMs;
+        }
+
+        public long tempoTotalMs() {
+            return tempoTotalMs;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder texto = new StringBuilder();
+            texto.append("Linhas lidas: ").append(linhas).append('\n');
+            texto.append("Desafio 1 - Sessoes invalidas: ").append(sessoesInvalidas.size()).append('\n');
+            texto.append("Desafio 2 - Sessoes com linha do tempo: ").append(numeroSessoes()).append('\n');
+            texto.append("Desafio 3 - Alertas no top: ").append(alertas.size()).append('\n');
+            texto.append("Desafio 4 - Picos de transferencia: ").append(picos.numeroPicos()).append('\n');
+            texto.append("Desafio 5 - Grafo: ").append(grafo.numeroVertices()).append(" recursos, ")
+                    .append(grafo.numeroArestas()).append(" arestas\n");
+            texto.append("Tempo ocupado por etapa (ms): ").append(temposMs).append('\n');
+            texto.append("Tempo total (ms): ").append(tempoTotalMs);
+            return texto.toString();
+        }
+    }
+
+    /** Linhas do tempo de todas as sessões (CSR pelo id da sessão) */
+    private static final class LinhasDoTempo {
+        private final Dicionario sessoes;
+        private final Dicionario acoes;
+        private final int[] inicioSessao;
+        private final int[] acaoAgrupada;
+
+        LinhasDoTempo(Dicionario sessoes, Dicionario acoes, int[] inicioSessao, int[] acaoAgrupada) {
+            this.sessoes = sessoes;
+            this.acoes = acoes;
+            this.inicioSessao = inicioSessao;
+            this.acaoAgrupada = acaoAgrupada;
+        }
+
+        int numeroSessoes() {
+            return inicioSessao.length - 1;
+        }
+
+        List<String> daSessao(String sessionId) {
+            List<String> resultado = new ArrayList<>();
+            int id = sessionId == null ? -1 : sessoes.idDe(sessionId);
+            if (id < 0 || id >= numeroSessoes()) return resultado;
+            for (int i = inicioSessao[id]; i < inicioSessao[id + 1]; i++) {
+                resultado.add(acoes.valor(acaoAgrupada[i]));
+            }
+            return resultado;
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // DETECTORES
+    // ═══════════════════════════════════════════════════════════════
+
+    /**
+     * Um consumidor do pipeline. Recebe os lotes em ordem, na sua thread;
+     * {@link #concluir} roda depois que o leitor terminou (os dicionários
+     * completos já podem ser lidos).
+     */
+    private abstract static class Detector {
+        final String nome;
+        final BlockingQueue<Lote> fila;
+        long tempoOcupadoNs;
+
+        Detector(String nome, int capacidadeFila) {
+            this.nome = nome;
+            this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+        }
+
+        abstract void processar(Lote lote);
+
+        /** Consome a fila até a marca de FIM. */
+        void executar() throws InterruptedException {
+            RuntimeException falha = null;
+            while (true) {
+                Lote lote = fila.take();
+                if (lote == FIM) break;
+                if (falha != null) continue; // Continua esvaziando a fila para o leitor não travar
+                long inicio = System.nanoTime();
+                try {
+                    processar(lote);
+                } catch (RuntimeException e) {
+                    falha = e;
+                }
+                tempoOcupadoNs += System.nanoTime() - inicio;
+            }
+            if (falha != null) throw falha;
+        }
+    }
+
+    /** Desafio 1: mesma lógica de pilhas por usuário da versão sobre o repositório */
+    private static final class DetectorSessoes extends Detector {
+        private int[][] pilhas = new int[256][];
+        private int[] topos = new int[256];
+        private boolean[] invalida = new boolean[1024];
+
+        DetectorSessoes(int capacidadeFila) {
+            super("sessoesInvalidas", capacidadeFila);
+        }
+
+        @Override
+        void processar(Lote lote) {
+            for (int i = 0; i < lote.tamanho; i++) {
+                if (!lote.identificadas[i] || lote.tipoAcao[i] == OUTRA_ACAO) continue;
+                int usuario = lote.usuarios[i];
+                int sessao = lote.sessoes[i];
+                if (usuario >= topos.length) {
+                    int capacidade = Math.max(usuario + 1, topos.length * 2);
+                    pilhas = Arrays.copyOf(pilhas, capacidade);
+                    topos = Arrays.copyOf(topos, capacidade);
+                }
+                if (sessao >= invalida.length) {
+                    invalida = Arrays.copyOf(invalida, Math.max(sessao + 1, invalida.length * 2));
+                }
+
+                if (lote.tipoAcao[i] == LOGIN) {
+                    // LOGIN aninhado: a sessão atual é inválida
+                    if (topos[usuario] > 0) {
+                        invalida[sessao] = true;
+                    }
+                    if (pilhas[usuario] == null) {
+                        pilhas[usuario] = new int[2];
+                    } else if (topos[usuario] == pilhas[usuario].length) {
+                        pilhas[usuario] = Arrays.copyOf(pilhas[usuario], topos[usuario] * 2);
+                    }
+                    pilhas[usuario][topos[usuario]++] = sessao;
+                } else if (topos[usuario] == 0) {
+                    // LOGOUT sem LOGIN
+                    invalida[sessao] = true;
+                } else if (pilhas[usuario][topos[usuario] - 1] == sessao) {
+                    topos[usuario]--;
+                } else {
+                    // LOGOUT de uma sessão que não está no topo
+                    invalida[sessao] = true;
+                }
+            }
+        }
+
+        Set<String> concluir(Dicionario sessoes) {
+            // Sessões que nunca fizeram LOGOUT
+            for (int usuario = 0; usuario < topos.length; usuario++) {
+                for (int i = 0; i < topos[usuario]; i++) {
+                    invalida[pilhas[usuario][i]] = true;
+                }
+            }
+            Set<String> sessoesInvalidas = new HashSet<>(256);
+            for (int sessao = 0; sessao < invalida.length; sessao++) {
+                if (invalida[sessao]) {
+                    sessoesInvalidas.add(sessoes.valor(sessao));
+                }
+            }
+            return sessoesInvalidas;
+        }
+    }
+
+    /** Desafio 2: guarda (sessão, ação) de cada linha e agrupa no final */
+    private static final class DetectorLinhasDoTempo extends Detector {
+        private int[] sessoes = new int[TAMANHO_LOTE];
+        private int[] acoes = new int[TAMANHO_LOTE];
+        private int total;
+
+        DetectorLinhasDoTempo(int capacidadeFila) {
+            super("linhasDoTempo", capacidadeFila);
+        }
+
+        @Override
+        void processar(Lote lote) {
+            if (total + lote.tamanho > sessoes.length) {
+                int capacidade = Math.max(total + lote.tamanho, sessoes.length * 2);
+                sessoes = Arrays.copyOf(sessoes, capacidade);
+                acoes = Arrays.copyOf(acoes, capacidade);
+            }
+            System.arraycopy(lote.sessoes, 0, sessoes, total, lote.tamanho);
+            System.arraycopy(lote.acoes, 0, acoes, total, lote.tamanho);
+            total += lote.tamanho;
+        }
+
+        LinhasDoTempo concluir(Dicionario dicSessoes, Dicionario dicAcoes) {
+            // Ordenação por contagem: estável, mantém a ordem do arquivo em cada sessão
+            int totalSessoes = dicSessoes.tamanho();
+            int[] inicio = new int[totalSessoes + 1];
+            for (int i = 0; i < total; i++) {
+                inicio[sessoes[i] + 1]++;
+            }
+            for (int s = 0; s < totalSessoes; s++) {
+                inicio[s + 1] += inicio[s];
+            }
+            int[] proxima = Arrays.copyOf(inicio, totalSessoes);
+            int[] agrupadas = new int[total];
+            for (int i = 0; i < total; i++) {
+                agrupadas[proxima[sessoes[i]]++] = acoes[i];
+            }
+            return new LinhasDoTempo(dicSessoes, dicAcoes, inicio, agrupadas);
+        }
+    }
+
+    /** Desafio 3: o mesmo top N limitado da versão sobre o repositório */
+    private static final class DetectorAlertas extends Detector {
+        private final Desafio3_PriorizarAlertas.MelhoresAlertas melhores;
+        private final int n;
+
+        // Cópias locais dos dicionários, montadas com os valores novos de cada lote
+        private final List<String> usuarios = new ArrayList<>();
+        private final List<String> sessoes = new ArrayList<>();
+        private final List<String> acoes = new ArrayList<>();
+        private final List<String> recursos = new ArrayList<>();
+
+        DetectorAlertas(int n, int capacidadeFila) {
+            super("alertas", capacidadeFila);
+            this.n = n;
+            this.melhores = new Desafio3_PriorizarAlertas.MelhoresAlertas(Math.max(n, 1));
+        }
+
+        @Override
+        void processar(Lote lote) {
+            Collections.addAll(usuarios, lote.novosUsuarios);
+            Collections.addAll(sessoes, lote.novasSessoes);
+            Collections.addAll(acoes, lote.novasAcoes);
+            Collections.addAll(recursos, lote.novosRecursos);
+            if (n <= 0) return;
+
+            for (int i = 0; i < lote.tamanho; i++) {
+                if (!lote.completas[i]) continue;
+                if (!melhores.podeEntrar(lote.severidades[i], lote.timestamps[i])) continue;
+                melhores.adicionar(
+                        lote.timestamps[i],
+                        usuarios.get(lote.usuarios[i]),
+                        sessoes.get(lote.sessoes[i]),
+                        acoes.get(lote.acoes[i]),
+                        recursos.get(lote.recursos[i]),
+                        lote.severidades[i],
+                        lote.bytes[i]);
+            }
+        }
+
+        List<Alerta> concluir() {
+            return n <= 0 ? LoteAlertas.Lista.VAZIA : melhores.emOrdem();
+        }
+    }
+
+    /** Desafio 4: pilha em fluxo ({@link DetectorPicosOnline}) sem horizonte */
+    private static final class DetectorPicos extends Detector {
+        private final VetorLong timestamps = new VetorLong(TAMANHO_LOTE);
+        private final VetorLong bytes = new VetorLong(TAMANHO_LOTE);
+        private int[] proximoMaior = new int[TAMANHO_LOTE];
+        private final DetectorPicosOnline detector = new DetectorPicosOnline(
+                (evento, timestamp, eventoMaior, timestampMaior) -> proximoMaior[(int) evento] = (int) eventoMaior);
+
+        DetectorPicos(int capacidadeFila) {
+            super("picos", capacidadeFila);
+        }
+
+        @Override
+        void processar(Lote lote) {
+            for (int i = 0; i < lote.tamanho; i++) {
+                if (!lote.transferencias[i]) continue;
+                int evento = timestamps.tamanho();
+                if (evento == proximoMaior.length) {
+                    proximoMaior = Arrays.copyOf(proximoMaior, evento * 2);
+                }
+                proximoMaior[evento] = PicosTransferencia.SEM_PICO;
+                timestamps.add(lote.timestamps[i]);
+                bytes.add(lote.bytes[i]);
+                detector.adicionar(lote.timestamps[i], lote.bytes[i]);
+            }
+        }
+
+        PicosTransferencia concluir() {
+            return new PicosTransferencia(timestamps.arrayInterno(), bytes.arrayInterno(), proximoMaior,
+                    timestamps.tamanho());
+        }
+    }
+
+    /** Desafio 5: sessão e recurso das linhas do grafo, agrupados no final */
+    private static final class DetectorGrafo extends Detector {
+        private int[] sessoes = new int[TAMANHO_LOTE];
+        private int[] recursos = new int[TAMANHO_LOTE];
+        private int total;
+
+        // Valores com espaços nas pontas (os dicionários do leitor são aparados)
+        private final Dicionario sessoesOriginais = new Dicionario(16);
+        private final Dicionario recursosOriginais = new Dicionario(16);
+
+        DetectorGrafo(int capacidadeFila) {
+            super("grafo", capacidadeFila);
+        }
+
+        @Override
+        void processar(Lote lote) {
+            if (total + lote.tamanho > sessoes.length) {
+                int capacidade = Math.max(total + lote.tamanho, sessoes.length * 2);
+                sessoes = Arrays.copyOf(sessoes, capacidade);
+                recursos = Arrays.copyOf(recursos, capacidade);
+            }
+            for (int i = 0; i < lote.tamanho; i++) {
+                if (!lote.linhasDoGrafo[i]) continue;
+                sessoes[total] = lote.sessoes[i];
+                recursos[total] = lote.recursos[i];
+                if (lote.sessoesOriginais != null) {
+                    if (lote.sessoesOriginais[i] != null) {
+                        sessoes[total] = -1 - sessoesOriginais.adicionar(lote.sessoesOriginais[i]);
+                    }
+                    if (lote.recursosOriginais[i] != null) {
+                        recursos[total] = -1 - recursosOriginais.adicionar(lote.recursosOriginais[i]);
+                    }
+                }
+                total++;
+            }
+        }
+
+        GrafoContaminacao concluir(Dicionario dicSessoes, Dicionario dicRecursos) {
+            return GrafoContaminacao.construir(sessoes, recursos, total, dicSessoes.tamanho(), dicRecursos,
+                    sessoesOriginais, recursosOriginais);
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // EXECUÇÃO
+    // ═══════════════════════════════════════════════════════════════
+
+    // Dicionários do leitor (os detectores só os leem depois do fim da leitura)
+    private Dicionario usuarios;
+    private Dicionario sessoes;
+    private Dicionario acoes;
+    private Dicionario recursos;
+    private int[] publicados = new int[4];
+    private byte[] tipoDaAcao = new byte[16];
+    private int acoesClassificadas;
+
+    private final List<Detector> detectores;
+    private long linhasLidas;
+
+    private PipelineAnalises(List<Detector> detectores) {
+        this.detectores = detectores;
+    }
+
+    /**
+     * Executa os cinco detectores com uma única leitura do log.
+     *
+     * @param caminhoArquivo Caminho para o CSV de logs (ou arquivo colunar)
+     * @param n              Número de alertas do Desafio 3
+     * @return Relatório com os resultados dos cinco desafios
+     * @throws IOException Se houver erro ao ler o arquivo
+     */
+    public static Relatorio executar(String caminhoArquivo, int n) throws IOException {
+        return executar(caminhoArquivo, n, CAPACIDADE_FILA_PADRAO);
+    }
+
+    /**
+     * @param caminhoArquivo Caminho para o CSV de logs (ou arquivo colunar)
+     * @param n              Número de alertas do Desafio 3
+     * @param capacidadeFila Lotes que podem esperar na fila de cada detector
+     * @return Relatório com os resultados dos cinco desafios
+     * @throws IOException Se houver erro ao ler o arquivo
+     */
+    public static Relatorio executar(String caminhoArquivo, int n, int capacidadeFila) throws IOException {
+        if (capacidadeFila < 1) {
+            throw new IllegalArgumentException("Capacidade da fila deve ser pelo menos 1: " + capacidadeFila);
+        }
+        long inicio = System.nanoTime();
+
+        DetectorSessoes d1 = new DetectorSessoes(capacidadeFila);
+        DetectorLinhasDoTempo d2 = new DetectorLinhasDoTempo(capacidadeFila);
+        DetectorAlertas d3 = new DetectorAlertas(n, capacidadeFila);
+        DetectorPicos d4 = new DetectorPicos(capacidadeFila);
+        DetectorGrafo d5 = new DetectorGrafo(capacidadeFila);
+        PipelineAnalises pipeline = new PipelineAnalises(List.of(d1, d2, d3, d4, d5));
+
+        ExecutorService executor = Executors.newFixedThreadPool(pipeline.detectores.size());
+        long tempoLeituraNs;
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (Detector detector : pipeline.detectores) {
+                tarefas.add(executor.submit(() -> {
+                    detector.executar();
+                    return null;
+                }));
+            }
+
+            long inicioLeitura = System.nanoTime();
+            try {
+                pipeline.ler(caminhoArquivo);
+            } finally {
+                // Mesmo com erro de leitura, os detectores precisam terminar
+                for (Detector detector : pipeline.detectores) {
+                    pipeline.entregar(detector, FIM);
+                }
+            }
+            tempoLeituraNs = System.nanoTime() - inicioLeitura;
+
+            for (Future<?> tarefa : tarefas) {
+                aguardar(tarefa);
+            }
+
+        } catch (IOException e) {
+            System.err.println("Erro ao ler o arquivo: " + e.getMessage());
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Leitura terminada e detectores parados: os dicionários já podem ser lidos
+        Map<String, Long> temposMs = new LinkedHashMap<>();
+        temposMs.put("leitura", tempoLeituraNs / 1_000_000);
+        Set<String> invalidas = pipeline.concluir(d1, temposMs, () -> d1.concluir(pipeline.sessoes));
+        LinhasDoTempo linhasDoTempo = pipeline.concluir(d2, temposMs, () -> d2.concluir(pipeline.sessoes, pipeline.acoes));
+        List<Alerta> alertas = pipeline.concluir(d3, temposMs, d3::concluir);
+        PicosTransferencia picos = pipeline.concluir(d4, temposMs, d4::concluir);
+        GrafoContaminacao grafo = pipeline.concluir(d5, temposMs, () -> d5.concluir(pipeline.sessoes, pipeline.recursos));
+
+        return new Relatorio(pipeline.linhasLidas, invalidas, linhasDoTempo, alertas, picos, grafo,
+                Collections.unmodifiableMap(temposMs), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private <T> T concluir(Detector detector, Map<String, Long> temposMs, java.util.function.Supplier<T> conclusao) {
+        long inicio = System.nanoTime();
+        T resultado = conclusao.get();
+        temposMs.put(detector.nome, (detector.tempoOcupadoNs + System.nanoTime() - inicio) / 1_000_000);
+        return resultado;
+    }
+
+    /**
+     * Lê o log e publica os lotes. As regras de linha são as de
+     * {@link RepositorioEventosMemoria#adicionarLinha}.
+     */
+    private void ler(String caminhoArquivo) throws IOException {
+        if (RepositorioEventos.usaRepositorio(caminhoArquivo)) {
+            lerRepositorio(RepositorioEventos.carregar(caminhoArquivo));
+            return;
+        }
+
+        usuarios = new Dicionario(256);
+        sessoes = new Dicionario(1024);
+        acoes = new Dicionario(16);
+        recursos = new Dicionario(1024);
+
+        try (LeitorCsvMapeado leitor = new LeitorCsvMapeado(caminhoArquivo)) {
+            if (!leitor.proximaLinha()) return; // Ignora o cabeçalho (arquivo vazio)
+
+            Lote lote = new Lote(TAMANHO_LOTE);
+            while (leitor.proximaLinha()) {
+                if (leitor.numeroCampos() < 4) continue;
+
+                int i = lote.tamanho++;
+                lote.usuarios[i] = usuarios.adicionar(leitor, 1);
+                lote.sessoes[i] = sessoes.adicionar(leitor, 2);
+                lote.acoes[i] = acoes.adicionar(leitor, 3);
+                lote.recursos[i] = leitor.numeroCampos() > 4 ? recursos.adicionar(leitor, 4) : recursos.adicionar("");
+                lote.identificadas[i] = !leitor.campoVazio(1) && !leitor.campoVazio(2) && !leitor.campoVazio(3);
+                lote.tipoAcao[i] = tipoDaAcao(lote.acoes[i]);
+
+                // Igual ao String.split(","): colunas vazias no final não contam
+                if (leitor.numeroCamposPreenchidos() >= 7) {
+                    try {
+                        long timestamp = leitor.campoLong(0);
+                        long quantidadeBytes = leitor.campoVazio(6) ? 0 : leitor.campoLong(6);
+
+                        lote.timestamps[i] = timestamp;
+                        lote.bytes[i] = quantidadeBytes;
+                        lote.transferencias[i] = true;
+
+                        if (!leitor.campoVazio(6)) {
+                            lote.severidades[i] = leitor.campoInt(5);
+                            lote.completas[i] = true;
+                            if (GrafoContaminacao.numerosSemEspacos(leitor)) {
+                                lote.linhasDoGrafo[i] = true;
+                                boolean sessao = leitor.temEspacosNasPontas(2);
+                                boolean recurso = leitor.temEspacosNasPontas(4);
+                                if (sessao || recurso) {
+                                    lote.guardarOriginais(i, sessao ? leitor.campoTextoOriginal(2) : null,
+                                            recurso ? leitor.campoTextoOriginal(4) : null);
+                                }
+                            }
+                        }
+                    } catch (NumberFormatException e) {
+                        // Linha incompleta: continua valendo para os Desafios 1 e 2
+                    }
+                }
+
+                if (lote.cheio()) {
+                    publicar(lote);
+                    lote = new Lote(TAMANHO_LOTE);
+                }
+            }
+            publicar(lote);
+        }
+    }
+
+    /** Arquivo colunar: as linhas já estão convertidas, só são repartidas em lotes. */
+    private void lerRepositorio(RepositorioEventos repositorio) throws IOException {
+        usuarios = repositorio.usuarios();
+        sessoes = repositorio.sessoes();
+        acoes = repositorio.acoes();
+        recursos = repositorio.recursos();
+        int usuarioVazio = usuarios.idDe("");
+        int sessaoVazia = sessoes.idDe("");
+        int acaoVazia = acoes.idDe("");
+        CamposOriginais originais = repositorio.camposOriginais();
+        int proximoOriginal = 0;
+
+        Lote lote = new Lote(TAMANHO_LOTE);
+        for (int linha = 0; linha < repositorio.tamanho(); linha++) {
+            int i = lote.tamanho++;
+            lote.usuarios[i] = repositorio.getUsuario(linha);
+            lote.sessoes[i] = repositorio.getSessao(linha);
+            lote.acoes[i] = repositorio.getAcao(linha);
+            lote.recursos[i] = repositorio.getRecurso(linha);
+            lote.identificadas[i] = lote.usuarios[i] != usuarioVazio && lote.sessoes[i] != sessaoVazia
+                    && lote.acoes[i] != acaoVazia;
+            lote.tipoAcao[i] = tipoDaAcao(lote.acoes[i]);
+            if (repositorio.isTransferenciaValida(linha)) {
+                lote.timestamps[i] = repositorio.getTimestamp(linha);
+                lote.bytes[i] = repositorio.getBytes(linha);
+                lote.transferencias[i] = true;
+            }
+            if (repositorio.isCompleta(linha)) {
+                lote.severidades[i] = repositorio.getSeveridade(linha);
+                lote.completas[i] = true;
+            }
+            if (repositorio.isLinhaDoGrafo(linha)) {
+                lote.linhasDoGrafo[i] = true;
+                if (proximoOriginal < originais.tamanho() && originais.getLinha(proximoOriginal) == linha) {
+                    lote.guardarOriginais(i, originais.getSessao(proximoOriginal), originais.getRecurso(proximoOriginal));
+                    proximoOriginal++;
+                }
+            }
+
+            if (lote.cheio()) {
+                publicar(lote);
+                lote = new Lote(TAMANHO_LOTE);
+            }
+        }
+        publicar(lote);
+    }
+
+    private byte tipoDaAcao(int acao) {
+        // Cada ACTION_TYPE distinto é classificado uma única vez
+        while (acoesClassificadas <= acao) {
+            if (acoesClassificadas == tipoDaAcao.length) {
+                tipoDaAcao = Arrays.copyOf(tipoDaAcao, tipoDaAcao.length * 2);
+            }
+            String valor = acoes.valor(acoesClassificadas);
+            tipoDaAcao[acoesClassificadas++] = "LOGIN".equalsIgnoreCase(valor) ? LOGIN
+                    : "LOGOUT".equalsIgnoreCase(valor) ? LOGOUT : OUTRA_ACAO;
+        }
+        return tipoDaAcao[acao];
+    }
+
+    private void publicar(Lote lote) throws IOException {
+        lote.novosUsuarios = novos(usuarios, 0);
+        lote.novasSessoes = novos(sessoes, 1);
+        lote.novasAcoes = novos(acoes, 2);
+        lote.novosRecursos = novos(recursos, 3);
+        linhasLidas += lote.tamanho;
+
+        for (Detector detector : detectores) {
+            entregar(detector, lote);
+        }
+    }
+
+    private String[] novos(Dicionario dicionario, int qual) {
+        int inicio = publicados[qual];
+        String[] valores = new String[dicionario.tamanho() - inicio];
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = dicionario.valor(inicio + i);
+        }
+        publicados[qual] = dicionario.tamanho();
+        return valores;
+    }
+
+    private void entregar(Detector detector, Lote lote) throws IOException {
+        try {
+            // put() bloqueia com a fila cheia: contrapressão do detector mais lento
+            detector.fila.put(lote);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Pipeline interrompido");
+        }
+    }
+
+    private static void aguardar(Future<?> tarefa) throws IOException {
+        try {
+            tarefa.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Pipeline interrompido");
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException) throw (RuntimeException) causa;
+            throw new IOException(causa);
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // MÉTODO DE TESTE
+    // ═══════════════════════════════════════════════════════════════
+    public static void main(String[] args) {
+        String arquivo = args.length > 0 ? args[0] : "analise-forense-aed.jar";
+
+        System.out.println("===========================================================");
+        System.out.println("=     PIPELINE: UMA LEITURA, CINCO DETECTORES             =");
+        System.out.println("===========================================================\n");
+
+        try {
+            Relatorio relatorio = executar(arquivo, 5);
+            System.out.println(relatorio);
+            System.out.println("------------------------------------------------------------");
+
+            // Os cinco desafios em sequência, cada um lendo o arquivo
+            long inicio = System.nanoTime();
+            Set<String> invalidas = new Desafio1_SessoesInvalidas().encontrarSessoesInvalidas(arquivo);
+            List<String> linhaDoTempo = new Desafio2_LinhaDoTempo().reconstruirLinhaDoTempo(arquivo, "session-a-01");
+            List<Alerta> top5 = new Desafio3_PriorizarAlertas().priorizarAlertas(arquivo, 5);
+            Map<Long, Long> picos = new Desafio4_DetectorDeTransferenciaDeDados().identificarPicosTransferencia(arquivo);
+            Optional<List<String>> caminho = Desafio5RastrearContaminacao.rastrearContaminacao(
+                    arquivo, "/usr/bin/sshd", "/etc/shadow");
+            long fim = System.nanoTime();
+            System.out.printf("Cinco leituras em sequencia: %.3f ms%n", (fim - inicio) / 1_000_000.0);
+
+            System.out.println("Mesmos resultados dos desafios?");
+            System.out.println("  Desafio 1: " + (invalidas.equals(relatorio.sessoesInvalidas()) ? "SIM" : "NAO"));
+            System.out.println("  Desafio 2: " + (linhaDoTempo.equals(relatorio.linhaDoTempo("session-a-01")) ? "SIM" : "NAO"));
+            System.out.println("  Desafio 3: " + (top5.toString().equals(relatorio.alertas().toString()) ? "SIM" : "NAO"));
+            System.out.println("  Desafio 4: " + (picos.equals(relatorio.picos().paraMapa()) ? "SIM" : "NAO"));
+            System.out.println("  Desafio 5: " + (caminho.equals(relatorio.grafo().caminhoMaisCurto("/usr/bin/sshd", "/etc/shadow")) ? "SIM" : "NAO"));
+            System.out.println("===========================================================");
+
+        } catch (IOException e) {
+            System.err.println("Erro: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,206 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Repositório de Eventos (armazenamento colunar)
+ *
+ * Carrega o arquivo de logs UMA única vez e expõe cada coluna por linha:
+ * - TIMESTAMP, SEVERITY_LEVEL e BYTES_TRANSFERRED como primitivos
+ * - USER_ID, SESSION_ID, ACTION_TYPE e TARGET_RESOURCE como ids de um {@link Dicionario}
+ *
+ * Assim os cinco desafios podem rodar sobre o mesmo repositório sem reabrir
+ * nem refazer o split do CSV a cada chamada.
+ *
+ * Implementações:
+ * - {@link RepositorioEventosMemoria}: lê o CSV para arrays no heap
+ * - {@link RepositorioEventosMapeado}: mapeia um arquivo do {@link ArquivoColunar}
+ *   (abre em milissegundos e funciona com logs maiores que o heap)
+ *
+ * Regras de leitura (as mesmas dos desafios):
+ * - Linhas com menos de 4 colunas são descartadas
+ * - Uma linha é "completa" quando tem as 7 colunas e TIMESTAMP, SEVERITY_LEVEL
+ *   e BYTES_TRANSFERRED são números válidos. Os Desafios 1 e 2 usam todas as
+ *   linhas; o Desafio 3 usa só as completas.
+ * - O Desafio 5 usa as completas cujos números não têm espaços nas pontas
+ *   (o split(",") dele não apara nada), ver {@link #isLinhaDoGrafo(int)}.
+ *   Os dicionários guardam os valores aparados; os SESSION_ID e
+ *   TARGET_RESOURCE originais das linhas com espaços ficam em
+ *   {@link #camposOriginais()}.
+ * - O Desafio 4 só olha TIMESTAMP e BYTES_TRANSFERRED: basta ter as 7 colunas,
+ *   o TIMESTAMP válido e os bytes válidos ou vazios (contam como 0), ver
+ *   {@link #isTransferenciaValida(int)}. Toda linha completa também vale para ele.
+ */
+public abstract class RepositorioEventos {
+
+    /** Abaixo deste tamanho (em bytes) a leitura sequencial já é rápida o bastante */
+    static final long TAMANHO_MINIMO_PARALELO = 8L * 1024 * 1024;
+
+    private static final MetricasAnalise METRICAS = MetricasAnalise.de("repositorio");
+
+    /**
+     * Carrega o log, seja ele um CSV, um arquivo colunar binário ou um
+     * {@link ConjuntoLogs} (diretório ou curinga, com os arquivos lidos em
+     * paralelo e intercalados por TIMESTAMP).
+     *
+     * @param caminhoArquivo Caminho para o CSV de logs, para o arquivo colunar ou para o conjunto
+     * @return Repositório com todas as linhas válidas (nunca null)
+     * @throws IOException Caso ocorra erro de leitura no arquivo
+     */
+    public static RepositorioEventos carregar(String caminhoArquivo) throws IOException {
+        try (MetricasAnalise.Medicao medicao = METRICAS.iniciar(MetricasAnalise.Fase.LEITURA)) {
+            if (ConjuntoLogs.ehConjunto(caminhoArquivo)) {
+                List<Path> arquivos = ConjuntoLogs.arquivos(caminhoArquivo);
+                RepositorioEventosMemoria repositorio = RepositorioEventosMemoria.carregarConjunto(arquivos, ForkJoinPool.commonPool());
+                medicao.linhas(repositorio.tamanho()).bytes(repositorio.bytesLidos());
+                return repositorio;
+            }
+            RepositorioEventos repositorio = carregarSemMedir(caminhoArquivo);
+            // No CSV conta o texto lido (num .gz, descomprimido); no colunar, o arquivo mapeado
+            medicao.linhas(repositorio.tamanho()).bytes(repositorio instanceof RepositorioEventosMemoria
+                    ? ((RepositorioEventosMemoria) repositorio).bytesLidos() : Files.size(Paths.get(caminhoArquivo)));
+            return repositorio;
+        }
+    }
+
+    /**
+     * @return true se os desafios devem ler o caminho pelo repositório em
+     *         vez do leitor de CSV: arquivo colunar ou {@link ConjuntoLogs}
+     */
+    static boolean usaRepositorio(String caminhoArquivo) {
+        return ConjuntoLogs.ehConjunto(caminhoArquivo) || ArquivoColunar.ehArquivoColunar(caminhoArquivo);
+    }
+
+    private static RepositorioEventos carregarSemMedir(String caminhoArquivo) throws IOException {
+        if (ArquivoColunar.ehArquivoColunar(caminhoArquivo)) {
+            return RepositorioEventosMapeado.abrir(caminhoArquivo);
+        }
+        // CSV grande com mais de um núcleo: leitura em blocos paralelos
+        if (Runtime.getRuntime().availableProcessors() > 1
+                && Files.size(Paths.get(caminhoArquivo)) >= TAMANHO_MINIMO_PARALELO) {
+            return carregarParalelo(caminhoArquivo, ForkJoinPool.commonPool());
+        }
+        return RepositorioEventosMemoria.carregarCsv(caminhoArquivo);
+    }
+
+    /**
+     * Carrega o log lendo o CSV em blocos paralelos no pool informado.
+     * As linhas (e os ids dos dicionários) ficam na mesma ordem da leitura
+     * sequencial. Num {@link ConjuntoLogs}, cada arquivo é uma tarefa do pool.
+     *
+     * @param caminhoArquivo Caminho para o CSV de logs, para o arquivo colunar ou para o conjunto
+     * @param pool           Pool onde os blocos (ou arquivos) são lidos
+     * @return Repositório com todas as linhas válidas (nunca null)
+     * @throws IOException Caso ocorra erro de leitura no arquivo
+     */
+    public static RepositorioEventos carregarParalelo(String caminhoArquivo, ForkJoinPool pool) throws IOException {
+        if (ConjuntoLogs.ehConjunto(caminhoArquivo)) {
+            return RepositorioEventosMemoria.carregarConjunto(ConjuntoLogs.arquivos(caminhoArquivo), pool);
+        }
+        if (ArquivoColunar.ehArquivoColunar(caminhoArquivo)) {
+            return RepositorioEventosMapeado.abrir(caminhoArquivo);
+        }
+        return RepositorioEventosMemoria.carregarCsvParalelo(caminhoArquivo, pool);
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // ACESSO ÀS COLUNAS
+    // ═══════════════════════════════════════════════════════════════
+
+    /** @return Número de linhas carregadas (completas ou não) */
+    public abstract int tamanho();
+
+    /** @return true se a linha tem as 7 colunas com números válidos */
+    public abstract boolean isCompleta(int linha);
+
+    /**
+     * @return true se a linha tem as 7 colunas, TIMESTAMP válido e
+     *         BYTES_TRANSFERRED válido ou vazio (a regra do Desafio 4). Nessas
+     *         linhas {@link #getTimestamp} e {@link #getBytes} são válidos
+     *         mesmo quando SEVERITY_LEVEL não é
+     */
+    public abstract boolean isTransferenciaValida(int linha);
+
+    /**
+     * @return true se a linha é completa e TIMESTAMP, SEVERITY_LEVEL e
+     *         BYTES_TRANSFERRED não têm espaços nas pontas (a regra do
+     *         Desafio 5). Toda linha do grafo também é completa
+     */
+    public abstract boolean isLinhaDoGrafo(int linha);
+
+    /**
+     * @return SESSION_ID e TARGET_RESOURCE como estão no log, para as linhas
+     *         do grafo em que eles têm espaços nas pontas
+     */
+    abstract CamposOriginais camposOriginais();
+
+    public abstract long getTimestamp(int linha);
+
+    public abstract int getSeveridade(int linha);
+
+    public abstract long getBytes(int linha);
+
+    /** @return Id do USER_ID no dicionário {@link #usuarios()} */
+    public abstract int getUsuario(int linha);
+
+    /** @return Id do SESSION_ID no dicionário {@link #sessoes()} */
+    public abstract int getSessao(int linha);
+
+    /** @return Id do ACTION_TYPE no dicionário {@link #acoes()} */
+    public abstract int getAcao(int linha);
+
+    /** @return Id do TARGET_RESOURCE no dicionário {@link #recursos()} */
+    public abstract int getRecurso(int linha);
+
+    public abstract Dicionario usuarios();
+
+    public abstract Dicionario sessoes();
+
+    public abstract Dicionario acoes();
+
+    public abstract Dicionario recursos();
+
+    // ═══════════════════════════════════════════════════════════════
+    // MÉTODO DE TESTE - INVESTIGAÇÃO COMPLETA COM UMA ÚNICA LEITURA
+    // ═══════════════════════════════════════════════════════════════
+    public static void main(String[] args) {
+        String arquivo = args.length > 0 ? args[0] : "analise-forense-aed.jar";
+
+        System.out.println("===========================================================");
+        System.out.println("=     INVESTIGACAO COMPLETA (REPOSITORIO DE EVENTOS)      =");
+        System.out.println("===========================================================\n");
+
+        try {
+            long inicio = System.nanoTime();
+            RepositorioEventos repositorio = RepositorioEventos.carregar(arquivo);
+            long fimCarga = System.nanoTime();
+
+            Set<String> invalidas = new Desafio1_SessoesInvalidas().encontrarSessoesInvalidas(repositorio);
+            List<String> linhaDoTempo = new Desafio2_LinhaDoTempo().reconstruirLinhaDoTempo(repositorio, "session-delta-404");
+            List<Alerta> top5 = new Desafio3_PriorizarAlertas().priorizarAlertas(repositorio, 5);
+            Map<Long, Long> picos = new Desafio4_DetectorDeTransferenciaDeDados().identificarPicosTransferencia(repositorio);
+            Optional<List<String>> caminho = Desafio5RastrearContaminacao.rastrearContaminacao(
+                    repositorio, "/usr/bin/sshd", "/var/secrets/key.dat");
+            long fim = System.nanoTime();
+
+            System.out.println("Arquivo: " + arquivo);
+            System.out.println("Linhas carregadas: " + repositorio.tamanho());
+            System.out.printf("Tempo de carga: %.3f ms%n", (fimCarga - inicio) / 1_000_000.0);
+            System.out.printf("Tempo das 5 analises: %.3f ms%n", (fim - fimCarga) / 1_000_000.0);
+            System.out.println("------------------------------------------------------------");
+            System.out.println("Desafio 1 - Sessoes invalidas: " + invalidas.size());
+            System.out.println("Desafio 2 - Acoes de session-delta-404: " + linhaDoTempo.size());
+            System.out.println("Desafio 3 - Top 5 alertas: " + top5.size());
+            System.out.println("Desafio 4 - Picos de transferencia: " + picos.size());
+            System.out.println("Desafio 5 - Caminho sshd -> key.dat: "
+                    + caminho.map(c -> String.join(" → ", c)).orElse("nenhum"));
+            System.out.println("===========================================================");
+
+        } catch (IOException e) {
+            System.err.println("Erro: " + e.getMessage());
+        }
+    }
+}
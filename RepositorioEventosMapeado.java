@@ -0,0 +1,290 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Repositório de Eventos mapeado a partir de um {@link ArquivoColunar}
+ *
+ * Nada é lido na abertura além do cabeçalho: cada coluna é um
+ * MappedByteBuffer e o sistema operacional carrega as páginas sob demanda.
+ * Por isso a abertura leva milissegundos e o log pode ser maior que o heap.
+ *
+ * Os dicionários só são decodificados na primeira vez em que alguma
+ * análise precisa deles (o Desafio 4, por exemplo, nunca usa).
+ */
+class RepositorioEventosMapeado extends RepositorioEventos {
+
+    // Cada segmento mapeado tem no máximo 1 GB (2^27 longs ou 2^28 ints)
+    private static final int BITS_SEGMENTO_LONG = 27;
+    private static final int BITS_SEGMENTO_INT = 28;
+
+    private final int total;
+    private final long menorTimestamp;
+    private final long maiorTimestamp;
+    private final long[] posicoes;
+    private final ByteBuffer[] secoesDicionario = new ByteBuffer[4];
+
+    private final LongBuffer[] timestamps;
+    private final LongBuffer[] bytes;
+    private final IntBuffer[] severidades;
+    private final IntBuffer[] usuarios;
+    private final IntBuffer[] sessoes;
+    private final IntBuffer[] acoes;
+    private final IntBuffer[] recursos;
+    private final LongBuffer[] completas;
+    private final LongBuffer[] transferencias;
+    private final LongBuffer[] linhasDoGrafo;
+    private final ByteBuffer secaoOriginais;
+
+    private volatile Dicionario dicUsuarios;
+    private volatile Dicionario dicSessoes;
+    private volatile Dicionario dicAcoes;
+    private volatile Dicionario dicRecursos;
+    private volatile CamposOriginais originais;
+
+    private RepositorioEventosMapeado(FileChannel canal) throws IOException {
+        ByteBuffer cabecalho = mapear(canal, 0, ArquivoColunar.TAMANHO_CABECALHO);
+        byte[] identificador = new byte[ArquivoColunar.IDENTIFICADOR.length];
+        cabecalho.get(identificador);
+        if (!Arrays.equals(identificador, ArquivoColunar.IDENTIFICADOR)) {
+            throw new IOException("Arquivo nao esta no formato colunar");
+        }
+        int versao = cabecalho.getInt();
+        if (versao < 1 || versao > ArquivoColunar.VERSAO) {
+            throw new IOException("Versao do formato colunar nao suportada: " + versao);
+        }
+        cabecalho.getInt(); // reservado
+
+        this.total = (int) cabecalho.getLong();
+        this.menorTimestamp = cabecalho.getLong();
+        this.maiorTimestamp = cabecalho.getLong();
+        this.posicoes = new long[ArquivoColunar.TOTAL_SECOES];
+        for (int i = 0; i < posicoes.length; i++) {
+            // Seções que a versão do arquivo não tem ficam sem posição (as seguintes vêm antes no cabeçalho)
+            posicoes[i] = temSecao(versao, i) ? cabecalho.getLong() : -1;
+        }
+
+        this.timestamps = mapearLongs(canal, ArquivoColunar.SECAO_TIMESTAMPS, total);
+        this.bytes = mapearLongs(canal, ArquivoColunar.SECAO_BYTES, total);
+        this.severidades = mapearInts(canal, ArquivoColunar.SECAO_SEVERIDADES, total);
+        this.usuarios = mapearInts(canal, ArquivoColunar.SECAO_USUARIOS, total);
+        this.sessoes = mapearInts(canal, ArquivoColunar.SECAO_SESSOES, total);
+        this.acoes = mapearInts(canal, ArquivoColunar.SECAO_ACOES, total);
+        this.recursos = mapearInts(canal, ArquivoColunar.SECAO_RECURSOS, total);
+        this.completas = mapearLongs(canal, ArquivoColunar.SECAO_COMPLETAS, (total + 63) / 64);
+        this.transferencias = posicoes[ArquivoColunar.SECAO_TRANSFERENCIAS] < 0 ? completas
+                : mapearLongs(canal, ArquivoColunar.SECAO_TRANSFERENCIAS, (total + 63) / 64);
+        this.linhasDoGrafo = posicoes[ArquivoColunar.SECAO_GRAFO] < 0 ? completas
+                : mapearLongs(canal, ArquivoColunar.SECAO_GRAFO, (total + 63) / 64);
+        this.secaoOriginais = posicoes[ArquivoColunar.SECAO_ORIGINAIS] < 0 ? null
+                : mapear(canal, posicoes[ArquivoColunar.SECAO_ORIGINAIS],
+                        mapear(canal, posicoes[ArquivoColunar.SECAO_ORIGINAIS], 8).getInt(4));
+
+        // Os dicionários são mapeados agora, mas só decodificados quando usados
+        for (int i = 0; i < secoesDicionario.length; i++) {
+            secoesDicionario[i] = ArquivoColunar.mapearDicionario(canal, posicoes[ArquivoColunar.SECAO_DIC_USUARIOS + i]);
+        }
+    }
+
+    /**
+     * Versão 1: sem o bitmap de transferências. Versões 1 e 2: sem as linhas
+     * do grafo e os campos originais.
+     */
+    private static boolean temSecao(int versao, int secao) {
+        if (secao == ArquivoColunar.SECAO_TRANSFERENCIAS) return versao >= 2;
+        if (secao == ArquivoColunar.SECAO_GRAFO || secao == ArquivoColunar.SECAO_ORIGINAIS) return versao >= 3;
+        return true;
+    }
+
+    /**
+     * Abre (mapeia) um arquivo gerado por {@link ArquivoColunar#converter}.
+     *
+     * @param caminhoArquivo Caminho do arquivo colunar
+     * @return Repositório pronto para uso
+     * @throws IOException Se o arquivo não existir ou não estiver no formato colunar
+     */
+    static RepositorioEventosMapeado abrir(String caminhoArquivo) throws IOException {
+        // Os buffers mapeados continuam válidos depois que o canal é fechado
+        try (FileChannel canal = FileChannel.open(Paths.get(caminhoArquivo), StandardOpenOption.READ)) {
+            return new RepositorioEventosMapeado(canal);
+        }
+    }
+
+    private LongBuffer[] mapearLongs(FileChannel canal, int secao, long quantidade) throws IOException {
+        long porSegmento = 1L << BITS_SEGMENTO_LONG;
+        LongBuffer[] segmentos = new LongBuffer[(int) Math.max(1, (quantidade + porSegmento - 1) / porSegmento)];
+        for (int i = 0; i < segmentos.length; i++) {
+            long inicio = i * porSegmento;
+            long tamanho = Math.min(porSegmento, quantidade - inicio);
+            segmentos[i] = mapear(canal, posicoes[secao] + inicio * 8, tamanho * 8).asLongBuffer();
+        }
+        return segmentos;
+    }
+
+    private IntBuffer[] mapearInts(FileChannel canal, int secao, long quantidade) throws IOException {
+        long porSegmento = 1L << BITS_SEGMENTO_INT;
+        IntBuffer[] segmentos = new IntBuffer[(int) Math.max(1, (quantidade + porSegmento - 1) / porSegmento)];
+        for (int i = 0; i < segmentos.length; i++) {
+            long inicio = i * porSegmento;
+            long tamanho = Math.min(porSegmento, quantidade - inicio);
+            segmentos[i] = mapear(canal, posicoes[secao] + inicio * 4, tamanho * 4).asIntBuffer();
+        }
+        return segmentos;
+    }
+
+    private static ByteBuffer mapear(FileChannel canal, long posicao, long tamanho) throws IOException {
+        MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, posicao, Math.max(tamanho, 0));
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Decodifica um dicionário do arquivo (feito uma única vez, sob demanda).
+     */
+    private Dicionario lerDicionario(int secao) {
+        return ArquivoColunar.lerDicionario(secoesDicionario[secao - ArquivoColunar.SECAO_DIC_USUARIOS]);
+    }
+
+    /** @return Menor TIMESTAMP entre as linhas completas (do cabeçalho) */
+    public long getMenorTimestamp() {
+        return menorTimestamp;
+    }
+
+    /** @return Maior TIMESTAMP entre as linhas completas (do cabeçalho) */
+    public long getMaiorTimestamp() {
+        return maiorTimestamp;
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // ACESSO ÀS COLUNAS
+    // ═══════════════════════════════════════════════════════════════
+
+    @Override
+    public int tamanho() {
+        return total;
+    }
+
+    @Override
+    public boolean isCompleta(int linha) {
+        return marcada(completas, linha);
+    }
+
+    @Override
+    public boolean isTransferenciaValida(int linha) {
+        return marcada(transferencias, linha);
+    }
+
+    @Override
+    public boolean isLinhaDoGrafo(int linha) {
+        return marcada(linhasDoGrafo, linha);
+    }
+
+    @Override
+    CamposOriginais camposOriginais() {
+        CamposOriginais c = originais;
+        if (c == null) {
+            synchronized (this) {
+                if (originais == null) {
+                    originais = secaoOriginais == null ? new CamposOriginais() : CamposOriginais.ler(secaoOriginais);
+                }
+                c = originais;
+            }
+        }
+        return c;
+    }
+
+    private static boolean marcada(LongBuffer[] bitmap, int linha) {
+        int indice = linha >>> 6;
+        long palavra = bitmap[indice >>> BITS_SEGMENTO_LONG].get(indice & ((1 << BITS_SEGMENTO_LONG) - 1));
+        return (palavra & (1L << (linha & 63))) != 0;
+    }
+
+    @Override
+    public long getTimestamp(int linha) {
+        return timestamps[linha >>> BITS_SEGMENTO_LONG].get(linha & ((1 << BITS_SEGMENTO_LONG) - 1));
+    }
+
+    @Override
+    public int getSeveridade(int linha) {
+        return severidades[linha >>> BITS_SEGMENTO_INT].get(linha & ((1 << BITS_SEGMENTO_INT) - 1));
+    }
+
+    @Override
+    public long getBytes(int linha) {
+        return bytes[linha >>> BITS_SEGMENTO_LONG].get(linha & ((1 << BITS_SEGMENTO_LONG) - 1));
+    }
+
+    @Override
+    public int getUsuario(int linha) {
+        return usuarios[linha >>> BITS_SEGMENTO_INT].get(linha & ((1 << BITS_SEGMENTO_INT) - 1));
+    }
+
+    @Override
+    public int getSessao(int linha) {
+        return sessoes[linha >>> BITS_SEGMENTO_INT].get(linha & ((1 << BITS_SEGMENTO_INT) - 1));
+    }
+
+    @Override
+    public int getAcao(int linha) {
+        return acoes[linha >>> BITS_SEGMENTO_INT].get(linha & ((1 << BITS_SEGMENTO_INT) - 1));
+    }
+
+    @Override
+    public int getRecurso(int linha) {
+        return recursos[linha >>> BITS_SEGMENTO_INT].get(linha & ((1 << BITS_SEGMENTO_INT) - 1));
+    }
+
+    @Override
+    public Dicionario usuarios() {
+        Dicionario d = dicUsuarios;
+        if (d == null) {
+            synchronized (this) {
+                if (dicUsuarios == null) dicUsuarios = lerDicionario(ArquivoColunar.SECAO_DIC_USUARIOS);
+                d = dicUsuarios;
+            }
+        }
+        return d;
+    }
+
+    @Override
+    public Dicionario sessoes() {
+        Dicionario d = dicSessoes;
+        if (d == null) {
+            synchronized (this) {
+                if (dicSessoes == null) dicSessoes = lerDicionario(ArquivoColunar.SECAO_DIC_SESSOES);
+                d = dicSessoes;
+            }
+        }
+        return d;
+    }
+
+    @Override
+    public Dicionario acoes() {
+        Dicionario d = dicAcoes;
+        if (d == null) {
+            synchronized (this) {
+                if (dicAcoes == null) dicAcoes = lerDicionario(ArquivoColunar.SECAO_DIC_ACOES);
+                d = dicAcoes;
+            }
+        }
+        return d;
+    }
+
+    @Override
+    public Dicionario recursos() {
+        Dicionario d = dicRecursos;
+        if (d == null) {
+            synchronized (this) {
+                if (dicRecursos == null) dicRecursos = lerDicionario(ArquivoColunar.SECAO_DIC_RECURSOS);
+                d = dicRecursos;
+            }
+        }
+        return d;
+    }
+}
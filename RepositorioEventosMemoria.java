@@ -0,0 +1,522 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Repositório de Eventos em memória (arrays no heap)
+ *
+ * Carrega o CSV UMA única vez e guarda cada coluna em um array:
+ * - TIMESTAMP, SEVERITY_LEVEL e BYTES_TRANSFERRED em arrays primitivos
+ * - USER_ID, SESSION_ID, ACTION_TYPE e TARGET_RESOURCE como ids de um {@link Dicionario}
+ *
+ * Complexidade:
+ * - Carga: O(n) onde n é o número de linhas do log
+ * - Acesso a qualquer coluna de uma linha: O(1)
+ */
+class RepositorioEventosMemoria extends RepositorioEventos {
+
+    private int total;
+    private long[] timestamps;
+    private int[] severidades;
+    private long[] bytes;
+    private int[] usuarios;
+    private int[] sessoes;
+    private int[] acoes;
+    private int[] recursos;
+    private final BitSet completas;
+    private final BitSet transferencias;
+    private final BitSet linhasDoGrafo;
+    private final CamposOriginais originais = new CamposOriginais();
+
+    // Bytes do texto lidos na carga (num .gz, o texto descomprimido)
+    private long bytesLidos;
+
+    private final Dicionario dicUsuarios;
+    private final Dicionario dicSessoes;
+    private final Dicionario dicAcoes;
+    private final Dicionario dicRecursos;
+
+    RepositorioEventosMemoria(int capacidadeInicial) {
+        this.timestamps = new long[capacidadeInicial];
+        this.severidades = new int[capacidadeInicial];
+        this.bytes = new long[capacidadeInicial];
+        this.usuarios = new int[capacidadeInicial];
+        this.sessoes = new int[capacidadeInicial];
+        this.acoes = new int[capacidadeInicial];
+        this.recursos = new int[capacidadeInicial];
+        this.completas = new BitSet(capacidadeInicial);
+        this.transferencias = new BitSet(capacidadeInicial);
+        this.linhasDoGrafo = new BitSet(capacidadeInicial);
+
+        this.dicUsuarios = new Dicionario(256);
+        this.dicSessoes = new Dicionario(1024);
+        this.dicAcoes = new Dicionario(16);
+        this.dicRecursos = new Dicionario(1024);
+    }
+
+    /**
+     * Lê o arquivo CSV e monta o repositório colunar no heap.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs
+     * @return Repositório com todas as linhas válidas (nunca null)
+     * @throws IOException Caso ocorra erro de leitura no arquivo
+     */
+    static RepositorioEventosMemoria carregarCsv(String caminhoArquivo) throws IOException {
+        RepositorioEventosMemoria repositorio = new RepositorioEventosMemoria(1024);
+
+        try (LeitorCsvMapeado leitor = new LeitorCsvMapeado(caminhoArquivo)) {
+            if (!leitor.proximaLinha()) return repositorio; // Ignora o cabeçalho (arquivo vazio)
+
+            while (leitor.proximaLinha()) {
+                if (leitor.numeroCampos() < 4) continue;
+                repositorio.adicionarLinha(leitor);
+            }
+            repositorio.bytesLidos = leitor.posicaoProximaLinha();
+
+        } catch (IOException e) {
+            System.err.println("Erro ao ler o arquivo: " + e.getMessage());
+            throw e;
+        }
+
+        return repositorio;
+    }
+
+    /**
+     * Mesma carga, mas com o arquivo dividido em blocos (cada um começando
+     * no início de uma linha) lidos em paralelo no pool.
+     *
+     * Cada bloco vira um repositório parcial com dicionários próprios. Na
+     * junção os blocos são percorridos NA ORDEM do arquivo e os ids de cada
+     * dicionário parcial são traduzidos para o dicionário final, então as
+     * linhas e os ids ficam exatamente iguais aos de {@link #carregarCsv}
+     * (a ordem das linhas importa para os Desafios 2, 4 e 5).
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs
+     * @param pool           Pool onde os blocos são lidos
+     * @return Repositório com todas as linhas válidas (nunca null)
+     * @throws IOException Caso ocorra erro de leitura no arquivo
+     */
+    static RepositorioEventosMemoria carregarCsvParalelo(String caminhoArquivo, ForkJoinPool pool) throws IOException {
+        Path arquivo = Paths.get(caminhoArquivo);
+
+        try {
+            long inicioDados;
+            try (LeitorCsvMapeado leitor = new LeitorCsvMapeado(caminhoArquivo)) {
+                if (!leitor.proximaLinha()) return new RepositorioEventosMemoria(16); // Arquivo vazio
+                inicioDados = leitor.posicaoProximaLinha(); // Depois do cabeçalho
+            }
+
+            // Alguns blocos por thread: um bloco mais lento não segura os outros
+            long[] limites = LeitorCsvMapeado.dividirEmBlocos(arquivo, inicioDados, pool.getParallelism() * 4);
+
+            List<ForkJoinTask<RepositorioEventosMemoria>> tarefas = new ArrayList<>(limites.length - 1);
+            for (int i = 0; i + 1 < limites.length; i++) {
+                long inicio = limites[i];
+                long fim = limites[i + 1];
+                tarefas.add(pool.submit(() -> carregarBloco(arquivo, inicio, fim)));
+            }
+
+            List<RepositorioEventosMemoria> blocos = new ArrayList<>(tarefas.size());
+            for (ForkJoinTask<RepositorioEventosMemoria> tarefa : tarefas) {
+                blocos.add(aguardar(tarefa));
+            }
+            RepositorioEventosMemoria juntos = juntar(blocos, pool);
+            juntos.bytesLidos = inicioDados;
+            for (RepositorioEventosMemoria bloco : blocos) {
+                juntos.bytesLidos += bloco.bytesLidos;
+            }
+            return juntos;
+
+        } catch (IOException e) {
+            System.err.println("Erro ao ler o arquivo: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    private static RepositorioEventosMemoria carregarBloco(Path arquivo, long inicio, long fim) throws IOException {
+        RepositorioEventosMemoria bloco = new RepositorioEventosMemoria(1024);
+        try (LeitorCsvMapeado leitor = new LeitorCsvMapeado(arquivo, inicio, fim)) {
+            while (leitor.proximaLinha()) {
+                if (leitor.numeroCampos() < 4) continue;
+                bloco.adicionarLinha(leitor);
+            }
+            bloco.bytesLidos = leitor.posicaoProximaLinha() - inicio;
+        }
+        return bloco;
+    }
+
+    /**
+     * Junta os repositórios parciais (na ordem do arquivo) em um só.
+     * A tradução dos dicionários é sequencial (O(valores distintos)); a
+     * cópia das colunas é feita em paralelo, cada bloco na sua faixa.
+     */
+    private static RepositorioEventosMemoria juntar(List<RepositorioEventosMemoria> blocos, ForkJoinPool pool)
+            throws IOException {
+        int total = 0;
+        for (RepositorioEventosMemoria bloco : blocos) {
+            total += bloco.total;
+        }
+        RepositorioEventosMemoria juntos = new RepositorioEventosMemoria(Math.max(total, 16));
+        juntos.total = total;
+
+        List<ForkJoinTask<?>> copias = new ArrayList<>(blocos.size());
+        int deslocamento = 0;
+        for (RepositorioEventosMemoria bloco : blocos) {
+            int[] novoUsuario = traduzir(bloco.dicUsuarios, juntos.dicUsuarios);
+            int[] novaSessao = traduzir(bloco.dicSessoes, juntos.dicSessoes);
+            int[] novaAcao = traduzir(bloco.dicAcoes, juntos.dicAcoes);
+            int[] novoRecurso = traduzir(bloco.dicRecursos, juntos.dicRecursos);
+
+            // BitSet não aceita escrita concorrente: as linhas completas são marcadas aqui
+            for (int i = bloco.completas.nextSetBit(0); i >= 0; i = bloco.completas.nextSetBit(i + 1)) {
+                juntos.completas.set(deslocamento + i);
+            }
+            for (int i = bloco.transferencias.nextSetBit(0); i >= 0; i = bloco.transferencias.nextSetBit(i + 1)) {
+                juntos.transferencias.set(deslocamento + i);
+            }
+            for (int i = bloco.linhasDoGrafo.nextSetBit(0); i >= 0; i = bloco.linhasDoGrafo.nextSetBit(i + 1)) {
+                juntos.linhasDoGrafo.set(deslocamento + i);
+            }
+            for (int i = 0; i < bloco.originais.tamanho(); i++) {
+                juntos.originais.adicionar(deslocamento + bloco.originais.getLinha(i),
+                        bloco.originais.getSessao(i), bloco.originais.getRecurso(i));
+            }
+
+            int destino = deslocamento;
+            copias.add(pool.submit(() -> {
+                int n = bloco.total;
+                System.arraycopy(bloco.timestamps, 0, juntos.timestamps, destino, n);
+                System.arraycopy(bloco.severidades, 0, juntos.severidades, destino, n);
+                System.arraycopy(bloco.bytes, 0, juntos.bytes, destino, n);
+                for (int i = 0; i < n; i++) {
+                    juntos.usuarios[destino + i] = novoUsuario[bloco.usuarios[i]];
+                    juntos.sessoes[destino + i] = novaSessao[bloco.sessoes[i]];
+                    juntos.acoes[destino + i] = novaAcao[bloco.acoes[i]];
+                    juntos.recursos[destino + i] = novoRecurso[bloco.recursos[i]];
+                }
+            }));
+            deslocamento += bloco.total;
+        }
+
+        for (ForkJoinTask<?> copia : copias) {
+            aguardar(copia);
+        }
+        return juntos;
+    }
+
+    /**
+     * Carrega vários logs (um {@link ConjuntoLogs}) como um só: cada arquivo
+     * é lido numa tarefa do pool e os repositórios são intercalados por
+     * TIMESTAMP (ver {@link #intercalar}).
+     *
+     * @param arquivos Arquivos do conjunto, na ordem de desempate
+     * @param pool     Pool onde os arquivos são lidos
+     * @return Repositório com as linhas de todos os arquivos (nunca null)
+     * @throws IOException Caso ocorra erro de leitura em algum arquivo
+     */
+    static RepositorioEventosMemoria carregarConjunto(List<Path> arquivos, ForkJoinPool pool) throws IOException {
+        List<ForkJoinTask<RepositorioEventos>> tarefas = new ArrayList<>(arquivos.size());
+        for (Path arquivo : arquivos) {
+            String caminho = arquivo.toString();
+            tarefas.add(pool.submit(() -> ArquivoColunar.ehArquivoColunar(caminho)
+                    ? RepositorioEventosMapeado.abrir(caminho) : carregarCsv(caminho)));
+        }
+
+        List<RepositorioEventos> partes = new ArrayList<>(tarefas.size());
+        long total = 0;
+        long bytesLidos = 0;
+        for (int i = 0; i < tarefas.size(); i++) {
+            RepositorioEventos parte = aguardar(tarefas.get(i));
+            partes.add(parte);
+            total += parte.tamanho();
+            bytesLidos += parte instanceof RepositorioEventosMemoria
+                    ? ((RepositorioEventosMemoria) parte).bytesLidos : Files.size(arquivos.get(i));
+        }
+        if (total > Integer.MAX_VALUE) {
+            throw new IOException("Logs com mais de " + Integer.MAX_VALUE + " linhas nao sao suportados");
+        }
+        RepositorioEventosMemoria juntos = intercalar(partes, (int) total);
+        juntos.bytesLidos = bytesLidos;
+        return juntos;
+    }
+
+    /**
+     * K-way merge dos repositórios por TIMESTAMP, com um heap de cursores
+     * (O(n log k)).
+     *
+     * - A ordem de cada arquivo é mantida; linhas incompletas (sem TIMESTAMP)
+     *   andam junto com a linha completa anterior do mesmo arquivo
+     * - Empates de TIMESTAMP saem na ordem dos arquivos
+     * - Os ids dos dicionários são dados na ordem das linhas intercaladas,
+     *   como se o log intercalado fosse um único CSV
+     */
+    static RepositorioEventosMemoria intercalar(List<RepositorioEventos> partes, int total) {
+        int k = partes.size();
+        RepositorioEventosMemoria juntos = new RepositorioEventosMemoria(Math.max(total, 16));
+
+        int[][] novoUsuario = new int[k][];
+        int[][] novaSessao = new int[k][];
+        int[][] novaAcao = new int[k][];
+        int[][] novoRecurso = new int[k][];
+        int[] cursor = new int[k];
+        int[] cursorOriginais = new int[k];
+        long[] chave = new long[k];
+
+        // Heap mínimo de partes, pela chave da linha atual e depois pela ordem do arquivo
+        int[] heap = new int[k];
+        int tamanhoHeap = 0;
+        for (int p = 0; p < k; p++) {
+            RepositorioEventos parte = partes.get(p);
+            novoUsuario[p] = semTraducao(parte.usuarios());
+            novaSessao[p] = semTraducao(parte.sessoes());
+            novaAcao[p] = semTraducao(parte.acoes());
+            novoRecurso[p] = semTraducao(parte.recursos());
+            if (parte.tamanho() > 0) {
+                chave[p] = parte.isCompleta(0) ? parte.getTimestamp(0) : Long.MIN_VALUE;
+                heap[tamanhoHeap++] = p;
+            }
+        }
+        for (int i = tamanhoHeap / 2 - 1; i >= 0; i--) {
+            descer(heap, tamanhoHeap, i, chave);
+        }
+
+        while (tamanhoHeap > 0) {
+            int p = heap[0];
+            RepositorioEventos parte = partes.get(p);
+            int origem = cursor[p]++;
+
+            int linha = juntos.total++;
+            juntos.usuarios[linha] = traduzir(novoUsuario[p], parte.getUsuario(origem), parte.usuarios(), juntos.dicUsuarios);
+            juntos.sessoes[linha] = traduzir(novaSessao[p], parte.getSessao(origem), parte.sessoes(), juntos.dicSessoes);
+            juntos.acoes[linha] = traduzir(novaAcao[p], parte.getAcao(origem), parte.acoes(), juntos.dicAcoes);
+            juntos.recursos[linha] = traduzir(novoRecurso[p], parte.getRecurso(origem), parte.recursos(), juntos.dicRecursos);
+            if (parte.isTransferenciaValida(origem)) {
+                juntos.timestamps[linha] = parte.getTimestamp(origem);
+                juntos.bytes[linha] = parte.getBytes(origem);
+                juntos.transferencias.set(linha);
+            }
+            if (parte.isCompleta(origem)) {
+                juntos.severidades[linha] = parte.getSeveridade(origem);
+                juntos.completas.set(linha);
+            }
+            if (parte.isLinhaDoGrafo(origem)) {
+                juntos.linhasDoGrafo.set(linha);
+                CamposOriginais originais = parte.camposOriginais();
+                int o = cursorOriginais[p];
+                if (o < originais.tamanho() && originais.getLinha(o) == origem) {
+                    juntos.originais.adicionar(linha, originais.getSessao(o), originais.getRecurso(o));
+                    cursorOriginais[p]++;
+                }
+            }
+
+            if (cursor[p] < parte.tamanho()) {
+                if (parte.isCompleta(cursor[p])) {
+                    chave[p] = parte.getTimestamp(cursor[p]);
+                }
+            } else {
+                heap[0] = heap[--tamanhoHeap];
+            }
+            descer(heap, tamanhoHeap, 0, chave);
+        }
+        return juntos;
+    }
+
+    private static void descer(int[] heap, int tamanho, int i, long[] chave) {
+        while (true) {
+            int menor = i;
+            int esquerda = 2 * i + 1;
+            int direita = esquerda + 1;
+            if (esquerda < tamanho && antes(heap[esquerda], heap[menor], chave)) menor = esquerda;
+            if (direita < tamanho && antes(heap[direita], heap[menor], chave)) menor = direita;
+            if (menor == i) return;
+            int troca = heap[i];
+            heap[i] = heap[menor];
+            heap[menor] = troca;
+            i = menor;
+        }
+    }
+
+    private static boolean antes(int a, int b, long[] chave) {
+        return chave[a] < chave[b] || (chave[a] == chave[b] && a < b);
+    }
+
+    private static int[] semTraducao(Dicionario parcial) {
+        int[] traducao = new int[parcial.tamanho()];
+        Arrays.fill(traducao, -1);
+        return traducao;
+    }
+
+    /** Id no dicionário final, adicionando o valor na primeira vez que ele aparece */
+    private static int traduzir(int[] traducao, int id, Dicionario parcial, Dicionario destino) {
+        if (traducao[id] < 0) {
+            traducao[id] = destino.adicionar(parcial.valor(id));
+        }
+        return traducao[id];
+    }
+
+    /**
+     * @return Para cada id do dicionário parcial, o id no dicionário final
+     */
+    private static int[] traduzir(Dicionario parcial, Dicionario destino) {
+        int[] traducao = new int[parcial.tamanho()];
+        for (int id = 0; id < traducao.length; id++) {
+            traducao[id] = destino.adicionar(parcial.valor(id));
+        }
+        return traducao;
+    }
+
+    private static <T> T aguardar(ForkJoinTask<T> tarefa) throws IOException {
+        try {
+            return tarefa.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Leitura paralela interrompida");
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof IOException) throw (IOException) causa;
+            if (causa instanceof RuntimeException) throw (RuntimeException) causa;
+            throw new IOException(causa);
+        }
+    }
+
+    /**
+     * Adiciona a linha atual do leitor (com pelo menos 4 colunas).
+     */
+    void adicionarLinha(LeitorCsvMapeado leitor) {
+        if (total == timestamps.length) {
+            crescer();
+        }
+
+        int linha = total++;
+        usuarios[linha] = dicUsuarios.adicionar(leitor, 1);
+        sessoes[linha] = dicSessoes.adicionar(leitor, 2);
+        acoes[linha] = dicAcoes.adicionar(leitor, 3);
+        recursos[linha] = leitor.numeroCampos() > 4 ? dicRecursos.adicionar(leitor, 4) : dicRecursos.adicionar("");
+
+        // Igual ao String.split(","): colunas vazias no final não contam
+        if (leitor.numeroCamposPreenchidos() >= 7) {
+            try {
+                // Regra do Desafio 4: só TIMESTAMP e BYTES_TRANSFERRED (vazio conta como 0)
+                long timestamp = leitor.campoLong(0);
+                long quantidadeBytes = leitor.campoVazio(6) ? 0 : leitor.campoLong(6);
+
+                timestamps[linha] = timestamp;
+                bytes[linha] = quantidadeBytes;
+                transferencias.set(linha);
+
+                if (!leitor.campoVazio(6)) {
+                    severidades[linha] = leitor.campoInt(5);
+                    completas.set(linha);
+                    if (GrafoContaminacao.numerosSemEspacos(leitor)) {
+                        linhasDoGrafo.set(linha);
+                        originais.adicionar(linha, leitor);
+                    }
+                }
+            } catch (NumberFormatException e) {
+                // Linha incompleta: continua disponível para os Desafios 1 e 2
+            }
+        }
+    }
+
+    private void crescer() {
+        int novaCapacidade = timestamps.length * 2;
+        timestamps = Arrays.copyOf(timestamps, novaCapacidade);
+        severidades = Arrays.copyOf(severidades, novaCapacidade);
+        bytes = Arrays.copyOf(bytes, novaCapacidade);
+        usuarios = Arrays.copyOf(usuarios, novaCapacidade);
+        sessoes = Arrays.copyOf(sessoes, novaCapacidade);
+        acoes = Arrays.copyOf(acoes, novaCapacidade);
+        recursos = Arrays.copyOf(recursos, novaCapacidade);
+    }
+
+    /** @return Bytes do texto lidos na carga (num .gz, o texto descomprimido) */
+    long bytesLidos() {
+        return bytesLidos;
+    }
+
+    @Override
+    public int tamanho() {
+        return total;
+    }
+
+    @Override
+    public boolean isCompleta(int linha) {
+        return completas.get(linha);
+    }
+
+    @Override
+    public boolean isTransferenciaValida(int linha) {
+        return transferencias.get(linha);
+    }
+
+    @Override
+    public boolean isLinhaDoGrafo(int linha) {
+        return linhasDoGrafo.get(linha);
+    }
+
+    @Override
+    CamposOriginais camposOriginais() {
+        return originais;
+    }
+
+    @Override
+    public long getTimestamp(int linha) {
+        return timestamps[linha];
+    }
+
+    @Override
+    public int getSeveridade(int linha) {
+        return severidades[linha];
+    }
+
+    @Override
+    public long getBytes(int linha) {
+        return bytes[linha];
+    }
+
+    @Override
+    public int getUsuario(int linha) {
+        return usuarios[linha];
+    }
+
+    @Override
+    public int getSessao(int linha) {
+        return sessoes[linha];
+    }
+
+    @Override
+    public int getAcao(int linha) {
+        return acoes[linha];
+    }
+
+    @Override
+    public int getRecurso(int linha) {
+        return recursos[linha];
+    }
+
+    @Override
+    public Dicionario usuarios() {
+        return dicUsuarios;
+    }
+
+    @Override
+    public Dicionario sessoes() {
+        return dicSessoes;
+    }
+
+    @Override
+    public Dicionario acoes() {
+        return dicAcoes;
+    }
+
+    @Override
+    public Dicionario recursos() {
+        return dicRecursos;
+    }
+}
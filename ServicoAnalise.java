@@ -0,0 +1,473 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serviço de Análise Residente (HTTP em localhost)
+ *
+ * Cada main dos Desafios 1 a 5 sobe uma JVM, lê o log inteiro e responde
+ * uma única pergunta. Aqui o log é carregado UMA vez (RepositorioEventos +
+ * grafo + respostas que não dependem de parâmetro) e as consultas são
+ * respondidas a partir da memória:
+ *
+ *   GET  /sessoes-invalidas                       Desafio 1 (pré-calculado)
+ *   GET  /linha-do-tempo?sessao=ID                Desafio 2 (índice de linhas por sessão)
+ *   GET  /alertas?n=N                             Desafio 3 (top pré-calculado)
+ *   GET  /picos?timestamp=T  |  /picos?limite=K   Desafio 4 (pré-calculado)
+ *   GET  /transferencia-acima?timestamp=T&bytes=X primeiro evento a partir de T com mais de X bytes
+ *                                                 ({@link ArvoreMaximos}, O(log n))
+ *   GET  /contaminacao?origem=A&destino=B         Desafio 5 (BFS no grafo já montado)
+ *   POST /recarregar                              relê o arquivo e troca o estado
+ *   GET  /metricas                                relatório do {@link MetricasAnalise} (JSON)
+ *
+ * Cada requisição roda em uma virtual thread, então consultas de vários
+ * analistas ao mesmo tempo não esperam umas pelas outras. O estado não muda
+ * depois de carregado e só é lido pelas consultas: as listas são somente
+ * leitura e a de alertas cria cada Alerta na primeira leitura de forma
+ * segura entre threads (ver {@link LoteAlertas.Lista}). /recarregar monta
+ * um estado novo e troca a referência (as consultas em andamento terminam
+ * com o estado antigo); só uma recarga roda por vez, e um pedido que chega
+ * durante outra recebe 409.
+ * A latência de cada consulta entra nas métricas "servico/&lt;consulta&gt;".
+ *
+ * Uso: java ServicoAnalise [arquivo] [porta]
+ */
+public class ServicoAnalise {
+
+    // Alertas guardados prontos; pedidos maiores recalculam na hora
+    private static final int ALERTAS_PRE_CALCULADOS = 1000;
+    private static final int LIMITE_PICOS_PADRAO = 100;
+
+    /**
+     * Tudo o que as consultas precisam, calculado uma vez por carga do log.
+     */
+    private static final class Estado {
+        final RepositorioEventos repositorio;
+        final GrafoContaminacao grafo;
+        final List<String> sessoesInvalidas;
+        final List<Alerta> melhoresAlertas;
+        final PicosTransferencia picos;
+        final MapaLongLong picosPorTimestamp;
+        final ArvoreMaximos maximos;
+
+        // Linhas de cada sessão, na ordem do arquivo (CSR pelo id da sessão)
+        final int[] inicioSessao;
+        final int[] linhasSessao;
+
+        final long tempoCargaMs;
+
+        Estado(String caminhoArquivo) throws IOException {
+            long inicio = System.nanoTime();
+
+            repositorio = RepositorioEventos.carregar(caminhoArquivo);
+            grafo = GrafoContaminacao.construir(repositorio);
+
+            List<String> invalidas = new ArrayList<>(
+                    new Desafio1_SessoesInvalidas().encontrarSessoesInvalidas(repositorio));
+            Collections.sort(invalidas);
+            sessoesInvalidas = Collections.unmodifiableList(invalidas);
+
+            melhoresAlertas = Collections.unmodifiableList(
+                    new Desafio3_PriorizarAlertas().priorizarAlertas(repositorio, ALERTAS_PRE_CALCULADOS));
+
+            picos = new Desafio4_DetectorDeTransferenciaDeDados().detectarPicos(repositorio);
+            picosPorTimestamp = picos.mapaPorTimestamp();
+            maximos = ArvoreMaximos.construir(repositorio);
+
+            // Contagem por sessão e depois preenchimento (mantém a ordem das linhas)
+            int totalSessoes = repositorio.sessoes().tamanho();
+            inicioSessao = new int[totalSessoes + 1];
+            for (int linha = 0; linha < repositorio.tamanho(); linha++) {
+                inicioSessao[repositorio.getSessao(linha) + 1]++;
+            }
+            for (int s = 0; s < totalSessoes; s++) {
+                inicioSessao[s + 1] += inicioSessao[s];
+            }
+            linhasSessao = new int[repositorio.tamanho()];
+            int[] proxima = Arrays.copyOf(inicioSessao, totalSessoes);
+            for (int linha = 0; linha < repositorio.tamanho(); linha++) {
+                linhasSessao[proxima[repositorio.getSessao(linha)]++] = linha;
+            }
+
+            tempoCargaMs = (System.nanoTime() - inicio) / 1_000_000;
+        }
+    }
+
+    private final String caminhoArquivo;
+    private final ReentrantLock recarga = new ReentrantLock();
+    private volatile Estado estado;
+    private HttpServer servidor;
+    private ExecutorService executor;
+
+    /**
+     * Carrega o log (o serviço só aceita consultas depois disso).
+     *
+     * @param caminhoArquivo Caminho para o CSV de logs ou para o arquivo colunar
+     * @throws IOException Se houver erro ao ler o arquivo
+     */
+    public ServicoAnalise(String caminhoArquivo) throws IOException {
+        this.caminhoArquivo = caminhoArquivo;
+        this.estado = new Estado(caminhoArquivo);
+    }
+
+    /**
+     * Começa a atender em localhost.
+     *
+     * @param porta Porta TCP (0 escolhe uma porta livre)
+     * @return Porta em que o serviço está atendendo
+     * @throws IOException Se a porta não puder ser aberta
+     */
+    public synchronized int iniciar(int porta) throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), porta), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        servidor.setExecutor(executor);
+
+        servidor.createContext("/sessoes-invalidas", troca -> responder(troca, "GET", this::sessoesInvalidas));
+        servidor.createContext("/linha-do-tempo", troca -> responder(troca, "GET", this::linhaDoTempo));
+        servidor.createContext("/alertas", troca -> responder(troca, "GET", this::alertas));
+        servidor.createContext("/picos", troca -> responder(troca, "GET", this::picos));
+        servidor.createContext("/transferencia-acima", troca -> responder(troca, "GET", this::transferenciaAcima));
+        servidor.createContext("/contaminacao", troca -> responder(troca, "GET", this::contaminacao));
+        servidor.createContext("/recarregar", troca -> responder(troca, "POST", this::recarregar));
+        servidor.createContext("/metricas", troca -> responder(troca, "GET", parametros -> MetricasAnalise.relatorioJson()));
+        servidor.createContext("/", troca -> responder(troca, "GET", parametros -> {
+            throw new ConsultaInvalida(404, "Consulta desconhecida: " + troca.getRequestURI().getPath());
+        }));
+
+        servidor.start();
+        return servidor.getAddress().getPort();
+    }
+
+    /** Para de atender (espera até 1 segundo pelas consultas em andamento). */
+    public synchronized void parar() {
+        if (servidor != null) {
+            servidor.stop(1);
+            executor.shutdown();
+            servidor = null;
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // CONSULTAS
+    // ═══════════════════════════════════════════════════════════════
+
+    private String sessoesInvalidas(Map<String, String> parametros) {
+        List<String> invalidas = estado.sessoesInvalidas;
+        StringBuilder json = new StringBuilder(32 + invalidas.size() * 24);
+        json.append("{\"total\":").append(invalidas.size()).append(",\"sessoes\":");
+        listaJson(json, invalidas);
+        return json.append('}').toString();
+    }
+
+    private String linhaDoTempo(Map<String, String> parametros) {
+        String sessao = obrigatorio(parametros, "sessao");
+        Estado atual = estado;
+
+        StringBuilder json = new StringBuilder(64);
+        json.append("{\"sessao\":");
+        textoJson(json, sessao);
+        json.append(",\"acoes\":[");
+        int id = atual.repositorio.sessoes().idDe(sessao);
+        if (id >= 0) {
+            Dicionario acoes = atual.repositorio.acoes();
+            for (int i = atual.inicioSessao[id]; i < atual.inicioSessao[id + 1]; i++) {
+                if (i > atual.inicioSessao[id]) json.append(',');
+                textoJson(json, acoes.valor(atual.repositorio.getAcao(atual.linhasSessao[i])));
+            }
+        }
+        return json.append("]}").toString();
+    }
+
+    private String alertas(Map<String, String> parametros) {
+        int n = inteiro(parametros, "n", 10);
+        Estado atual = estado;
+
+        List<Alerta> alertas;
+        if (n <= ALERTAS_PRE_CALCULADOS) {
+            alertas = atual.melhoresAlertas.subList(0, Math.min(Math.max(n, 0), atual.melhoresAlertas.size()));
+        } else {
+            alertas = new Desafio3_PriorizarAlertas().priorizarAlertas(atual.repositorio, n);
+        }
+
+        StringBuilder json = new StringBuilder(32 + alertas.size() * 160);
+        json.append("{\"total\":").append(alertas.size()).append(",\"alertas\":[");
+        for (int i = 0; i < alertas.size(); i++) {
+            Alerta alerta = alertas.get(i);
+            if (i > 0) json.append(',');
+            json.append("{\"timestamp\":").append(alerta.getTimestamp());
+            json.append(",\"userId\":");
+            textoJson(json, alerta.getUserId());
+            json.append(",\"sessionId\":");
+            textoJson(json, alerta.getSessionId());
+            json.append(",\"actionType\":");
+            textoJson(json, alerta.getActionType());
+            json.append(",\"targetResource\":");
+            textoJson(json, alerta.getTargetResource());
+            json.append(",\"severityLevel\":").append(alerta.getSeverityLevel());
+            json.append(",\"bytesTransferred\":").append(alerta.getBytesTransferred()).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private String picos(Map<String, String> parametros) {
+        Estado atual = estado;
+        StringBuilder json = new StringBuilder(64);
+
+        if (parametros.containsKey("timestamp")) {
+            // Mesmo par do Map<Long, Long> do Desafio 4
+            long timestamp = inteiroLongo(parametros, "timestamp");
+            json.append("{\"timestamp\":").append(timestamp).append(",\"proximoMaior\":");
+            if (atual.picosPorTimestamp.contemChave(timestamp)) {
+                json.append(atual.picosPorTimestamp.valorDe(timestamp, 0));
+            } else {
+                json.append("null");
+            }
+            return json.append('}').toString();
+        }
+
+        // Sem timestamp: os primeiros eventos com pico, na ordem do log
+        int limite = inteiro(parametros, "limite", LIMITE_PICOS_PADRAO);
+        PicosTransferencia picos = atual.picos;
+        json.append("{\"total\":").append(picos.numeroPicos()).append(",\"picos\":[");
+        int escritos = 0;
+        for (int evento = 0; evento < picos.tamanho() && escritos < limite; evento++) {
+            if (!picos.temPico(evento)) continue;
+            if (escritos++ > 0) json.append(',');
+            json.append("{\"timestamp\":").append(picos.getTimestamp(evento))
+                    .append(",\"proximoMaior\":").append(picos.getTimestampProximoMaior(evento)).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private String transferenciaAcima(Map<String, String> parametros) {
+        Estado atual = estado;
+        long timestamp = inteiroLongo(parametros, "timestamp");
+        long bytes = inteiroLongo(parametros, "bytes");
+
+        StringBuilder json = new StringBuilder(128);
+        json.append("{\"timestamp\":").append(timestamp).append(",\"bytes\":").append(bytes).append(",\"evento\":");
+        int evento = atual.maximos.primeiroAcima(timestamp, bytes);
+        if (evento == ArvoreMaximos.SEM_EVENTO) {
+            return json.append("null}").toString();
+        }
+        int linha = atual.maximos.getLinha(evento);
+        json.append("{\"timestamp\":").append(atual.maximos.getTimestamp(evento));
+        json.append(",\"userId\":");
+        textoJson(json, atual.repositorio.usuarios().valor(atual.repositorio.getUsuario(linha)));
+        json.append(",\"sessionId\":");
+        textoJson(json, atual.repositorio.sessoes().valor(atual.repositorio.getSessao(linha)));
+        json.append(",\"bytesTransferred\":").append(atual.maximos.getBytes(evento)).append('}');
+        return json.append('}').toString();
+    }
+
+    private String contaminacao(Map<String, String> parametros) {
+        String origem = obrigatorio(parametros, "origem");
+        String destino = obrigatorio(parametros, "destino");
+
+        Optional<List<String>> caminho = estado.grafo.caminhoMaisCurto(origem, destino);
+        StringBuilder json = new StringBuilder(128);
+        json.append("{\"origem\":");
+        textoJson(json, origem);
+        json.append(",\"destino\":");
+        textoJson(json, destino);
+        json.append(",\"caminho\":");
+        if (caminho.isPresent()) {
+            listaJson(json, caminho.get());
+        } else {
+            json.append("null");
+        }
+        return json.append('}').toString();
+    }
+
+    private String recarregar(Map<String, String> parametros) throws IOException {
+        // tryLock em vez de synchronized: não prende a thread portadora da virtual thread
+        if (!recarga.tryLock()) {
+            throw new ConsultaInvalida(409, "Ja existe uma recarga em andamento");
+        }
+        try {
+            Estado novo = new Estado(caminhoArquivo);
+            estado = novo;
+            return "{\"linhas\":" + novo.repositorio.tamanho() + ",\"tempoCargaMs\":" + novo.tempoCargaMs + "}";
+        } finally {
+            recarga.unlock();
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // HTTP
+    // ═══════════════════════════════════════════════════════════════
+
+    @FunctionalInterface
+    private interface Consulta {
+        String executar(Map<String, String> parametros) throws IOException;
+    }
+
+    /** Erro de consulta com o status HTTP correspondente */
+    private static final class ConsultaInvalida extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ConsultaInvalida(int status, String mensagem) {
+            super(mensagem);
+            this.status = status;
+        }
+    }
+
+    private static void responder(HttpExchange troca, String metodo, Consulta consulta) throws IOException {
+        int status = 200;
+        String corpo;
+        // O caminho do contexto (e não o da URI) mantém o número de métricas fixo
+        MetricasAnalise metricas = MetricasAnalise.de("servico" + troca.getHttpContext().getPath());
+        try (MetricasAnalise.Medicao medicao = metricas.iniciar(MetricasAnalise.Fase.CONSULTA)) {
+            medicao.linhas(1); // Uma requisição
+            if (!metodo.equals(troca.getRequestMethod())) {
+                throw new ConsultaInvalida(405, "Use " + metodo);
+            }
+            corpo = consulta.executar(parametros(troca.getRequestURI().getRawQuery()));
+        } catch (ConsultaInvalida e) {
+            status = e.status;
+            corpo = erroJson(e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            status = 500;
+            corpo = erroJson(e.getMessage());
+        }
+
+        byte[] resposta = corpo.getBytes(StandardCharsets.UTF_8);
+        troca.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        troca.sendResponseHeaders(status, resposta.length);
+        try (OutputStream saida = troca.getResponseBody()) {
+            saida.write(resposta);
+        }
+    }
+
+    private static Map<String, String> parametros(String consulta) {
+        Map<String, String> parametros = new HashMap<>();
+        if (consulta == null || consulta.isEmpty()) return parametros;
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            String nome = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            try {
+                parametros.put(URLDecoder.decode(nome, StandardCharsets.UTF_8), URLDecoder.decode(valor, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                // Escape % incompleto ou inválido (ex.: "sessao=%zz")
+                throw new ConsultaInvalida(400, "Parametro mal codificado: " + par);
+            }
+        }
+        return parametros;
+    }
+
+    private static String obrigatorio(Map<String, String> parametros, String nome) {
+        String valor = parametros.get(nome);
+        if (valor == null || valor.isEmpty()) {
+            throw new ConsultaInvalida(400, "Parametro obrigatorio: " + nome);
+        }
+        return valor;
+    }
+
+    private static int inteiro(Map<String, String> parametros, String nome, int padrao) {
+        if (!parametros.containsKey(nome)) return padrao;
+        long valor = inteiroLongo(parametros, nome);
+        if (valor < 0 || valor > Integer.MAX_VALUE) {
+            throw new ConsultaInvalida(400, "Parametro fora do intervalo: " + nome);
+        }
+        return (int) valor;
+    }
+
+    private static long inteiroLongo(Map<String, String> parametros, String nome) {
+        try {
+            return Long.parseLong(obrigatorio(parametros, nome).trim());
+        } catch (NumberFormatException e) {
+            throw new ConsultaInvalida(400, "Parametro nao numerico: " + nome);
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // JSON
+    // ═══════════════════════════════════════════════════════════════
+
+    private static String erroJson(String mensagem) {
+        StringBuilder json = new StringBuilder("{\"erro\":");
+        textoJson(json, String.valueOf(mensagem));
+        return json.append('}').toString();
+    }
+
+    private static void listaJson(StringBuilder json, List<String> valores) {
+        json.append('[');
+        for (int i = 0; i < valores.size(); i++) {
+            if (i > 0) json.append(',');
+            textoJson(json, valores.get(i));
+        }
+        json.append(']');
+    }
+
+    private static void textoJson(StringBuilder json, String valor) {
+        json.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+
+    // ═══════════════════════════════════════════════════════════════
+    // MÉTODO PRINCIPAL
+    // ═══════════════════════════════════════════════════════════════
+    public static void main(String[] args) {
+        String arquivo = args.length > 0 ? args[0] : "analise-forense-aed.jar";
+        int porta = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+
+        System.out.println("===========================================================");
+        System.out.println("=           SERVICO DE ANALISE FORENSE (HTTP)             =");
+        System.out.println("===========================================================\n");
+
+        try {
+            ServicoAnalise servico = new ServicoAnalise(arquivo);
+            int portaAberta = servico.iniciar(porta);
+            String base = "http://localhost:" + portaAberta;
+
+            System.out.println("Arquivo: " + arquivo);
+            System.out.println("Linhas carregadas: " + servico.estado.repositorio.tamanho());
+            System.out.println("Tempo de carga: " + servico.estado.tempoCargaMs + " ms");
+            System.out.println("------------------------------------------------------------");
+            System.out.println("Consultas:");
+            System.out.println("  " + base + "/sessoes-invalidas");
+            System.out.println("  " + base + "/linha-do-tempo?sessao=session-a-01");
+            System.out.println("  " + base + "/alertas?n=5");
+            System.out.println("  " + base + "/picos?limite=10   |   /picos?timestamp=1700000012");
+            System.out.println("  " + base + "/transferencia-acima?timestamp=1700000012&bytes=100000");
+            System.out.println("  " + base + "/contaminacao?origem=/usr/bin/sshd&destino=/etc/shadow");
+            System.out.println("  curl -X POST " + base + "/recarregar");
+            System.out.println("===========================================================");
+
+            Runtime.getRuntime().addShutdownHook(new Thread(servico::parar));
+
+        } catch (IOException e) {
+            System.err.println("Erro: " + e.getMessage());
+        }
+    }
+}
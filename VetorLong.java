@@ -0,0 +1,56 @@
+import java.util.Arrays;
+
+/**
+ * Vetor de long que cresce sozinho (como um ArrayList&lt;Long&gt;, mas sem boxing)
+ *
+ * Cada add() grava direto num long[]; o array só é realocado quando
+ * enche (dobrando de tamanho), então não há alocação por elemento.
+ */
+public class VetorLong {
+
+    private long[] valores;
+    private int tamanho;
+
+    public VetorLong() {
+        this(16);
+    }
+
+    public VetorLong(int capacidadeInicial) {
+        this.valores = new long[Math.max(capacidadeInicial, 1)];
+    }
+
+    public void add(long valor) {
+        if (tamanho == valores.length) {
+            valores = Arrays.copyOf(valores, Math.max(tamanho * 2, 16));
+        }
+        valores[tamanho++] = valor;
+    }
+
+    public long get(int indice) {
+        if (indice >= tamanho) {
+            throw new ArrayIndexOutOfBoundsException("Indice " + indice + " fora do vetor de tamanho " + tamanho);
+        }
+        return valores[indice];
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public boolean isEmpty() {
+        return tamanho == 0;
+    }
+
+    /**
+     * @return O array interno (pode ser maior que {@link #tamanho()}).
+     *         Só as posições [0, tamanho) são válidas.
+     */
+    public long[] arrayInterno() {
+        return valores;
+    }
+
+    /** @return Cópia com exatamente {@link #tamanho()} posições */
+    public long[] toArray() {
+        return Arrays.copyOf(valores, tamanho);
+    }
+}
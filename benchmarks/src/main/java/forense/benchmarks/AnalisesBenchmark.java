@@ -0,0 +1,105 @@
+package forense.benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks das cinco análises, cada uma lendo o log do disco (o mesmo
+ * caminho usado pelos métodos main), com 10K, 1M e 10M linhas.
+ *
+ * As classes dos desafios estão no pacote padrão, que não pode ser
+ * importado de um pacote nomeado; por isso elas são chamadas por
+ * MethodHandle, resolvido uma única vez no @Setup.
+ *
+ * Vazão em operações por segundo; o {@link ExecutarBenchmarks} liga o
+ * profiler de GC para mostrar também a taxa de alocação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AnalisesBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int linhas;
+
+    private String arquivo;
+
+    private MethodHandle sessoesInvalidas;
+    private MethodHandle linhaDoTempo;
+    private MethodHandle priorizarAlertas;
+    private MethodHandle picosTransferencia;
+    private MethodHandle rastrearContaminacao;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Throwable {
+        arquivo = LogSintetico.arquivo(linhas).toString();
+
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        sessoesInvalidas = metodo(lookup, "Desafio1_SessoesInvalidas", "encontrarSessoesInvalidas",
+                MethodType.methodType(Set.class, String.class));
+        linhaDoTempo = metodo(lookup, "Desafio2_LinhaDoTempo", "reconstruirLinhaDoTempo",
+                MethodType.methodType(List.class, String.class, String.class));
+        priorizarAlertas = metodo(lookup, "Desafio3_PriorizarAlertas", "priorizarAlertas",
+                MethodType.methodType(List.class, String.class, int.class));
+        picosTransferencia = metodo(lookup, "Desafio4_DetectorDeTransferenciaDeDados", "identificarPicosTransferencia",
+                MethodType.methodType(Map.class, String.class));
+        rastrearContaminacao = lookup.findStatic(Class.forName("Desafio5RastrearContaminacao"), "rastrearContaminacao",
+                MethodType.methodType(Optional.class, String.class, String.class, String.class));
+    }
+
+    /** Método de instância já ligado a um objeto novo do desafio */
+    private static MethodHandle metodo(MethodHandles.Lookup lookup, String classe, String nome, MethodType tipo)
+            throws Throwable {
+        Class<?> desafio = Class.forName(classe);
+        Object instancia = desafio.getConstructor().newInstance();
+        return lookup.findVirtual(desafio, nome, tipo).bindTo(instancia);
+    }
+
+    @Benchmark
+    public Object desafio1_encontrarSessoesInvalidas() throws Throwable {
+        return (Set<?>) sessoesInvalidas.invokeExact(arquivo);
+    }
+
+    @Benchmark
+    public Object desafio2_reconstruirLinhaDoTempo() throws Throwable {
+        return (List<?>) linhaDoTempo.invokeExact(arquivo, LogSintetico.SESSAO_CONSULTADA);
+    }
+
+    @Benchmark
+    public Object desafio3_priorizarAlertas() throws Throwable {
+        return (List<?>) priorizarAlertas.invokeExact(arquivo, 10);
+    }
+
+    @Benchmark
+    public Object desafio4_identificarPicosTransferencia() throws Throwable {
+        return (Map<?, ?>) picosTransferencia.invokeExact(arquivo);
+    }
+
+    @Benchmark
+    public Object desafio5_rastrearContaminacao() throws Throwable {
+        return (Optional<?>) rastrearContaminacao.invokeExact(
+                arquivo, LogSintetico.RECURSO_ORIGEM, LogSintetico.RECURSO_DESTINO);
+    }
+}
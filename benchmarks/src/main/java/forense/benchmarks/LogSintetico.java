@@ -0,0 +1,58 @@
+package forense.benchmarks;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Gera (uma única vez) os logs usados pelos benchmarks, com o GeradorLogs
+ * da raiz do repositório (semente fixa, configuração padrão).
+ *
+ * Cada tamanho vira um arquivo fixo em {@code forense.dados} (padrão:
+ * target/dados-benchmark), reaproveitado por todos os forks do JMH.
+ * O GeradorLogs está no pacote padrão, então é chamado por reflexão.
+ */
+final class LogSintetico {
+
+    static final String SESSAO_CONSULTADA = "sess-1";
+
+    // Primeira cadeia lateral plantada pelo GeradorLogs (8 saltos por padrão)
+    static final String RECURSO_ORIGEM = "/lateral/0/host-0";
+    static final String RECURSO_DESTINO = "/lateral/0/host-7";
+
+    private static final long SEMENTE = 42;
+
+    private LogSintetico() {
+    }
+
+    /**
+     * @param linhas Número de eventos do log
+     * @return Caminho do arquivo (gerado se ainda não existir)
+     */
+    static synchronized Path arquivo(int linhas) throws IOException, ReflectiveOperationException {
+        Path pasta = Path.of(System.getProperty("forense.dados", "target/dados-benchmark"));
+        Path arquivo = pasta.resolve("log-" + linhas + "-" + SEMENTE + ".csv");
+        if (Files.exists(arquivo)) {
+            return arquivo;
+        }
+
+        Files.createDirectories(pasta);
+        Path temporario = Files.createTempFile(pasta, "log-" + linhas, ".tmp");
+
+        Class<?> gerador = Class.forName("GeradorLogs");
+        Object instancia = gerador.getConstructor(long.class).newInstance(SEMENTE);
+        gerador.getMethod("linhas", long.class).invoke(instancia, (long) linhas);
+        try {
+            gerador.getMethod("gerar", Path.class).invoke(instancia, temporario);
+        } catch (InvocationTargetException e) {
+            Files.deleteIfExists(temporario);
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw e;
+        }
+
+        Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE);
+        return arquivo;
+    }
+}